@@ -4,11 +4,13 @@ import org.example.controller.DataController;
 import org.example.controller.MainController;
 import org.example.theme.ThemeManager;
 import org.example.util.SoundManager;
+import org.example.util.TaskScheduler;
 import org.example.view.ModernMainView;
 import org.example.view.SplashScreen;
 
 import javax.swing.*;
 import java.awt.*;
+import java.lang.management.ManagementFactory;
 
 public class ModernMain {
 
@@ -24,46 +26,12 @@ public class ModernMain {
         }
 
         System.out.println("Initializing CPV Analysis Tool Professional Edition...");
-        SoundManager.initialize();
 
         SwingUtilities.invokeLater(() -> {
+            ThemeManager.applyTheme(ThemeManager.LIGHT_THEME);
             SplashScreen splashScreen = new SplashScreen();
             splashScreen.showSplash();
-        });
-
-        SwingUtilities.invokeLater(() -> {
-            try {
-                ThemeManager.applyTheme(ThemeManager.LIGHT_THEME);
-
-                System.out.println("Creating application components...");
-
-                ModernMainView view = new ModernMainView();
-                DataController dataController = new DataController();
-                MainController mainController = new MainController(view, dataController);
-
-                view.setDataController(dataController);
-                view.setMainController(mainController);
-
-                configureApplication(view);
-
-                System.out.println("Starting CPV Analysis Tool...");
-                view.show();
-
-                SoundManager.playSound(SoundManager.SOUND_STARTUP);
-
-                System.out.println("CPV Analysis Tool Professional Edition started successfully!");
-
-            } catch (Exception e) {
-                System.err.println("Error starting application: " + e.getMessage());
-                e.printStackTrace();
-
-                JOptionPane.showMessageDialog(null,
-                        "Failed to start CPV Analysis Tool:\n" + e.getMessage(),
-                        "Startup Error",
-                        JOptionPane.ERROR_MESSAGE);
-
-                System.exit(1);
-            }
+            start(splashScreen);
         });
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -73,6 +41,60 @@ public class ModernMain {
         }));
     }
 
+    /**
+     * Builds the main window on the event dispatch thread, reporting each step on the splash screen,
+     * and shows it as soon as it is ready. Sound, the heavy tabs and their libraries are only set
+     * up after the window is shown.
+     */
+    private static void start(SplashScreen splashScreen) {
+        try {
+            System.out.println("Creating application components...");
+            splashScreen.setProgress(20, "Creating main window...");
+            ModernMainView view = new ModernMainView();
+
+            splashScreen.setProgress(60, "Starting services...");
+            DataController dataController = new DataController();
+            TaskScheduler scheduler = new TaskScheduler();
+            MainController mainController = new MainController(view, dataController, scheduler);
+
+            view.setTaskScheduler(scheduler);
+            view.setDataController(dataController);
+            view.setMainController(mainController);
+
+            splashScreen.setProgress(80, "Configuring...");
+            configureApplication(view);
+
+            System.out.println("Starting CPV Analysis Tool...");
+            view.show();
+            splashScreen.finish();
+
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            System.out.println("CPV Analysis Tool Professional Edition started successfully in " + uptime + " ms!");
+
+            // Not on the scheduler: its few workers would be held by this while the user starts a load
+            Thread warmup = new Thread(() -> {
+                SoundManager.initialize();
+                SwingUtilities.invokeLater(() -> SoundManager.playSound(SoundManager.SOUND_STARTUP));
+                view.prewarm();
+            }, "startup-warmup");
+            warmup.setDaemon(true);
+            warmup.setPriority(Thread.MIN_PRIORITY);
+            warmup.start();
+
+        } catch (Exception e) {
+            splashScreen.dispose();
+            System.err.println("Error starting application: " + e.getMessage());
+            e.printStackTrace();
+
+            JOptionPane.showMessageDialog(null,
+                    "Failed to start CPV Analysis Tool:\n" + e.getMessage(),
+                    "Startup Error",
+                    JOptionPane.ERROR_MESSAGE);
+
+            System.exit(1);
+        }
+    }
+
     private static void configureApplication(ModernMainView view) {
         JFrame frame = view.getFrame();
 
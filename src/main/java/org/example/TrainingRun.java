@@ -0,0 +1,250 @@
+package org.example;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.controller.AnalysisService;
+import org.example.controller.DataController;
+import org.example.controller.MainController;
+import org.example.model.DataModel;
+import org.example.model.ItemQuery;
+import org.example.scripting.PythonScriptingService;
+import org.example.theme.ThemeManager;
+import org.example.util.ChartGenerator;
+import org.example.util.DeepAnalysisChartGenerator;
+import org.example.util.EnhancedChartGenerator;
+import org.example.util.ProcurementAnalysisService;
+import org.example.util.SnapshotStore;
+import org.example.util.TaskScheduler;
+import org.example.view.ModernMainView;
+import org.example.view.SplashScreen;
+import org.jfree.chart.JFreeChart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Training run for the class data sharing archive: goes through what a typical session loads
+ * (reading PAAP and CPV workbooks, snapshots, queries, analyses, charts and, when a display is
+ * available, the main window with all its tabs) and exits. Run under
+ * {@code -XX:ArchiveClassesAtExit} it records those classes in an archive that later launches map
+ * instead of loading the classes from the jar; see the {@code cds} profile in the pom.
+ * <p>
+ * Usage: {@code TrainingRun [paapFile [cpvFile]]}. Without files it generates small sample
+ * workbooks. Snapshots go to a temporary directory, so the user's snapshot cache is not touched.
+ */
+public final class TrainingRun {
+    private static final Logger logger = LoggerFactory.getLogger(TrainingRun.class);
+
+    private static final int SAMPLE_ITEMS = 600;
+    private static final String[][] SAMPLE_CODES = {
+            {"03000000-1", "Produse agricole", "Agricultural products"},
+            {"09100000-0", "Combustibili", "Fuels"},
+            {"30192000-1", "Articole de birou", "Office supplies"},
+            {"33600000-6", "Produse farmaceutice", "Pharmaceutical products"},
+            {"45000000-7", "Lucrari de constructii", "Construction work"},
+            {"48000000-8", "Pachete software", "Software packages"},
+            {"72000000-5", "Servicii IT", "IT services"},
+            {"79000000-4", "Servicii pentru intreprinderi", "Business services"},
+            {"90500000-2", "Servicii de gestionare a deseurilor", "Refuse and waste related services"}
+    };
+    private static final String[] SAMPLE_SOURCES = {"Buget local", "Buget de stat", "Fonduri externe"};
+
+    private TrainingRun() {
+    }
+
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        File workDir = null;
+        try {
+            workDir = Files.createTempDirectory("cpv-training").toFile();
+            System.setProperty(SnapshotStore.SNAPSHOT_DIR_PROPERTY, new File(workDir, "snapshots").getPath());
+
+            File paapFile = hasArgument(args, 0) ? new File(args[0]) : writeSamplePaap(new File(workDir, "sample-paap.xlsx"));
+            File cpvFile = hasArgument(args, 1) ? new File(args[1]) : writeSampleCpvCodes(new File(workDir, "sample-cpv.xlsx"));
+
+            DataController dataController = new DataController();
+            trainLoading(dataController, paapFile, cpvFile);
+            trainAnalysis(dataController);
+
+            if (GraphicsEnvironment.isHeadless()) {
+                logger.info("No display available, skipping the main window");
+            } else {
+                SwingUtilities.invokeAndWait(() -> trainWindow(dataController));
+            }
+
+            logger.info("Training run finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+            deleteRecursively(workDir);
+            System.exit(0);
+        } catch (Exception e) {
+            logger.error("Training run failed: {}", e.getMessage(), e);
+            deleteRecursively(workDir);
+            System.exit(1);
+        }
+    }
+
+    // The build passes empty arguments when no sample files are configured
+    private static boolean hasArgument(String[] args, int index) {
+        return args.length > index && !args[index].isBlank();
+    }
+
+    private static void trainLoading(DataController dataController, File paapFile, File cpvFile) throws Exception {
+        dataController.loadCpvCodesFile(cpvFile);
+        // The first load reads the workbook and writes a snapshot, the second one reads the snapshot
+        dataController.loadPaapFile(paapFile);
+        dataController.loadPaapFile(paapFile);
+        dataController.loadPaapFile(paapFile, true);
+        logger.info("Loaded {} items and {} CPV codes", dataController.getModel().getProcurementItems().size(),
+                dataController.getModel().getCpvCodeMap().size());
+    }
+
+    private static void trainAnalysis(DataController dataController) {
+        DataModel data = dataController.getModel().snapshot();
+
+        dataController.searchProcurementItems("servicii");
+        data.query(ItemQuery.all().valueBetween(1000, 1_000_000)
+                .groupBy(ItemQuery.GroupBy.CATEGORY).orderBy(ItemQuery.Order.VALUE_DESCENDING).limit(10));
+        data.query(ItemQuery.all().text("lucrari").quarter(2).groupBy(ItemQuery.GroupBy.MONTH));
+        data.query(ItemQuery.all().cpvPrefix("45").groupBy(ItemQuery.GroupBy.SOURCE));
+
+        dataController.getProcurementStatistics();
+        dataController.getTopCategoriesReport(10);
+        AnalysisService.generateAnalysisReport(data, data.getCpvCodeMap());
+        ProcurementAnalysisService.generateComprehensiveAnalysis(data);
+
+        render(ChartGenerator.generateProcurementByCategory(data, data.getCpvCodeMap()));
+        render(ChartGenerator.generateTopProcurementItems(data, 10));
+        render(ChartGenerator.generateProcurementByValueRange(data));
+        render(EnhancedChartGenerator.generateEnhancedCategoryPieChart(data));
+        render(EnhancedChartGenerator.generateEnhancedValueRangeChart(data));
+        render(EnhancedChartGenerator.generateMonthlyTrendChart(data));
+        render(DeepAnalysisChartGenerator.generateEnhancedTopItemsBarChart(data, 10));
+        render(DeepAnalysisChartGenerator.generateRiskAssessmentChart(data));
+        render(DeepAnalysisChartGenerator.generateMaturityAssessmentChart(data));
+
+        try {
+            new PythonScriptingService(data);
+        } catch (Exception | LinkageError e) {
+            logger.warn("Could not start the scripting service: {}", e.getMessage());
+        }
+    }
+
+    private static void render(JFreeChart chart) {
+        if (chart != null) {
+            chart.createBufferedImage(800, 600);
+        }
+    }
+
+    private static void trainWindow(DataController dataController) {
+        ThemeManager.applyTheme(ThemeManager.LIGHT_THEME);
+        SplashScreen splashScreen = new SplashScreen();
+
+        ModernMainView view = new ModernMainView();
+        TaskScheduler scheduler = new TaskScheduler();
+        MainController mainController = new MainController(view, dataController, scheduler);
+        view.setTaskScheduler(scheduler);
+        view.setDataController(dataController);
+        view.setMainController(mainController);
+
+        view.createAllTabs();
+        view.updateProcurementItemsList(dataController.getModel().getProcurementItems());
+        view.updateAIAssistant();
+        view.getFrame().pack();
+
+        view.getFrame().dispose();
+        splashScreen.dispose();
+        scheduler.shutdown();
+    }
+
+    private static File writeSamplePaap(File file) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("PAAP");
+            String[] headers = {"Nr. crt.", "Obiectul achizitiei", "Cod CPV", "Valoare estimata fara TVA",
+                    "Valoare estimata cu TVA", "Sursa de finantare", "Data estimata pentru initiere",
+                    "Data estimata pentru finalizare"};
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < headers.length; c++) {
+                header.createCell(c).setCellValue(headers[c]);
+            }
+
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+            Calendar calendar = Calendar.getInstance();
+            for (int i = 1; i <= SAMPLE_ITEMS; i++) {
+                String[] code = SAMPLE_CODES[i % SAMPLE_CODES.length];
+                double value = 500 + (i * 7919L % 250_000);
+
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(code[1] + " - lot " + i);
+                row.createCell(2).setCellValue(code[0] + " - " + code[1]);
+                row.createCell(3).setCellValue(value);
+                row.createCell(4).setCellValue(value * 1.19);
+                row.createCell(5).setCellValue(SAMPLE_SOURCES[i % SAMPLE_SOURCES.length]);
+
+                calendar.set(2025, i % 12, 1 + i % 28);
+                Cell initiation = row.createCell(6);
+                initiation.setCellValue(calendar.getTime());
+                initiation.setCellStyle(dateStyle);
+                // Completion dates as text, the other form found in PAAP exports
+                row.createCell(7).setCellValue(String.format("%02d/%02d/2025", 1 + i % 28, 1 + (i + 2) % 12));
+            }
+
+            // A second sheet with the same layout for the all-sheets load
+            workbook.cloneSheet(0);
+            write(workbook, file);
+        }
+        return file;
+    }
+
+    private static File writeSampleCpvCodes(File file) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("CPV");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Cod CPV");
+            header.createCell(1).setCellValue("Denumire romana");
+            header.createCell(2).setCellValue("English description");
+            for (int i = 0; i < SAMPLE_CODES.length; i++) {
+                Row row = sheet.createRow(i + 1);
+                for (int c = 0; c < 3; c++) {
+                    row.createCell(c).setCellValue(SAMPLE_CODES[i][c]);
+                }
+            }
+            write(workbook, file);
+        }
+        return file;
+    }
+
+    private static void write(XSSFWorkbook workbook, File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            workbook.write(out);
+        }
+    }
+
+    private static void deleteRecursively(File dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            List<Path> all = paths.sorted(Comparator.reverseOrder()).toList();
+            for (Path path : all) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", dir, e.getMessage());
+        }
+    }
+}
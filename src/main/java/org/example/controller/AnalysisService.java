@@ -2,14 +2,18 @@ package org.example.controller;
 
 import org.example.model.CpvCode;
 import org.example.model.DataModel;
+import org.example.model.ItemQuery;
+import org.example.model.ProcurementAggregates;
 import org.example.model.ProcurementItem;
+import org.example.model.QueryResult;
+import org.example.model.ValueBuckets;
+import org.example.util.MonthExtractor;
+import org.example.util.TaskScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.NumberFormat;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class AnalysisService {
@@ -19,6 +23,7 @@ public class AnalysisService {
     static {
         CURRENCY_FORMAT.setMaximumFractionDigits(2);
     }
+    /** Full text report; when run as a scheduled task, a cancelled task stops between sections. */
     public static String generateAnalysisReport(DataModel model, Map<String, CpvCode> cpvCodeMap) {
         StringBuilder report = new StringBuilder();
 
@@ -27,20 +32,28 @@ public class AnalysisService {
         report.append("==================================================\n\n");
 
         report.append(generateGeneralStatistics(model));
+        TaskScheduler.checkCancelled();
 
         report.append(generateCategoryAnalysis(model, cpvCodeMap));
+        TaskScheduler.checkCancelled();
 
         report.append(generateValueDistributionAnalysis(model));
+        TaskScheduler.checkCancelled();
 
         report.append(generateMonthlyDistributionAnalysis(model));
+        TaskScheduler.checkCancelled();
 
         report.append(generateTimeDistributionAnalysis(model));
+        TaskScheduler.checkCancelled();
 
         report.append(generateExtremeItemsAnalysis(model));
+        TaskScheduler.checkCancelled();
 
         report.append(generateFinancingSourceAnalysis(model));
+        TaskScheduler.checkCancelled();
 
         report.append(generateSeasonalAnalysis(model));
+        TaskScheduler.checkCancelled();
 
         report.append(generateRecommendations(model));
 
@@ -53,40 +66,21 @@ public class AnalysisService {
         analysis.append("4. MONTHLY DISTRIBUTION ANALYSIS\n");
         analysis.append("--------------------------------------------------\n");
 
-        List<ProcurementItem> items = model.getProcurementItems();
-
         if (!hasTimeData(model)) {
             analysis.append("Insufficient time data available for monthly analysis.\n");
             analysis.append("Consider adding initiation or completion dates to enable detailed time-based analysis.\n\n");
             return analysis.toString();
         }
 
-        String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
-                "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+        String[] months = MonthExtractor.MONTH_NAMES;
+        ProcurementAggregates aggregates = model.getAggregates();
 
         Map<String, Double> valueByMonth = new LinkedHashMap<>();
         Map<String, Integer> countByMonth = new LinkedHashMap<>();
 
-        for (String month : months) {
-            valueByMonth.put(month, 0.0);
-            countByMonth.put(month, 0);
-        }
-
-        for (ProcurementItem item : items) {
-            String date = item.getInitiationDate();
-            if (date == null || date.isEmpty()) {
-                date = item.getCompletionDate();
-            }
-
-            if (date == null || date.isEmpty()) {
-                continue;
-            }
-
-            String month = extractMonthFromDate(date);
-            if (month != null) {
-                valueByMonth.put(month, valueByMonth.get(month) + item.getValueWithoutTVA());
-                countByMonth.put(month, countByMonth.get(month) + 1);
-            }
+        for (int month = 1; month <= 12; month++) {
+            valueByMonth.put(months[month - 1], aggregates.getMonthValue(month));
+            countByMonth.put(months[month - 1], aggregates.getMonthCount(month));
         }
 
         double totalIdentifiedValue = valueByMonth.values().stream().mapToDouble(Double::doubleValue).sum();
@@ -213,29 +207,13 @@ public class AnalysisService {
         seasons.put("Autumn", new String[]{"Sep", "Oct", "Nov"});
         seasons.put("Winter", new String[]{"Dec", "Jan", "Feb"});
 
+        ProcurementAggregates aggregates = model.getAggregates();
         Map<String, Double> valueByMonth = new HashMap<>();
         Map<String, Integer> countByMonth = new HashMap<>();
-        String[] allMonths = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
-                "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
 
-        for (String month : allMonths) {
-            valueByMonth.put(month, 0.0);
-            countByMonth.put(month, 0);
-        }
-
-        for (ProcurementItem item : model.getProcurementItems()) {
-            String date = item.getInitiationDate();
-            if (date == null || date.isEmpty()) {
-                date = item.getCompletionDate();
-            }
-
-            if (date != null) {
-                String month = extractMonthFromDate(date);
-                if (month != null) {
-                    valueByMonth.put(month, valueByMonth.get(month) + item.getValueWithoutTVA());
-                    countByMonth.put(month, countByMonth.get(month) + 1);
-                }
-            }
+        for (int month = 1; month <= 12; month++) {
+            valueByMonth.put(MonthExtractor.nameOf(month), aggregates.getMonthValue(month));
+            countByMonth.put(MonthExtractor.nameOf(month), aggregates.getMonthCount(month));
         }
 
         Map<String, Double> valueBySeasonItem = new LinkedHashMap<>();
@@ -349,62 +327,6 @@ public class AnalysisService {
         return analysis.toString();
     }
 
-    private static String extractMonthFromDate(String date) {
-        if (date == null || date.isEmpty()) return null;
-
-        String lowerDate = date.toLowerCase();
-
-        if (lowerDate.contains("ian") || lowerDate.contains("ianuarie")) return "Jan";
-        if (lowerDate.contains("feb") || lowerDate.contains("februarie")) return "Feb";
-        if (lowerDate.contains("mar") || lowerDate.contains("martie")) return "Mar";
-        if (lowerDate.contains("apr") || lowerDate.contains("aprilie")) return "Apr";
-        if (lowerDate.contains("mai")) return "May";
-        if (lowerDate.contains("iun") || lowerDate.contains("iunie")) return "Jun";
-        if (lowerDate.contains("iul") || lowerDate.contains("iulie")) return "Jul";
-        if (lowerDate.contains("aug") || lowerDate.contains("august")) return "Aug";
-        if (lowerDate.contains("sep") || lowerDate.contains("septembrie")) return "Sep";
-        if (lowerDate.contains("oct") || lowerDate.contains("octombrie")) return "Oct";
-        if (lowerDate.contains("noi") || lowerDate.contains("noiembrie")) return "Nov";
-        if (lowerDate.contains("dec") || lowerDate.contains("decembrie")) return "Dec";
-
-        if (lowerDate.contains("january")) return "Jan";
-        if (lowerDate.contains("february")) return "Feb";
-        if (lowerDate.contains("march")) return "Mar";
-        if (lowerDate.contains("april")) return "Apr";
-        if (lowerDate.contains("may")) return "May";
-        if (lowerDate.contains("june")) return "Jun";
-        if (lowerDate.contains("july")) return "Jul";
-        if (lowerDate.contains("august")) return "Aug";
-        if (lowerDate.contains("september")) return "Sep";
-        if (lowerDate.contains("october")) return "Oct";
-        if (lowerDate.contains("november")) return "Nov";
-        if (lowerDate.contains("december")) return "Dec";
-
-        Pattern datePattern = Pattern.compile("\\b(\\d{1,2})[-/](\\d{1,2})[-/](\\d{2,4})\\b");
-        Matcher matcher = datePattern.matcher(date);
-
-        if (matcher.find()) {
-            try {
-                int month1 = Integer.parseInt(matcher.group(1));
-                int month2 = Integer.parseInt(matcher.group(2));
-
-                int month = month2;
-                if (month2 > 12 && month1 <= 12) {
-                    month = month1;
-                }
-
-                if (month >= 1 && month <= 12) {
-                    String[] monthNames = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
-                            "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-                    return monthNames[month - 1];
-                }
-            } catch (NumberFormatException e) {
-            }
-        }
-
-        return null;
-    }
-
     private static String generateGeneralStatistics(DataModel model) {
         StringBuilder stats = new StringBuilder();
 
@@ -428,8 +350,7 @@ public class AnalysisService {
             stats.append("Effective TVA rate: ").append(String.format("%.2f", avgTVAPercentage)).append("%\n");
         }
 
-        Map<String, List<ProcurementItem>> itemsByCategory = model.getProcurementItemsByCategory();
-        stats.append("Number of CPV categories: ").append(itemsByCategory.size()).append("\n");
+        stats.append("Number of CPV categories: ").append(model.getCategoryCount()).append("\n");
 
         double avgValue = totalItems > 0 ? totalWithoutTVA / totalItems : 0;
         stats.append("Average value per item: ").append(String.format("%,.2f", avgValue)).append(" RON\n");
@@ -484,41 +405,25 @@ public class AnalysisService {
         analysis.append("3. VALUE DISTRIBUTION ANALYSIS\n");
         analysis.append("--------------------------------------------------\n");
 
-        Map<String, List<ProcurementItem>> itemsByRange = model.getProcurementItemsByValueRange();
-
-        if (itemsByRange.isEmpty()) {
-            analysis.append("No value distribution data available.\n\n");
-            return analysis.toString();
-        }
+        ProcurementAggregates aggregates = model.getAggregates();
 
-        String[] ranges = {"0-10,000", "10,000-50,000", "50,000-100,000", "100,000+"};
-
-        double totalValue = model.getTotalValueWithoutTVA();
-        int totalCount = model.getProcurementItems().size();
+        double totalValue = aggregates.getTotalValueWithoutTVA();
+        int totalCount = aggregates.getItemCount();
 
         analysis.append(String.format("%-15s %-10s %-15s %-15s %-15s\n",
                 "Value Range", "Count", "% of Items", "Total Value", "% of Value"));
         analysis.append("------------------------------------------------------------------\n");
 
-        for (String range : ranges) {
-            List<ProcurementItem> items = itemsByRange.get(range);
-
-            if (items == null) {
-                items = new ArrayList<>();
-            }
-
-            int count = items.size();
-
-            double rangeValue = 0;
-            for (ProcurementItem item : items) {
-                rangeValue += item.getValueWithoutTVA();
-            }
+        ValueBuckets buckets = aggregates.getValueBuckets();
+        for (int range = 0; range < buckets.getBucketCount(); range++) {
+            int count = aggregates.getRangeCount(range);
+            double rangeValue = aggregates.getRangeValue(range);
 
             double countPercentage = totalCount > 0 ? (count * 100.0 / totalCount) : 0;
             double valuePercentage = totalValue > 0 ? (rangeValue * 100.0 / totalValue) : 0;
 
             analysis.append(String.format("%-15s %-10d %-15.2f %-15s %-15.2f\n",
-                    range, count, countPercentage,
+                    buckets.getLabel(range), count, countPercentage,
                     String.format("%,.2f RON", rangeValue), valuePercentage));
         }
 
@@ -543,21 +448,10 @@ public class AnalysisService {
         valueByQuarter.put("Q3", 0.0);
         valueByQuarter.put("Q4", 0.0);
 
-        for (ProcurementItem item : model.getProcurementItems()) {
-            String date = item.getInitiationDate();
-
-            if (date == null || date.isEmpty()) {
-                date = item.getCompletionDate();
-            }
-
-            if (date == null || date.isEmpty()) {
-                continue;
-            }
-
-            String quarter = extractQuarterFromDate(date);
-            if (quarter != null) {
-                valueByQuarter.put(quarter, valueByQuarter.get(quarter) + item.getValueWithoutTVA());
-            }
+        ProcurementAggregates aggregates = model.getAggregates();
+        for (int month = 1; month <= 12; month++) {
+            String quarter = "Q" + ((month + 2) / 3);
+            valueByQuarter.put(quarter, valueByQuarter.get(quarter) + aggregates.getMonthValue(month));
         }
 
         double totalValue = valueByQuarter.values().stream().mapToDouble(Double::doubleValue).sum();
@@ -581,19 +475,6 @@ public class AnalysisService {
         return analysis.toString();
     }
 
-    private static String extractQuarterFromDate(String date) {
-        String month = extractMonthFromDate(date);
-        if (month == null) return null;
-
-        switch (month) {
-            case "Jan": case "Feb": case "Mar": return "Q1";
-            case "Apr": case "May": case "Jun": return "Q2";
-            case "Jul": case "Aug": case "Sep": return "Q3";
-            case "Oct": case "Nov": case "Dec": return "Q4";
-            default: return null;
-        }
-    }
-
     private static String generateExtremeItemsAnalysis(DataModel model) {
         StringBuilder analysis = new StringBuilder();
 
@@ -655,33 +536,15 @@ public class AnalysisService {
             return analysis.toString();
         }
 
-        Map<String, List<ProcurementItem>> itemsBySource = new HashMap<>();
-
-        for (ProcurementItem item : model.getProcurementItems()) {
-            String source = item.getSource();
-
-            if (source == null || source.isEmpty()) {
-                source = "Unknown";
-            }
-
-            if (!itemsBySource.containsKey(source)) {
-                itemsBySource.put(source, new ArrayList<>());
-            }
-
-            itemsBySource.get(source).add(item);
-        }
-
+        QueryResult bySource = model.query(ItemQuery.all().groupBy(ItemQuery.GroupBy.SOURCE));
         double totalValue = model.getTotalValueWithoutTVA();
 
-        for (Map.Entry<String, List<ProcurementItem>> entry : itemsBySource.entrySet()) {
-            String source = entry.getKey();
-            List<ProcurementItem> sourceItems = entry.getValue();
-
-            double sourceValue = sourceItems.stream().mapToDouble(ProcurementItem::getValueWithoutTVA).sum();
+        for (QueryResult.Group group : bySource.getGroups()) {
+            double sourceValue = group.getTotalValue();
             double percentage = totalValue > 0 ? (sourceValue * 100.0) / totalValue : 0;
 
             analysis.append(String.format("%s: %,.2f RON (%.1f%%, %d items)\n",
-                    source, sourceValue, percentage, sourceItems.size()));
+                    group.getKey(), sourceValue, percentage, group.getCount()));
         }
 
         analysis.append("\n");
@@ -704,26 +567,10 @@ public class AnalysisService {
         if (hasTimeData(model)) {
             recommendations.append("Monthly Distribution Recommendations:\n");
 
+            ProcurementAggregates aggregates = model.getAggregates();
             Map<String, Double> valueByMonth = new HashMap<>();
-            String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
-                    "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-
-            for (String month : months) {
-                valueByMonth.put(month, 0.0);
-            }
-
-            for (ProcurementItem item : items) {
-                String date = item.getInitiationDate();
-                if (date == null || date.isEmpty()) {
-                    date = item.getCompletionDate();
-                }
-
-                if (date != null) {
-                    String month = extractMonthFromDate(date);
-                    if (month != null) {
-                        valueByMonth.put(month, valueByMonth.get(month) + item.getValueWithoutTVA());
-                    }
-                }
+            for (int month = 1; month <= 12; month++) {
+                valueByMonth.put(MonthExtractor.nameOf(month), aggregates.getMonthValue(month));
             }
 
             String peakMonth = valueByMonth.entrySet().stream()
@@ -2,18 +2,23 @@ package org.example.controller;
 
 import org.example.model.CpvCode;
 import org.example.model.DataModel;
+import org.example.model.ItemStorage;
 import org.example.model.ProcurementItem;
-import org.example.util.ExcelReader;
-import org.example.util.FileCompatibilityService;
+import org.example.util.CompatibilityReport;
+import org.example.util.FolderWatcher;
+import org.example.util.ProcurementWorkbookLoader;
+import org.example.util.SnapshotStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import java.io.File;
+import java.io.IOException;
 import java.text.NumberFormat;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 public class DataController {
     private static final Logger logger = LoggerFactory.getLogger(DataController.class);
@@ -24,7 +29,23 @@ public class DataController {
         CURRENCY_FORMAT.setCurrency(java.util.Currency.getInstance("RON"));
     }
 
-    private DataModel model;
+    /** Items read before the first load preview; each later preview has twice as many. */
+    public static final int FIRST_PREVIEW_ITEMS = 256;
+
+    /** Progress of a PAAP load, reported on the loading thread. */
+    public interface LoadProgress extends ProcurementWorkbookLoader.LoadListener {
+        /** A standalone model of the items read so far, while the rest of the file is still being read. */
+        default void preview(DataModel partial) {
+        }
+    }
+
+    private static final LoadProgress NO_PROGRESS = new LoadProgress() {
+    };
+
+    private volatile DataModel model;
+    private FolderWatcher folderWatcher;
+    private final Workspace workspace = new Workspace(file -> readPaapItems(file, false));
+    private int watchGeneration;
     private File paapFile;
     private File listaFile;
 
@@ -38,50 +59,189 @@ public class DataController {
     }
 
     public void loadPaapFile(File file) throws Exception {
+        loadPaapFile(file, false);
+    }
+
+    /**
+     * With allSheets, every sheet with a compatible PAAP header is read and the items of all
+     * of them are combined into one model (e.g. one sheet per department or per year).
+     */
+    public void loadPaapFile(File file, boolean allSheets) throws Exception {
+        loadPaapFile(file, allSheets, NO_PROGRESS, ProcurementWorkbookLoader.NOT_CANCELLED);
+    }
+
+    /**
+     * Loads like {@link #loadPaapFile(File, boolean)}, reporting bytes and rows read and, for a
+     * single sheet, previews of the items read so far. The current model only changes once the
+     * whole file is read, so a load that stops with CancellationException once cancelled returns
+     * true leaves it as it was.
+     */
+    public void loadPaapFile(File file, boolean allSheets, LoadProgress progress, BooleanSupplier cancelled)
+            throws Exception {
         this.paapFile = file;
         if (file == null || !file.exists()) {
             logger.error("PAAP file does not exist");
             throw new IllegalArgumentException("PAAP file does not exist");
         }
 
-        logger.info("Loading PAAP file with enhanced detection: {}", file.getAbsolutePath());
-        try {
-            Map<String, Object> compatibilityReport = FileCompatibilityService.generateProcurementDataCompatibilityReport(file);
-            String compatibilityLevel = (String) compatibilityReport.get("compatibilityLevel");
+        List<ProcurementItem> items = readPaapItems(file, allSheets, progress, cancelled);
+        replaceProcurementItems(items, cancelled);
+    }
 
-            if ("Incompatible".equals(compatibilityLevel) || "Error".equals(compatibilityLevel)) {
-                List<String> issues = (List<String>) compatibilityReport.get("issues");
-                List<String> recommendations = (List<String>) compatibilityReport.get("recommendations");
+    /**
+     * Publishes a new model with the items instead of changing the current one, which may be a
+     * dataset the workspace holds; the workspace then no longer has an active dataset.
+     */
+    private synchronized DataModel replaceProcurementItems(List<ProcurementItem> items, BooleanSupplier cancelled) {
+        DataModel next = model.copy();
+        next.setProcurementItems(items, cancelled);
+        model = next;
+        workspace.setActive(null);
+        return next;
+    }
 
-                StringBuilder errorMessage = new StringBuilder("File is not compatible as a procurement data file:\n");
-                for (String issue : issues) {
-                    errorMessage.append("- ").append(issue).append("\n");
-                }
+    private List<ProcurementItem> readPaapItems(File file, boolean allSheets) throws Exception {
+        return readPaapItems(file, allSheets, NO_PROGRESS, ProcurementWorkbookLoader.NOT_CANCELLED);
+    }
 
-                errorMessage.append("\nRecommendations:\n");
-                for (String recommendation : recommendations) {
-                    errorMessage.append("- ").append(recommendation).append("\n");
-                }
+    private List<ProcurementItem> readPaapItems(File file, boolean allSheets, LoadProgress progress,
+                                                BooleanSupplier cancelled) throws Exception {
+        List<ProcurementItem> cachedItems = SnapshotStore.loadProcurementItems(file, allSheets);
+        if (cachedItems != null) {
+            logger.info("Loaded {} procurement items from snapshot", cachedItems.size());
+            return cachedItems;
+        }
+
+        logger.info("Loading PAAP file with enhanced detection: {}", file.getAbsolutePath());
+        try {
+            ProcurementWorkbookLoader.LoadResult<List<ProcurementItem>> result = allSheets
+                    ? ProcurementWorkbookLoader.readAllProcurementSheets(file, cancelled)
+                    : readProcurementSheet(file, progress, cancelled);
 
-                throw new Exception(errorMessage.toString());
+            if (!result.isCompatible()) {
+                throw new Exception(buildCompatibilityError("procurement data", result));
             }
 
-            List<ProcurementItem> items = ExcelReader.readProcurementItems(file);
-            model.setProcurementItems(items);
+            List<ProcurementItem> items = result.getData();
             logger.info("Successfully loaded {} procurement items", items.size());
+            SnapshotStore.saveProcurementItems(file, items, allSheets);
 
-            if ("Partially Compatible".equals(compatibilityLevel) || "Mostly Compatible".equals(compatibilityLevel)) {
-                List<String> issues = (List<String>) compatibilityReport.get("issues");
-                for (String issue : issues) {
-                    logger.warn("Compatibility issue: {}", issue);
-                }
-            }
+            logCompatibilityIssues(result);
+            return items;
+        } catch (CancellationException e) {
+            logger.info("Loading {} was cancelled", file.getName());
+            throw e;
         } catch (Exception e) {
             logger.error("Error loading PAAP file: {}", e.getMessage(), e);
             throw new Exception("Failed to load PAAP file: " + e.getMessage(), e);
         }
     }
 
+    /** Reads the first PAAP sheet, passing previews at {@link #FIRST_PREVIEW_ITEMS}, twice that and so on. */
+    private ProcurementWorkbookLoader.LoadResult<List<ProcurementItem>> readProcurementSheet(
+            File file, LoadProgress progress, BooleanSupplier cancelled) throws IOException {
+        List<ProcurementItem> items = new ArrayList<>();
+        CompatibilityReport report = ProcurementWorkbookLoader.readProcurementItems(file, items::add,
+                new ProcurementWorkbookLoader.LoadListener() {
+                    private int nextPreview = FIRST_PREVIEW_ITEMS;
+
+                    @Override
+                    public void bytesRead(long bytes, long total) {
+                        progress.bytesRead(bytes, total);
+                    }
+
+                    @Override
+                    public void rowsRead(int rows, int totalRows) {
+                        progress.rowsRead(rows, totalRows);
+                        // Doubling keeps the cost of all previews within that of one full load
+                        if (progress != NO_PROGRESS && rows < totalRows && items.size() >= nextPreview) {
+                            nextPreview = items.size() * 2;
+                            progress.preview(previewModel(items));
+                        }
+                    }
+                }, cancelled);
+        return new ProcurementWorkbookLoader.LoadResult<>(report, items);
+    }
+
+    /** Heap model of a copy of the items, sharing the CPV codes and string dictionary of the current model. */
+    private DataModel previewModel(List<ProcurementItem> items) {
+        DataModel current = model;
+        DataModel preview = new DataModel(current.getCpvCodeMap(), current.getStringDictionary());
+        preview.setItemStorage(ItemStorage.HEAP);
+        preview.setProcurementItems(new ArrayList<>(items));
+        return preview;
+    }
+
+    /**
+     * Keeps the model in sync with every PAAP workbook in a folder. Only files that are new or
+     * changed are re-read, on the watcher thread; the items of all files are then combined into
+     * a fresh model that replaces the current one in a single step, so readers never see a
+     * half-updated model. onUpdate is called on the watcher thread after each swap.
+     * A file that fails to load (e.g. still being written) keeps its previous items.
+     */
+    public synchronized void watchPaapFolder(File folder, Consumer<DataModel> onUpdate) throws Exception {
+        stopWatching();
+
+        int generation = ++watchGeneration;
+        Map<File, List<ProcurementItem>> itemsByFile = new TreeMap<>();
+        FolderWatcher watcher = new FolderWatcher(folder, FolderWatcher::isWorkbookFile, (changed, removed) -> {
+            boolean modified = itemsByFile.keySet().removeAll(removed);
+            for (File file : changed) {
+                try {
+                    itemsByFile.put(file, readPaapItems(file, false));
+                    modified = true;
+                } catch (Exception e) {
+                    logger.warn("Skipping {} from watched folder: {}", file.getName(), e.getMessage());
+                }
+            }
+
+            if (modified) {
+                List<ProcurementItem> items = new ArrayList<>();
+                itemsByFile.values().forEach(items::addAll);
+                DataModel next = publishProcurementItems(generation, items);
+                if (next == null) {
+                    return;
+                }
+                onUpdate.accept(next);
+                logger.info("Watched folder now holds {} procurement items from {} file(s)",
+                        items.size(), itemsByFile.size());
+            }
+        });
+
+        try {
+            watcher.start();
+        } catch (IOException e) {
+            throw new Exception("Failed to watch folder " + folder + ": " + e.getMessage(), e);
+        }
+        folderWatcher = watcher;
+    }
+
+    public synchronized void stopWatching() {
+        watchGeneration++;
+        if (folderWatcher == null) {
+            return;
+        }
+        try {
+            folderWatcher.close();
+        } catch (IOException e) {
+            logger.warn("Error stopping folder watcher: {}", e.getMessage());
+        }
+        logger.info("Stopped watching {}", folderWatcher.getFolder());
+        folderWatcher = null;
+    }
+
+    public synchronized File getWatchedFolder() {
+        return folderWatcher != null ? folderWatcher.getFolder() : null;
+    }
+
+    /** Swaps in a model with the given items, unless the watch that produced them has been stopped. */
+    private synchronized DataModel publishProcurementItems(int generation, List<ProcurementItem> items) {
+        if (generation != watchGeneration) {
+            return null;
+        }
+        return replaceProcurementItems(items, ProcurementWorkbookLoader.NOT_CANCELLED);
+    }
+
     public void loadCpvCodesFile(File file) throws Exception {
         this.listaFile = file;
         if (file == null || !file.exists()) {
@@ -89,44 +249,91 @@ public class DataController {
             throw new IllegalArgumentException("CPV codes file does not exist");
         }
 
+        Map<String, CpvCode> cachedCodes = SnapshotStore.loadCpvCodes(file);
+        if (cachedCodes != null) {
+            applyCpvCodes(cachedCodes);
+            logger.info("Loaded {} CPV codes from snapshot", cachedCodes.size());
+            return;
+        }
+
         logger.info("Loading CPV codes file with enhanced detection: {}", file.getAbsolutePath());
         try {
-            Map<String, Object> compatibilityReport = FileCompatibilityService.generateCpvCodeCompatibilityReport(file);
-            String compatibilityLevel = (String) compatibilityReport.get("compatibilityLevel");
+            ProcurementWorkbookLoader.LoadResult<Map<String, CpvCode>> result =
+                    ProcurementWorkbookLoader.readCpvCodes(file);
 
-            if ("Incompatible".equals(compatibilityLevel) || "Error".equals(compatibilityLevel)) {
-                List<String> issues = (List<String>) compatibilityReport.get("issues");
-                List<String> recommendations = (List<String>) compatibilityReport.get("recommendations");
-
-                StringBuilder errorMessage = new StringBuilder("File is not compatible as a CPV codes file:\n");
-                for (String issue : issues) {
-                    errorMessage.append("- ").append(issue).append("\n");
-                }
-
-                errorMessage.append("\nRecommendations:\n");
-                for (String recommendation : recommendations) {
-                    errorMessage.append("- ").append(recommendation).append("\n");
-                }
-
-                throw new Exception(errorMessage.toString());
+            if (!result.isCompatible()) {
+                throw new Exception(buildCompatibilityError("CPV codes", result));
             }
 
-            Map<String, CpvCode> cpvCodes = ExcelReader.readCpvCodes(file);
-            model.setCpvCodes(cpvCodes);
+            Map<String, CpvCode> cpvCodes = result.getData();
+            applyCpvCodes(cpvCodes);
             logger.info("Successfully loaded {} CPV codes", cpvCodes.size());
+            SnapshotStore.saveCpvCodes(file, cpvCodes);
 
-            if ("Partially Compatible".equals(compatibilityLevel) || "Mostly Compatible".equals(compatibilityLevel)) {
-                List<String> issues = (List<String>) compatibilityReport.get("issues");
-                for (String issue : issues) {
-                    logger.warn("Compatibility issue: {}", issue);
-                }
-            }
+            logCompatibilityIssues(result);
         } catch (Exception e) {
             logger.error("Error loading CPV codes file: {}", e.getMessage(), e);
             throw new Exception("Failed to load CPV codes file: " + e.getMessage(), e);
         }
     }
 
+    private void applyCpvCodes(Map<String, CpvCode> cpvCodes) {
+        synchronized (this) {
+            DataModel next = model.copy();
+            next.setCpvCodes(cpvCodes);
+            model = next;
+        }
+        workspace.setCpvCodes(cpvCodes);
+    }
+
+    /** PAAP datasets kept side by side for comparison, next to the current model. */
+    public Workspace getWorkspace() {
+        return workspace;
+    }
+
+    /** Adds the PAAP files to the workspace, replacing datasets of the same name, and compares all its datasets. */
+    public Workspace.Comparison compareWithWorkspace(List<File> files) throws Exception {
+        for (File file : files) {
+            workspace.add(file);
+        }
+        return workspace.compare(Collections.emptyList());
+    }
+
+    /**
+     * Makes a copy of a workspace dataset the current model; watching a folder stops. Later loads
+     * replace the copy, so the dataset in the workspace stays as it was.
+     */
+    public void useDataset(String name) throws Exception {
+        stopWatching();
+        DataModel dataset = workspace.get(name);
+        synchronized (this) {
+            model = dataset.copy();
+        }
+        workspace.setActive(name);
+    }
+
+    private String buildCompatibilityError(String fileKind, ProcurementWorkbookLoader.LoadResult<?> result) {
+        StringBuilder errorMessage = new StringBuilder("File is not compatible as a " + fileKind + " file:\n");
+        for (String issue : result.getIssues()) {
+            errorMessage.append("- ").append(issue).append("\n");
+        }
+
+        errorMessage.append("\nRecommendations:\n");
+        for (String recommendation : result.getRecommendations()) {
+            errorMessage.append("- ").append(recommendation).append("\n");
+        }
+
+        return errorMessage.toString();
+    }
+
+    private void logCompatibilityIssues(ProcurementWorkbookLoader.LoadResult<?> result) {
+        if (result.getCompatibilityLevel().hasWarnings()) {
+            for (String issue : result.getIssues()) {
+                logger.warn("Compatibility issue: {}", issue);
+            }
+        }
+    }
+
     public List<ProcurementItem> searchProcurementItems(String query) {
         return model.searchProcurementItems(query);
     }
@@ -142,19 +349,19 @@ public class DataController {
 
     public String getProcurementStatistics() {
         StringBuilder sb = new StringBuilder();
+        DataModel data = model.snapshot();
 
         try {
-            int totalItems = model.getProcurementItems().size();
+            int totalItems = data.getProcurementItems().size();
             sb.append("Total procurement items: ").append(totalItems).append("\n");
 
-            double totalWithoutTVA = model.getTotalValueWithoutTVA();
-            double totalWithTVA = model.getTotalValueWithTVA();
+            double totalWithoutTVA = data.getTotalValueWithoutTVA();
+            double totalWithTVA = data.getTotalValueWithTVA();
 
             sb.append("Total value (without TVA): ").append(String.format("%,.2f", totalWithoutTVA)).append(" RON\n");
             sb.append("Total value (with TVA): ").append(String.format("%,.2f", totalWithTVA)).append(" RON\n");
 
-            Map<String, List<ProcurementItem>> itemsByCategory = model.getProcurementItemsByCategory();
-            sb.append("Number of CPV categories: ").append(itemsByCategory.size()).append("\n");
+            sb.append("Number of CPV categories: ").append(data.getCategoryCount()).append("\n");
 
             double avgValue = totalItems > 0 ? totalWithoutTVA / totalItems : 0;
             sb.append("Average value per item: ").append(String.format("%,.2f", avgValue)).append(" RON\n");
@@ -169,10 +376,11 @@ public class DataController {
     public String getTopCategoriesReport(int n) {
         StringBuilder sb = new StringBuilder();
         sb.append("Top ").append(n).append(" CPV Categories by Value:\n\n");
+        DataModel data = model.snapshot();
 
         try {
-            Map<String, Double> valueByCategory = model.getValueByCpvCategory();
-            double totalValue = model.getTotalValueWithoutTVA();
+            Map<String, Double> valueByCategory = data.getValueByCpvCategory();
+            double totalValue = data.getTotalValueWithoutTVA();
 
             if (valueByCategory.isEmpty()) {
                 sb.append("No categories found or no items with valid values.");
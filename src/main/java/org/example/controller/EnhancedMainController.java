@@ -1,8 +1,10 @@
 package org.example.controller;
 
+import org.example.model.DataModel;
 import org.example.model.ProcurementItem;
 import org.example.util.EnhancedChartGenerator;
 import org.example.util.ProcurementAnalysisService;
+import org.example.util.TaskScheduler;
 import org.example.view.ModernMainView;
 import org.jfree.chart.JFreeChart;
 import org.slf4j.Logger;
@@ -16,12 +18,16 @@ import java.util.List;
 public class EnhancedMainController {
     private static final Logger logger = LoggerFactory.getLogger(EnhancedMainController.class);
 
+    private static final String LOAD_PAAP = "load-paap";
+
     private ModernMainView view;
     private DataController dataController;
+    private TaskScheduler scheduler;
 
-    public EnhancedMainController(ModernMainView view, DataController dataController) {
+    public EnhancedMainController(ModernMainView view, DataController dataController, TaskScheduler scheduler) {
         this.view = view;
         this.dataController = dataController;
+        this.scheduler = scheduler;
         logger.info("Enhanced Main Controller initialized");
 
         initEventHandlers();
@@ -54,7 +60,7 @@ public class EnhancedMainController {
             JFileChooser fileChooser = new JFileChooser();
             fileChooser.setDialogTitle("Select PAAP File");
             fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
-                    "Excel Files", "xls", "xlsx"));
+                    "Excel Files", "xls", "xlsx", "zip", "gz"));
 
             int result = fileChooser.showOpenDialog(view.getFrame());
             if (result == JFileChooser.APPROVE_OPTION) {
@@ -65,31 +71,63 @@ public class EnhancedMainController {
     }
 
     private void loadPaapFileInternal(File file) {
-        try {
-            view.setStatusMessage("Loading PAAP file...");
-            dataController.loadPaapFile(file);
-
-            List<ProcurementItem> items = dataController.getModel().getProcurementItems();
-            view.updateProcurementItemsList(items);
-
-            double totalValue = dataController.getModel().getTotalValueWithoutTVA();
-            view.setStatusMessage(String.format("Loaded %d procurement items (%.2f RON total)",
-                    items.size(), totalValue));
-            logger.info("PAAP file loaded successfully: {} items, total value: {}",
-                    items.size(), totalValue);
-
-            view.updateAIAssistant();
-
-            if (cpvCodesLoaded()) {
-                logger.info("Both files loaded, auto-generating charts and analysis");
-                generateEnhancedCharts(null);
-                generateEnhancedAnalysis(null);
-            }
-        } catch (Exception ex) {
-            logger.error("Error loading PAAP file: {}", ex.getMessage(), ex);
-            view.showErrorMessage("Error loading PAAP file: " + ex.getMessage());
-            view.setStatusMessage("Failed to load PAAP file");
-        }
+        scheduler.cancelGroup(MainController.ANALYSIS_TASKS);
+        view.setStatusMessage("Loading PAAP file...");
+        scheduler.task(LOAD_PAAP, context -> {
+                    dataController.loadPaapFile(file, false, new DataController.LoadProgress() {
+                        @Override
+                        public void rowsRead(int rows, int totalRows) {
+                            context.progress(rows, totalRows, "Reading " + file.getName());
+                        }
+
+                        @Override
+                        public void preview(DataModel partial) {
+                            SwingUtilities.invokeLater(() -> {
+                                if (!context.isCancelled()) {
+                                    view.showLoadPreview(partial);
+                                }
+                            });
+                        }
+                    }, context::isCancelled);
+                    return dataController.getModel();
+                })
+                .group(MainController.LOAD_TASKS)
+                .priority(TaskScheduler.Priority.HIGH)
+                .onSuccess(model -> {
+                    view.setCancelAction(null);
+                    List<ProcurementItem> items = model.getProcurementItems();
+                    view.updateProcurementItemsList(items);
+
+                    double totalValue = model.getTotalValueWithoutTVA();
+                    view.setStatusMessage(String.format("Loaded %d procurement items (%.2f RON total)",
+                            items.size(), totalValue));
+                    logger.info("PAAP file loaded successfully: {} items, total value: {}",
+                            items.size(), totalValue);
+
+                    view.updateAIAssistant();
+
+                    if (cpvCodesLoaded()) {
+                        logger.info("Both files loaded, auto-generating charts and analysis");
+                        generateEnhancedCharts(null);
+                        generateEnhancedAnalysis(null);
+                    }
+                })
+                .onFailure(ex -> {
+                    view.setCancelAction(null);
+                    view.updateProcurementItemsList(dataController.getModel().getProcurementItems());
+                    logger.error("Error loading PAAP file: {}", ex.getMessage(), ex);
+                    view.showErrorMessage("Error loading PAAP file: " + ex.getMessage());
+                    view.setStatusMessage("Failed to load PAAP file");
+                })
+                .onCancel(() -> {
+                    if (!scheduler.isRunning(LOAD_PAAP)) {
+                        view.setCancelAction(null);
+                        view.updateProcurementItemsList(dataController.getModel().getProcurementItems());
+                        view.setStatusMessage("Loading cancelled");
+                    }
+                })
+                .submit();
+        view.setCancelAction(() -> scheduler.cancel(LOAD_PAAP));
     }
 
     private void loadCpvCodesFile(ActionEvent e) {
@@ -101,7 +139,7 @@ public class EnhancedMainController {
             JFileChooser fileChooser = new JFileChooser();
             fileChooser.setDialogTitle("Select CPV Codes File");
             fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
-                    "Excel Files", "xls", "xlsx"));
+                    "Excel Files", "xls", "xlsx", "zip", "gz"));
 
             int result = fileChooser.showOpenDialog(view.getFrame());
             if (result == JFileChooser.APPROVE_OPTION) {
@@ -1,7 +1,9 @@
 package org.example.controller;
 
+import org.example.model.DataModel;
 import org.example.model.ProcurementItem;
 import org.example.util.ChartGenerator;
+import org.example.util.TaskScheduler;
 import org.example.view.ModernMainView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +18,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -25,17 +28,29 @@ import static java.awt.print.Printable.PAGE_EXISTS;
 public class MainController {
     private static final Logger logger = LoggerFactory.getLogger(MainController.class);
 
+    /** Task group of the charts and analyses derived from the loaded data. */
+    public static final String ANALYSIS_TASKS = "analysis";
+
+    /** Task group of PAAP and CPV file loads. */
+    public static final String LOAD_TASKS = "load";
+
+    private static final String LOAD_PAAP = "load-paap";
+    private static final String LOAD_CPV = "load-cpv";
+
     private ModernMainView view;
     private DataController dataController;
+    private TaskScheduler scheduler;
     private boolean paapLoaded = false;
     private boolean cpvCodesLoaded = false;
     private File lastPaapFile = null;
+    private File lastWatchedFolder = null;
     private File lastCpvFile = null;
     private File lastExportFile = null;
 
-    public MainController(ModernMainView view, DataController dataController) {
+    public MainController(ModernMainView view, DataController dataController, TaskScheduler scheduler) {
         this.view = view;
         this.dataController = dataController;
+        this.scheduler = scheduler;
         logger.info("MainController initialized for Excel file processing");
 
         initEventHandlers();
@@ -47,6 +62,10 @@ public class MainController {
 
         view.setLoadCpvCodesAction(this::loadCpvCodesFile);
 
+        view.setWatchPaapFolderAction(this::watchPaapFolder);
+
+        view.setComparePaapFilesAction(this::comparePaapFiles);
+
         view.setSearchAction(this::searchProcurementItems);
 
         view.setGenerateChartsAction(this::generateAllCharts);
@@ -72,7 +91,7 @@ public class MainController {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Select PAAP Excel File");
         fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
-                "Excel Files (*.xlsx, *.xls)", "xlsx", "xls"));
+                "Excel Files (*.xlsx, *.xls, *.zip, *.gz)", "xlsx", "xls", "zip", "gz"));
 
         if (lastPaapFile != null && lastPaapFile.getParentFile() != null) {
             fileChooser.setCurrentDirectory(lastPaapFile.getParentFile());
@@ -87,36 +106,186 @@ public class MainController {
 
     private void processPaapFile(File selectedFile) {
         lastPaapFile = selectedFile;
+        dataController.stopWatching();
+        scheduler.cancelGroup(ANALYSIS_TASKS);
         logger.info("Processing PAAP file: {}", selectedFile.getAbsolutePath());
 
-        try {
-            view.setStatusMessage("🔄 Loading PAAP file...");
-            dataController.loadPaapFile(selectedFile);
-            paapLoaded = true;
-
-            List<ProcurementItem> items = dataController.getModel().getProcurementItems();
-            view.updateProcurementItemsList(items);
+        view.setStatusMessage("🔄 Loading PAAP file...");
+        String name = selectedFile.getName();
+        scheduler.task(LOAD_PAAP, context -> {
+                    dataController.loadPaapFile(selectedFile, false, new DataController.LoadProgress() {
+                        @Override
+                        public void bytesRead(long bytes, long total) {
+                            context.progress(bytes, total, String.format("Opening %s: %,d KB read", name, bytes / 1024));
+                        }
+
+                        @Override
+                        public void rowsRead(int rows, int totalRows) {
+                            context.progress(rows, totalRows, String.format("Reading %s: %,d of %,d rows", name, rows, totalRows));
+                        }
+
+                        @Override
+                        public void preview(DataModel partial) {
+                            SwingUtilities.invokeLater(() -> {
+                                if (!context.isCancelled()) {
+                                    view.showLoadPreview(partial);
+                                }
+                            });
+                        }
+                    }, context::isCancelled);
+                    return dataController.getModel();
+                })
+                .group(LOAD_TASKS)
+                .priority(TaskScheduler.Priority.HIGH)
+                .onSuccess(model -> {
+                    view.setCancelAction(null);
+                    paapLoaded = true;
+
+                    List<ProcurementItem> items = model.getProcurementItems();
+                    view.updateProcurementItemsList(items);
+
+                    double totalValue = model.getTotalValueWithoutTVA();
+                    view.setStatusMessage(String.format("✅ Loaded %d procurement items (%.2f RON total)",
+                            items.size(), totalValue));
+
+                    logger.info("PAAP file loaded successfully: {} items, total value: {}", items.size(), totalValue);
+
+                    view.updateAIAssistant();
+                    view.updateDashboard();
+                    view.updateScriptingService();
+
+                    if (cpvCodesLoaded) {
+                        logger.info("Both files loaded, auto-generating enhanced analysis");
+                        generateAllCharts(null);
+                        generateAnalysis(null);
+                    }
+                })
+                .onFailure(ex -> {
+                    view.setCancelAction(null);
+                    restoreItemsList();
+                    logger.error("Error loading PAAP file: {}", ex.getMessage(), ex);
+                    view.showErrorMessage("Error loading PAAP file: " + ex.getMessage());
+                    view.setStatusMessage("❌ Failed to load PAAP file");
+                })
+                .onCancel(() -> {
+                    if (scheduler.isRunning(LOAD_PAAP)) {
+                        return; // replaced by a newer load, which keeps the cancel button
+                    }
+                    view.setCancelAction(null);
+                    restoreItemsList();
+                    view.setStatusMessage("⏹ Loading " + name + " was cancelled");
+                })
+                .submit();
+        view.setCancelAction(() -> scheduler.cancel(LOAD_PAAP));
+    }
 
-            double totalValue = dataController.getModel().getTotalValueWithoutTVA();
-            view.setStatusMessage(String.format("✅ Loaded %d procurement items (%.2f RON total)",
-                    items.size(), totalValue));
+    /** Shows the items of the current model again after a load preview. */
+    private void restoreItemsList() {
+        view.updateProcurementItemsList(dataController.getModel().getProcurementItems());
+    }
 
-            logger.info("PAAP file loaded successfully: {} items, total value: {}", items.size(), totalValue);
+    private void watchPaapFolder(ActionEvent e) {
+        logger.info("Watch PAAP folder action triggered");
 
-            view.updateAIAssistant();
-            view.updateDashboard();
-            view.updateScriptingService();
+        File watchedFolder = dataController.getWatchedFolder();
+        if (watchedFolder != null) {
+            int stop = JOptionPane.showConfirmDialog(
+                    view.getFrame(),
+                    "Currently watching " + watchedFolder.getAbsolutePath() + ".\nStop watching this folder?",
+                    "Watch PAAP Folder",
+                    JOptionPane.YES_NO_OPTION);
 
-            if (cpvCodesLoaded) {
-                logger.info("Both files loaded, auto-generating enhanced analysis");
-                generateAllCharts(null);
-                generateAnalysis(null);
+            if (stop == JOptionPane.YES_OPTION) {
+                dataController.stopWatching();
+                view.setStatusMessage("⏹ Stopped watching " + watchedFolder.getName());
             }
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select Folder with PAAP Excel Files");
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+
+        if (lastWatchedFolder != null) {
+            fileChooser.setCurrentDirectory(lastWatchedFolder);
+        } else if (lastPaapFile != null && lastPaapFile.getParentFile() != null) {
+            fileChooser.setCurrentDirectory(lastPaapFile.getParentFile());
+        }
+
+        if (fileChooser.showOpenDialog(view.getFrame()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File folder = fileChooser.getSelectedFile();
+        lastWatchedFolder = folder;
+        logger.info("Watching PAAP folder: {}", folder.getAbsolutePath());
 
+        try {
+            dataController.watchPaapFolder(folder,
+                    model -> SwingUtilities.invokeLater(() -> refreshWatchedItems(folder, model)));
+            view.setStatusMessage("👁 Watching " + folder.getName() + " for PAAP files...");
         } catch (Exception ex) {
-            logger.error("Error loading PAAP file: {}", ex.getMessage(), ex);
-            view.showErrorMessage("Error loading PAAP file: " + ex.getMessage());
-            view.setStatusMessage("❌ Failed to load PAAP file");
+            logger.error("Error watching PAAP folder: {}", ex.getMessage(), ex);
+            view.showErrorMessage("Error watching PAAP folder: " + ex.getMessage());
+            view.setStatusMessage("❌ Failed to watch PAAP folder");
+        }
+    }
+
+    private void comparePaapFiles(ActionEvent e) {
+        logger.info("Compare PAAP files action triggered");
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select PAAP Excel Files to Compare");
+        fileChooser.setMultiSelectionEnabled(true);
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "Excel Files (*.xlsx, *.xls, *.zip, *.gz)", "xlsx", "xls", "zip", "gz"));
+
+        if (lastPaapFile != null && lastPaapFile.getParentFile() != null) {
+            fileChooser.setCurrentDirectory(lastPaapFile.getParentFile());
+        }
+
+        if (fileChooser.showOpenDialog(view.getFrame()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        List<File> files = Arrays.asList(fileChooser.getSelectedFiles());
+        view.setStatusMessage("🔄 Comparing " + files.size() + " PAAP file(s)...");
+        scheduler.task("compare", context -> dataController.compareWithWorkspace(files))
+                .group(ANALYSIS_TASKS)
+                .onSuccess(comparison -> {
+                    view.displayAnalysis(comparison.toReport(10));
+                    view.setStatusMessage(String.format("✅ Compared %d PAAP datasets",
+                            comparison.getDatasetNames().size()));
+                    logger.info("Compared workspace datasets: {}", comparison.getDatasetNames());
+                })
+                .onFailure(ex -> {
+                    logger.error("Error comparing PAAP files: {}", ex.getMessage(), ex);
+                    view.showErrorMessage("Error comparing PAAP files: " + ex.getMessage());
+                    view.setStatusMessage("❌ Failed to compare PAAP files");
+                })
+                .submit();
+    }
+
+    /** Runs on the EDT each time the watched folder produced a new model. */
+    private void refreshWatchedItems(File folder, DataModel model) {
+        if (model != dataController.getModel()) {
+            return; // a newer update is already queued
+        }
+        scheduler.cancelGroup(ANALYSIS_TASKS);
+
+        paapLoaded = true;
+        List<ProcurementItem> items = model.getProcurementItems();
+        view.updateProcurementItemsList(items);
+        view.setStatusMessage(String.format("🔄 %s updated: %d procurement items (%.2f RON total)",
+                folder.getName(), items.size(), model.getTotalValueWithoutTVA()));
+
+        view.updateAIAssistant();
+        view.updateDashboard();
+        view.updateScriptingService();
+
+        if (cpvCodesLoaded) {
+            generateAllCharts(null);
+            generateAnalysis(null);
         }
     }
 
@@ -132,7 +301,7 @@ public class MainController {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Select CPV Codes Excel File");
         fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
-                "Excel Files (*.xlsx, *.xls)", "xlsx", "xls"));
+                "Excel Files (*.xlsx, *.xls, *.zip, *.gz)", "xlsx", "xls", "zip", "gz"));
 
         if (lastCpvFile != null && lastCpvFile.getParentFile() != null) {
             fileChooser.setCurrentDirectory(lastCpvFile.getParentFile());
@@ -147,32 +316,37 @@ public class MainController {
 
     private void processCpvCodesFile(File selectedFile) {
         lastCpvFile = selectedFile;
+        scheduler.cancelGroup(ANALYSIS_TASKS);
         logger.info("Processing CPV codes file: {}", selectedFile.getAbsolutePath());
 
-        try {
-            view.setStatusMessage("🔄 Loading CPV codes file...");
-            dataController.loadCpvCodesFile(selectedFile);
-            cpvCodesLoaded = true;
-
-            int codesCount = dataController.getModel().getCpvCodeMap().size();
-            view.setStatusMessage("✅ Loaded " + codesCount + " CPV codes");
-            logger.info("CPV codes file loaded successfully: {} codes", codesCount);
-
-            view.updateAIAssistant();
-            view.updateDashboard();
-            view.updateScriptingService();
-
-            if (paapLoaded) {
-                logger.info("Both files loaded, auto-generating enhanced analysis");
-                generateAllCharts(null);
-                generateAnalysis(null);
-            }
-
-        } catch (Exception ex) {
-            logger.error("Error loading CPV codes file: {}", ex.getMessage(), ex);
-            view.showErrorMessage("Error loading CPV codes file: " + ex.getMessage());
-            view.setStatusMessage("❌ Failed to load CPV codes file");
-        }
+        view.setStatusMessage("🔄 Loading CPV codes file...");
+        scheduler.task(LOAD_CPV, context -> {
+                    dataController.loadCpvCodesFile(selectedFile);
+                    return dataController.getModel().getCpvCodeMap().size();
+                })
+                .group(LOAD_TASKS)
+                .priority(TaskScheduler.Priority.HIGH)
+                .onSuccess(codesCount -> {
+                    cpvCodesLoaded = true;
+                    view.setStatusMessage("✅ Loaded " + codesCount + " CPV codes");
+                    logger.info("CPV codes file loaded successfully: {} codes", codesCount);
+
+                    view.updateAIAssistant();
+                    view.updateDashboard();
+                    view.updateScriptingService();
+
+                    if (paapLoaded) {
+                        logger.info("Both files loaded, auto-generating enhanced analysis");
+                        generateAllCharts(null);
+                        generateAnalysis(null);
+                    }
+                })
+                .onFailure(ex -> {
+                    logger.error("Error loading CPV codes file: {}", ex.getMessage(), ex);
+                    view.showErrorMessage("Error loading CPV codes file: " + ex.getMessage());
+                    view.setStatusMessage("❌ Failed to load CPV codes file");
+                })
+                .submit();
     }
 
     private void searchProcurementItems(ActionEvent e) {
@@ -218,35 +392,33 @@ public class MainController {
             return;
         }
 
-        try {
-            view.setStatusMessage("🔄 Generating enhanced charts...");
-            view.clearCharts();
-
-            JFreeChart categoryChart = ChartGenerator.generateProcurementByCategory(
-                    dataController.getModel(),
-                    dataController.getModel().getCpvCodeMap()
-            );
-            view.displayChart(categoryChart, "Procurement by Category");
-
-            JFreeChart topItemsChart = ChartGenerator.generateTopProcurementItems(
-                    dataController.getModel(), 10
-            );
-            view.displayChart(topItemsChart, "Top 10 Procurement Items");
-
-            JFreeChart valueRangeChart = ChartGenerator.generateProcurementByValueRange(
-                    dataController.getModel()
-            );
-            view.displayChart(valueRangeChart, "Procurement by Value Range");
-
-            view.setStatusMessage("✅ Enhanced charts generated successfully");
-            logger.info("All enhanced charts generated successfully");
-
-        } catch (Exception ex) {
-            logger.error("Error generating charts: {}", ex.getMessage(), ex);
-            view.showErrorMessage("Error generating charts: " + ex.getMessage() +
-                    "\n\nPlease ensure your Excel files are in the correct format.");
-            view.setStatusMessage("❌ Failed to generate charts");
-        }
+        view.setStatusMessage("🔄 Generating enhanced charts...");
+        DataModel data = dataController.getModel().snapshot();
+        scheduler.task("charts", context -> {
+                    JFreeChart categoryChart = ChartGenerator.generateProcurementByCategory(data, data.getCpvCodeMap());
+                    context.progress(1, 3, "Generating enhanced charts");
+                    JFreeChart topItemsChart = ChartGenerator.generateTopProcurementItems(data, 10);
+                    context.progress(2, 3, "Generating enhanced charts");
+                    JFreeChart valueRangeChart = ChartGenerator.generateProcurementByValueRange(data);
+                    return new JFreeChart[]{categoryChart, topItemsChart, valueRangeChart};
+                })
+                .group(ANALYSIS_TASKS)
+                .onSuccess(charts -> {
+                    view.clearCharts();
+                    view.displayChart(charts[0], "Procurement by Category");
+                    view.displayChart(charts[1], "Top 10 Procurement Items");
+                    view.displayChart(charts[2], "Procurement by Value Range");
+
+                    view.setStatusMessage("✅ Enhanced charts generated successfully");
+                    logger.info("All enhanced charts generated successfully");
+                })
+                .onFailure(ex -> {
+                    logger.error("Error generating charts: {}", ex.getMessage(), ex);
+                    view.showErrorMessage("Error generating charts: " + ex.getMessage() +
+                            "\n\nPlease ensure your Excel files are in the correct format.");
+                    view.setStatusMessage("❌ Failed to generate charts");
+                })
+                .submit();
     }
 
     private void generateAnalysis(ActionEvent e) {
@@ -257,29 +429,28 @@ public class MainController {
             return;
         }
 
-        try {
-            view.setStatusMessage("🔄 Generating comprehensive analysis...");
-
-            String analysis;
-            if (cpvCodesLoaded) {
-                analysis = AnalysisService.generateAnalysisReport(
-                        dataController.getModel(),
-                        dataController.getModel().getCpvCodeMap()
-                );
-            } else {
-                analysis = dataController.getProcurementStatistics() + "\n\n" +
-                        "Note: Load CPV codes file for more detailed analysis.";
-            }
-
-            view.displayAnalysis(analysis);
-            view.setStatusMessage("✅ Comprehensive analysis generated successfully");
-            logger.info("Analysis generated successfully");
-
-        } catch (Exception ex) {
-            logger.error("Error generating analysis: {}", ex.getMessage(), ex);
-            view.showErrorMessage("Error generating analysis: " + ex.getMessage());
-            view.setStatusMessage("❌ Failed to generate analysis");
-        }
+        view.setStatusMessage("🔄 Generating comprehensive analysis...");
+        DataModel data = dataController.getModel().snapshot();
+        boolean withCpvCodes = cpvCodesLoaded;
+        scheduler.task("analysis", context -> {
+                    if (withCpvCodes) {
+                        return AnalysisService.generateAnalysisReport(data, data.getCpvCodeMap());
+                    }
+                    return dataController.getProcurementStatistics() + "\n\n" +
+                            "Note: Load CPV codes file for more detailed analysis.";
+                })
+                .group(ANALYSIS_TASKS)
+                .onSuccess(analysis -> {
+                    view.displayAnalysis(analysis);
+                    view.setStatusMessage("✅ Comprehensive analysis generated successfully");
+                    logger.info("Analysis generated successfully");
+                })
+                .onFailure(ex -> {
+                    logger.error("Error generating analysis: {}", ex.getMessage(), ex);
+                    view.showErrorMessage("Error generating analysis: " + ex.getMessage());
+                    view.setStatusMessage("❌ Failed to generate analysis");
+                })
+                .submit();
     }
 
     private void exportAnalysis(ActionEvent e) {
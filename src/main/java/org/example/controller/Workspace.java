@@ -0,0 +1,383 @@
+package org.example.controller;
+
+import org.example.model.CpvCode;
+import org.example.model.DataModel;
+import org.example.model.ItemQuery;
+import org.example.model.ProcurementAggregates;
+import org.example.model.ProcurementItem;
+import org.example.model.QueryResult;
+import org.example.util.SnapshotStore;
+import org.example.util.StringDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Several PAAP datasets loaded side by side, e.g. one per authority or year, sharing one map of
+ * CPV codes and one string dictionary. When the heap stays full after garbage collection, the
+ * least recently used dataset other than the active one is evicted; its items are kept in a
+ * snapshot and read back the next time it is used.
+ */
+public class Workspace {
+    private static final Logger logger = LoggerFactory.getLogger(Workspace.class);
+
+    /** Share of the maximum heap still in use after a collection above which datasets are evicted. */
+    public static final String MEMORY_RATIO_PROPERTY = "cpv.workspace.memoryRatio";
+    /** Maximum number of datasets kept in memory at once. */
+    public static final String MAX_RESIDENT_PROPERTY = "cpv.workspace.maxResident";
+
+    public static final double DEFAULT_MEMORY_RATIO = 0.75;
+
+    /** Reads the items of one PAAP file. */
+    @FunctionalInterface
+    public interface ItemLoader {
+        List<ProcurementItem> load(File file) throws Exception;
+    }
+
+    private static final class Dataset {
+        final String name;
+        final File file;
+        volatile DataModel model;
+
+        Dataset(String name, File file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+
+    private final ItemLoader loader;
+    private final StringDictionary strings = new StringDictionary();
+    private final Map<String, Dataset> datasets = new LinkedHashMap<>(16, 0.75f, true);
+    private final double memoryRatio;
+    private final int maxResident;
+    private volatile Map<String, CpvCode> cpvCodes = Collections.emptyMap();
+    private String activeName;
+
+    public Workspace(ItemLoader loader) {
+        this.loader = loader;
+        this.memoryRatio = readMemoryRatio();
+        this.maxResident = Integer.getInteger(MAX_RESIDENT_PROPERTY, Integer.MAX_VALUE);
+    }
+
+    private static double readMemoryRatio() {
+        String property = System.getProperty(MEMORY_RATIO_PROPERTY);
+        if (property == null) {
+            return DEFAULT_MEMORY_RATIO;
+        }
+        try {
+            return Double.parseDouble(property);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid {} '{}'", MEMORY_RATIO_PROPERTY, property);
+            return DEFAULT_MEMORY_RATIO;
+        }
+    }
+
+    /** Loads file as a dataset named after it, replacing a dataset of the same name. */
+    public DataModel add(File file) throws Exception {
+        String name = file.getName();
+        List<ProcurementItem> items = loader.load(file);
+        DataModel model = newModel(items);
+
+        synchronized (this) {
+            Dataset dataset = new Dataset(name, file);
+            dataset.model = model;
+            datasets.put(name, dataset);
+        }
+        logger.info("Added dataset {} with {} procurement items to the workspace", name, items.size());
+        evictIfNeeded();
+        return model;
+    }
+
+    /** The model of a dataset, read back from its snapshot if it was evicted. */
+    public DataModel get(String name) throws Exception {
+        Dataset dataset;
+        synchronized (this) {
+            dataset = datasets.get(name);
+        }
+        if (dataset == null) {
+            throw new IllegalArgumentException("No dataset named " + name + " in the workspace");
+        }
+
+        DataModel model;
+        synchronized (dataset) {
+            model = dataset.model;
+            if (model == null) {
+                model = newModel(loader.load(dataset.file));
+                dataset.model = model;
+                logger.info("Reloaded evicted dataset {}", name);
+            }
+        }
+        evictIfNeeded();
+        return model;
+    }
+
+    private DataModel newModel(List<ProcurementItem> items) {
+        DataModel model = new DataModel(cpvCodes, strings);
+        model.setProcurementItems(items);
+        return model;
+    }
+
+    public synchronized void remove(String name) {
+        datasets.remove(name);
+        if (name.equals(activeName)) {
+            activeName = null;
+        }
+    }
+
+    /** Dataset names, least recently used first. */
+    public synchronized List<String> getNames() {
+        return new ArrayList<>(datasets.keySet());
+    }
+
+    public synchronized boolean isResident(String name) {
+        Dataset dataset = datasets.get(name);
+        return dataset != null && dataset.model != null;
+    }
+
+    /** The dataset shown in the UI, or null when a file load replaced it; it is never evicted. */
+    public synchronized void setActive(String name) {
+        this.activeName = name;
+    }
+
+    public synchronized String getActiveName() {
+        return activeName;
+    }
+
+    /** Sets the CPV codes of every dataset, present and future. */
+    public void setCpvCodes(Map<String, CpvCode> codes) {
+        Map<String, CpvCode> interned = new HashMap<>(codes.size() * 2);
+        codes.forEach((code, cpvCode) -> interned.put(strings.intern(code), strings.intern(cpvCode)));
+        cpvCodes = Collections.unmodifiableMap(interned);
+
+        List<DataModel> resident = new ArrayList<>();
+        synchronized (this) {
+            for (Dataset dataset : datasets.values()) {
+                if (dataset.model != null) {
+                    resident.add(dataset.model);
+                }
+            }
+        }
+        resident.forEach(model -> model.setCpvCodes(cpvCodes));
+    }
+
+    public StringDictionary getStringDictionary() {
+        return strings;
+    }
+
+    /** Evicts one dataset per call while memory after the last collection is above the limit. */
+    private void evictIfNeeded() {
+        Dataset victim = null;
+        synchronized (this) {
+            int resident = 0;
+            for (Dataset dataset : datasets.values()) {
+                if (dataset.model != null) resident++;
+            }
+            if (resident <= maxResident && !isMemoryTight()) {
+                return;
+            }
+
+            for (Dataset dataset : datasets.values()) {
+                if (dataset.model != null && !dataset.name.equals(activeName)) {
+                    victim = dataset;
+                    break;
+                }
+            }
+        }
+        if (victim != null) {
+            evict(victim);
+        }
+    }
+
+    private void evict(Dataset dataset) {
+        synchronized (dataset) {
+            DataModel model = dataset.model;
+            if (model == null) {
+                return;
+            }
+            if (!SnapshotStore.hasProcurementItems(dataset.file, false)) {
+                SnapshotStore.saveProcurementItems(dataset.file, model.getProcurementItems(), false);
+            }
+            dataset.model = null;
+        }
+        logger.info("Evicted dataset {} from memory", dataset.name);
+    }
+
+    /** Heap still used after the most recent collection, so garbage does not count. */
+    private boolean isMemoryTight() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+        }
+        return used > Runtime.getRuntime().maxMemory() * memoryRatio;
+    }
+
+    /**
+     * Compares datasets (all when names is empty), reading evicted ones back and summarizing
+     * each on its own worker.
+     */
+    public Comparison compare(List<String> names) throws Exception {
+        List<String> selected = names.isEmpty() ? getNames() : names;
+        if (selected.isEmpty()) {
+            return new Comparison(Collections.emptyList());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(selected.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<Summary>> results = new ArrayList<>();
+            for (String name : selected) {
+                results.add(executor.submit(() -> new Summary(name, get(name))));
+            }
+
+            List<Summary> summaries = new ArrayList<>();
+            for (int i = 0; i < selected.size(); i++) {
+                try {
+                    summaries.add(results.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new Exception("Failed to compare dataset " + selected.get(i) + ": "
+                            + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return new Comparison(summaries);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class Summary {
+        final String name;
+        final int itemCount;
+        final double totalValue;
+        final Map<String, Double> categoryValues = new HashMap<>();
+        final Map<String, Double> sourceValues = new HashMap<>();
+
+        Summary(String name, DataModel model) {
+            this.name = name;
+            ProcurementAggregates aggregates = model.getAggregates();
+            this.itemCount = aggregates.getItemCount();
+            this.totalValue = aggregates.getTotalValueWithoutTVA();
+            for (String category : aggregates.getCategories()) {
+                categoryValues.put(category, aggregates.getCategoryValue(category));
+            }
+            QueryResult bySource = model.query(ItemQuery.all().groupBy(ItemQuery.GroupBy.SOURCE));
+            for (QueryResult.Group group : bySource.getGroups()) {
+                sourceValues.put(group.getKey(), group.getTotalValue());
+            }
+        }
+    }
+
+    /** Totals of several datasets side by side. */
+    public static final class Comparison {
+        private final List<Summary> summaries;
+
+        private Comparison(List<Summary> summaries) {
+            this.summaries = summaries;
+        }
+
+        public List<String> getDatasetNames() {
+            List<String> names = new ArrayList<>();
+            summaries.forEach(summary -> names.add(summary.name));
+            return names;
+        }
+
+        public int getItemCount(int dataset) {
+            return summaries.get(dataset).itemCount;
+        }
+
+        public double getTotalValue(int dataset) {
+            return summaries.get(dataset).totalValue;
+        }
+
+        /** Categories of all datasets, largest combined value first. */
+        public List<String> getCategories() {
+            return keysByValue(summary -> summary.categoryValues);
+        }
+
+        public double getCategoryValue(String category, int dataset) {
+            return summaries.get(dataset).categoryValues.getOrDefault(category, 0.0);
+        }
+
+        /** Financing sources of all datasets, largest combined value first. */
+        public List<String> getSources() {
+            return keysByValue(summary -> summary.sourceValues);
+        }
+
+        public double getSourceValue(String source, int dataset) {
+            return summaries.get(dataset).sourceValues.getOrDefault(source, 0.0);
+        }
+
+        private List<String> keysByValue(Function<Summary, Map<String, Double>> values) {
+            Map<String, Double> combined = new HashMap<>();
+            for (Summary summary : summaries) {
+                values.apply(summary).forEach((key, value) -> combined.merge(key, value, Double::sum));
+            }
+            List<String> keys = new ArrayList<>(combined.keySet());
+            keys.sort(Comparator.comparing((String key) -> combined.get(key)).reversed().thenComparing(key -> key));
+            return keys;
+        }
+
+        public String toReport(int topCategories) {
+            StringBuilder report = new StringBuilder();
+            report.append("==================================================\n");
+            report.append("           PAAP DATASET COMPARISON\n");
+            report.append("==================================================\n\n");
+
+            if (summaries.isEmpty()) {
+                report.append("No datasets in the workspace.\n");
+                return report.toString();
+            }
+
+            report.append(String.format("%-30s %10s %22s\n", "Dataset", "Items", "Total value (RON)"));
+            report.append("------------------------------------------------------------------\n");
+            for (Summary summary : summaries) {
+                report.append(String.format("%-30s %,10d %,22.2f\n", summary.name, summary.itemCount, summary.totalValue));
+            }
+
+            report.append("\nTOP CATEGORIES BY VALUE (RON)\n");
+            report.append("--------------------------------------------------\n");
+            appendTable(report, getCategories(), topCategories, summary -> summary.categoryValues);
+
+            report.append("\nFINANCING SOURCES (RON)\n");
+            report.append("--------------------------------------------------\n");
+            appendTable(report, getSources(), Integer.MAX_VALUE, summary -> summary.sourceValues);
+            return report.toString();
+        }
+
+        private void appendTable(StringBuilder report, List<String> keys, int limit,
+                                 Function<Summary, Map<String, Double>> values) {
+            report.append(String.format("%-20s", ""));
+            for (Summary summary : summaries) {
+                report.append(String.format(" %18s", abbreviate(summary.name, 18)));
+            }
+            report.append('\n');
+
+            for (String key : keys.subList(0, Math.min(limit, keys.size()))) {
+                report.append(String.format("%-20s", abbreviate(key, 20)));
+                for (Summary summary : summaries) {
+                    report.append(String.format(" %,18.2f", values.apply(summary).getOrDefault(key, 0.0)));
+                }
+                report.append('\n');
+            }
+        }
+
+        private static String abbreviate(String text, int width) {
+            return text.length() <= width ? text : text.substring(0, width - 1) + "…";
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.model;
+
+import org.example.util.MonthExtractor;
+import org.example.util.RoaringBitmap;
+import org.example.util.TaskScheduler;
+
+import java.util.*;
+
+/**
+ * Bitmaps of item positions for every financing source, month, quarter, CPV division and value
+ * range of one version of the items, built in one pass when the items are set. A filter on these
+ * attributes ORs the bitmaps of the accepted values and ANDs across attributes without looking
+ * at the items again.
+ * <p>
+ * An item belongs to the division (first two digits) of every one of its CPV codes, so an item
+ * with codes in several divisions is in several division bitmaps. Filtering and grouping by
+ * division both use these bitmaps; items without any code are grouped under "Unknown".
+ */
+final class AttributeBitmaps {
+    static final String UNKNOWN = "Unknown";
+
+    private final int size;
+    private final Map<String, RoaringBitmap> sources;
+    private final Map<String, RoaringBitmap> sourceGroups;
+    private final RoaringBitmap[] months;
+    private final RoaringBitmap[] quarters;
+    private final Map<String, RoaringBitmap> divisions;
+    private final RoaringBitmap noDivision;
+    private final ValueBuckets valueBuckets;
+    private final RoaringBitmap[] buckets;
+
+    private AttributeBitmaps(int size, Map<String, RoaringBitmap> sources, Map<String, RoaringBitmap> sourceGroups,
+                             RoaringBitmap[] months, RoaringBitmap[] quarters, Map<String, RoaringBitmap> divisions,
+                             RoaringBitmap noDivision, ValueBuckets valueBuckets, RoaringBitmap[] buckets) {
+        this.size = size;
+        this.sources = sources;
+        this.sourceGroups = sourceGroups;
+        this.months = months;
+        this.quarters = quarters;
+        this.divisions = divisions;
+        this.noDivision = noDivision;
+        this.valueBuckets = valueBuckets;
+        this.buckets = buckets;
+    }
+
+    static AttributeBitmaps build(List<ProcurementItem> items, ValueBuckets valueBuckets) {
+        Map<String, RoaringBitmap> sources = new LinkedHashMap<>();
+        RoaringBitmap missingSource = new RoaringBitmap();
+        RoaringBitmap[] months = newBitmaps(13);
+        Map<String, RoaringBitmap> divisions = new TreeMap<>();
+        RoaringBitmap noDivision = new RoaringBitmap();
+        RoaringBitmap[] buckets = newBitmaps(valueBuckets.getBucketCount());
+
+        for (int i = 0; i < items.size(); i++) {
+            TaskScheduler.checkCancelled(i);
+            ProcurementItem item = items.get(i);
+
+            String source = item.getSource();
+            if (source == null || source.isEmpty()) {
+                missingSource.add(i);
+            } else {
+                sources.computeIfAbsent(source, key -> new RoaringBitmap()).add(i);
+            }
+
+            months[MonthExtractor.monthOf(item)].add(i);
+
+            String previous = null;
+            for (String code : item.getCpvCodes()) {
+                if (code == null || code.length() < 2) continue;
+                String division = code.substring(0, 2);
+                // add() ignores repeats; this only skips consecutive codes of the same division
+                if (!division.equals(previous)) {
+                    divisions.computeIfAbsent(division, key -> new RoaringBitmap()).add(i);
+                    previous = division;
+                }
+            }
+            if (previous == null) {
+                noDivision.add(i);
+            }
+
+            int bucket = valueBuckets.bucketOf(item.getValueWithoutTVA());
+            if (bucket >= 0) {
+                buckets[bucket].add(i);
+            }
+        }
+
+        // Grouping shows missing sources as "Unknown", like the financing source report always did
+        Map<String, RoaringBitmap> sourceGroups = new LinkedHashMap<>(sources);
+        if (!missingSource.isEmpty()) {
+            RoaringBitmap unknown = sourceGroups.get(UNKNOWN);
+            sourceGroups.put(UNKNOWN, unknown != null ? unknown.or(missingSource) : missingSource);
+        }
+
+        RoaringBitmap[] quarters = new RoaringBitmap[5];
+        quarters[0] = new RoaringBitmap();
+        for (int quarter = 1; quarter <= 4; quarter++) {
+            quarters[quarter] = RoaringBitmap.or(Arrays.asList(months).subList(quarter * 3 - 2, quarter * 3 + 1));
+        }
+
+        return new AttributeBitmaps(items.size(), sources, sourceGroups, months, quarters, divisions,
+                noDivision, valueBuckets, buckets);
+    }
+
+    private static RoaringBitmap[] newBitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+
+    int size() {
+        return size;
+    }
+
+    ValueBuckets getValueBuckets() {
+        return valueBuckets;
+    }
+
+    /** Items whose source equals any of the given ones, ignoring case and surrounding spaces. */
+    RoaringBitmap sources(Collection<String> accepted) {
+        List<RoaringBitmap> matching = new ArrayList<>();
+        for (Map.Entry<String, RoaringBitmap> entry : sources.entrySet()) {
+            String source = entry.getKey().trim();
+            for (String wanted : accepted) {
+                if (source.equalsIgnoreCase(wanted)) {
+                    matching.add(entry.getValue());
+                    break;
+                }
+            }
+        }
+        return RoaringBitmap.or(matching);
+    }
+
+    /** Items of months from..to inclusive (1-12), wrapping around the year end when from &gt; to. */
+    RoaringBitmap months(int from, int to) {
+        if (from % 3 == 1 && to == from + 2) {
+            return quarters[(from + 2) / 3];
+        }
+        List<RoaringBitmap> matching = new ArrayList<>();
+        for (int month = from; ; month = month % 12 + 1) {
+            matching.add(months[month]);
+            if (month == to) break;
+        }
+        return RoaringBitmap.or(matching);
+    }
+
+    /** Items with a CPV code in the two-digit division. */
+    RoaringBitmap division(String division) {
+        RoaringBitmap bitmap = divisions.get(division);
+        return bitmap != null ? bitmap : new RoaringBitmap();
+    }
+
+    /** Items in the value range with the given label of {@link #getValueBuckets()}. */
+    RoaringBitmap bucket(String label) {
+        int bucket = valueBuckets.getLabels().indexOf(label);
+        return bucket >= 0 ? buckets[bucket] : new RoaringBitmap();
+    }
+
+    /** Source groups as shown in reports, missing sources under "Unknown". */
+    Map<String, RoaringBitmap> getSourceGroups() {
+        return Collections.unmodifiableMap(sourceGroups);
+    }
+
+    /** Month groups by month name, unknown months under "Unknown". */
+    Map<String, RoaringBitmap> getMonthGroups() {
+        Map<String, RoaringBitmap> groups = new LinkedHashMap<>();
+        for (int month = 1; month <= 12; month++) {
+            groups.put(MonthExtractor.nameOf(month), months[month]);
+        }
+        groups.put(UNKNOWN, months[0]);
+        return groups;
+    }
+
+    /** Division groups by two-digit division, items without a CPV code under "Unknown". */
+    Map<String, RoaringBitmap> getDivisionGroups() {
+        Map<String, RoaringBitmap> groups = new LinkedHashMap<>(divisions);
+        groups.put(UNKNOWN, noDivision);
+        return groups;
+    }
+
+    /** Value range groups by label. */
+    Map<String, RoaringBitmap> getBucketGroups() {
+        Map<String, RoaringBitmap> groups = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            groups.put(valueBuckets.getLabel(bucket), buckets[bucket]);
+        }
+        return groups;
+    }
+
+    long getSizeInBytes() {
+        long bytes = 0;
+        for (RoaringBitmap bitmap : sources.values()) bytes += bitmap.getSizeInBytes();
+        for (RoaringBitmap bitmap : months) bytes += bitmap.getSizeInBytes();
+        for (RoaringBitmap bitmap : quarters) bytes += bitmap.getSizeInBytes();
+        for (RoaringBitmap bitmap : divisions.values()) bytes += bitmap.getSizeInBytes();
+        bytes += noDivision.getSizeInBytes();
+        for (RoaringBitmap bitmap : buckets) bytes += bitmap.getSizeInBytes();
+        return bytes;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.model;
+
+import org.example.util.CompensatedSum;
+import org.example.util.TaskScheduler;
+
+import java.util.*;
+
+/**
+ * CPV category of every item of one version of the data, resolved once. Categories get dense
+ * int ids in order of first appearance; each category keeps the positions of its items in the
+ * item list and its compensated value total, so category queries never look at CPV codes again.
+ */
+public final class CategoryIndex {
+    public static final int NO_CATEGORY = -1;
+
+    private final List<ProcurementItem> items;
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final int[] categoryOfItem;
+    private final int[][] itemsOfCategory;
+    /** Compensated value totals, see {@link CompensatedSum}. */
+    private final double[] values;
+
+    private CategoryIndex(List<ProcurementItem> items, String[] names, Map<String, Integer> ids,
+                          int[] categoryOfItem, int[][] itemsOfCategory, double[] values) {
+        this.items = items;
+        this.names = names;
+        this.ids = ids;
+        this.categoryOfItem = categoryOfItem;
+        this.itemsOfCategory = itemsOfCategory;
+        this.values = values;
+    }
+
+    /** Indexes items as categorized by {@link ProcurementAggregates#categoryOf}; items must not change afterwards. */
+    public static CategoryIndex build(List<ProcurementItem> items, Map<String, CpvCode> cpvCodeMap) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[] categoryOfItem = new int[items.size()];
+        int[] counts = new int[16];
+        double[] values = CompensatedSum.create(16);
+
+        for (int i = 0; i < categoryOfItem.length; i++) {
+            TaskScheduler.checkCancelled(i);
+            ProcurementItem item = items.get(i);
+            String category = ProcurementAggregates.categoryOf(item, cpvCodeMap);
+            if (category == null) {
+                categoryOfItem[i] = NO_CATEGORY;
+                continue;
+            }
+
+            Integer id = ids.get(category);
+            if (id == null) {
+                id = names.size();
+                ids.put(category, id);
+                names.add(category);
+                if (id == counts.length) {
+                    counts = Arrays.copyOf(counts, id * 2);
+                    values = Arrays.copyOf(values, id * 4);
+                }
+            }
+
+            categoryOfItem[i] = id;
+            counts[id]++;
+            CompensatedSum.add(values, id, item.getValueWithoutTVA());
+        }
+
+        int[][] itemsOfCategory = new int[names.size()][];
+        for (int id = 0; id < itemsOfCategory.length; id++) {
+            itemsOfCategory[id] = new int[counts[id]];
+        }
+        int[] fill = new int[names.size()];
+        for (int i = 0; i < categoryOfItem.length; i++) {
+            int id = categoryOfItem[i];
+            if (id != NO_CATEGORY) {
+                itemsOfCategory[id][fill[id]++] = i;
+            }
+        }
+
+        return new CategoryIndex(items, names.toArray(new String[0]), ids, categoryOfItem, itemsOfCategory,
+                Arrays.copyOf(values, names.size() * 2));
+    }
+
+    public int getCategoryCount() {
+        return names.length;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /** Id of a category, or {@link #NO_CATEGORY} if no item has it. */
+    public int getId(String category) {
+        Integer id = ids.get(category);
+        return id != null ? id : NO_CATEGORY;
+    }
+
+    /** Category id of the item at a position in the item list, or {@link #NO_CATEGORY}. */
+    public int getCategoryOf(int itemIndex) {
+        return categoryOfItem[itemIndex];
+    }
+
+    public int getItemCount(int id) {
+        return itemsOfCategory[id].length;
+    }
+
+    /** Positions of the category's items in the item list, in ascending order; do not modify. */
+    public int[] getItemIndexes(int id) {
+        return itemsOfCategory[id];
+    }
+
+    public double getValue(int id) {
+        return CompensatedSum.get(values, id);
+    }
+
+    public List<ProcurementItem> getItems(int id) {
+        int[] indexes = itemsOfCategory[id];
+        List<ProcurementItem> result = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            result.add(items.get(index));
+        }
+        return result;
+    }
+}
@@ -1,155 +1,331 @@
 package org.example.model;
 
+import org.example.util.ParallelAggregator;
+import org.example.util.ProcurementWorkbookLoader;
+import org.example.util.StringDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * Procurement items and CPV codes with their aggregates and indexes.
+ * <p>
+ * Everything derived from one set of items, codes and value ranges forms an immutable
+ * {@link Version} that is published in a single volatile write. Readers never lock: each call
+ * works on the version current when it started, so a chart or query running in the background
+ * cannot see half-updated state. Writers are serialized on the model and build the next version
+ * aside before publishing it. Readers that make several calls, such as reports, should use
+ * {@link #snapshot()} so they all see the same version; {@link #getVersion()} and
+ * {@link QueryResult#getVersion()} tell which version a result was computed from.
+ */
 public class DataModel {
     private static final Logger logger = LoggerFactory.getLogger(DataModel.class);
 
-    private List<ProcurementItem> procurementItems;
-    private Map<String, CpvCode> cpvCodeMap;
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private volatile Version current;
+    private volatile StringDictionary strings;
+    private volatile ItemStorage itemStorage = ItemStorage.configured();
+    private final boolean sharedStrings;
 
     public DataModel() {
-        procurementItems = new ArrayList<>();
-        cpvCodeMap = new HashMap<>();
+        this(new HashMap<>(), new StringDictionary(), false);
+    }
+
+    /**
+     * Model that shares its CPV codes (as given, not copied) and string dictionary with other
+     * models, e.g. the datasets of a workspace. The codes should already be interned in strings.
+     */
+    public DataModel(Map<String, CpvCode> cpvCodes, StringDictionary strings) {
+        this(cpvCodes, strings, true);
+    }
+
+    private DataModel(Map<String, CpvCode> cpvCodes, StringDictionary strings, boolean sharedStrings) {
+        this.strings = strings;
+        this.sharedStrings = sharedStrings;
+        List<ProcurementItem> items = Collections.emptyList();
+        ValueBuckets valueBuckets = ValueBuckets.configured();
+        this.current = new Version(items, cpvCodes, valueBuckets,
+                ProcurementAggregates.build(items, cpvCodes, valueBuckets), null);
+    }
+
+    private DataModel(DataModel other) {
+        this.current = other.current;
+        this.strings = other.strings;
+        this.itemStorage = other.itemStorage;
+        this.sharedStrings = other.sharedStrings;
+    }
+
+    /** Independent model starting from the current version; nothing is copied until either one changes. */
+    public DataModel copy() {
+        return new DataModel(this);
     }
 
+    /**
+     * The current version as a model of its own, for readers that make several calls and must see
+     * the same data in all of them; later changes to this model do not affect it.
+     */
+    public DataModel snapshot() {
+        return copy();
+    }
+
+    /** Stamp of the current version; it changes with every change of items, CPV codes or value ranges. */
+    public long getVersion() {
+        return current.number;
+    }
+
+    /**
+     * Replaces the items. When most of them are unchanged (e.g. a revised plan), the aggregates
+     * are updated from the added and removed items only instead of being recomputed.
+     * The items are kept as selected by {@link #setItemStorage(ItemStorage)}; on the heap, items
+     * whose repeated string fields are not the shared instances of {@link #getStringDictionary()}
+     * are kept as interned copies, and the given items are never written.
+     * The attribute bitmaps of the new items are built by the first query that needs them.
+     */
     public void setProcurementItems(List<ProcurementItem> items) {
-        this.procurementItems = new ArrayList<>(items);
+        setProcurementItems(items, () -> false);
+    }
+
+    /**
+     * Like {@link #setProcurementItems(List)}, but throws CancellationException and keeps the
+     * current version once cancelled returns true, e.g. when the load that read the items is
+     * cancelled while the aggregates are built.
+     */
+    public synchronized void setProcurementItems(List<ProcurementItem> items, BooleanSupplier cancelled) {
+        Version previous = current;
+        List<ProcurementItem> stored = store(items);
+        checkCancelled(cancelled);
+
+        if (!previous.items.isEmpty()) {
+            ItemDiff diff = ItemDiff.between(previous.items, stored);
+            if (diff.size() < stored.size()) {
+                ProcurementAggregates aggregates = previous.aggregates.copy();
+                diff.getRemoved().forEach(aggregates::remove);
+                diff.getAdded().forEach(aggregates::add);
+                checkCancelled(cancelled);
+                publish(new Version(stored, previous.cpvCodeMap, previous.valueBuckets, aggregates, null));
+                logger.info("Set {} procurement items in data model ({} added, {} removed)",
+                        items.size(), diff.getAdded().size(), diff.getRemoved().size());
+                return;
+            }
+        }
+
+        Map<String, CpvCode> cpvCodes = previous.cpvCodeMap;
+        if (!previous.items.isEmpty() && !(stored instanceof OffHeapItemList) && !sharedStrings) {
+            // Starts a dictionary with only the strings of these items and codes, dropping older versions'
+            StringDictionary compacted = new StringDictionary();
+            cpvCodes = internCodes(cpvCodes, compacted);
+            stored = internItems(stored, compacted);
+            logger.debug("Compacted string dictionary from {} to {} strings", strings.size(), compacted.size());
+            strings = compacted;
+        }
+        ProcurementAggregates aggregates = ProcurementAggregates.build(stored, cpvCodes, previous.valueBuckets);
+        checkCancelled(cancelled);
+        publish(new Version(stored, cpvCodes, previous.valueBuckets, aggregates, null));
         logger.info("Set {} procurement items in data model", items.size());
     }
 
+    private static void checkCancelled(BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Replacing the procurement items was cancelled");
+        }
+    }
+
+    /** Makes next the current version. */
+    private void publish(Version next) {
+        current = next;
+        logger.debug("Published data model version {}", next.number);
+    }
+
+    private List<ProcurementItem> store(List<ProcurementItem> items) {
+        if (itemStorage.isOffHeap()) {
+            if (items instanceof OffHeapItemList && ((OffHeapItemList) items).getStorage() == itemStorage) {
+                return items;
+            }
+            try {
+                return OffHeapItemList.copyOf(items, itemStorage);
+            } catch (IOException | IllegalStateException e) {
+                logger.warn("Could not store items {}, keeping them on the heap: {}", itemStorage, e.getMessage());
+            }
+        }
+
+        return internItems(items, strings);
+    }
+
+    /**
+     * The items with shared strings. Items that need interning are copied rather than written,
+     * since readers of a published version may still be reading them.
+     */
+    private static List<ProcurementItem> internItems(List<ProcurementItem> items, StringDictionary strings) {
+        List<ProcurementItem> interned = new ArrayList<>(items);
+        interned.replaceAll(strings::intern);
+        return Collections.unmodifiableList(interned);
+    }
+
+    private static boolean isOffHeap(Version version) {
+        return version.items instanceof OffHeapItemList;
+    }
+
+    public ItemStorage getItemStorage() {
+        return itemStorage;
+    }
+
+    /**
+     * Selects where items are kept from now on and moves the current ones; off-heap storage keeps
+     * very large datasets out of the garbage collector's way. Defaults to {@link ItemStorage#configured()}.
+     */
+    public synchronized void setItemStorage(ItemStorage itemStorage) {
+        if (this.itemStorage == itemStorage) {
+            return;
+        }
+        this.itemStorage = itemStorage;
+        setProcurementItems(new ArrayList<>(current.items));
+        logger.info("Keeping procurement items in {} storage", itemStorage);
+    }
+
+    private static Map<String, CpvCode> internCodes(Map<String, CpvCode> codes, StringDictionary strings) {
+        Map<String, CpvCode> interned = new HashMap<>(codes.size() * 2);
+        codes.forEach((code, cpvCode) -> interned.put(strings.intern(code), strings.intern(cpvCode)));
+        return interned;
+    }
+
+    /** A copy of the items; with off-heap storage a read-only view, so items are only built as read. */
     public List<ProcurementItem> getProcurementItems() {
-        return new ArrayList<>(procurementItems);
+        Version version = current;
+        return isOffHeap(version) ? version.items : new ArrayList<>(version.items);
     }
 
-    public void setCpvCodes(Map<String, CpvCode> cpvCodes) {
-        this.cpvCodeMap = new HashMap<>(cpvCodes);
+    /** Replaces the CPV codes; a model with shared codes and dictionary keeps the map as given. */
+    public synchronized void setCpvCodes(Map<String, CpvCode> cpvCodes) {
+        Version previous = current;
+        Map<String, CpvCode> codes = sharedStrings ? cpvCodes : internCodes(cpvCodes, strings);
+        publish(new Version(previous.items, codes, previous.valueBuckets,
+                ProcurementAggregates.build(previous.items, codes, previous.valueBuckets), previous.bitmaps));
         logger.info("Set {} CPV codes in data model", cpvCodes.size());
     }
 
     public Map<String, CpvCode> getCpvCodeMap() {
-        return new HashMap<>(cpvCodeMap);
+        return new HashMap<>(current.cpvCodeMap);
+    }
+
+    /** Shared instances and int ids of the CPV codes, CPV fields, sources and dates of the data. */
+    public StringDictionary getStringDictionary() {
+        return strings;
     }
 
+    /** The CPV code for code, with or without its check digit. */
     public CpvCode getCpvCodeByCode(String code) {
-        return cpvCodeMap.get(code);
+        String key = ProcurementWorkbookLoader.toCpvKey(code);
+        return key != null ? current.cpvCodeMap.get(key) : null;
     }
 
+    /** Search field query, see {@link ItemQuery#parse(String)}; a plain text matches names, CPV codes and CPV names. */
     public List<ProcurementItem> searchProcurementItems(String query) {
         if (query == null || query.trim().isEmpty()) {
-            logger.info("Empty search query, returning all {} items", procurementItems.size());
-            return new ArrayList<>(procurementItems);
+            List<ProcurementItem> items = getProcurementItems();
+            logger.info("Empty search query, returning all {} items", items.size());
+            return items;
         }
 
-        String searchQuery = query.toLowerCase();
-        logger.info("Searching for '{}' in {} procurement items", searchQuery, procurementItems.size());
-
-        List<ProcurementItem> results = procurementItems.stream()
-                .filter(item ->
-                        (item.getObjectName() != null && item.getObjectName().toLowerCase().contains(searchQuery)) ||
-                                (item.getCpvField() != null && item.getCpvField().toLowerCase().contains(searchQuery)) ||
-                                item.getCpvCodes().stream().anyMatch(code -> code.toLowerCase().contains(searchQuery)) ||
-                                cpvCodeMatchesQuery(item, searchQuery)
-                )
-                .collect(Collectors.toList());
-
-        logger.info("Found {} items matching '{}'", results.size(), searchQuery);
-        return results;
+        QueryResult result = query(ItemQuery.parse(query));
+        logger.info("Found {} items matching '{}'", result.getCount(), query);
+        return new ArrayList<>(result.getItems());
     }
 
-    private boolean cpvCodeMatchesQuery(ProcurementItem item, String query) {
-        return item.getCpvCodes().stream()
-                .anyMatch(code -> {
-                    CpvCode cpvCode = cpvCodeMap.get(code);
-                    if (cpvCode == null) {
-                        return false;
-                    }
-                    return cpvCode.getRomanianName().toLowerCase().contains(query) ||
-                            cpvCode.getEnglishName().toLowerCase().contains(query);
-                });
+    /** Runs a query using the indexes of the current version, which are built on first use. */
+    public QueryResult query(ItemQuery query) {
+        Version version = current;
+        QueryResult result = QueryPlanner.execute(query, version.items, version.cpvCodeMap, version.queryIndexes(),
+                version::bitmaps, version::categoryIndex).withVersion(version.number);
+        logger.debug("Query plan: {} -> {} items", result.getPlan(), result.getCount());
+        return result;
     }
 
     public List<ProcurementItem> filterProcurementItems(Predicate<ProcurementItem> predicate) {
-        return procurementItems.stream()
+        return current.items.stream()
                 .filter(predicate)
                 .collect(Collectors.toList());
     }
 
     public double getTotalValueWithoutTVA() {
-        double total = procurementItems.stream()
-                .mapToDouble(ProcurementItem::getValueWithoutTVA)
-                .sum();
-        logger.debug("Calculated total value without TVA: {}", total);
-        return total;
+        return current.aggregates.getTotalValueWithoutTVA();
     }
 
     public double getTotalValueWithTVA() {
-        double total = procurementItems.stream()
-                .mapToDouble(ProcurementItem::getValueWithTVA)
-                .sum();
-        logger.debug("Calculated total value with TVA: {}", total);
-        return total;
+        return current.aggregates.getTotalValueWithTVA();
+    }
+
+    /** Snapshot of the running totals per category, value range and month. */
+    public ProcurementAggregates getAggregates() {
+        return current.aggregates.copy();
+    }
+
+    /** Category of every item, resolved once per version of the items and CPV codes. */
+    public CategoryIndex getCategoryIndex() {
+        return current.categoryIndex();
+    }
+
+    public int getCategoryCount() {
+        return current.aggregates.getCategoryCount();
     }
 
     public Map<String, List<ProcurementItem>> getProcurementItemsByCategory() {
+        CategoryIndex index = getCategoryIndex();
         Map<String, List<ProcurementItem>> result = new HashMap<>();
 
-        for (ProcurementItem item : procurementItems) {
-            boolean categorized = false;
-
-            for (String cpvCode : item.getCpvCodes()) {
-                CpvCode code = cpvCodeMap.get(cpvCode);
-                if (code != null) {
-                    String category = code.getCategory();
-                    if (category != null && !category.isEmpty()) {
-                        result.computeIfAbsent(category, k -> new ArrayList<>()).add(item);
-                        categorized = true;
-                        break;
-                    }
-                }
-            }
-
-            if (!categorized && item.getObjectName() != null && !item.getObjectName().isEmpty()) {
-                result.computeIfAbsent("00", k -> new ArrayList<>()).add(item);
-            }
+        for (int id = 0; id < index.getCategoryCount(); id++) {
+            result.put(index.getName(id), index.getItems(id));
         }
 
-        logger.info("Grouped procurement items into {} categories", result.size());
         return result;
     }
 
+    /** Value ranges used by the maintained aggregates, reports and charts. */
+    public ValueBuckets getValueBuckets() {
+        return current.valueBuckets;
+    }
+
+    public synchronized void setValueBuckets(ValueBuckets valueBuckets) {
+        Version previous = current;
+        publish(new Version(previous.items, previous.cpvCodeMap, valueBuckets,
+                ProcurementAggregates.build(previous.items, previous.cpvCodeMap, valueBuckets), null));
+        logger.info("Using value ranges {}", valueBuckets);
+    }
+
+    /** Counts and sums for any set of value ranges, e.g. {@link ValueBuckets#DIRECT_AWARD_THRESHOLDS}. */
+    public ValueBuckets.Totals getValueRangeTotals(ValueBuckets buckets) {
+        return buckets.totals(current.items);
+    }
+
     public Map<String, List<ProcurementItem>> getProcurementItemsByValueRange() {
+        Version version = current;
+        ValueBuckets valueBuckets = version.valueBuckets;
+        ValueBuckets.Totals totals = valueBuckets.totals(version.items, true);
         Map<String, List<ProcurementItem>> result = new LinkedHashMap<>();
 
-        result.put("0-10,000", filterProcurementItems(item -> item.getValueWithoutTVA() >= 0 && item.getValueWithoutTVA() < 10000));
-        result.put("10,000-50,000", filterProcurementItems(item -> item.getValueWithoutTVA() >= 10000 && item.getValueWithoutTVA() < 50000));
-        result.put("50,000-100,000", filterProcurementItems(item -> item.getValueWithoutTVA() >= 50000 && item.getValueWithoutTVA() < 100000));
-        result.put("100,000+", filterProcurementItems(item -> item.getValueWithoutTVA() >= 100000));
-
-        for (Map.Entry<String, List<ProcurementItem>> entry : result.entrySet()) {
-            logger.debug("Value range {}: {} items", entry.getKey(), entry.getValue().size());
+        for (int bucket = 0; bucket < valueBuckets.getBucketCount(); bucket++) {
+            result.put(valueBuckets.getLabel(bucket), totals.getItems(bucket));
+            logger.debug("Value range {}: {} items", valueBuckets.getLabel(bucket), totals.getCount(bucket));
         }
 
         return result;
     }
 
     public Map<String, Double> getValueByCpvCategory() {
+        ProcurementAggregates aggregates = current.aggregates;
         Map<String, Double> result = new HashMap<>();
 
-        Map<String, List<ProcurementItem>> itemsByCategory = getProcurementItemsByCategory();
-        for (Map.Entry<String, List<ProcurementItem>> entry : itemsByCategory.entrySet()) {
-            double totalValue = entry.getValue().stream()
-                    .mapToDouble(ProcurementItem::getValueWithoutTVA)
-                    .sum();
-
+        for (String category : aggregates.getCategories()) {
+            double totalValue = aggregates.getCategoryValue(category);
             if (totalValue > 0) {
-                result.put(entry.getKey(), totalValue);
-                logger.debug("Category {}: total value {}", entry.getKey(), totalValue);
+                result.put(category, totalValue);
             }
         }
 
@@ -158,11 +334,24 @@ public class DataModel {
     }
 
     public List<ProcurementItem> getTopProcurementItemsByValue(int n) {
+        Version version = current;
+        List<ProcurementItem> procurementItems = version.items;
         if (procurementItems.isEmpty()) {
             logger.warn("No procurement items available to get top items");
             return Collections.emptyList();
         }
 
+        if (ParallelAggregator.shouldParallelize(procurementItems.size())) {
+            double[] values = version.queryIndexes().values();
+
+            List<ProcurementItem> topItems = new ArrayList<>(n);
+            for (int index : ParallelAggregator.topIndexes(values, n)) {
+                topItems.add(procurementItems.get(index));
+            }
+            logger.info("Retrieved top {} procurement items by value", topItems.size());
+            return topItems;
+        }
+
         List<ProcurementItem> validItems = procurementItems.stream()
                 .filter(item -> item.getValueWithoutTVA() > 0)
                 .collect(Collectors.toList());
@@ -180,4 +369,76 @@ public class DataModel {
         logger.info("Retrieved top {} procurement items by value", topItems.size());
         return topItems;
     }
-}
\ No newline at end of file
+
+    /**
+     * One published state of the model. Its items, codes and aggregates are never changed after
+     * publishing; the attribute bitmaps and the category and query indexes are built from them on
+     * first use, so a change that no query follows does not pay for them.
+     */
+    private static final class Version {
+        final long number = VERSIONS.incrementAndGet();
+        final List<ProcurementItem> items;
+        final Map<String, CpvCode> cpvCodeMap;
+        final ValueBuckets valueBuckets;
+        final ProcurementAggregates aggregates;
+        private volatile AttributeBitmaps bitmaps;
+        private volatile CategoryIndex categoryIndex;
+        private volatile QueryIndexes queryIndexes;
+
+        /** bitmaps may be null, or those of a version with the same items and value ranges. */
+        Version(List<ProcurementItem> items, Map<String, CpvCode> cpvCodeMap, ValueBuckets valueBuckets,
+                ProcurementAggregates aggregates, AttributeBitmaps bitmaps) {
+            this.items = items;
+            this.cpvCodeMap = cpvCodeMap;
+            this.valueBuckets = valueBuckets;
+            this.aggregates = aggregates;
+            this.bitmaps = bitmaps;
+        }
+
+        AttributeBitmaps bitmaps() {
+            AttributeBitmaps built = bitmaps;
+            if (built == null) {
+                synchronized (this) {
+                    built = bitmaps;
+                    if (built == null) {
+                        long start = System.nanoTime();
+                        built = AttributeBitmaps.build(items, valueBuckets);
+                        bitmaps = built;
+                        logger.debug("Built attribute bitmaps for {} items in {} ms (~{} KB)", items.size(),
+                                (System.nanoTime() - start) / 1_000_000, built.getSizeInBytes() / 1024);
+                    }
+                }
+            }
+            return built;
+        }
+
+        CategoryIndex categoryIndex() {
+            CategoryIndex index = categoryIndex;
+            if (index == null) {
+                synchronized (this) {
+                    index = categoryIndex;
+                    if (index == null) {
+                        index = CategoryIndex.build(items, cpvCodeMap);
+                        categoryIndex = index;
+                        logger.info("Indexed {} procurement items into {} categories", items.size(), index.getCategoryCount());
+                    }
+                }
+            }
+            return index;
+        }
+
+        QueryIndexes queryIndexes() {
+            QueryIndexes indexes = queryIndexes;
+            if (indexes == null) {
+                synchronized (this) {
+                    indexes = queryIndexes;
+                    if (indexes == null) {
+                        indexes = new QueryIndexes(items, cpvCodeMap);
+                        queryIndexes = indexes;
+                    }
+                }
+            }
+            return indexes;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.model;
+
+import java.util.*;
+
+/**
+ * Difference between two versions of a procurement plan. Items are matched by a key over all
+ * of their fields, so an edited row shows up as one removed and one added item, and identical
+ * duplicate rows are matched one to one.
+ */
+public final class ItemDiff {
+    private final List<ProcurementItem> added;
+    private final List<ProcurementItem> removed;
+    private final int unchanged;
+
+    private ItemDiff(List<ProcurementItem> added, List<ProcurementItem> removed, int unchanged) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.unchanged = unchanged;
+    }
+
+    public static ItemDiff between(List<ProcurementItem> previous, List<ProcurementItem> current) {
+        Map<Key, Deque<ProcurementItem>> remaining = new HashMap<>(previous.size() * 2);
+        for (ProcurementItem item : previous) {
+            remaining.computeIfAbsent(new Key(item), k -> new ArrayDeque<>(1)).add(item);
+        }
+
+        List<ProcurementItem> added = new ArrayList<>();
+        int unchanged = 0;
+        for (ProcurementItem item : current) {
+            Deque<ProcurementItem> matches = remaining.get(new Key(item));
+            if (matches != null && !matches.isEmpty()) {
+                matches.poll();
+                unchanged++;
+            } else {
+                added.add(item);
+            }
+        }
+
+        List<ProcurementItem> removed = new ArrayList<>();
+        for (Deque<ProcurementItem> matches : remaining.values()) {
+            removed.addAll(matches);
+        }
+
+        return new ItemDiff(added, removed, unchanged);
+    }
+
+    /**
+     * Identity of an item: equal keys mean the rows are interchangeable for every aggregate.
+     * The loaders intern the string fields, so equal fields are mostly the same instance and
+     * compare by reference.
+     */
+    private static final class Key {
+        private final ProcurementItem item;
+        private final int hash;
+
+        Key(ProcurementItem item) {
+            this.item = item;
+            int h = Objects.hash(item.getObjectName(), item.getCpvField(), item.getSource(),
+                    item.getInitiationDate(), item.getCompletionDate(), item.getCpvCodes());
+            h = 31 * h + Double.hashCode(item.getValueWithoutTVA());
+            this.hash = 31 * h + Double.hashCode(item.getValueWithTVA());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            ProcurementItem other = ((Key) o).item;
+            return hash == ((Key) o).hash
+                    && Double.compare(item.getValueWithoutTVA(), other.getValueWithoutTVA()) == 0
+                    && Double.compare(item.getValueWithTVA(), other.getValueWithTVA()) == 0
+                    && Objects.equals(item.getObjectName(), other.getObjectName())
+                    && Objects.equals(item.getCpvField(), other.getCpvField())
+                    && Objects.equals(item.getSource(), other.getSource())
+                    && Objects.equals(item.getInitiationDate(), other.getInitiationDate())
+                    && Objects.equals(item.getCompletionDate(), other.getCompletionDate())
+                    && Objects.equals(item.getCpvCodes(), other.getCpvCodes());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    public List<ProcurementItem> getAdded() {
+        return added;
+    }
+
+    public List<ProcurementItem> getRemoved() {
+        return removed;
+    }
+
+    public int getUnchangedCount() {
+        return unchanged;
+    }
+
+    public int size() {
+        return added.size() + removed.size();
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Typed query over the procurement items of a {@link DataModel}: filters that are all
+ * required to match, an optional grouping and an optional order and limit.
+ * <pre>
+ * model.query(ItemQuery.all().cpvPrefix("45").valueBetween(100_000, Double.POSITIVE_INFINITY)
+ *         .groupBy(ItemQuery.GroupBy.SOURCE))
+ * </pre>
+ * Setting a filter twice replaces it. Source, month, quarter, two-digit CPV prefix and value
+ * range filters are answered from bitmap indexes. Run with {@link DataModel#query(ItemQuery)}.
+ */
+public final class ItemQuery {
+    public enum GroupBy {CATEGORY, CPV_DIVISION, SOURCE, MONTH, VALUE_RANGE}
+
+    public enum Order {NONE, VALUE_ASCENDING, VALUE_DESCENDING}
+
+    double minValue = Double.NaN;
+    double maxValue = Double.NaN;
+    String cpvPrefix;
+    String category;
+    int fromMonth;
+    int toMonth;
+    List<String> sources = Collections.emptyList();
+    String valueRange;
+    String text;
+    GroupBy groupBy;
+    Order order = Order.NONE;
+    int limit = Integer.MAX_VALUE;
+
+    private ItemQuery() {
+    }
+
+    public static ItemQuery all() {
+        return new ItemQuery();
+    }
+
+    /**
+     * Query typed into the search field. Words of the form value:MIN-MAX, value&gt;N, value&lt;N,
+     * cpv:PREFIX, month:M or month:M-N, quarter:Q and source:NAME become filters; the remaining words are
+     * matched as one text. Without any such word the whole input is the text, as before.
+     */
+    public static ItemQuery parse(String input) {
+        ItemQuery query = all();
+        if (input == null || input.trim().isEmpty()) {
+            return query;
+        }
+
+        StringBuilder text = new StringBuilder();
+        boolean hasFilter = false;
+        for (String word : input.trim().split("\\s+")) {
+            if (query.parseFilter(word)) {
+                hasFilter = true;
+            } else {
+                if (text.length() > 0) text.append(' ');
+                text.append(word);
+            }
+        }
+
+        String remaining = hasFilter ? text.toString() : input;
+        if (!remaining.isEmpty()) {
+            query.text(remaining);
+        }
+        return query;
+    }
+
+    private boolean parseFilter(String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        try {
+            if (lower.startsWith("value>")) {
+                valueBetween(Double.parseDouble(lower.substring(6)), Double.POSITIVE_INFINITY);
+            } else if (lower.startsWith("value<")) {
+                valueBetween(Double.NEGATIVE_INFINITY, Double.parseDouble(lower.substring(6)));
+            } else if (lower.startsWith("value:") && lower.indexOf('-', 7) > 0) {
+                int dash = lower.indexOf('-', 7);
+                valueBetween(Double.parseDouble(lower.substring(6, dash)), Double.parseDouble(lower.substring(dash + 1)));
+            } else if (lower.startsWith("cpv:") && lower.length() > 4) {
+                cpvPrefix(word.substring(4));
+            } else if (lower.startsWith("month:") && lower.length() > 6) {
+                String[] range = lower.substring(6).split("-");
+                int from = Integer.parseInt(range[0]);
+                monthBetween(from, range.length > 1 ? Integer.parseInt(range[1]) : from);
+            } else if (lower.startsWith("quarter:") && lower.length() > 8) {
+                quarter(Integer.parseInt(lower.substring(8)));
+            } else if (lower.startsWith("source:") && lower.length() > 7) {
+                source(word.substring(7));
+            } else {
+                return false;
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /** Value without TVA in [min, max). */
+    public ItemQuery valueBetween(double min, double max) {
+        if (Double.isNaN(min) || Double.isNaN(max)) {
+            throw new IllegalArgumentException("Value range bounds must be numbers");
+        }
+        this.minValue = min;
+        this.maxValue = max;
+        return this;
+    }
+
+    /** Value range with the given label of the model's {@link ValueBuckets}, e.g. "10,000-50,000". */
+    public ItemQuery valueRange(String label) {
+        this.valueRange = label;
+        return this;
+    }
+
+    /** At least one CPV code starting with prefix, e.g. "45" for construction works. */
+    public ItemQuery cpvPrefix(String prefix) {
+        this.cpvPrefix = prefix;
+        return this;
+    }
+
+    /** Category as used by the reports, see {@link ProcurementAggregates#categoryOf}. */
+    public ItemQuery category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    /** Month 1-12 between from and to inclusive; from &gt; to wraps around the year end. */
+    public ItemQuery monthBetween(int from, int to) {
+        if (from < 1 || from > 12 || to < 1 || to > 12) {
+            throw new IllegalArgumentException("Months must be between 1 and 12");
+        }
+        this.fromMonth = from;
+        this.toMonth = to;
+        return this;
+    }
+
+    /** Quarter 1-4, the same as the month range of the quarter. */
+    public ItemQuery quarter(int quarter) {
+        if (quarter < 1 || quarter > 4) {
+            throw new IllegalArgumentException("Quarter must be between 1 and 4");
+        }
+        return monthBetween(quarter * 3 - 2, quarter * 3);
+    }
+
+    /** Financing source, ignoring case and surrounding spaces; with several, any of them. */
+    public ItemQuery source(String... sources) {
+        List<String> trimmed = new ArrayList<>(sources.length);
+        for (String source : sources) {
+            trimmed.add(source.trim());
+        }
+        this.sources = trimmed;
+        return this;
+    }
+
+    /** Case-insensitive substring of the name, CPV field, a CPV code or the name of a CPV code. */
+    public ItemQuery text(String text) {
+        this.text = text.toLowerCase();
+        return this;
+    }
+
+    /**
+     * Groups the matches. With {@link GroupBy#CPV_DIVISION} an item counts in the division of each
+     * of its CPV codes, as the cpv filter matches it, so group totals can add up to more than the total.
+     */
+    public ItemQuery groupBy(GroupBy groupBy) {
+        this.groupBy = groupBy;
+        return this;
+    }
+
+    public ItemQuery orderBy(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    public ItemQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    boolean hasValueFilter() {
+        return !Double.isNaN(minValue);
+    }
+
+    boolean hasMonthFilter() {
+        return fromMonth > 0;
+    }
+}
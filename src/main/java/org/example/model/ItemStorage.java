@@ -0,0 +1,40 @@
+package org.example.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/** Where a {@link DataModel} keeps its items. */
+public enum ItemStorage {
+    /** Ordinary ProcurementItem objects. */
+    HEAP,
+    /** {@link OffHeapItemList} in direct buffers. */
+    DIRECT,
+    /** {@link OffHeapItemList} in buffers mapped from a temporary file, paged by the OS. */
+    MAPPED;
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemStorage.class);
+
+    /** System property selecting the storage: heap, direct or mapped. */
+    public static final String PROPERTY = "cpv.itemStorage";
+
+    /** Storage from {@link #PROPERTY}, or {@link #HEAP} when it is not set or invalid. */
+    public static ItemStorage configured() {
+        String property = System.getProperty(PROPERTY);
+        if (property == null || property.trim().isEmpty()) {
+            return HEAP;
+        }
+
+        try {
+            return valueOf(property.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring invalid {} '{}': expected heap, direct or mapped", PROPERTY, property);
+            return HEAP;
+        }
+    }
+
+    public boolean isOffHeap() {
+        return this != HEAP;
+    }
+}
@@ -0,0 +1,449 @@
+package org.example.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable item list whose data lives outside the Java heap, for multi-year datasets too large
+ * to keep as objects. Every item is a fixed record of two values, five string ids and the range
+ * of its CPV code ids; each CPV code, CPV field, source and date string is stored once in a UTF-8
+ * arena, object names as they come. {@link #get(int)} builds a ProcurementItem from the record
+ * and returns that same object for the index for as long as anything still references it, so
+ * selections, indexOf/contains and identity maps see one item per row. Only rows that are held,
+ * e.g. the ones a list shows, stay on the heap, so it does not grow with the number of items.
+ * <p>
+ * {@link #writeTo(WritableByteChannel)} writes the segments as they are, so a list can be saved to a file
+ * and later served straight from a mapping of that file with {@link #map(ByteBuffer)}.
+ */
+public final class OffHeapItemList extends AbstractList<ProcurementItem> implements RandomAccess {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapItemList.class);
+
+    private static final int SEGMENT_SHIFT = 23;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private static final int VALUE_WITHOUT_TVA = 0;
+    private static final int VALUE_WITH_TVA = 8;
+    private static final int OBJECT_NAME = 16;
+    private static final int CPV_FIELD = 20;
+    private static final int SOURCE = 24;
+    private static final int INITIATION_DATE = 28;
+    private static final int COMPLETION_DATE = 32;
+    private static final int FIRST_CODE = 36;
+    private static final int CODE_COUNT = 40;
+    private static final int RECORD_SIZE = 44;
+    private static final int RECORDS_PER_SEGMENT = SEGMENT_SIZE / RECORD_SIZE;
+
+    private static final int NO_STRING = -1;
+    private static final int CACHE_SIZE = 4096;
+
+    private final ItemStorage storage;
+    private final int size;
+    private final int codeCount;
+    private final int stringCount;
+    private final long arenaLength;
+    private final ByteBuffer[] records;
+    private final ByteBuffer[] codes;
+    private final ByteBuffer[] stringOffsets;
+    private final ByteBuffer[] arena;
+    private final CachedString[] cache = new CachedString[CACHE_SIZE];
+    private final Map<Integer, Row> rows = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ProcurementItem> collectedRows = new ReferenceQueue<>();
+
+    private OffHeapItemList(Builder builder) {
+        this(builder.allocator.storage, builder.size, builder.codeCount, builder.stringCount, builder.arenaPosition,
+                builder.records.toArray(new ByteBuffer[0]), builder.codes.toArray(new ByteBuffer[0]),
+                builder.stringOffsets.toArray(new ByteBuffer[0]), builder.arena.toArray(new ByteBuffer[0]));
+    }
+
+    private OffHeapItemList(ItemStorage storage, int size, int codeCount, int stringCount, long arenaLength,
+                            ByteBuffer[] records, ByteBuffer[] codes, ByteBuffer[] stringOffsets, ByteBuffer[] arena) {
+        this.storage = storage;
+        this.size = size;
+        this.codeCount = codeCount;
+        this.stringCount = stringCount;
+        this.arenaLength = arenaLength;
+        this.records = records;
+        this.codes = codes;
+        this.stringOffsets = stringOffsets;
+        this.arena = arena;
+    }
+
+    /** Copies items into a new off-heap list; storage must be DIRECT or MAPPED. */
+    public static OffHeapItemList copyOf(Collection<ProcurementItem> items, ItemStorage storage) throws IOException {
+        Builder builder = builder(storage);
+        items.forEach(builder::add);
+        return builder.build();
+    }
+
+    /** Builder for adding items one at a time, e.g. straight from a loader. */
+    public static Builder builder(ItemStorage storage) throws IOException {
+        if (!storage.isOffHeap()) {
+            throw new IllegalArgumentException("Not an off-heap storage: " + storage);
+        }
+        return new Builder(new Allocator(storage));
+    }
+
+    /**
+     * List over data written by {@link #writeTo(WritableByteChannel)}, starting at the buffer's position,
+     * which is moved past it. The segments are slices of buffer, so items are decoded from it
+     * as they are read; for a mapped file the list counts as {@link ItemStorage#MAPPED}.
+     */
+    public static OffHeapItemList map(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        int codeCount = buffer.getInt();
+        int stringCount = buffer.getInt();
+        long arenaLength = buffer.getLong();
+        if (size < 0 || codeCount < 0 || stringCount < 0 || arenaLength < 0) {
+            throw new IllegalArgumentException("Invalid item list header");
+        }
+
+        ByteBuffer[] records = slices(buffer, recordsLength(size));
+        ByteBuffer[] codes = slices(buffer, (long) codeCount * Integer.BYTES);
+        ByteBuffer[] stringOffsets = slices(buffer, (long) stringCount * Long.BYTES);
+        ByteBuffer[] arena = slices(buffer, arenaLength);
+        return new OffHeapItemList(ItemStorage.MAPPED, size, codeCount, stringCount, arenaLength,
+                records, codes, stringOffsets, arena);
+    }
+
+    /**
+     * Writes the used part of every segment straight from its buffer, without copying it to the
+     * heap; {@link #map(ByteBuffer)} reads it back.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES + Long.BYTES);
+        header.putInt(size).putInt(codeCount).putInt(stringCount).putLong(arenaLength).flip();
+        writeFully(channel, header);
+
+        writeRegion(channel, records, recordsLength(size));
+        writeRegion(channel, codes, (long) codeCount * Integer.BYTES);
+        writeRegion(channel, stringOffsets, (long) stringCount * Long.BYTES);
+        writeRegion(channel, arena, arenaLength);
+    }
+
+    // Full record segments keep their few unused bytes at the end, so positions stay the same
+    private static long recordsLength(int size) {
+        return (long) (size / RECORDS_PER_SEGMENT) * SEGMENT_SIZE + (long) (size % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    private static void writeRegion(WritableByteChannel channel, ByteBuffer[] segments, long length) throws IOException {
+        for (int i = 0; length > 0; i++) {
+            ByteBuffer segment = segments[i].duplicate();
+            segment.clear().limit((int) Math.min(SEGMENT_SIZE, length));
+            length -= segment.remaining();
+            writeFully(channel, segment);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer[] slices(ByteBuffer buffer, long length) {
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Item list is truncated");
+        }
+        ByteBuffer[] segments = new ByteBuffer[(int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            int segmentLength = (int) Math.min(SEGMENT_SIZE, length - (long) i * SEGMENT_SIZE);
+            segments[i] = buffer.slice(buffer.position(), segmentLength);
+            buffer.position(buffer.position() + segmentLength);
+        }
+        return segments;
+    }
+
+    public ItemStorage getStorage() {
+        return storage;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ProcurementItem get(int index) {
+        Row row = rows.get(index);
+        ProcurementItem item = row != null ? row.get() : null;
+        if (item != null) {
+            return item;
+        }
+
+        expungeCollectedRows();
+        ProcurementItem built = read(index);
+        // Of two threads building the same row, both return the one that was registered first
+        ProcurementItem[] registered = new ProcurementItem[1];
+        rows.compute(index, (key, current) -> {
+            ProcurementItem existing = current != null ? current.get() : null;
+            registered[0] = existing != null ? existing : built;
+            return existing != null ? current : new Row(key, built, collectedRows);
+        });
+        return registered[0];
+    }
+
+    private void expungeCollectedRows() {
+        Row row;
+        while ((row = (Row) collectedRows.poll()) != null) {
+            rows.remove(row.index, row);
+        }
+    }
+
+    private ProcurementItem read(int index) {
+        ByteBuffer segment = record(index);
+        int offset = recordOffset(index);
+
+        ProcurementItem item = new ProcurementItem();
+        item.setValueWithoutTVA(segment.getDouble(offset + VALUE_WITHOUT_TVA));
+        item.setValueWithTVA(segment.getDouble(offset + VALUE_WITH_TVA));
+        item.setObjectName(readString(segment.getInt(offset + OBJECT_NAME), false));
+        item.setCpvField(readString(segment.getInt(offset + CPV_FIELD), true));
+        item.setSource(readString(segment.getInt(offset + SOURCE), true));
+        item.setInitiationDate(readString(segment.getInt(offset + INITIATION_DATE), true));
+        item.setCompletionDate(readString(segment.getInt(offset + COMPLETION_DATE), true));
+
+        int firstCode = segment.getInt(offset + FIRST_CODE);
+        int codeCount = segment.getInt(offset + CODE_COUNT);
+        List<String> cpvCodes = new ArrayList<>(codeCount);
+        for (int c = 0; c < codeCount; c++) {
+            long position = (long) (firstCode + c) * Integer.BYTES;
+            cpvCodes.add(readString(codes[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK)), true));
+        }
+        item.setCpvCodes(cpvCodes);
+        return item;
+    }
+
+    /** Value without TVA of the item at index, without building the item. */
+    public double getValueWithoutTVA(int index) {
+        return record(index).getDouble(recordOffset(index) + VALUE_WITHOUT_TVA);
+    }
+
+    /** Value with TVA of the item at index, without building the item. */
+    public double getValueWithTVA(int index) {
+        return record(index).getDouble(recordOffset(index) + VALUE_WITH_TVA);
+    }
+
+    /** Bytes held outside the heap; for a mapped list, the size of its mapped segments at most. */
+    public long getOffHeapBytes() {
+        return (long) (records.length + codes.length + stringOffsets.length + arena.length) * SEGMENT_SIZE;
+    }
+
+    private ByteBuffer record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return records[index / RECORDS_PER_SEGMENT];
+    }
+
+    private static int recordOffset(int index) {
+        return (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    /** Decodes a string; repeated strings go through a small cache so they are decoded once. */
+    private String readString(int id, boolean repeated) {
+        if (id == NO_STRING) {
+            return null;
+        }
+        int slot = id & (CACHE_SIZE - 1);
+        if (repeated) {
+            CachedString cached = cache[slot];
+            if (cached != null && cached.id == id) {
+                return cached.value;
+            }
+        }
+
+        long offsetPosition = (long) id * Long.BYTES;
+        long position = stringOffsets[(int) (offsetPosition >>> SEGMENT_SHIFT)].getLong((int) (offsetPosition & SEGMENT_MASK));
+        ByteBuffer segment = arena[(int) (position >>> SEGMENT_SHIFT)];
+        int offset = (int) (position & SEGMENT_MASK);
+        byte[] bytes = new byte[segment.getInt(offset)];
+        segment.get(offset + Integer.BYTES, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+
+        if (repeated) {
+            cache[slot] = new CachedString(id, value);
+        }
+        return value;
+    }
+
+    private static final class Row extends WeakReference<ProcurementItem> {
+        final int index;
+
+        Row(int index, ProcurementItem item, ReferenceQueue<ProcurementItem> queue) {
+            super(item, queue);
+            this.index = index;
+        }
+    }
+
+    private static final class CachedString {
+        final int id;
+        final String value;
+
+        CachedString(int id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    /** Hands out segments, either direct buffers or consecutive regions of one temporary file. */
+    private static final class Allocator {
+        final ItemStorage storage;
+        private File file;
+        private FileChannel channel;
+        private long fileSize;
+
+        Allocator(ItemStorage storage) throws IOException {
+            this.storage = storage;
+            if (storage == ItemStorage.MAPPED) {
+                file = File.createTempFile("procurement-items", ".bin");
+                channel = new RandomAccessFile(file, "rw").getChannel();
+            }
+        }
+
+        ByteBuffer allocate() throws IOException {
+            if (channel == null) {
+                return ByteBuffer.allocateDirect(SEGMENT_SIZE);
+            }
+            ByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, SEGMENT_SIZE);
+            fileSize += SEGMENT_SIZE;
+            return segment;
+        }
+
+        /** Mappings stay valid after the channel is closed; the file goes once nothing maps it. */
+        void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close {}: {}", file, e.getMessage());
+            }
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final Allocator allocator;
+        private final List<ByteBuffer> records = new ArrayList<>();
+        private final List<ByteBuffer> codes = new ArrayList<>();
+        private final List<ByteBuffer> stringOffsets = new ArrayList<>();
+        private final List<ByteBuffer> arena = new ArrayList<>();
+        private final Map<String, Integer> repeatedIds = new HashMap<>();
+        private int size;
+        private int codeCount;
+        private int stringCount;
+        private long arenaPosition;
+        private boolean built;
+
+        private Builder(Allocator allocator) {
+            this.allocator = allocator;
+        }
+
+        public Builder add(ProcurementItem item) {
+            if (built) {
+                throw new IllegalStateException("The list was already built");
+            }
+            try {
+                List<String> cpvCodes = item.getCpvCodes();
+                int firstCode = codeCount;
+                for (String code : cpvCodes) {
+                    int id = repeatedString(code);
+                    long position = (long) codeCount * Integer.BYTES;
+                    segment(codes, position).putInt((int) (position & SEGMENT_MASK), id);
+                    codeCount++;
+                }
+
+                if (size % RECORDS_PER_SEGMENT == 0) {
+                    records.add(allocator.allocate());
+                }
+                ByteBuffer segment = records.get(size / RECORDS_PER_SEGMENT);
+                int offset = recordOffset(size);
+                segment.putDouble(offset + VALUE_WITHOUT_TVA, item.getValueWithoutTVA());
+                segment.putDouble(offset + VALUE_WITH_TVA, item.getValueWithTVA());
+                segment.putInt(offset + OBJECT_NAME, writeString(item.getObjectName()));
+                segment.putInt(offset + CPV_FIELD, repeatedString(item.getCpvField()));
+                segment.putInt(offset + SOURCE, repeatedString(item.getSource()));
+                segment.putInt(offset + INITIATION_DATE, repeatedString(item.getInitiationDate()));
+                segment.putInt(offset + COMPLETION_DATE, repeatedString(item.getCompletionDate()));
+                segment.putInt(offset + FIRST_CODE, firstCode);
+                segment.putInt(offset + CODE_COUNT, cpvCodes.size());
+                size++;
+                return this;
+            } catch (IOException e) {
+                allocator.close();
+                throw new IllegalStateException("Failed to store item off-heap: " + e.getMessage(), e);
+            }
+        }
+
+        public OffHeapItemList build() {
+            built = true;
+            allocator.close();
+            OffHeapItemList list = new OffHeapItemList(this);
+            logger.info("Stored {} procurement items off-heap ({}, {} distinct strings, {} MB)",
+                    size, allocator.storage, stringCount, list.getOffHeapBytes() >> 20);
+            return list;
+        }
+
+        private ByteBuffer segment(List<ByteBuffer> region, long position) throws IOException {
+            int index = (int) (position >>> SEGMENT_SHIFT);
+            while (region.size() <= index) {
+                region.add(allocator.allocate());
+            }
+            return region.get(index);
+        }
+
+        private int repeatedString(String value) throws IOException {
+            if (value == null) {
+                return NO_STRING;
+            }
+            Integer id = repeatedIds.get(value);
+            if (id == null) {
+                id = writeString(value);
+                repeatedIds.put(value, id);
+            }
+            return id;
+        }
+
+        private int writeString(String value) throws IOException {
+            if (value == null) {
+                return NO_STRING;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int length = Integer.BYTES + bytes.length;
+            if (length > SEGMENT_SIZE) {
+                throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for off-heap storage");
+            }
+            // Strings never straddle two segments
+            if (SEGMENT_SIZE - (arenaPosition & SEGMENT_MASK) < length) {
+                arenaPosition = (arenaPosition | SEGMENT_MASK) + 1;
+            }
+
+            ByteBuffer segment = segment(arena, arenaPosition);
+            int offset = (int) (arenaPosition & SEGMENT_MASK);
+            segment.putInt(offset, bytes.length);
+            segment.put(offset + Integer.BYTES, bytes);
+
+            int id = stringCount++;
+            long offsetPosition = (long) id * Long.BYTES;
+            segment(stringOffsets, offsetPosition).putLong((int) (offsetPosition & SEGMENT_MASK), arenaPosition);
+            arenaPosition += length;
+            return id;
+        }
+    }
+}
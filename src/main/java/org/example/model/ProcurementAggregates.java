@@ -0,0 +1,232 @@
+package org.example.model;
+
+import org.example.util.CompensatedSum;
+import org.example.util.MonthExtractor;
+import org.example.util.ParallelAggregator;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Running totals over a set of procurement items: overall sums, sums per CPV category,
+ * per value range (see {@link ValueBuckets}) and per month. Items can be added and removed
+ * one at a time, so a revised plan only costs as much as the rows that changed. All sums are
+ * compensated, so removing and re-adding items does not make them drift.
+ */
+public final class ProcurementAggregates {
+    /** Category of items without a known CPV category but with a name. */
+    public static final String UNCATEGORIZED = "00";
+
+    private final Map<String, CpvCode> cpvCodeMap;
+
+    private static final int TOTAL_WITHOUT_TVA = 0;
+    private static final int TOTAL_WITH_TVA = 1;
+
+    private int itemCount;
+    private final double[] totals;
+    /** Per category: item count, value sum and its compensation. */
+    private final Map<String, double[]> categories;
+    private final ValueBuckets.Totals ranges;
+    private final int[] monthCounts;
+    private final double[] monthValues;
+
+    ProcurementAggregates(Map<String, CpvCode> cpvCodeMap, ValueBuckets valueBuckets) {
+        this.cpvCodeMap = cpvCodeMap;
+        this.totals = CompensatedSum.create(2);
+        this.categories = new HashMap<>();
+        this.ranges = new ValueBuckets.Totals(valueBuckets, false);
+        this.monthCounts = new int[12];
+        this.monthValues = CompensatedSum.create(12);
+    }
+
+    private ProcurementAggregates(ProcurementAggregates other) {
+        this.cpvCodeMap = other.cpvCodeMap;
+        this.itemCount = other.itemCount;
+        this.totals = other.totals.clone();
+        this.categories = new HashMap<>();
+        other.categories.forEach((category, sums) -> categories.put(category, sums.clone()));
+        this.ranges = other.ranges.copy();
+        this.monthCounts = other.monthCounts.clone();
+        this.monthValues = other.monthValues.clone();
+    }
+
+    ProcurementAggregates copy() {
+        return new ProcurementAggregates(this);
+    }
+
+    /**
+     * Aggregates of a whole item list. Large lists are classified in parallel into primitive
+     * columns and summed with {@link ParallelAggregator}.
+     */
+    static ProcurementAggregates build(List<ProcurementItem> items, Map<String, CpvCode> cpvCodeMap,
+                                       ValueBuckets valueBuckets) {
+        ProcurementAggregates aggregates = new ProcurementAggregates(cpvCodeMap, valueBuckets);
+        int size = items.size();
+        if (!ParallelAggregator.shouldParallelize(size)) {
+            items.forEach(aggregates::add);
+            return aggregates;
+        }
+
+        double[] values = new double[size];
+        double[] valuesWithTVA = new double[size];
+        String[] categoryNames = new String[size];
+        int[] buckets = new int[size];
+        int[] months = new int[size];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            ProcurementItem item = items.get(i);
+            values[i] = item.getValueWithoutTVA();
+            valuesWithTVA[i] = item.getValueWithTVA();
+            categoryNames[i] = categoryOf(item, cpvCodeMap);
+            buckets[i] = valueBuckets.bucketOf(values[i]);
+            months[i] = MonthExtractor.monthOf(item) - 1;
+        });
+
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        int[] categoryIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            String category = categoryNames[i];
+            if (category == null) {
+                categoryIds[i] = -1;
+                continue;
+            }
+            Integer id = ids.get(category);
+            if (id == null) {
+                id = names.size();
+                ids.put(category, id);
+                names.add(category);
+            }
+            categoryIds[i] = id;
+        }
+
+        aggregates.itemCount = size;
+        CompensatedSum.add(aggregates.totals, TOTAL_WITHOUT_TVA, ParallelAggregator.sum(values));
+        CompensatedSum.add(aggregates.totals, TOTAL_WITH_TVA, ParallelAggregator.sum(valuesWithTVA));
+
+        ParallelAggregator.GroupTotals byCategory = ParallelAggregator.sumByGroup(values, categoryIds, names.size());
+        for (int id = 0; id < names.size(); id++) {
+            aggregates.categories.put(names.get(id), new double[]{byCategory.getCount(id), byCategory.getSum(id), 0});
+        }
+
+        ParallelAggregator.GroupTotals byRange = ParallelAggregator.sumByGroup(values, buckets, valueBuckets.getBucketCount());
+        for (int bucket = 0; bucket < valueBuckets.getBucketCount(); bucket++) {
+            aggregates.ranges.set(bucket, byRange.getCount(bucket), byRange.getSum(bucket));
+        }
+
+        ParallelAggregator.GroupTotals byMonth = ParallelAggregator.sumByGroup(values, months, 12);
+        for (int month = 0; month < 12; month++) {
+            aggregates.monthCounts[month] = byMonth.getCount(month);
+            CompensatedSum.add(aggregates.monthValues, month, byMonth.getSum(month));
+        }
+
+        return aggregates;
+    }
+
+    void add(ProcurementItem item) {
+        update(item, 1);
+    }
+
+    void remove(ProcurementItem item) {
+        update(item, -1);
+    }
+
+    private void update(ProcurementItem item, int sign) {
+        double value = item.getValueWithoutTVA();
+        double signedValue = sign * value;
+
+        itemCount += sign;
+        CompensatedSum.add(totals, TOTAL_WITHOUT_TVA, signedValue);
+        CompensatedSum.add(totals, TOTAL_WITH_TVA, sign * item.getValueWithTVA());
+
+        String category = categoryOf(item, cpvCodeMap);
+        if (category != null) {
+            double[] sums = categories.computeIfAbsent(category, k -> new double[3]);
+            sums[0] += sign;
+            CompensatedSum.addAt(sums, 1, signedValue);
+            if (sums[0] == 0) {
+                categories.remove(category);
+            }
+        }
+
+        ranges.add(item, value, sign);
+
+        int month = MonthExtractor.monthOf(item);
+        if (month > 0) {
+            monthCounts[month - 1] += sign;
+            CompensatedSum.add(monthValues, month - 1, signedValue);
+        }
+    }
+
+    /**
+     * Two-digit category of the first CPV code that is in the code list, {@link #UNCATEGORIZED}
+     * for a named item without one, or null for an item without name or category.
+     */
+    public static String categoryOf(ProcurementItem item, Map<String, CpvCode> cpvCodeMap) {
+        for (String cpvCode : item.getCpvCodes()) {
+            CpvCode code = cpvCodeMap.get(cpvCode);
+            if (code != null) {
+                String category = code.getCategory();
+                if (category != null && !category.isEmpty()) {
+                    return category;
+                }
+            }
+        }
+
+        if (item.getObjectName() != null && !item.getObjectName().isEmpty()) {
+            return UNCATEGORIZED;
+        }
+        return null;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public double getTotalValueWithoutTVA() {
+        return CompensatedSum.get(totals, TOTAL_WITHOUT_TVA);
+    }
+
+    public double getTotalValueWithTVA() {
+        return CompensatedSum.get(totals, TOTAL_WITH_TVA);
+    }
+
+    public int getCategoryCount() {
+        return categories.size();
+    }
+
+    public Set<String> getCategories() {
+        return Collections.unmodifiableSet(categories.keySet());
+    }
+
+    public int getCategoryItemCount(String category) {
+        double[] sums = categories.get(category);
+        return sums != null ? (int) sums[0] : 0;
+    }
+
+    public double getCategoryValue(String category) {
+        double[] sums = categories.get(category);
+        return sums != null ? sums[1] + sums[2] : 0;
+    }
+
+    public ValueBuckets getValueBuckets() {
+        return ranges.getBuckets();
+    }
+
+    /** Number of items in a bucket of {@link #getValueBuckets()}. */
+    public int getRangeCount(int range) {
+        return ranges.getCount(range);
+    }
+
+    public double getRangeValue(int range) {
+        return ranges.getSum(range);
+    }
+
+    /** Number of items dated in month 1-12. */
+    public int getMonthCount(int month) {
+        return monthCounts[month - 1];
+    }
+
+    public double getMonthValue(int month) {
+        return CompensatedSum.get(monthValues, month - 1);
+    }
+}
@@ -0,0 +1,307 @@
+package org.example.model;
+
+import org.example.util.IndexSort;
+import org.example.util.TaskScheduler;
+
+import java.util.*;
+
+/**
+ * Secondary indexes over one version of the items, each built on first use: a primitive value
+ * column, items sorted by value, all CPV codes sorted with their item, and a
+ * trigram index over the searchable text. Positions refer to the item list they were built from.
+ */
+final class QueryIndexes {
+    private final List<ProcurementItem> items;
+    private final Map<String, CpvCode> cpvCodeMap;
+
+    private double[] values;
+    private int[] valueOrder;
+    private double[] sortedValues;
+    private String[] sortedCodes;
+    private int[] codeItems;
+    private Map<Long, int[]> trigrams;
+
+    QueryIndexes(List<ProcurementItem> items, Map<String, CpvCode> cpvCodeMap) {
+        this.items = items;
+        this.cpvCodeMap = cpvCodeMap;
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    synchronized double[] values() {
+        if (values == null) {
+            double[] column = new double[items.size()];
+            if (items instanceof OffHeapItemList) {
+                OffHeapItemList records = (OffHeapItemList) items;
+                for (int i = 0; i < column.length; i++) {
+                    column[i] = records.getValueWithoutTVA(i);
+                }
+            } else {
+                for (int i = 0; i < column.length; i++) {
+                    column[i] = items.get(i).getValueWithoutTVA();
+                }
+            }
+            values = column;
+        }
+        return values;
+    }
+
+    private synchronized void buildValueOrder() {
+        if (valueOrder != null) {
+            return;
+        }
+        double[] column = values();
+        int[] positions = new int[column.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        IndexSort.sortByValue(positions, column, false);
+
+        double[] sorted = new double[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sorted[i] = column[positions[i]];
+        }
+        sortedValues = sorted;
+        valueOrder = positions;
+    }
+
+    /** Number of items with min <= value < max. */
+    int countValueRange(double min, double max) {
+        buildValueOrder();
+        return lowerBound(sortedValues, max) - lowerBound(sortedValues, min);
+    }
+
+    /** Positions of items with min <= value < max, ascending. */
+    int[] valueRange(double min, double max) {
+        buildValueOrder();
+        int from = lowerBound(sortedValues, min);
+        int to = lowerBound(sortedValues, max);
+        int[] result = Arrays.copyOfRange(valueOrder, from, Math.max(from, to));
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int lowerBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Double.compare(sorted[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts every (code, item) pair by code, then item. Distinct codes are few, so they are ranked
+     * once and each pair is packed into a long as rank << 32 | item position for a primitive sort.
+     */
+    private synchronized void buildCodeIndex() {
+        if (sortedCodes != null) {
+            return;
+        }
+        Map<String, Integer> ranks = new HashMap<>();
+        String[] codes = new String[Math.max(16, items.size())];
+        int[] owners = new int[codes.length];
+        int count = 0;
+        for (int i = 0; i < items.size(); i++) {
+            TaskScheduler.checkCancelled(i);
+            for (String code : items.get(i).getCpvCodes()) {
+                if (code == null) continue;
+                if (count == codes.length) {
+                    codes = Arrays.copyOf(codes, count * 2);
+                    owners = Arrays.copyOf(owners, count * 2);
+                }
+                codes[count] = code;
+                owners[count++] = i;
+                ranks.putIfAbsent(code, 0);
+            }
+        }
+
+        String[] distinct = ranks.keySet().toArray(new String[0]);
+        Arrays.sort(distinct);
+        for (int rank = 0; rank < distinct.length; rank++) {
+            ranks.put(distinct[rank], rank);
+        }
+
+        long[] pairs = new long[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = (long) ranks.get(codes[i]) << 32 | owners[i];
+        }
+        Arrays.sort(pairs);
+
+        String[] sorted = new String[count];
+        int[] itemOfCode = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = distinct[(int) (pairs[i] >>> 32)];
+            itemOfCode[i] = (int) pairs[i];
+        }
+        codeItems = itemOfCode;
+        sortedCodes = sorted;
+    }
+
+    /** Upper bound of the items with a CPV code starting with prefix (codes, not distinct items). */
+    int countCpvPrefix(String prefix) {
+        buildCodeIndex();
+        int from = prefixStart(prefix);
+        return prefixEnd(prefix, from) - from;
+    }
+
+    /** Positions of items with at least one CPV code starting with prefix, ascending. */
+    int[] cpvPrefix(String prefix) {
+        buildCodeIndex();
+        int from = prefixStart(prefix);
+        int to = prefixEnd(prefix, from);
+        int[] result = Arrays.copyOfRange(codeItems, from, to);
+        Arrays.sort(result);
+        return distinct(result);
+    }
+
+    private int prefixStart(String prefix) {
+        int position = Arrays.binarySearch(sortedCodes, prefix);
+        if (position < 0) {
+            return -position - 1;
+        }
+        while (position > 0 && sortedCodes[position - 1].equals(prefix)) {
+            position--;
+        }
+        return position;
+    }
+
+    private int prefixEnd(String prefix, int from) {
+        int to = from;
+        while (to < sortedCodes.length && sortedCodes[to].startsWith(prefix)) {
+            to++;
+        }
+        return to;
+    }
+
+    /** Lower-cased text searched by a text filter: name, CPV field, codes and CPV code names. */
+    static String searchableText(ProcurementItem item, Map<String, CpvCode> cpvCodeMap) {
+        StringBuilder text = new StringBuilder();
+        appendField(text, item.getObjectName());
+        appendField(text, item.getCpvField());
+        for (String code : item.getCpvCodes()) {
+            appendField(text, code);
+            CpvCode cpvCode = code != null ? cpvCodeMap.get(code) : null;
+            if (cpvCode != null) {
+                appendField(text, cpvCode.getRomanianName());
+                appendField(text, cpvCode.getEnglishName());
+            }
+        }
+        return text.toString().toLowerCase();
+    }
+
+    private static void appendField(StringBuilder text, String field) {
+        if (field != null) {
+            text.append(field).append('\u0000');
+        }
+    }
+
+    private synchronized Map<Long, int[]> trigrams() {
+        if (trigrams != null) {
+            return trigrams;
+        }
+
+        Map<Long, int[]> postings = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            TaskScheduler.checkCancelled(i);
+            String text = searchableText(items.get(i), cpvCodeMap);
+            seen.clear();
+            for (int j = 0; j + 3 <= text.length(); j++) {
+                long key = trigram(text, j);
+                if (!seen.add(key)) continue;
+
+                int[] posting = postings.get(key);
+                if (posting == null) {
+                    posting = new int[5];
+                    postings.put(key, posting);
+                } else if (posting[0] + 1 == posting.length) {
+                    posting = Arrays.copyOf(posting, posting.length * 2);
+                    postings.put(key, posting);
+                }
+                posting[++posting[0]] = i;
+            }
+        }
+
+        // Trim to exact size: element 0 holds the count while building
+        postings.replaceAll((key, posting) -> Arrays.copyOfRange(posting, 1, posting[0] + 1));
+        trigrams = postings;
+        return postings;
+    }
+
+    private static long trigram(CharSequence text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /** Whether the text index can narrow a search for this lower-cased text. */
+    static boolean isIndexable(String lowerText) {
+        return lowerText.length() >= 3;
+    }
+
+    /** Size of the shortest posting list of the text's trigrams; an upper bound of the matches. */
+    int countTextCandidates(String lowerText) {
+        Map<Long, int[]> index = trigrams();
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j + 3 <= lowerText.length(); j++) {
+            int[] posting = index.get(trigram(lowerText, j));
+            best = Math.min(best, posting != null ? posting.length : 0);
+        }
+        return best;
+    }
+
+    /** Positions of items containing every trigram of the text, ascending; still to be verified. */
+    int[] textCandidates(String lowerText) {
+        Map<Long, int[]> index = trigrams();
+        List<int[]> postings = new ArrayList<>();
+        for (int j = 0; j + 3 <= lowerText.length(); j++) {
+            int[] posting = index.get(trigram(lowerText, j));
+            if (posting == null) {
+                return new int[0];
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(posting -> posting.length));
+
+        int[] result = postings.get(0);
+        for (int p = 1; p < postings.size() && result.length > 0; p++) {
+            result = intersect(result, postings.get(p));
+        }
+        return result;
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] distinct(int[] sorted) {
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.model;
+
+import org.example.util.CompensatedSum;
+import org.example.util.IndexSort;
+import org.example.util.RoaringBitmap;
+import org.example.util.TaskScheduler;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Executes an {@link ItemQuery}. Filters on bitmap-indexed attributes are combined into one
+ * bitmap first. Of that bitmap and the filters that have another index (value range, CPV prefix,
+ * category, text of three or more characters) the one expected to match the fewest items
+ * produces the first selection of item positions; without one, all positions are selected.
+ * The other filters then narrow the selection one at a time, primitive columns first.
+ */
+final class QueryPlanner {
+    private static final int NONE = 0;
+    private static final int VALUE = 1;
+    private static final int CPV = 2;
+    private static final int CATEGORY = 3;
+    private static final int TEXT = 4;
+    private static final int BITMAP = 5;
+
+    private QueryPlanner() {
+    }
+
+    static QueryResult execute(ItemQuery query, List<ProcurementItem> items, Map<String, CpvCode> cpvCodeMap,
+                               QueryIndexes indexes, Supplier<AttributeBitmaps> bitmaps,
+                               Supplier<CategoryIndex> categoryIndex) {
+        int size = items.size();
+        boolean needsCategories = query.category != null || query.groupBy == ItemQuery.GroupBy.CATEGORY;
+        CategoryIndex categories = needsCategories ? categoryIndex.get() : null;
+        int categoryId = query.category != null ? categories.getId(query.category) : CategoryIndex.NO_CATEGORY;
+
+        List<String> bitmapFilters = new ArrayList<>();
+        RoaringBitmap bitmap = null;
+        if (!query.sources.isEmpty()) {
+            bitmap = and(bitmap, bitmaps.get().sources(query.sources));
+            bitmapFilters.add("source");
+        }
+        if (query.hasMonthFilter()) {
+            bitmap = and(bitmap, bitmaps.get().months(query.fromMonth, query.toMonth));
+            bitmapFilters.add("month");
+        }
+        if (query.valueRange != null) {
+            bitmap = and(bitmap, bitmaps.get().bucket(query.valueRange));
+            bitmapFilters.add("value range");
+        }
+        // Any CPV prefix narrows to its division; a two-digit prefix is the division itself
+        boolean cpvByBitmap = query.cpvPrefix != null && query.cpvPrefix.length() == 2;
+        if (query.cpvPrefix != null && query.cpvPrefix.length() >= 2) {
+            bitmap = and(bitmap, bitmaps.get().division(query.cpvPrefix.substring(0, 2)));
+            bitmapFilters.add("cpv division");
+        }
+
+        int driver = NONE;
+        int best = size;
+        if (bitmap != null) {
+            driver = BITMAP;
+            best = bitmap.getCardinality();
+        }
+        if (query.hasValueFilter()) {
+            int count = indexes.countValueRange(query.minValue, query.maxValue);
+            if (count < best) {
+                driver = VALUE;
+                best = count;
+            }
+        }
+        if (query.cpvPrefix != null && !cpvByBitmap) {
+            int count = indexes.countCpvPrefix(query.cpvPrefix);
+            if (count < best) {
+                driver = CPV;
+                best = count;
+            }
+        }
+        if (query.category != null) {
+            int count = categoryId != CategoryIndex.NO_CATEGORY ? categories.getItemCount(categoryId) : 0;
+            if (count < best) {
+                driver = CATEGORY;
+                best = count;
+            }
+        }
+        if (query.text != null && QueryIndexes.isIndexable(query.text)) {
+            int count = indexes.countTextCandidates(query.text);
+            if (count < best) {
+                driver = TEXT;
+            }
+        }
+
+        int[] selection;
+        StringBuilder plan = new StringBuilder();
+        switch (driver) {
+            case VALUE:
+                selection = indexes.valueRange(query.minValue, query.maxValue);
+                plan.append("value index");
+                break;
+            case CPV:
+                selection = indexes.cpvPrefix(query.cpvPrefix);
+                plan.append("cpv index");
+                break;
+            case CATEGORY:
+                selection = categoryId != CategoryIndex.NO_CATEGORY ? categories.getItemIndexes(categoryId).clone() : new int[0];
+                plan.append("category index");
+                break;
+            case TEXT:
+                selection = indexes.textCandidates(query.text);
+                plan.append("text index");
+                break;
+            case BITMAP:
+                selection = bitmap.toArray();
+                plan.append("bitmap ").append(String.join(", ", bitmapFilters));
+                break;
+            default:
+                selection = new int[size];
+                for (int i = 0; i < size; i++) {
+                    selection[i] = i;
+                }
+                plan.append("scan");
+        }
+        plan.append(" (").append(selection.length).append(")");
+
+        int count = selection.length;
+        if (bitmap != null && driver != BITMAP) {
+            RoaringBitmap filter = bitmap;
+            count = retain(selection, count, filter::contains);
+            plan.append(" > bitmap ").append(String.join(", ", bitmapFilters));
+        }
+
+        List<String> residual = new ArrayList<>();
+
+        if (query.hasValueFilter() && driver != VALUE) {
+            double[] values = indexes.values();
+            double min = query.minValue;
+            double max = query.maxValue;
+            int kept = 0;
+            for (int s = 0; s < count; s++) {
+                double value = values[selection[s]];
+                if (Double.compare(value, min) >= 0 && Double.compare(value, max) < 0) {
+                    selection[kept++] = selection[s];
+                }
+            }
+            count = kept;
+            residual.add("value");
+        }
+        if (query.category != null && driver != CATEGORY) {
+            count = retain(selection, count, i -> categories.getCategoryOf(i) == categoryId);
+            residual.add("category");
+        }
+        if (query.cpvPrefix != null && driver != CPV && !cpvByBitmap) {
+            String prefix = query.cpvPrefix;
+            count = retain(selection, count, i -> items.get(i).getCpvCodes().stream()
+                    .anyMatch(code -> code != null && code.startsWith(prefix)));
+            residual.add("cpv");
+        }
+        if (query.text != null) {
+            // Trigram candidates can still miss the whole text, so it is always verified
+            String text = query.text;
+            count = retain(selection, count, i -> matchesText(items.get(i), text, cpvCodeMap));
+            residual.add("text");
+        }
+        if (!residual.isEmpty()) {
+            plan.append(" > scan ").append(String.join(", ", residual));
+        }
+
+        double[] values = indexes.values();
+        double[] total = CompensatedSum.create(1);
+        for (int s = 0; s < count; s++) {
+            CompensatedSum.add(total, 0, values[selection[s]]);
+        }
+
+        List<QueryResult.Group> groups;
+        if (query.groupBy == null) {
+            groups = Collections.emptyList();
+        } else if (query.groupBy == ItemQuery.GroupBy.CATEGORY) {
+            groups = groupByCategory(selection, count, values, categories);
+        } else {
+            groups = groupByBitmaps(query.groupBy, selection, count, size, values, bitmaps.get());
+        }
+
+        int[] ordered = order(query.order, selection, count, values);
+        int resultSize = Math.min(count, query.limit);
+        List<ProcurementItem> result = new ArrayList<>(resultSize);
+        for (int s = 0; s < resultSize; s++) {
+            result.add(items.get(ordered[s]));
+        }
+
+        return new QueryResult(result, CompensatedSum.get(total, 0), groups, plan.toString());
+    }
+
+    private static RoaringBitmap and(RoaringBitmap current, RoaringBitmap next) {
+        return current == null ? next : current.and(next);
+    }
+
+    private static int retain(int[] selection, int count, IntPredicate predicate) {
+        int kept = 0;
+        for (int s = 0; s < count; s++) {
+            TaskScheduler.checkCancelled(s);
+            if (predicate.test(selection[s])) {
+                selection[kept++] = selection[s];
+            }
+        }
+        return kept;
+    }
+
+    /** Same fields and matching as the original full-text search. */
+    static boolean matchesText(ProcurementItem item, String lowerText, Map<String, CpvCode> cpvCodeMap) {
+        if (item.getObjectName() != null && item.getObjectName().toLowerCase().contains(lowerText)) return true;
+        if (item.getCpvField() != null && item.getCpvField().toLowerCase().contains(lowerText)) return true;
+
+        for (String code : item.getCpvCodes()) {
+            if (code == null) continue;
+            if (code.toLowerCase().contains(lowerText)) return true;
+
+            CpvCode cpvCode = cpvCodeMap.get(code);
+            if (cpvCode != null && (cpvCode.getRomanianName().toLowerCase().contains(lowerText)
+                    || cpvCode.getEnglishName().toLowerCase().contains(lowerText))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<QueryResult.Group> groupByCategory(int[] selection, int count, double[] values,
+                                                           CategoryIndex categories) {
+        Map<String, double[]> sums = new HashMap<>();
+
+        for (int s = 0; s < count; s++) {
+            int i = selection[s];
+            int id = categories.getCategoryOf(i);
+            if (id == CategoryIndex.NO_CATEGORY) continue;
+
+            double[] group = sums.computeIfAbsent(categories.getName(id), k -> new double[3]);
+            group[0]++;
+            CompensatedSum.addAt(group, 1, values[i]);
+        }
+
+        List<QueryResult.Group> groups = new ArrayList<>(sums.size());
+        sums.forEach((key, group) -> groups.add(new QueryResult.Group(key, (int) group[0], group[1] + group[2])));
+        return sortGroups(groups);
+    }
+
+    /**
+     * Groups source, month, CPV division and value range by intersecting the selection with each
+     * value's bitmap. An item with codes in several divisions counts in each of their groups, the
+     * same membership the division filter uses.
+     */
+    private static List<QueryResult.Group> groupByBitmaps(ItemQuery.GroupBy groupBy, int[] selection, int count,
+                                                          int size, double[] values, AttributeBitmaps bitmaps) {
+        Map<String, RoaringBitmap> keys;
+        switch (groupBy) {
+            case SOURCE:
+                keys = bitmaps.getSourceGroups();
+                break;
+            case MONTH:
+                keys = bitmaps.getMonthGroups();
+                break;
+            case CPV_DIVISION:
+                keys = bitmaps.getDivisionGroups();
+                break;
+            default:
+                keys = bitmaps.getBucketGroups();
+        }
+
+        // The selection is still in ascending position order here
+        RoaringBitmap selected = count < size ? RoaringBitmap.of(selection, 0, count) : null;
+        List<QueryResult.Group> groups = new ArrayList<>(keys.size());
+        for (Map.Entry<String, RoaringBitmap> entry : keys.entrySet()) {
+            RoaringBitmap members = selected != null ? entry.getValue().and(selected) : entry.getValue();
+            if (members.isEmpty()) continue;
+
+            double[] total = CompensatedSum.create(1);
+            members.forEach(i -> CompensatedSum.add(total, 0, values[i]));
+            groups.add(new QueryResult.Group(entry.getKey(), members.getCardinality(), CompensatedSum.get(total, 0)));
+        }
+        return sortGroups(groups);
+    }
+
+    private static List<QueryResult.Group> sortGroups(List<QueryResult.Group> groups) {
+        groups.sort(Comparator.comparingDouble(QueryResult.Group::getTotalValue).reversed()
+                .thenComparing(QueryResult.Group::getKey));
+        return groups;
+    }
+
+    private static int[] order(ItemQuery.Order order, int[] selection, int count, double[] values) {
+        if (order == ItemQuery.Order.NONE) {
+            return selection;
+        }
+
+        // Stable, so items of equal value stay in position order either way
+        int[] ordered = Arrays.copyOf(selection, count);
+        IndexSort.sortByValue(ordered, values, order == ItemQuery.Order.VALUE_DESCENDING);
+        return ordered;
+    }
+}
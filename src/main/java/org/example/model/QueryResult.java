@@ -0,0 +1,86 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Items matched by an {@link ItemQuery}, their total value and, when grouped, the groups. */
+public final class QueryResult {
+    private final List<ProcurementItem> items;
+    private final double totalValue;
+    private final List<Group> groups;
+    private final String plan;
+    private final long version;
+
+    QueryResult(List<ProcurementItem> items, double totalValue, List<Group> groups, String plan) {
+        this.items = Collections.unmodifiableList(items);
+        this.totalValue = totalValue;
+        this.groups = Collections.unmodifiableList(new ArrayList<>(groups));
+        this.plan = plan;
+        this.version = 0;
+    }
+
+    private QueryResult(QueryResult result, long version) {
+        this.items = result.items;
+        this.totalValue = result.totalValue;
+        this.groups = result.groups;
+        this.plan = result.plan;
+        this.version = version;
+    }
+
+    QueryResult withVersion(long version) {
+        return new QueryResult(this, version);
+    }
+
+    public List<ProcurementItem> getItems() {
+        return items;
+    }
+
+    public int getCount() {
+        return items.size();
+    }
+
+    /** Total value without TVA of the matched items (before any limit). */
+    public double getTotalValue() {
+        return totalValue;
+    }
+
+    /** Groups by descending total value; empty without groupBy. */
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    /** How the query was executed, e.g. "value index (120) > scan cpv, text"; for logging. */
+    public String getPlan() {
+        return plan;
+    }
+
+    /** The {@link DataModel#getVersion()} the query ran against. */
+    public long getVersion() {
+        return version;
+    }
+
+    public static final class Group {
+        private final String key;
+        private final int count;
+        private final double totalValue;
+
+        Group(String key, int count, double totalValue) {
+            this.key = key;
+            this.count = count;
+            this.totalValue = totalValue;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getTotalValue() {
+            return totalValue;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.model;
+
+import org.example.util.CompensatedSum;
+import org.example.util.TaskScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.*;
+
+/**
+ * Value ranges (RON, without TVA) given by sorted upper boundaries: boundaries {10000, 50000}
+ * make the buckets [0, 10000), [10000, 50000) and [50000, ∞). Items are assigned with a
+ * binary search in a single pass; negative and missing values fall in no bucket.
+ */
+public final class ValueBuckets {
+    private static final Logger logger = LoggerFactory.getLogger(ValueBuckets.class);
+
+    /** System property with comma-separated boundaries that replace {@link #DEFAULT}. */
+    public static final String BOUNDARIES_PROPERTY = "cpv.valueBuckets";
+
+    public static final ValueBuckets DEFAULT = new ValueBuckets(10_000, 50_000, 100_000);
+
+    /**
+     * Direct award limits of Law 98/2016 as updated in 2022: 270,120 RON for supplies and
+     * services, 900,400 RON for works.
+     */
+    public static final ValueBuckets DIRECT_AWARD_THRESHOLDS = new ValueBuckets(270_120, 900_400);
+
+    private final double[] boundaries;
+    private final String[] labels;
+
+    public ValueBuckets(double... boundaries) {
+        double[] sorted = boundaries.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (!(sorted[i] > 0) || Double.isInfinite(sorted[i]) || (i > 0 && sorted[i] == sorted[i - 1])) {
+                throw new IllegalArgumentException("Bucket boundaries must be distinct positive numbers: "
+                        + Arrays.toString(boundaries));
+            }
+        }
+
+        this.boundaries = sorted;
+        this.labels = new String[sorted.length + 1];
+
+        DecimalFormat format = new DecimalFormat("#,##0.##", DecimalFormatSymbols.getInstance(Locale.US));
+        String lower = "0";
+        for (int i = 0; i < sorted.length; i++) {
+            String upper = format.format(sorted[i]);
+            labels[i] = lower + "-" + upper;
+            lower = upper;
+        }
+        labels[sorted.length] = lower + "+";
+    }
+
+    /** Buckets from {@link #BOUNDARIES_PROPERTY}, or {@link #DEFAULT} when it is not set or invalid. */
+    public static ValueBuckets configured() {
+        String property = System.getProperty(BOUNDARIES_PROPERTY);
+        if (property == null || property.trim().isEmpty()) {
+            return DEFAULT;
+        }
+
+        try {
+            return new ValueBuckets(Arrays.stream(property.split(","))
+                    .mapToDouble(boundary -> Double.parseDouble(boundary.trim()))
+                    .toArray());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring invalid {} '{}': {}", BOUNDARIES_PROPERTY, property, e.getMessage());
+            return DEFAULT;
+        }
+    }
+
+    public int getBucketCount() {
+        return labels.length;
+    }
+
+    public String getLabel(int bucket) {
+        return labels[bucket];
+    }
+
+    public List<String> getLabels() {
+        return Collections.unmodifiableList(Arrays.asList(labels));
+    }
+
+    public double[] getBoundaries() {
+        return boundaries.clone();
+    }
+
+    /** Bucket of a value; a value equal to a boundary belongs to the bucket above it. -1 for negative or NaN. */
+    public int bucketOf(double value) {
+        if (!(value >= 0)) {
+            return -1;
+        }
+        int position = Arrays.binarySearch(boundaries, value);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    public Totals totals(List<ProcurementItem> items) {
+        return totals(items, false);
+    }
+
+    /** Counts and value sums per bucket in one pass; with keepItems the items of each bucket are collected too. */
+    public Totals totals(List<ProcurementItem> items, boolean keepItems) {
+        Totals totals = new Totals(this, keepItems);
+        int position = 0;
+        for (ProcurementItem item : items) {
+            TaskScheduler.checkCancelled(position++);
+            totals.add(item, item.getValueWithoutTVA(), 1);
+        }
+        return totals;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ValueBuckets && Arrays.equals(boundaries, ((ValueBuckets) o).boundaries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(boundaries);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", labels);
+    }
+
+    /** Count and value sum per bucket, optionally with the items themselves. */
+    public static final class Totals {
+        private final ValueBuckets buckets;
+        private final int[] counts;
+        private final double[] sums;
+        private final List<List<ProcurementItem>> items;
+
+        Totals(ValueBuckets buckets, boolean keepItems) {
+            this.buckets = buckets;
+            this.counts = new int[buckets.getBucketCount()];
+            this.sums = CompensatedSum.create(buckets.getBucketCount());
+            this.items = keepItems ? new ArrayList<>() : null;
+            if (keepItems) {
+                for (int i = 0; i < counts.length; i++) {
+                    items.add(new ArrayList<>());
+                }
+            }
+        }
+
+        private Totals(Totals other) {
+            this.buckets = other.buckets;
+            this.counts = other.counts.clone();
+            this.sums = other.sums.clone();
+            this.items = null;
+        }
+
+        Totals copy() {
+            return new Totals(this);
+        }
+
+        /** Adds (sign 1) or removes (sign -1) an item. */
+        void add(ProcurementItem item, double value, int sign) {
+            int bucket = buckets.bucketOf(value);
+            if (bucket < 0) {
+                return;
+            }
+            counts[bucket] += sign;
+            CompensatedSum.add(sums, bucket, sign * value);
+            if (items != null) {
+                items.get(bucket).add(item);
+            }
+        }
+
+        void set(int bucket, int count, double sum) {
+            counts[bucket] = count;
+            sums[bucket * 2] = sum;
+            sums[bucket * 2 + 1] = 0;
+        }
+
+        public ValueBuckets getBuckets() {
+            return buckets;
+        }
+
+        public int getCount(int bucket) {
+            return counts[bucket];
+        }
+
+        public double getSum(int bucket) {
+            return CompensatedSum.get(sums, bucket);
+        }
+
+        /** Items of a bucket; only available from {@link ValueBuckets#totals(List, boolean)} with keepItems. */
+        public List<ProcurementItem> getItems(int bucket) {
+            if (items == null) {
+                throw new IllegalStateException("Bucket items were not collected");
+            }
+            return items.get(bucket);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package org.example.util;
+
+import org.apache.poi.ss.usermodel.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-workbook cell conversion state: one FormulaEvaluator for the whole workbook,
+ * a date-format cache keyed by cell style, and allocation-light number formatting.
+ * Not thread-safe; use one context per worker thread.
+ */
+public class CellConversionContext {
+    private static final Logger logger = LoggerFactory.getLogger(CellConversionContext.class);
+
+    private static final byte DATE_UNKNOWN = 0;
+    private static final byte DATE_YES = 1;
+    private static final byte DATE_NO = 2;
+
+    private final Workbook workbook;
+    private final boolean date1904;
+    private FormulaEvaluator evaluator;
+    private byte[] dateStyleCache = new byte[64];
+
+    private Cell lastFormulaCell;
+    private CellValue lastFormulaValue;
+
+    public CellConversionContext(Workbook workbook) {
+        this.workbook = workbook;
+        this.date1904 = workbook instanceof Date1904Support && ((Date1904Support) workbook).isDate1904();
+    }
+
+    public CellType resolveType(Cell cell) {
+        if (cell == null) {
+            return CellType.BLANK;
+        }
+
+        CellType type = cell.getCellType();
+        if (type != CellType.FORMULA) {
+            return type;
+        }
+
+        CellValue value = evaluate(cell);
+        return value != null ? value.getCellType() : CellType.ERROR;
+    }
+
+    public String getString(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+
+        try {
+            switch (resolveType(cell)) {
+                case STRING:
+                    return cell.getCellType() == CellType.FORMULA
+                            ? lastFormulaValue.getStringValue() : cell.getStringCellValue();
+                case NUMERIC:
+                    double value = rawNumber(cell);
+                    return isDateFormatted(cell) ? formatEpochDay(toEpochDay(value)) : formatDouble(value);
+                case BOOLEAN:
+                    return getBoolean(cell) ? "true" : "false";
+                default:
+                    return "";
+            }
+        } catch (Exception e) {
+            logger.debug("Error getting cell value as string: {}", e.getMessage());
+            return "";
+        }
+    }
+
+    /** Numeric value of the cell, parsing text cells; NaN when the cell holds no number. */
+    public double getNumber(Cell cell) {
+        if (cell == null) {
+            return Double.NaN;
+        }
+
+        try {
+            switch (resolveType(cell)) {
+                case NUMERIC:
+                    return rawNumber(cell);
+                case STRING:
+                    return parseNumber(getString(cell));
+                default:
+                    return Double.NaN;
+            }
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    public boolean getBoolean(Cell cell) {
+        if (cell == null) {
+            return false;
+        }
+        if (cell.getCellType() == CellType.FORMULA) {
+            CellValue value = evaluate(cell);
+            return value != null && value.getCellType() == CellType.BOOLEAN && value.getBooleanValue();
+        }
+        return cell.getCellType() == CellType.BOOLEAN && cell.getBooleanCellValue();
+    }
+
+    public boolean isDateFormatted(Cell cell) {
+        if (cell == null) {
+            return false;
+        }
+
+        CellStyle style = cell.getCellStyle();
+        if (style == null) {
+            return false;
+        }
+
+        int index = style.getIndex() & 0xFFFF;
+        if (index >= dateStyleCache.length) {
+            byte[] grown = new byte[Math.max(index + 1, dateStyleCache.length * 2)];
+            System.arraycopy(dateStyleCache, 0, grown, 0, dateStyleCache.length);
+            dateStyleCache = grown;
+        }
+
+        byte cached = dateStyleCache[index];
+        if (cached == DATE_UNKNOWN) {
+            boolean isDate = DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            cached = isDate ? DATE_YES : DATE_NO;
+            dateStyleCache[index] = cached;
+        }
+        return cached == DATE_YES;
+    }
+
+    /** Days since 1970-01-01 for a date-formatted numeric cell, or Long.MIN_VALUE. */
+    public long getEpochDay(Cell cell) {
+        if (resolveType(cell) != CellType.NUMERIC || !isDateFormatted(cell)) {
+            return Long.MIN_VALUE;
+        }
+        return toEpochDay(rawNumber(cell));
+    }
+
+    private double rawNumber(Cell cell) {
+        return cell.getCellType() == CellType.FORMULA ? lastFormulaValue.getNumberValue() : cell.getNumericCellValue();
+    }
+
+    private CellValue evaluate(Cell cell) {
+        if (cell == lastFormulaCell) {
+            return lastFormulaValue;
+        }
+
+        if (evaluator == null) {
+            evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        }
+
+        CellValue value;
+        try {
+            value = evaluator.evaluate(cell);
+        } catch (Exception e) {
+            logger.debug("Could not evaluate formula in {}: {}", cell.getAddress(), e.getMessage());
+            value = null;
+        }
+
+        lastFormulaCell = cell;
+        lastFormulaValue = value;
+        return value;
+    }
+
+    private long toEpochDay(double excelDate) {
+        LocalDateTime dateTime = DateUtil.getLocalDateTime(excelDate, date1904);
+        return dateTime != null ? dateTime.toLocalDate().toEpochDay() : Long.MIN_VALUE;
+    }
+
+    /** dd/MM/yyyy, the format the rest of the tool recognizes as a date. */
+    public static String formatEpochDay(long epochDay) {
+        if (epochDay == Long.MIN_VALUE) {
+            return "";
+        }
+
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int day = date.getDayOfMonth();
+        int month = date.getMonthValue();
+        int year = date.getYear();
+
+        char[] chars = new char[10];
+        chars[0] = (char) ('0' + day / 10);
+        chars[1] = (char) ('0' + day % 10);
+        chars[2] = '/';
+        chars[3] = (char) ('0' + month / 10);
+        chars[4] = (char) ('0' + month % 10);
+        chars[5] = '/';
+        if (year < 0 || year > 9999) {
+            return new String(chars, 0, 6) + year;
+        }
+        chars[6] = (char) ('0' + year / 1000);
+        chars[7] = (char) ('0' + year / 100 % 10);
+        chars[8] = (char) ('0' + year / 10 % 10);
+        chars[9] = (char) ('0' + year % 10);
+        return new String(chars);
+    }
+
+    /**
+     * Whole numbers without decimals, everything else with two decimals (half-up),
+     * always with '.' as the decimal separator. Avoids String.format.
+     */
+    public static String formatDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+
+        if (value == Math.rint(value)) {
+            if (Math.abs(value) < 1e18) {
+                return Long.toString((long) value);
+            }
+            return new BigDecimal(value).toPlainString();
+        }
+
+        if (Math.abs(value) >= 1e15) {
+            return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).toPlainString();
+        }
+
+        long cents = Math.round(Math.abs(value) * 100);
+        long whole = cents / 100;
+        int fraction = (int) (cents % 100);
+
+        StringBuilder sb = new StringBuilder(24);
+        if (value < 0 && cents != 0) {
+            sb.append('-');
+        }
+        sb.append(whole).append('.');
+        sb.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        return sb.toString();
+    }
+
+    /** Parses plain and Romanian-formatted numbers ("1.234,56", "12,5 lei"); NaN when not a number. */
+    public static double parseNumber(String text) {
+        if (text == null) {
+            return Double.NaN;
+        }
+
+        String cleaned = text.replace("RON", "").replace("lei", "").replace(" ", "").replace(" ", "").trim();
+        if (cleaned.isEmpty()) {
+            return Double.NaN;
+        }
+
+        int lastComma = cleaned.lastIndexOf(',');
+        int lastDot = cleaned.lastIndexOf('.');
+        if (lastComma > lastDot) {
+            cleaned = cleaned.replace(".", "").replace(',', '.');
+        } else if (lastDot > lastComma && lastComma >= 0) {
+            cleaned = cleaned.replace(",", "");
+        }
+
+        try {
+            return Double.parseDouble(cleaned);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
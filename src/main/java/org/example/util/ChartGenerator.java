@@ -2,6 +2,7 @@ package org.example.util;
 
 import org.example.model.CpvCode;
 import org.example.model.DataModel;
+import org.example.model.ProcurementAggregates;
 import org.example.model.ProcurementItem;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
@@ -265,35 +266,24 @@ public class ChartGenerator {
         logger.info("Generating procurement by value range chart");
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
 
-        Map<String, List<ProcurementItem>> itemsByRange = model.getProcurementItemsByValueRange();
+        ProcurementAggregates aggregates = model.getAggregates();
 
-        if (itemsByRange.isEmpty() || model.getProcurementItems().isEmpty()) {
+        if (aggregates.getItemCount() == 0) {
             logger.warn("No procurement data available for value range chart");
             dataset.addValue(0, "Count", "No Data");
             dataset.addValue(0, "Value (x10,000 RON)", "No Data");
         } else {
-            logger.info("Processing {} value ranges", itemsByRange.size());
+            List<String> ranges = aggregates.getValueBuckets().getLabels();
+            logger.info("Processing {} value ranges", ranges.size());
 
-            String[] ranges = {"0-10,000", "10,000-50,000", "50,000-100,000", "100,000+"};
+            double totalValue = aggregates.getTotalValueWithoutTVA();
 
-            double totalValue = model.getTotalValueWithoutTVA();
+            int totalItemCount = aggregates.getItemCount();
 
-            int totalItemCount = model.getProcurementItems().size();
-
-            for (int i = 0; i < ranges.length; i++) {
-                String range = ranges[i];
-                List<ProcurementItem> items = itemsByRange.get(range);
-
-                if (items == null) {
-                    items = new ArrayList<>();
-                }
-
-                int count = items.size();
-
-                double rangeValue = 0.0;
-                for (ProcurementItem item : items) {
-                    rangeValue += item.getValueWithoutTVA();
-                }
+            for (int i = 0; i < ranges.size(); i++) {
+                String range = ranges.get(i);
+                int count = aggregates.getRangeCount(i);
+                double rangeValue = aggregates.getRangeValue(i);
 
                 double scaledValue = rangeValue / 10000;
 
@@ -401,4 +391,4 @@ public class ChartGenerator {
             this.value = value;
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
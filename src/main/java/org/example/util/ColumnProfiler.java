@@ -0,0 +1,203 @@
+package org.example.util;
+
+import java.util.*;
+
+/**
+ * Column type detection and numeric summaries shared by the CSV and Excel analyzers.
+ * Rows are fed one at a time, so profiling needs no materialized table. Once a column has
+ * shown a value that is neither a number nor a date it is treated as text and only counted;
+ * columns that stay numeric keep their values as a primitive vector. Distinct values are
+ * counted exactly up to {@link #getUniqueLimit()}; past that a column only reports that it
+ * has more, so a column of unique ids does not keep every id in memory.
+ */
+public class ColumnProfiler {
+    /** System property overriding the number of distinct values counted exactly per column. */
+    public static final String UNIQUE_LIMIT_PROPERTY = "cpv.profile.uniqueLimit";
+
+    public static final int DEFAULT_UNIQUE_LIMIT = 10_000;
+
+    private final List<String> headers;
+    private final int columns;
+
+    private final int[] nonEmptyCounts;
+    private final int uniqueLimit;
+    // null once a column has more than uniqueLimit distinct values
+    private final List<Set<Object>> uniqueValues;
+    private final boolean[] canBeNumeric;
+    private final boolean[] canBeDate;
+    private final int[] numericCounts;
+    private final double[] mins;
+    private final double[] maxs;
+    private final double[] sums;
+    private final double[][] vectors;
+
+    public ColumnProfiler(List<String> headers) {
+        this.headers = headers;
+        this.columns = headers.size();
+        this.nonEmptyCounts = new int[columns];
+        this.uniqueLimit = getUniqueLimit();
+        this.uniqueValues = new ArrayList<>(columns);
+        this.canBeNumeric = new boolean[columns];
+        this.canBeDate = new boolean[columns];
+        this.numericCounts = new int[columns];
+        this.mins = new double[columns];
+        this.maxs = new double[columns];
+        this.sums = new double[columns];
+        this.vectors = new double[columns][];
+
+        for (int i = 0; i < columns; i++) {
+            uniqueValues.add(new HashSet<>());
+            canBeNumeric[i] = true;
+            canBeDate[i] = true;
+            mins[i] = Double.POSITIVE_INFINITY;
+            maxs[i] = Double.NEGATIVE_INFINITY;
+            vectors[i] = new double[16];
+        }
+    }
+
+    public static int getUniqueLimit() {
+        return Math.max(1, Integer.getInteger(UNIQUE_LIMIT_PROPERTY, DEFAULT_UNIQUE_LIMIT));
+    }
+
+    public void add(List<String> row) {
+        TypedRow typed = row instanceof TypedRow ? (TypedRow) row : null;
+        int width = Math.min(columns, row.size());
+
+        for (int col = 0; col < width; col++) {
+            if (typed != null && typed.getKind(col) != TypedRow.TEXT) {
+                addTyped(typed, col);
+            } else {
+                addText(row.get(col), col);
+            }
+        }
+    }
+
+    private void addTyped(TypedRow row, int col) {
+        switch (row.getKind(col)) {
+            case TypedRow.NUMBER:
+                double number = row.getDouble(col);
+                addUnique(number, col);
+                canBeDate[col] = false;
+                if (canBeNumeric[col]) {
+                    addNumber(number, col);
+                }
+                break;
+            case TypedRow.DATE:
+                addUnique(row.getEpochDay(col), col);
+                markNotNumeric(col);
+                break;
+            case TypedRow.BOOLEAN:
+                addUnique(row.getBoolean(col), col);
+                markNotNumeric(col);
+                canBeDate[col] = false;
+                break;
+            default:
+                return;
+        }
+        nonEmptyCounts[col]++;
+    }
+
+    private void addText(String value, int col) {
+        if (value == null) {
+            return;
+        }
+
+        double number = Double.NaN;
+        if (canBeNumeric[col] || canBeDate[col]) {
+            int kind = ValueClassifier.classify(value);
+            if (kind == ValueClassifier.EMPTY) return;
+
+            if (ValueClassifier.isNumber(kind)) {
+                number = ValueClassifier.parseNumber(value);
+            } else {
+                markNotNumeric(col);
+            }
+            if (kind != ValueClassifier.DATE) {
+                canBeDate[col] = false;
+            }
+        } else if (value.trim().isEmpty()) {
+            return;
+        }
+
+        nonEmptyCounts[col]++;
+        addUnique(value, col);
+
+        if (canBeNumeric[col] && !Double.isNaN(number)) {
+            addNumber(number, col);
+        }
+    }
+
+    private void addUnique(Object value, int col) {
+        Set<Object> values = uniqueValues.get(col);
+        if (values != null && values.add(value) && values.size() > uniqueLimit) {
+            uniqueValues.set(col, null);
+        }
+    }
+
+    private void addNumber(double number, int col) {
+        double[] vector = vectors[col];
+        int count = numericCounts[col];
+        if (count == vector.length) {
+            vector = Arrays.copyOf(vector, count * 2);
+            vectors[col] = vector;
+        }
+        vector[count] = number;
+
+        numericCounts[col] = count + 1;
+        sums[col] += number;
+        if (number < mins[col]) mins[col] = number;
+        if (number > maxs[col]) maxs[col] = number;
+    }
+
+    /** Folds in a profile of the same columns, e.g. another sheet with the same headers. */
+    public void merge(ColumnProfiler other) {
+        if (other.columns != columns) {
+            throw new IllegalArgumentException("Cannot merge profiles with " + other.columns + " and " + columns + " columns");
+        }
+
+        for (int col = 0; col < columns; col++) {
+            nonEmptyCounts[col] += other.nonEmptyCounts[col];
+            Set<Object> unique = uniqueValues.get(col);
+            Set<Object> otherUnique = other.uniqueValues.get(col);
+            if (unique != null && otherUnique != null) {
+                unique.addAll(otherUnique);
+            }
+            if (unique == null || otherUnique == null || unique.size() > uniqueLimit) {
+                uniqueValues.set(col, null);
+            }
+            canBeDate[col] &= other.canBeDate[col];
+
+            if (canBeNumeric[col] && other.canBeNumeric[col]) {
+                double[] values = other.vectors[col];
+                for (int i = 0; i < other.numericCounts[col]; i++) {
+                    addNumber(values[i], col);
+                }
+            } else {
+                markNotNumeric(col);
+            }
+        }
+    }
+
+    private void markNotNumeric(int col) {
+        canBeNumeric[col] = false;
+        vectors[col] = null;
+    }
+
+    public List<ColumnStats> getColumns() {
+        List<ColumnStats> result = new ArrayList<>(columns);
+
+        for (int col = 0; col < columns; col++) {
+            ColumnStats.ColumnType type = canBeNumeric[col] ? ColumnStats.ColumnType.NUMERIC
+                    : canBeDate[col] ? ColumnStats.ColumnType.DATE : ColumnStats.ColumnType.TEXT;
+            double[] values = canBeNumeric[col] ? ColumnStats.trim(vectors[col], numericCounts[col]) : null;
+
+            Set<Object> unique = uniqueValues.get(col);
+            int uniqueCount = unique != null ? unique.size() : uniqueLimit + 1;
+
+            result.add(new ColumnStats(headers.get(col), col, type, nonEmptyCounts[col], uniqueCount, unique == null,
+                    canBeNumeric[col] ? numericCounts[col] : 0, mins[col], maxs[col], sums[col], values));
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Profile of one column of an analyzed file. Numeric columns also keep their values as a
+ * primitive vector so charts do not have to re-read or re-parse the source.
+ */
+public final class ColumnStats {
+
+    public enum ColumnType {
+        NUMERIC("Numeric"), DATE("Date"), TEXT("Text");
+
+        private final String label;
+
+        ColumnType(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final String name;
+    private final int index;
+    private final ColumnType type;
+    private final int nonEmptyCount;
+    private final int uniqueCount;
+    private final boolean uniqueCountCapped;
+    private final int numericCount;
+    private final double min;
+    private final double max;
+    private final double sum;
+    private final double[] values;
+
+    ColumnStats(String name, int index, ColumnType type, int nonEmptyCount, int uniqueCount, boolean uniqueCountCapped,
+                int numericCount, double min, double max, double sum, double[] values) {
+        this.name = name;
+        this.index = index;
+        this.type = type;
+        this.nonEmptyCount = nonEmptyCount;
+        this.uniqueCount = uniqueCount;
+        this.uniqueCountCapped = uniqueCountCapped;
+        this.numericCount = numericCount;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.values = values;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    public int getNonEmptyCount() {
+        return nonEmptyCount;
+    }
+
+    /** Distinct values; a lower bound when {@link #isUniqueCountCapped()}. */
+    public int getUniqueCount() {
+        return uniqueCount;
+    }
+
+    /** True when the column had more distinct values than the profiler counts exactly. */
+    public boolean isUniqueCountCapped() {
+        return uniqueCountCapped;
+    }
+
+    /** The distinct value count for display, e.g. "42" or ">10000". */
+    public String getUniqueCountLabel() {
+        return uniqueCountCapped ? ">" + (uniqueCount - 1) : String.valueOf(uniqueCount);
+    }
+
+    /** True for numeric columns with at least one value, i.e. when min/max/average are defined. */
+    public boolean hasNumericSummary() {
+        return type == ColumnType.NUMERIC && numericCount > 0;
+    }
+
+    public int getNumericCount() {
+        return numericCount;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getAverage() {
+        return numericCount > 0 ? sum / numericCount : Double.NaN;
+    }
+
+    /** Number of values in the column vector; 0 for non-numeric columns. */
+    public int getValueCount() {
+        return values != null ? values.length : 0;
+    }
+
+    public double getValue(int i) {
+        return values[i];
+    }
+
+    /** Copy of the numeric values in row order; empty for non-numeric columns. */
+    public double[] getValues() {
+        return values != null ? values.clone() : new double[0];
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        if (hasNumericSummary()) {
+            stats.put("minValue", min);
+            stats.put("maxValue", max);
+            stats.put("avgValue", getAverage());
+            stats.put("sum", sum);
+        }
+        stats.put("type", type.getLabel());
+        stats.put("nonEmptyCount", nonEmptyCount);
+        stats.put("uniqueValues", uniqueCountCapped ? getUniqueCountLabel() : uniqueCount);
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + type.getLabel() + ", " + nonEmptyCount + " values, " + getUniqueCountLabel() + " unique"
+                + (hasNumericSummary() ? ", " + min + ".." + max : "") + ")";
+    }
+
+    static double[] trim(double[] values, int size) {
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Verdict of {@link ProcurementWorkbookLoader} on a PAAP or CPV workbook: the compatibility
+ * level, one recommendation per issue, and where the data was found. An all-sheets load lists
+ * the report of every sheet with a PAAP header under {@link #getSheets()}.
+ */
+public final class CompatibilityReport {
+
+    public enum Level {
+        FULL("Fully Compatible"),
+        MOSTLY("Mostly Compatible"),
+        PARTIAL("Partially Compatible"),
+        INCOMPATIBLE("Incompatible"),
+        ERROR("Error");
+
+        private final String label;
+
+        Level(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /** True for the levels the data can be loaded at, possibly with warnings. */
+        public boolean isLoadable() {
+            return this != INCOMPATIBLE && this != ERROR;
+        }
+
+        /** True for the loadable levels below {@link #FULL}. */
+        public boolean hasWarnings() {
+            return this == MOSTLY || this == PARTIAL;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private Level level = Level.FULL;
+    private final List<String> issues = new ArrayList<>();
+    private final List<String> recommendations = new ArrayList<>();
+    private final List<CompatibilityReport> sheets = new ArrayList<>();
+    private String sheetName;
+    private int headerRow = -1;
+    private int inspectedRows;
+    private int recordCount;
+
+    CompatibilityReport() {
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public boolean isCompatible() {
+        return level.isLoadable();
+    }
+
+    public List<String> getIssues() {
+        return Collections.unmodifiableList(issues);
+    }
+
+    /** Recommendations in the order of {@link #getIssues()}. */
+    public List<String> getRecommendations() {
+        return Collections.unmodifiableList(recommendations);
+    }
+
+    /** Sheet the data was read from; for an all-sheets load the names of all read sheets. */
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    /** Zero-based header row, -1 when no header was found or the report covers several sheets. */
+    public int getHeaderRow() {
+        return headerRow;
+    }
+
+    public int getInspectedRows() {
+        return inspectedRows;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public List<CompatibilityReport> getSheets() {
+        return Collections.unmodifiableList(sheets);
+    }
+
+    void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /** Keeps the less compatible of the current level and the given loadable level. */
+    void lowerLevel(Level other) {
+        if (other.ordinal() > level.ordinal()) {
+            level = other;
+        }
+    }
+
+    void addIssue(String issue, String recommendation) {
+        issues.add(issue);
+        recommendations.add(recommendation);
+    }
+
+    void reject(String issue, String recommendation) {
+        level = Level.INCOMPATIBLE;
+        addIssue(issue, recommendation);
+    }
+
+    void addSheet(CompatibilityReport sheet) {
+        sheets.add(sheet);
+    }
+
+    void setSheetName(String sheetName) {
+        this.sheetName = sheetName;
+    }
+
+    void setHeaderRow(int headerRow) {
+        this.headerRow = headerRow;
+    }
+
+    void setInspectedRows(int inspectedRows) {
+        this.inspectedRows = inspectedRows;
+    }
+
+    void setRecordCount(int recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    static CompatibilityReport error(Exception e) {
+        CompatibilityReport report = new CompatibilityReport();
+        report.level = Level.ERROR;
+        report.addIssue("Could not read workbook: " + e.getMessage(),
+                "Check that the file is a valid, non-encrypted .xlsx or .xls workbook");
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        return "CompatibilityReport{" + level + ", " + issues.size() + " issues, " + recordCount + " records}";
+    }
+}
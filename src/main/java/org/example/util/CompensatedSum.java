@@ -0,0 +1,48 @@
+package org.example.util;
+
+/**
+ * Compensated (Kahan-Babuska/Neumaier) summation kept in plain double arrays: accumulator k
+ * occupies slots 2k (running sum) and 2k+1 (lost low-order bits). Sums of hundreds of
+ * thousands of RON values stay exact to the cent instead of drifting with the item order.
+ */
+public class CompensatedSum {
+
+    /** Array holding count accumulators, all zero. */
+    public static double[] create(int count) {
+        return new double[count * 2];
+    }
+
+    public static void add(double[] sums, int accumulator, double value) {
+        addAt(sums, accumulator * 2, value);
+    }
+
+    /** Adds to the sum at sums[slot] with its compensation at sums[slot + 1], for custom layouts. */
+    public static void addAt(double[] sums, int slot, double value) {
+        double sum = sums[slot];
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            sums[slot + 1] += (sum - total) + value;
+        } else {
+            sums[slot + 1] += (value - total) + sum;
+        }
+        sums[slot] = total;
+    }
+
+    /** Adds accumulator from of another array into accumulator to. */
+    public static void merge(double[] sums, int to, double[] other, int from) {
+        add(sums, to, other[from * 2]);
+        sums[to * 2 + 1] += other[from * 2 + 1];
+    }
+
+    public static double get(double[] sums, int accumulator) {
+        return sums[accumulator * 2] + sums[accumulator * 2 + 1];
+    }
+
+    public static double sum(double[] values, int from, int to) {
+        double[] sums = create(1);
+        for (int i = from; i < to; i++) {
+            add(sums, 0, values[i]);
+        }
+        return get(sums, 0);
+    }
+}
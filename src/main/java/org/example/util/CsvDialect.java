@@ -0,0 +1,68 @@
+package org.example.util;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * How a delimited text file is written: encoding, delimiter, quote character, whether the
+ * first record is a header, and the line terminator. Produced by {@link CsvDialectSniffer}.
+ */
+public class CsvDialect {
+    private final Charset charset;
+    private final int bomLength;
+    private final char delimiter;
+    private final char quoteChar;
+    private final boolean header;
+    private final String lineTerminator;
+
+    public CsvDialect(Charset charset, int bomLength, char delimiter, char quoteChar, boolean header,
+                      String lineTerminator) {
+        this.charset = charset;
+        this.bomLength = bomLength;
+        this.delimiter = delimiter;
+        this.quoteChar = quoteChar;
+        this.header = header;
+        this.lineTerminator = lineTerminator;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /** Bytes to skip at the start of the file before decoding. */
+    public int getBomLength() {
+        return bomLength;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    public char getQuoteChar() {
+        return quoteChar;
+    }
+
+    public boolean hasHeader() {
+        return header;
+    }
+
+    public String getLineTerminator() {
+        return lineTerminator;
+    }
+
+    /** Reader over a stream already positioned past any byte order mark by the sniffer. */
+    public CsvRecordReader openReader(InputStream in) {
+        Reader reader = new InputStreamReader(in, charset);
+        return new CsvRecordReader(reader, delimiter, quoteChar);
+    }
+
+    @Override
+    public String toString() {
+        String terminator = "\r\n".equals(lineTerminator) ? "CRLF" : "\r".equals(lineTerminator) ? "CR" : "LF";
+        String shownDelimiter = delimiter == '\t' ? "TAB" : String.valueOf(delimiter);
+        return charset.name() + ", delimiter '" + shownDelimiter + "', quote '" + quoteChar + "', "
+                + (header ? "header" : "no header") + ", " + terminator;
+    }
+}
@@ -0,0 +1,289 @@
+package org.example.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects the dialect of a delimited text file from one bounded prefix of the stream.
+ * The prefix stays in the BufferedInputStream (mark/reset), so the same stream is then parsed
+ * from the start without reopening the file.
+ */
+public final class CsvDialectSniffer {
+    private static final Logger logger = LoggerFactory.getLogger(CsvDialectSniffer.class);
+
+    public static final int SAMPLE_BYTES = 64 * 1024;
+    private static final int SAMPLE_RECORDS = 100;
+
+    private static final char[] DELIMITERS = {',', ';', '\t', '|'};
+    private static final char[] QUOTES = {'"', '\''};
+
+    private static final Charset WINDOWS_1250 = Charset.isSupported("windows-1250")
+            ? Charset.forName("windows-1250") : StandardCharsets.ISO_8859_1;
+
+    private CsvDialectSniffer() {
+    }
+
+    /**
+     * Sniffs the dialect and leaves the stream positioned at the first character after any
+     * byte order mark. Use {@link CsvDialect#openReader} on the same stream to parse it.
+     */
+    public static CsvDialect sniff(BufferedInputStream in) throws IOException {
+        in.mark(SAMPLE_BYTES + 1);
+        byte[] sample = in.readNBytes(SAMPLE_BYTES);
+        in.reset();
+
+        boolean truncated = sample.length == SAMPLE_BYTES;
+        int bomLength = 0;
+        Charset charset;
+
+        if (startsWith(sample, 0xEF, 0xBB, 0xBF)) {
+            charset = StandardCharsets.UTF_8;
+            bomLength = 3;
+        } else if (startsWith(sample, 0xFE, 0xFF)) {
+            charset = StandardCharsets.UTF_16BE;
+            bomLength = 2;
+        } else if (startsWith(sample, 0xFF, 0xFE)) {
+            charset = StandardCharsets.UTF_16LE;
+            bomLength = 2;
+        } else {
+            charset = guessCharset(sample, truncated);
+        }
+        in.skipNBytes(bomLength);
+
+        String text = new String(sample, bomLength, sample.length - bomLength, charset);
+        if (truncated) {
+            int lastBreak = Math.max(text.lastIndexOf('\n'), text.lastIndexOf('\r'));
+            if (lastBreak > 0) {
+                text = text.substring(0, lastBreak + 1);
+            }
+        }
+
+        char delimiter = detectDelimiter(text);
+        char quoteChar = detectQuote(text, delimiter);
+        List<List<String>> records = readRecords(text, delimiter, quoteChar);
+        CsvDialect dialect = new CsvDialect(charset, bomLength, delimiter, quoteChar,
+                detectHeader(records), detectLineTerminator(text, quoteChar));
+
+        logger.debug("Detected CSV dialect: {}", dialect);
+        return dialect;
+    }
+
+    private static Charset guessCharset(byte[] sample, boolean truncated) {
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i < sample.length; i++) {
+            if (sample[i] == 0) {
+                if ((i & 1) == 0) evenZeros++;
+                else oddZeros++;
+            }
+        }
+        if (sample.length >= 4) {
+            int half = sample.length / 2;
+            if (oddZeros > half * 0.3 && evenZeros < half * 0.05) return StandardCharsets.UTF_16LE;
+            if (evenZeros > half * 0.3 && oddZeros < half * 0.05) return StandardCharsets.UTF_16BE;
+        }
+
+        return isValidUtf8(sample, truncated) ? StandardCharsets.UTF_8 : WINDOWS_1250;
+    }
+
+    private static boolean isValidUtf8(byte[] bytes, boolean truncated) {
+        int i = 0;
+        while (i < bytes.length) {
+            int b = bytes[i] & 0xFF;
+            int continuation;
+            if (b < 0x80) {
+                i++;
+                continue;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return false;
+            }
+
+            if (i + continuation >= bytes.length) {
+                // A sequence cut off by the sample boundary is not evidence against UTF-8.
+                return truncated;
+            }
+            for (int k = 1; k <= continuation; k++) {
+                if ((bytes[i + k] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Picks the delimiter that splits the sampled records into the most consistent number of
+     * fields; among equally consistent candidates the one giving more fields wins.
+     */
+    private static char detectDelimiter(String text) {
+        char best = ',';
+        double bestScore = 0;
+
+        for (char candidate : DELIMITERS) {
+            List<List<String>> records = readRecords(text, candidate, '"');
+            if (records.isEmpty()) continue;
+
+            int[] counts = new int[records.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = records.get(i).size();
+            }
+
+            int modalCount = modalValue(counts);
+            if (modalCount < 2) continue;
+
+            int matching = 0;
+            for (int count : counts) {
+                if (count == modalCount) matching++;
+            }
+
+            double consistency = (double) matching / counts.length;
+            double score = consistency * 1000 + Math.min(modalCount, 999);
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+
+        return best;
+    }
+
+    private static char detectQuote(String text, char delimiter) {
+        char best = '"';
+        int bestCount = 0;
+
+        for (char quote : QUOTES) {
+            int quotedFields = 0;
+            boolean fieldStart = true;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == quote && fieldStart) {
+                    quotedFields++;
+                }
+                fieldStart = c == delimiter || c == '\n' || c == '\r';
+            }
+            if (quotedFields > bestCount) {
+                bestCount = quotedFields;
+                best = quote;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Votes per column: a text header over a numeric or date column counts for a header,
+     * a header cell of the same kind as the data counts against. Without evidence, assume a header.
+     */
+    private static boolean detectHeader(List<List<String>> records) {
+        if (records.size() < 2) {
+            return true;
+        }
+
+        List<String> first = records.get(0);
+        int votes = 0;
+
+        for (int col = 0; col < first.size(); col++) {
+            int typed = 0;
+            int seen = 0;
+            for (int r = 1; r < records.size(); r++) {
+                List<String> record = records.get(r);
+                if (col >= record.size()) continue;
+                int kind = ValueClassifier.classify(record.get(col));
+                if (kind == ValueClassifier.EMPTY) continue;
+                seen++;
+                if (kind != ValueClassifier.TEXT) typed++;
+            }
+            if (seen == 0 || typed * 2 < seen) continue;
+
+            int headerKind = ValueClassifier.classify(first.get(col));
+            if (headerKind == ValueClassifier.TEXT) votes++;
+            else if (headerKind != ValueClassifier.EMPTY) votes--;
+        }
+
+        return votes >= 0;
+    }
+
+    private static String detectLineTerminator(String text, char quote) {
+        int crlf = 0;
+        int lf = 0;
+        int cr = 0;
+        boolean inQuotes = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == quote) {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && c == '\r') {
+                if (i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    crlf++;
+                    i++;
+                } else {
+                    cr++;
+                }
+            } else if (!inQuotes && c == '\n') {
+                lf++;
+            }
+        }
+
+        if (crlf >= lf && crlf >= cr && crlf > 0) return "\r\n";
+        return cr > lf ? "\r" : "\n";
+    }
+
+    private static List<List<String>> readRecords(String text, char delimiter, char quote) {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(text), delimiter, quote)) {
+            List<String> record;
+            while (records.size() < SAMPLE_RECORDS && (record = reader.readRecord()) != null) {
+                records.add(record);
+            }
+        } catch (IOException e) {
+            logger.debug("Could not read sample records: {}", e.getMessage());
+        }
+        return records;
+    }
+
+    private static int modalValue(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        int best = sorted[0];
+        int bestRun = 0;
+        int run = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            run = i > 0 && sorted[i] == sorted[i - 1] ? run + 1 : 1;
+            if (run > bestRun || (run == bestRun && sorted[i] > best)) {
+                bestRun = run;
+                best = sorted[i];
+            }
+        }
+        return best;
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for delimited records. Quoted fields may contain delimiters and line breaks,
+ * a doubled quote inside quotes is a literal quote, and CRLF, LF and CR all end a record.
+ * Records made only of whitespace are skipped.
+ */
+public class CsvRecordReader implements Closeable {
+    private final Reader reader;
+    private final char delimiter;
+    private final char quote;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder field = new StringBuilder();
+
+    public CsvRecordReader(Reader reader, char delimiter, char quote) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+
+    /** Next record, or null at end of input. */
+    public List<String> readRecord() throws IOException {
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                return null;
+            }
+
+            List<String> values = new ArrayList<>();
+            boolean inQuotes = false;
+            boolean content = false;
+            field.setLength(0);
+
+            while (c >= 0) {
+                char ch = (char) c;
+                if (ch == quote) {
+                    content = true;
+                    if (inQuotes && peek() == quote) {
+                        read();
+                        field.append(quote);
+                    } else {
+                        inQuotes = !inQuotes;
+                    }
+                } else if (inQuotes) {
+                    field.append(ch);
+                } else if (ch == delimiter) {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    break;
+                } else if (ch == '\r') {
+                    if (peek() == '\n') read();
+                    break;
+                } else {
+                    if (ch > ' ') content = true;
+                    field.append(ch);
+                }
+                c = read();
+            }
+
+            values.add(field.toString());
+            if (content) {
+                return values;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Data rows of a delimited text file. Every pass reopens the source with the dialect found by
+ * the first scan, skipping the header record; rows are padded or cut to a fixed width if one is given.
+ */
+public class CsvRowSource implements RowSource {
+    private final InputSource source;
+    private final CsvDialect dialect;
+    private final int width;
+
+    public CsvRowSource(InputSource source, CsvDialect dialect, int width) {
+        this.source = source;
+        this.dialect = dialect;
+        this.width = width;
+    }
+
+    @Override
+    public RowCursor open() throws IOException {
+        BufferedInputStream in = new BufferedInputStream(source.open());
+        CsvRecordReader reader;
+        try {
+            in.skipNBytes(dialect.getBomLength());
+            reader = dialect.openReader(in);
+            if (dialect.hasHeader()) {
+                reader.readRecord();
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return cursor(reader, width);
+    }
+
+    static RowCursor cursor(CsvRecordReader reader, int width) {
+        return new RowCursor() {
+            @Override
+            public List<String> next() throws IOException {
+                List<String> values = reader.readRecord();
+                if (values == null || width < 0) {
+                    return values;
+                }
+
+                while (values.size() < width) {
+                    values.add("");
+                }
+                return values.size() > width ? values.subList(0, width) : values;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
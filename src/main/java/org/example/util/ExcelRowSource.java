@@ -0,0 +1,85 @@
+package org.example.util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Data rows of one or more worksheets as {@link TypedRow}s, skipping rows without any value.
+ * Every pass opens the workbook read-only and closes it with the cursor; several sheets are
+ * read one after the other.
+ */
+public class ExcelRowSource implements RowSource {
+    private final InputSource source;
+    private final int[] sheetIndexes;
+    private final int firstRow;
+    private final int columns;
+
+    public ExcelRowSource(InputSource source, int sheetIndex, int firstRow, int columns) {
+        this(source, new int[]{sheetIndex}, firstRow, columns);
+    }
+
+    public ExcelRowSource(InputSource source, int[] sheetIndexes, int firstRow, int columns) {
+        this.source = source;
+        this.sheetIndexes = sheetIndexes.clone();
+        this.firstRow = firstRow;
+        this.columns = columns;
+    }
+
+    @Override
+    public RowCursor open() throws IOException {
+        Workbook workbook = source.openWorkbook();
+        CellConversionContext cells = new CellConversionContext(workbook);
+
+        return new RowCursor() {
+            private int sheetPosition;
+            private RowCursor current = cursor(workbook.getSheetAt(sheetIndexes[0]), firstRow, columns, cells);
+
+            @Override
+            public List<String> next() throws IOException {
+                while (true) {
+                    List<String> row = current.next();
+                    if (row != null || ++sheetPosition >= sheetIndexes.length) {
+                        return row;
+                    }
+                    current = cursor(workbook.getSheetAt(sheetIndexes[sheetPosition]), firstRow, columns, cells);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                workbook.close();
+            }
+        };
+    }
+
+    /** Cursor over an already open sheet; closing it leaves the workbook open. */
+    static RowCursor cursor(Sheet sheet, int firstRow, int columns, CellConversionContext cells) {
+        int lastRow = sheet.getLastRowNum();
+
+        return new RowCursor() {
+            private int rowIndex = firstRow;
+
+            @Override
+            public List<String> next() {
+                while (rowIndex <= lastRow) {
+                    Row row = sheet.getRow(rowIndex++);
+                    if (row == null) continue;
+
+                    TypedRow typed = TypedRow.read(row, columns, cells);
+                    if (typed.hasData()) {
+                        return typed;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
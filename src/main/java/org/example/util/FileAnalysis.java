@@ -0,0 +1,109 @@
+package org.example.util;
+
+import java.util.*;
+
+/**
+ * Immutable result of analyzing a spreadsheet or delimited text file: headers, a fixed-size
+ * sample, typed column statistics and a re-scannable source for the full rows.
+ */
+public final class FileAnalysis {
+    private final String fileName;
+    private final long fileSize;
+    private final String fileType;
+    private final List<String> headers;
+    private final List<List<String>> sampleData;
+    private final int rowCount;
+    private final List<ColumnStats> columns;
+    private final RowSource rows;
+    private final Map<String, Object> sourceDetails;
+
+    FileAnalysis(String fileName, long fileSize, String fileType, List<String> headers,
+                 List<List<String>> sampleData, int rowCount, List<ColumnStats> columns,
+                 RowSource rows, Map<String, Object> sourceDetails) {
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.fileType = fileType;
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+        this.sampleData = Collections.unmodifiableList(new ArrayList<>(sampleData));
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.rows = rows;
+        this.sourceDetails = Collections.unmodifiableMap(new LinkedHashMap<>(sourceDetails));
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public List<List<String>> getSampleData() {
+        return sampleData;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return headers.size();
+    }
+
+    public List<ColumnStats> getColumns() {
+        return columns;
+    }
+
+    public ColumnStats getColumn(int index) {
+        return columns.get(index);
+    }
+
+    public ColumnStats getColumn(String header) {
+        int index = headers.indexOf(header);
+        return index >= 0 ? columns.get(index) : null;
+    }
+
+    public RowSource getRows() {
+        return rows;
+    }
+
+    /** Format-specific details such as delimiter, encoding or sheet name. */
+    public Map<String, Object> getSourceDetails() {
+        return sourceDetails;
+    }
+
+    /**
+     * The map shape returned by analyzeFile/analyzeCSV before this class existed, with the
+     * typed result itself under "analysis".
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>(sourceDetails);
+        result.put("fileName", fileName);
+        result.put("fileSize", fileSize);
+        if (fileType != null) {
+            result.put("fileType", fileType);
+        }
+        result.put("headers", headers);
+        result.put("sampleData", sampleData);
+        result.put("rowCount", rowCount);
+        result.put("columnCount", headers.size());
+
+        Map<String, Map<String, Object>> columnStats = new LinkedHashMap<>();
+        for (ColumnStats column : columns) {
+            columnStats.put(column.getName(), column.toMap());
+        }
+        result.put("columnStats", columnStats);
+        result.put("rows", rows);
+        result.put("analysis", this);
+        return result;
+    }
+}
@@ -1,14 +1,15 @@
 package org.example.util;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class FileAnalyzerService {
     private static final Logger logger = LoggerFactory.getLogger(FileAnalyzerService.class);
@@ -17,429 +18,394 @@ public class FileAnalyzerService {
     public static final char SEMICOLON_DELIMITER = ';';
     public static final char TAB_DELIMITER = '\t';
 
-    public static Map<String, Object> analyzeFile(File file) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("fileName", file.getName());
-        result.put("fileSize", file.length());
-
-        String fileName = file.getName().toLowerCase();
+    private static final int SAMPLE_SIZE = 50;
 
+    public static Map<String, Object> analyzeFile(File file) {
         try {
-            if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
-                Map<String, Object> excelAnalysis = analyzeExcelFile(file);
-                result.putAll(excelAnalysis);
-                result.put("fileType", fileName.endsWith(".xlsx") ? "Excel (XLSX)" : "Excel (XLS)");
-            } else if (fileName.endsWith(".csv") || fileName.endsWith(".txt")) {
-                char delimiter = detectDelimiter(file);
-                result.put("delimiter", String.valueOf(delimiter));
-
-                Map<String, Object> csvAnalysis = analyzeCsvFile(file, delimiter);
-                result.putAll(csvAnalysis);
-                result.put("fileType", "CSV");
-            } else {
-                throw new IllegalArgumentException("Unsupported file format. Please upload an Excel or CSV file.");
-            }
-
+            return analyze(file).toMap();
         } catch (Exception e) {
             logger.error("Error analyzing file: {}", e.getMessage(), e);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("fileName", file.getName());
+            result.put("fileSize", file.length());
             result.put("error", "Error analyzing file: " + e.getMessage());
+            return result;
+        }
+    }
+
+    /**
+     * Analyzes an Excel or CSV file. For a .gz or .zip archive the first Excel or CSV entry is
+     * analyzed straight from the decompressing stream; see {@link #analyzeArchive} for all entries.
+     */
+    public static FileAnalysis analyze(File file) throws Exception {
+        if (!InputSource.isCompressed(file)) {
+            return analyze(InputSource.of(file));
         }
 
-        return result;
+        List<InputSource> entries = InputSource.entriesOf(file);
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("The archive contains no Excel or CSV file.");
+        }
+        if (entries.size() > 1) {
+            logger.info("Archive {} holds {} data files, analyzing {}", file.getName(), entries.size(),
+                    entries.get(0).getName());
+        }
+        return analyze(entries.get(0));
     }
 
-    private static Map<String, Object> analyzeExcelFile(File file) throws IOException {
-        Map<String, Object> result = new HashMap<>();
-        List<String> headers = new ArrayList<>();
-        List<List<String>> allData = new ArrayList<>();
-        List<List<String>> sampleData = new ArrayList<>();
+    public static FileAnalysis analyze(InputSource source) throws Exception {
+        String fileName = source.getName().toLowerCase();
 
-        try (FileInputStream fis = new FileInputStream(file);
-             Workbook workbook = file.getName().endsWith(".xlsx") ? new XSSFWorkbook(fis) : new HSSFWorkbook(fis)) {
+        if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
+            return analyzeExcelFile(source, fileName.endsWith(".xlsx") ? "Excel (XLSX)" : "Excel (XLS)");
+        } else if (fileName.endsWith(".csv") || fileName.endsWith(".txt")) {
+            return analyzeCsvFile(source, "CSV", true);
+        } else {
+            throw new IllegalArgumentException("Unsupported file format. Please upload an Excel or CSV file.");
+        }
+    }
 
-            Sheet sheet = workbook.getSheetAt(0);
-            result.put("sheetName", sheet.getSheetName());
-            result.put("sheetCount", workbook.getNumberOfSheets());
-
-            Row headerRow = sheet.getRow(0);
-            if (headerRow != null) {
-                for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-                    Cell cell = headerRow.getCell(i);
-                    headers.add(cell != null ? getCellValueAsString(cell) : "Column " + (i + 1));
-                }
+    /**
+     * Analyzes every Excel and CSV entry of a .gz or .zip archive. Zip entries are decompressed
+     * and analyzed in parallel, each through its own stream.
+     */
+    public static List<FileAnalysis> analyzeArchive(File archive) throws Exception {
+        List<InputSource> entries = InputSource.entriesOf(archive);
+        if (entries.size() <= 1) {
+            List<FileAnalysis> result = new ArrayList<>();
+            for (InputSource entry : entries) {
+                result.add(analyze(entry));
             }
+            return result;
+        }
 
-            if (headers.isEmpty()) {
-                int maxColumns = 0;
-                for (int i = 0; i <= Math.min(5, sheet.getLastRowNum()); i++) {
-                    Row row = sheet.getRow(i);
-                    if (row != null) {
-                        maxColumns = Math.max(maxColumns, row.getLastCellNum());
-                    }
-                }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(entries.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<FileAnalysis>> futures = new ArrayList<>();
+            for (InputSource entry : entries) {
+                futures.add(executor.submit(() -> analyze(entry)));
+            }
 
-                for (int i = 0; i < maxColumns; i++) {
-                    headers.add("Column " + (i + 1));
+            List<FileAnalysis> result = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    result.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new Exception("Failed to analyze " + entries.get(i).getName() + ": "
+                            + e.getCause().getMessage(), e.getCause());
                 }
             }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            int rowCount = 0;
-            int sampleSize = 50;
-
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-
-                List<String> rowData = new ArrayList<>();
-                boolean hasData = false;
+    private static FileAnalysis analyzeExcelFile(InputSource source, String fileType) throws IOException {
+        Map<String, Object> details = new LinkedHashMap<>();
 
-                for (int j = 0; j < headers.size(); j++) {
-                    Cell cell = row.getCell(j);
-                    String value = cell != null ? getCellValueAsString(cell) : "";
-                    rowData.add(value);
-                    if (!value.trim().isEmpty()) {
-                        hasData = true;
-                    }
-                }
+        try (Workbook workbook = source.openWorkbook()) {
+            CellConversionContext cells = new CellConversionContext(workbook);
+            Sheet sheet = workbook.getSheetAt(0);
+            details.put("sheetName", sheet.getSheetName());
+            details.put("sheetCount", workbook.getNumberOfSheets());
 
-                if (hasData) {
-                    allData.add(rowData);
-                    rowCount++;
+            List<String> headers = readHeaders(sheet, cells);
+            try (RowCursor rows = ExcelRowSource.cursor(sheet, 1, headers.size(), cells)) {
+                return scanRows(source, fileType, headers, rows, new ExcelRowSource(source, 0, 1, headers.size()),
+                        details, new ColumnProfiler(headers));
+            }
+        }
+    }
 
-                    if (rowCount <= sampleSize) {
-                        sampleData.add(rowData);
-                    }
+    /**
+     * Profiles every sheet of a workbook in turn and merges the statistics of the largest group of
+     * sheets with identical headers. POI workbooks are not safe to share between threads, and
+     * parsing the workbook, not profiling its rows, takes most of the time.
+     */
+    public static WorkbookAnalysis analyzeAllSheets(File file) throws Exception {
+        InputSource source = InputSource.of(file);
+        if (InputSource.isCompressed(file)) {
+            source = null;
+            for (InputSource entry : InputSource.entriesOf(file)) {
+                if (entry.isExcel()) {
+                    source = entry;
+                    break;
                 }
             }
-
-            result.put("headers", headers);
-            result.put("allData", allData);
-            result.put("sampleData", sampleData);
-            result.put("rowCount", rowCount);
-            result.put("columnCount", headers.size());
-
-            Map<String, Map<String, Object>> columnStats = analyzeColumns(headers, allData);
-            result.put("columnStats", columnStats);
+            if (source == null) {
+                throw new IllegalArgumentException("The archive contains no Excel workbook.");
+            }
         }
-
-        return result;
+        return analyzeAllSheets(source);
     }
 
-    private static char detectDelimiter(File file) throws IOException {
-        int linesToCheck = 5;
-        int[] delimiterCounts = new int[3];
-        char[] delimiters = {COMMA_DELIMITER, SEMICOLON_DELIMITER, TAB_DELIMITER};
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new FileInputStream(file), StandardCharsets.UTF_8))) {
+    private static WorkbookAnalysis analyzeAllSheets(InputSource source) throws Exception {
+        String fileType = source.getName().toLowerCase().endsWith(".xls") ? "Excel (XLS)" : "Excel (XLSX)";
 
-            String line;
-            int lineCount = 0;
+        try (Workbook workbook = source.openWorkbook()) {
+            int sheetCount = workbook.getNumberOfSheets();
+            if (sheetCount == 0) {
+                return new WorkbookAnalysis(Collections.emptyList(), null, Collections.emptyList());
+            }
 
-            while ((line = reader.readLine()) != null && lineCount < linesToCheck) {
-                if (line.trim().isEmpty()) continue;
+            CellConversionContext cells = new CellConversionContext(workbook);
+            List<FileAnalysis> sheets = new ArrayList<>();
+            List<ColumnProfiler> profilers = new ArrayList<>();
+            for (int s = 0; s < sheetCount; s++) {
+                Sheet sheet = workbook.getSheetAt(s);
+                List<String> headers = readHeaders(sheet, cells);
+
+                Map<String, Object> details = new LinkedHashMap<>();
+                details.put("sheetName", sheet.getSheetName());
+                details.put("sheetCount", sheetCount);
+
+                ColumnProfiler profiler = new ColumnProfiler(headers);
+                try (RowCursor rows = ExcelRowSource.cursor(sheet, 1, headers.size(), cells)) {
+                    sheets.add(scanRows(source, fileType, headers, rows,
+                            new ExcelRowSource(source, s, 1, headers.size()), details, profiler));
+                }
+                profilers.add(profiler);
+            }
 
-                delimiterCounts[0] += countOccurrences(line, COMMA_DELIMITER);
-                delimiterCounts[1] += countOccurrences(line, SEMICOLON_DELIMITER);
-                delimiterCounts[2] += countOccurrences(line, TAB_DELIMITER);
+            return mergeSheets(source, fileType, sheets, profilers);
+        }
+    }
 
-                lineCount++;
+    private static WorkbookAnalysis mergeSheets(InputSource source, String fileType, List<FileAnalysis> sheets,
+                                                List<ColumnProfiler> profilers) {
+        Map<List<String>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int s = 0; s < sheets.size(); s++) {
+            List<String> key = new ArrayList<>();
+            for (String header : sheets.get(s).getHeaders()) {
+                key.add(header.trim().toLowerCase());
             }
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(s);
         }
 
-        int maxCount = -1;
-        char detectedDelimiter = COMMA_DELIMITER;
-
-        for (int i = 0; i < delimiterCounts.length; i++) {
-            if (delimiterCounts[i] > maxCount) {
-                maxCount = delimiterCounts[i];
-                detectedDelimiter = delimiters[i];
+        List<Integer> largest = null;
+        int largestRows = -1;
+        for (List<Integer> group : groups.values()) {
+            int rows = 0;
+            for (int s : group) rows += sheets.get(s).getRowCount();
+            if (rows > largestRows) {
+                largest = group;
+                largestRows = rows;
             }
         }
 
-        return detectedDelimiter;
-    }
-
-    private static Map<String, Object> analyzeCsvFile(File file, char delimiter) throws IOException {
-        Map<String, Object> result = new HashMap<>();
-        List<String> headers = new ArrayList<>();
-        List<List<String>> allData = new ArrayList<>();
+        FileAnalysis first = sheets.get(largest.get(0));
+        ColumnProfiler merged = new ColumnProfiler(first.getHeaders());
         List<List<String>> sampleData = new ArrayList<>();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new FileInputStream(file), StandardCharsets.UTF_8))) {
-
-            String line;
-            int rowCount = 0;
-            int sampleSize = 50;
-
-            if ((line = reader.readLine()) != null) {
-                headers = parseCsvLine(line, delimiter);
+        List<String> sheetNames = new ArrayList<>();
+        int[] sheetIndexes = new int[largest.size()];
+        int rowCount = 0;
+
+        for (int i = 0; i < largest.size(); i++) {
+            int s = largest.get(i);
+            FileAnalysis sheet = sheets.get(s);
+            merged.merge(profilers.get(s));
+            rowCount += sheet.getRowCount();
+            sheetIndexes[i] = s;
+            sheetNames.add((String) sheet.getSourceDetails().get("sheetName"));
+
+            for (List<String> row : sheet.getSampleData()) {
+                if (sampleData.size() < SAMPLE_SIZE) sampleData.add(row);
             }
+        }
 
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-
-                List<String> values = parseCsvLine(line, delimiter);
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("sheetName", String.join(", ", sheetNames));
+        details.put("sheetCount", sheets.size());
 
-                while (values.size() < headers.size()) {
-                    values.add("");
-                }
+        FileAnalysis mergedAnalysis = new FileAnalysis(source.getName(), source.getSize(), fileType, first.getHeaders(),
+                sampleData, rowCount, merged.getColumns(),
+                new ExcelRowSource(source, sheetIndexes, 1, first.getColumnCount()), details);
+        return new WorkbookAnalysis(sheets, mergedAnalysis, sheetNames);
+    }
 
-                if (values.size() > headers.size()) {
-                    values = values.subList(0, headers.size());
-                }
+    private static List<String> readHeaders(Sheet sheet, CellConversionContext cells) {
+        List<String> headers = new ArrayList<>();
 
-                allData.add(values);
-                rowCount++;
+        Row headerRow = sheet.getRow(0);
+        if (headerRow != null) {
+            for (int i = 0; i < headerRow.getLastCellNum(); i++) {
+                Cell cell = headerRow.getCell(i);
+                headers.add(cell != null ? cells.getString(cell) : "Column " + (i + 1));
+            }
+        }
 
-                if (rowCount <= sampleSize) {
-                    sampleData.add(values);
+        if (headers.isEmpty()) {
+            int maxColumns = 0;
+            for (int i = 0; i <= Math.min(5, sheet.getLastRowNum()); i++) {
+                Row row = sheet.getRow(i);
+                if (row != null) {
+                    maxColumns = Math.max(maxColumns, row.getLastCellNum());
                 }
             }
 
-            result.put("headers", headers);
-            result.put("allData", allData);
-            result.put("sampleData", sampleData);
-            result.put("rowCount", rowCount);
-            result.put("columnCount", headers.size());
-
-            Map<String, Map<String, Object>> columnStats = analyzeColumns(headers, allData);
-            result.put("columnStats", columnStats);
+            for (int i = 0; i < maxColumns; i++) {
+                headers.add("Column " + (i + 1));
+            }
         }
 
-        return result;
+        return headers;
     }
 
-    private static Map<String, Map<String, Object>> analyzeColumns(List<String> headers, List<List<String>> data) {
-        Map<String, Map<String, Object>> columnStats = new LinkedHashMap<>();
-
-        for (int colIndex = 0; colIndex < headers.size(); colIndex++) {
-            String header = headers.get(colIndex);
-            Map<String, Object> stats = new HashMap<>();
+    /**
+     * Analyzes a delimited text file in one pass over a single open stream. With padRows each
+     * row is padded or cut to the header width.
+     */
+    static FileAnalysis analyzeCsvFile(InputSource source, String fileType, boolean padRows) throws IOException {
+        Map<String, Object> details = new LinkedHashMap<>();
+        List<String> headers = new ArrayList<>();
 
-            List<String> columnValues = new ArrayList<>();
-            for (List<String> row : data) {
-                if (colIndex < row.size()) {
-                    columnValues.add(row.get(colIndex));
+        try (BufferedInputStream in = new BufferedInputStream(source.open(), CsvDialectSniffer.SAMPLE_BYTES)) {
+            CsvDialect dialect = CsvDialectSniffer.sniff(in);
+            details.put("delimiter", String.valueOf(dialect.getDelimiter()));
+            details.put("encoding", dialect.getCharset().name());
+            details.put("hasHeader", dialect.hasHeader());
+
+            CsvRecordReader reader = dialect.openReader(in);
+            List<String> firstRecord = reader.readRecord();
+            if (firstRecord != null) {
+                if (dialect.hasHeader()) {
+                    headers = firstRecord;
                 } else {
-                    columnValues.add("");
+                    for (int i = 0; i < firstRecord.size(); i++) {
+                        headers.add("Column " + (i + 1));
+                    }
                 }
             }
 
-            int nonEmptyCount = 0;
-            Set<String> uniqueValues = new HashSet<>();
-            boolean canBeNumeric = true;
-            boolean canBeDate = true;
-
-            List<Double> numericValues = new ArrayList<>();
+            int width = padRows ? headers.size() : -1;
+            RowCursor rows = CsvRowSource.cursor(reader, width);
+            if (firstRecord != null && !dialect.hasHeader()) {
+                rows = prepend(firstRecord, rows);
+            }
+            return scanRows(source, fileType, headers, rows, new CsvRowSource(source, dialect, width),
+                    details, new ColumnProfiler(headers));
+        }
+    }
 
-            for (String value : columnValues) {
-                if (value != null && !value.trim().isEmpty()) {
-                    nonEmptyCount++;
-                    uniqueValues.add(value);
+    /**
+     * Single streaming pass that collects a fixed-size sample, the row count and the column
+     * statistics. Rows beyond the sample are profiled and dropped.
+     */
+    private static FileAnalysis scanRows(InputSource source, String fileType, List<String> headers, RowCursor rows,
+                                         RowSource rowSource, Map<String, Object> details,
+                                         ColumnProfiler profiler) throws IOException {
+        List<List<String>> sampleData = new ArrayList<>();
+        int rowCount = 0;
 
-                    try {
-                        double numVal = Double.parseDouble(value.replace(",", ".").trim());
-                        numericValues.add(numVal);
-                    } catch (NumberFormatException e) {
-                        canBeNumeric = false;
-                    }
+        List<String> row;
+        while ((row = rows.next()) != null) {
+            profiler.add(row);
+            rowCount++;
 
-                    if (!value.matches(".*\\d{1,2}[/.-]\\d{1,2}[/.-]\\d{2,4}.*") &&
-                            !value.matches(".*\\d{4}[/.-]\\d{1,2}[/.-]\\d{1,2}.*")) {
-                        canBeDate = false;
-                    }
-                }
+            if (rowCount <= SAMPLE_SIZE) {
+                sampleData.add(row);
             }
+        }
 
-            String type;
-            if (canBeNumeric) {
-                type = "Numeric";
+        return new FileAnalysis(source.getName(), source.getSize(), fileType, headers, sampleData, rowCount,
+                profiler.getColumns(), rowSource, details);
+    }
 
-                if (!numericValues.isEmpty()) {
-                    double min = Collections.min(numericValues);
-                    double max = Collections.max(numericValues);
-                    double sum = numericValues.stream().mapToDouble(Double::doubleValue).sum();
-                    double avg = sum / numericValues.size();
+    private static RowCursor prepend(List<String> first, RowCursor rest) {
+        return new RowCursor() {
+            private boolean firstReturned;
 
-                    stats.put("minValue", min);
-                    stats.put("maxValue", max);
-                    stats.put("avgValue", avg);
-                    stats.put("sum", sum);
+            @Override
+            public List<String> next() throws IOException {
+                if (!firstReturned) {
+                    firstReturned = true;
+                    return first;
                 }
-            } else if (canBeDate) {
-                type = "Date";
-            } else {
-                type = "Text";
+                return rest.next();
             }
 
-            stats.put("type", type);
-            stats.put("nonEmptyCount", nonEmptyCount);
-            stats.put("uniqueValues", uniqueValues.size());
+            @Override
+            public void close() throws IOException {
+                rest.close();
+            }
+        };
+    }
 
-            columnStats.put(header, stats);
+    private static FileAnalysis getAnalysis(Map<String, Object> analysisData) {
+        Object analysis = analysisData.get("analysis");
+        if (analysis instanceof FileAnalysis) {
+            return (FileAnalysis) analysis;
         }
-
-        return columnStats;
+        logger.error("No analysis result found in analysis data");
+        return null;
     }
 
-    private static List<String> parseCsvLine(String line, char delimiter) {
-        List<String> values = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
+    private static Map<String, Integer> countValues(RowSource rows, int columnIndex) throws IOException {
+        Map<String, Integer> valueCounts = new HashMap<>();
 
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    sb.append(c);
-                    i++;
-                } else {
-                    inQuotes = !inQuotes;
+        try (RowCursor cursor = rows.open()) {
+            List<String> row;
+            while ((row = cursor.next()) != null) {
+                if (columnIndex < row.size()) {
+                    String value = row.get(columnIndex);
+                    if (value == null || value.trim().isEmpty()) {
+                        value = "(Empty)";
+                    }
+                    valueCounts.merge(value, 1, Integer::sum);
                 }
-            } else if (c == delimiter && !inQuotes) {
-                values.add(sb.toString());
-                sb = new StringBuilder();
-            } else {
-                sb.append(c);
             }
         }
 
-        values.add(sb.toString());
-
-        return values;
+        return valueCounts;
     }
 
-    private static String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return "";
-        }
+    /** Column with the fewest distinct values within [minUnique, maxUnique], else the first column. */
+    private static ColumnStats selectCategoryColumn(FileAnalysis analysis, int minUnique, int maxUnique) {
+        ColumnStats selected = null;
 
-        try {
-            switch (cell.getCellType()) {
-                case STRING:
-                    return cell.getStringCellValue();
-                case NUMERIC:
-                    if (DateUtil.isCellDateFormatted(cell)) {
-                        return cell.getDateCellValue().toString();
-                    } else {
-                        double value = cell.getNumericCellValue();
-                        if (value == Math.floor(value) && !Double.isInfinite(value)) {
-                            return String.format("%.0f", value);
-                        } else {
-                            return String.format("%.2f", value);
-                        }
-                    }
-                case BOOLEAN:
-                    return String.valueOf(cell.getBooleanCellValue());
-                case FORMULA:
-                    try {
-                        FormulaEvaluator evaluator = cell.getSheet().getWorkbook().getCreationHelper().createFormulaEvaluator();
-                        CellValue cellValue = evaluator.evaluate(cell);
-
-                        switch (cellValue.getCellType()) {
-                            case NUMERIC:
-                                if (DateUtil.isCellDateFormatted(cell)) {
-                                    return new Date((long)cellValue.getNumberValue()).toString();
-                                } else {
-                                    double value = cellValue.getNumberValue();
-                                    if (value == Math.floor(value) && !Double.isInfinite(value)) {
-                                        return String.format("%.0f", value);
-                                    } else {
-                                        return String.format("%.2f", value);
-                                    }
-                                }
-                            case STRING:
-                                return cellValue.getStringValue();
-                            case BOOLEAN:
-                                return String.valueOf(cellValue.getBooleanValue());
-                            default:
-                                return "";
-                        }
-                    } catch (Exception e) {
-                        return "";
-                    }
-                default:
-                    return "";
+        for (ColumnStats column : analysis.getColumns()) {
+            int uniqueValues = column.getUniqueCount();
+            if (uniqueValues >= minUnique && uniqueValues <= maxUnique
+                    && (selected == null || uniqueValues < selected.getUniqueCount())) {
+                selected = column;
             }
-        } catch (Exception e) {
-            logger.error("Error getting cell value as string: {}", e.getMessage());
-            return "";
         }
-    }
 
-    private static int countOccurrences(String str, char ch) {
-        int count = 0;
-        for (int i = 0; i < str.length(); i++) {
-            if (str.charAt(i) == ch) {
-                count++;
-            }
+        if (selected == null && analysis.getColumnCount() > 0) {
+            selected = analysis.getColumn(0);
         }
-        return count;
+        return selected;
     }
 
     public static org.jfree.chart.JFreeChart createValueDistributionChart(Map<String, Object> analysisData) {
-        Map<String, Map<String, Object>> columnStats =
-                (Map<String, Map<String, Object>>) analysisData.get("columnStats");
-
-        if (columnStats == null) {
-            logger.error("No column stats found in analysis data");
-            return createEmptyChart("No suitable data for visualization");
-        }
+        FileAnalysis analysis = getAnalysis(analysisData);
+        return analysis != null ? createValueDistributionChart(analysis)
+                : createEmptyChart("No suitable data for visualization");
+    }
 
-        String selectedColumn = null;
+    public static org.jfree.chart.JFreeChart createValueDistributionChart(FileAnalysis analysis) {
+        ColumnStats selected = null;
 
-        for (Map.Entry<String, Map<String, Object>> entry : columnStats.entrySet()) {
-            Map<String, Object> stats = entry.getValue();
-            if ("Numeric".equals(stats.get("type")) && stats.containsKey("minValue")) {
-                selectedColumn = entry.getKey();
+        for (ColumnStats column : analysis.getColumns()) {
+            if (column.hasNumericSummary()) {
+                selected = column;
                 break;
             }
         }
 
-        if (selectedColumn == null) {
-            return createCountByColumnChart(analysisData);
-        }
-
-        List<List<String>> allData = (List<List<String>>) analysisData.get("allData");
-        List<String> headers = (List<String>) analysisData.get("headers");
-
-        if (allData == null || headers == null) {
-            logger.error("Missing data or headers in analysis data");
-            return createEmptyChart("Cannot create chart - missing data");
+        if (selected == null) {
+            return createCountByColumnChart(analysis);
         }
 
-        int columnIndex = headers.indexOf(selectedColumn);
-
-        if (columnIndex < 0) return createEmptyChart("Column not found");
-
-        List<Double> values = new ArrayList<>();
-        for (List<String> row : allData) {
-            if (columnIndex < row.size()) {
-                String valueStr = row.get(columnIndex);
-                try {
-                    double value = Double.parseDouble(valueStr.replace(",", "."));
-                    values.add(value);
-                } catch (NumberFormatException e) {
-                    // Skip non-numeric values
-                }
-            }
-        }
-
-        if (values.isEmpty()) {
-            return createCountByColumnChart(analysisData);
-        }
+        String selectedColumn = selected.getName();
+        double[] valuesArray = selected.getValues();
 
         org.jfree.data.statistics.HistogramDataset dataset = new org.jfree.data.statistics.HistogramDataset();
 
-        double[] valuesArray = new double[values.size()];
-        for (int i = 0; i < values.size(); i++) {
-            valuesArray[i] = values.get(i);
-        }
-
-        int binCount = Math.min(20, values.size() / 5);
+        int binCount = Math.min(20, valuesArray.length / 5);
         if (binCount < 5) binCount = 5;
 
         dataset.addSeries(selectedColumn, valuesArray, binCount);
@@ -463,55 +429,26 @@ public class FileAnalyzerService {
     }
 
     public static org.jfree.chart.JFreeChart createCountByColumnChart(Map<String, Object> analysisData) {
-        List<String> headers = (List<String>) analysisData.get("headers");
-        Map<String, Map<String, Object>> columnStats =
-                (Map<String, Map<String, Object>>) analysisData.get("columnStats");
-
-        if (headers == null || columnStats == null) {
-            logger.error("Missing headers or column stats in analysis data");
-            return createEmptyChart("Cannot create chart - missing data");
-        }
-
-        String selectedColumn = null;
-        int bestUniqueCount = Integer.MAX_VALUE;
-
-        for (Map.Entry<String, Map<String, Object>> entry : columnStats.entrySet()) {
-            Map<String, Object> stats = entry.getValue();
-            Integer uniqueValues = (Integer) stats.getOrDefault("uniqueValues", 0);
-
-            if (uniqueValues >= 3 && uniqueValues <= 15 && uniqueValues < bestUniqueCount) {
-                selectedColumn = entry.getKey();
-                bestUniqueCount = uniqueValues;
-            }
-        }
+        FileAnalysis analysis = getAnalysis(analysisData);
+        return analysis != null ? createCountByColumnChart(analysis)
+                : createEmptyChart("Cannot create chart - missing data");
+    }
 
-        if (selectedColumn == null && !headers.isEmpty()) {
-            selectedColumn = headers.get(0);
-        }
+    public static org.jfree.chart.JFreeChart createCountByColumnChart(FileAnalysis analysis) {
+        ColumnStats selected = selectCategoryColumn(analysis, 3, 15);
 
-        if (selectedColumn == null) {
+        if (selected == null) {
             return createEmptyChart("No Suitable Data for Visualization");
         }
 
-        List<List<String>> allData = (List<List<String>>) analysisData.get("allData");
-
-        if (allData == null) {
-            logger.error("Missing data in analysis data");
-            return createEmptyChart("Cannot create chart - missing data");
-        }
-
-        int columnIndex = headers.indexOf(selectedColumn);
+        String selectedColumn = selected.getName();
 
-        Map<String, Integer> valueCounts = new HashMap<>();
-
-        for (List<String> row : allData) {
-            if (columnIndex < row.size()) {
-                String value = row.get(columnIndex);
-                if (value == null || value.trim().isEmpty()) {
-                    value = "(Empty)";
-                }
-                valueCounts.put(value, valueCounts.getOrDefault(value, 0) + 1);
-            }
+        Map<String, Integer> valueCounts;
+        try {
+            valueCounts = countValues(analysis.getRows(), selected.getIndex());
+        } catch (IOException e) {
+            logger.error("Error reading data for chart: {}", e.getMessage(), e);
+            return createEmptyChart("Cannot create chart - " + e.getMessage());
         }
 
         org.jfree.data.category.DefaultCategoryDataset dataset =
@@ -552,55 +489,26 @@ public class FileAnalyzerService {
     }
 
     public static org.jfree.chart.JFreeChart createPieChart(Map<String, Object> analysisData) {
-        List<String> headers = (List<String>) analysisData.get("headers");
-        Map<String, Map<String, Object>> columnStats =
-                (Map<String, Map<String, Object>>) analysisData.get("columnStats");
-
-        if (headers == null || columnStats == null) {
-            logger.error("Missing headers or column stats in analysis data");
-            return createEmptyChart("Cannot create pie chart - missing data");
-        }
-
-        String selectedColumn = null;
-        int bestUniqueCount = Integer.MAX_VALUE;
-
-        for (Map.Entry<String, Map<String, Object>> entry : columnStats.entrySet()) {
-            Map<String, Object> stats = entry.getValue();
-            Integer uniqueValues = (Integer) stats.getOrDefault("uniqueValues", 0);
-
-            if (uniqueValues >= 3 && uniqueValues <= 10 && uniqueValues < bestUniqueCount) {
-                selectedColumn = entry.getKey();
-                bestUniqueCount = uniqueValues;
-            }
-        }
+        FileAnalysis analysis = getAnalysis(analysisData);
+        return analysis != null ? createPieChart(analysis)
+                : createEmptyChart("Cannot create pie chart - missing data");
+    }
 
-        if (selectedColumn == null && !headers.isEmpty()) {
-            selectedColumn = headers.get(0);
-        }
+    public static org.jfree.chart.JFreeChart createPieChart(FileAnalysis analysis) {
+        ColumnStats selected = selectCategoryColumn(analysis, 3, 10);
 
-        if (selectedColumn == null) {
+        if (selected == null) {
             return createEmptyChart("No Suitable Data for Visualization");
         }
 
-        List<List<String>> allData = (List<List<String>>) analysisData.get("allData");
-
-        if (allData == null) {
-            logger.error("Missing data in analysis data");
-            return createEmptyChart("Cannot create pie chart - missing data");
-        }
+        String selectedColumn = selected.getName();
 
-        int columnIndex = headers.indexOf(selectedColumn);
-
-        Map<String, Integer> valueCounts = new HashMap<>();
-
-        for (List<String> row : allData) {
-            if (columnIndex < row.size()) {
-                String value = row.get(columnIndex);
-                if (value == null || value.trim().isEmpty()) {
-                    value = "(Empty)";
-                }
-                valueCounts.put(value, valueCounts.getOrDefault(value, 0) + 1);
-            }
+        Map<String, Integer> valueCounts;
+        try {
+            valueCounts = countValues(analysis.getRows(), selected.getIndex());
+        } catch (IOException e) {
+            logger.error("Error reading data for chart: {}", e.getMessage(), e);
+            return createEmptyChart("Cannot create pie chart - " + e.getMessage());
         }
 
         org.jfree.data.general.DefaultPieDataset dataset =
@@ -0,0 +1,166 @@
+package org.example.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a folder for new, modified and deleted data files on a background thread.
+ * Events are debounced until the folder has been quiet for a moment, since a file that is
+ * being copied in fires several modify events; the folder is then rescanned and only files
+ * whose size or modification time actually changed are reported. The files already present
+ * when watching starts are reported as the first batch.
+ */
+public class FolderWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FolderWatcher.class);
+
+    public static final long DEFAULT_QUIET_MILLIS = 1500;
+
+    public interface Listener {
+        /** Called on the watcher thread with the files to (re-)ingest and the files that are gone. */
+        void filesChanged(Set<File> changed, Set<File> removed);
+    }
+
+    private final Path folder;
+    private final Predicate<File> filter;
+    private final Listener listener;
+    private final long quietMillis;
+    private final Map<File, long[]> fingerprints = new HashMap<>();
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    public FolderWatcher(File folder, Predicate<File> filter, Listener listener) {
+        this(folder, filter, listener, DEFAULT_QUIET_MILLIS);
+    }
+
+    public FolderWatcher(File folder, Predicate<File> filter, Listener listener, long quietMillis) {
+        this.folder = folder.toPath();
+        this.filter = filter;
+        this.listener = listener;
+        this.quietMillis = quietMillis;
+    }
+
+    /** Excel, .zip and .gz files, skipping hidden files and Office lock files (~$name.xlsx). */
+    public static boolean isWorkbookFile(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.startsWith("~$") || name.startsWith(".")) {
+            return false;
+        }
+        return name.endsWith(".xlsx") || name.endsWith(".xls") || InputSource.isCompressed(file);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        if (!Files.isDirectory(folder)) {
+            throw new IOException(folder + " is not a folder");
+        }
+
+        watchService = folder.getFileSystem().newWatchService();
+        folder.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        running = true;
+
+        thread = new Thread(this::run, "folder-watcher-" + folder.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching {} for data file changes", folder);
+    }
+
+    private void run() {
+        try {
+            rescan();
+            while (running) {
+                WatchKey key = watchService.take();
+                drain(key);
+
+                // Keep collecting until nothing has happened for quietMillis
+                while ((key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS)) != null) {
+                    drain(key);
+                }
+                rescan();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Folder watcher for {} stopped", folder);
+        } catch (RuntimeException e) {
+            logger.error("Folder watcher for {} failed: {}", folder, e.getMessage(), e);
+        }
+    }
+
+    private void drain(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                logger.debug("Watch events overflowed for {}, relying on rescan", folder);
+            }
+        }
+        if (!key.reset()) {
+            logger.warn("{} is no longer accessible, stopping the folder watcher", folder);
+            running = false;
+        }
+    }
+
+    private void rescan() {
+        Set<File> changed = new TreeSet<>();
+        Set<File> seen = new HashSet<>();
+
+        File[] files = folder.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.isFile() || !filter.test(file)) continue;
+
+                seen.add(file);
+                long[] fingerprint = {file.length(), file.lastModified()};
+                if (!Arrays.equals(fingerprints.put(file, fingerprint), fingerprint)) {
+                    changed.add(file);
+                }
+            }
+        }
+
+        Set<File> removed = new TreeSet<>(fingerprints.keySet());
+        removed.removeAll(seen);
+        fingerprints.keySet().removeAll(removed);
+
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        logger.info("Detected {} changed and {} removed file(s) in {}", changed.size(), removed.size(), folder);
+        try {
+            listener.filesChanged(Collections.unmodifiableSet(changed), Collections.unmodifiableSet(removed));
+        } catch (RuntimeException e) {
+            logger.error("Error handling changes in {}: {}", folder, e.getMessage(), e);
+        }
+    }
+
+    public File getFolder() {
+        return folder.toFile();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.util;
+
+/**
+ * Sorts int positions by the double at that position of a value column, without boxing. The
+ * sort is a stable merge sort, so positions with equal values keep their order; values compare
+ * as with {@link Double#compare}.
+ */
+public final class IndexSort {
+    private static final int INSERTION_SORT_LENGTH = 32;
+
+    private IndexSort() {
+    }
+
+    /** Sorts indexes[from..to) by values[index], ascending or descending. */
+    public static void sortByValue(int[] indexes, int from, int to, double[] values, boolean descending) {
+        if (to - from < 2) {
+            return;
+        }
+        int[] buffer = new int[to - from];
+        mergeSort(indexes, buffer, from, to, values, descending ? -1 : 1);
+    }
+
+    public static void sortByValue(int[] indexes, double[] values, boolean descending) {
+        sortByValue(indexes, 0, indexes.length, values, descending);
+    }
+
+    private static void mergeSort(int[] indexes, int[] buffer, int from, int to, double[] values, int sign) {
+        if (to - from <= INSERTION_SORT_LENGTH) {
+            insertionSort(indexes, from, to, values, sign);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        mergeSort(indexes, buffer, from, middle, values, sign);
+        mergeSort(indexes, buffer, middle, to, values, sign);
+        if (compare(values, indexes[middle - 1], indexes[middle], sign) <= 0) {
+            return;
+        }
+
+        int length = middle - from;
+        System.arraycopy(indexes, from, buffer, 0, length);
+        int left = 0;
+        int right = middle;
+        int target = from;
+        while (left < length && right < to) {
+            // Taking the left element on ties keeps the sort stable
+            if (compare(values, indexes[right], buffer[left], sign) < 0) {
+                indexes[target++] = indexes[right++];
+            } else {
+                indexes[target++] = buffer[left++];
+            }
+        }
+        System.arraycopy(buffer, left, indexes, target, length - left);
+    }
+
+    private static void insertionSort(int[] indexes, int from, int to, double[] values, int sign) {
+        for (int i = from + 1; i < to; i++) {
+            int index = indexes[i];
+            int j = i - 1;
+            while (j >= from && compare(values, indexes[j], index, sign) > 0) {
+                indexes[j + 1] = indexes[j];
+                j--;
+            }
+            indexes[j + 1] = index;
+        }
+    }
+
+    private static int compare(double[] values, int a, int b, int sign) {
+        return sign * Double.compare(values[a], values[b]);
+    }
+}
@@ -0,0 +1,196 @@
+package org.example.util;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A readable data file: either a plain file on disk or a .gz/.zip entry that is decompressed
+ * while it is read, so archives never have to be unpacked to disk. Every {@link #open()}
+ * returns a fresh stream, and several zip entries can be read in parallel.
+ */
+public final class InputSource {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_BYTES = 256 * 1024;
+
+    private interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    private final String name;
+    private final long size;
+    private final File file;
+    private final Opener opener;
+
+    private InputSource(String name, long size, File file, Opener opener) {
+        this.name = name;
+        this.size = size;
+        this.file = file;
+        this.opener = opener;
+    }
+
+    public static InputSource of(File file) {
+        return new InputSource(file.getName(), file.length(), file, () -> new FileInputStream(file));
+    }
+
+    public static boolean isCompressed(File file) {
+        String fileName = file.getName().toLowerCase();
+        return fileName.endsWith(".gz") || fileName.endsWith(".zip");
+    }
+
+    /** Excel and CSV entries of a .gz or .zip archive, in archive order. */
+    public static List<InputSource> entriesOf(File archive) throws IOException {
+        List<InputSource> entries = new ArrayList<>();
+        String archiveName = archive.getName();
+
+        if (archiveName.toLowerCase().endsWith(".gz")) {
+            String entryName = archiveName.substring(0, archiveName.length() - 3);
+            if (isSupported(entryName)) {
+                entries.add(new InputSource(entryName, -1, null,
+                        () -> new GZIPInputStream(new FileInputStream(archive), GZIP_BUFFER_SIZE)));
+            }
+            return entries;
+        }
+
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                String entryName = entry.getName();
+                if (entry.isDirectory() || entryName.startsWith("__MACOSX/") || !isSupported(entryName)) continue;
+
+                String shortName = entryName.substring(entryName.lastIndexOf('/') + 1);
+                entries.add(new InputSource(shortName, entry.getSize(), null, () -> openZipEntry(archive, entryName)));
+            }
+        }
+        return entries;
+    }
+
+    private static InputStream openZipEntry(File archive, String entryName) throws IOException {
+        ZipFile zip = new ZipFile(archive);
+        try {
+            ZipEntry entry = zip.getEntry(entryName);
+            if (entry == null) {
+                throw new FileNotFoundException(entryName + " is no longer in " + archive.getName());
+            }
+            return new FilterInputStream(zip.getInputStream(entry)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zip.close();
+                    }
+                }
+            };
+        } catch (IOException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    private static boolean isSupported(String name) {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".xlsx") || lower.endsWith(".xls") || lower.endsWith(".csv") || lower.endsWith(".txt");
+    }
+
+    public InputStream open() throws IOException {
+        return opener.open();
+    }
+
+    /** Read-only workbook; plain files are opened in place, archive entries are read from the stream. */
+    public Workbook openWorkbook() throws IOException {
+        if (file != null) {
+            return WorkbookFactory.create(file, null, true);
+        }
+        try (InputStream in = open()) {
+            return WorkbookFactory.create(in);
+        }
+    }
+
+    /**
+     * Like {@link #openWorkbook()}, reporting the bytes read so far while an archive entry is
+     * decompressed; a plain file is opened in place and not reported. Reading stops with
+     * CancellationException once cancelled returns true.
+     */
+    public Workbook openWorkbook(LongConsumer bytesRead, BooleanSupplier cancelled) throws IOException {
+        if (file != null) {
+            return openWorkbook();
+        }
+        try (InputStream in = new ProgressInputStream(open(), bytesRead, cancelled)) {
+            return WorkbookFactory.create(in);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Uncompressed size when known, otherwise -1. */
+    public long getSize() {
+        return size;
+    }
+
+    /** The file on disk for plain files, null for archive entries. */
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isExcel() {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".xlsx") || lower.endsWith(".xls");
+    }
+
+    /** Counts the bytes read, reporting every {@link #PROGRESS_BYTES} and checking for cancellation. */
+    private static final class ProgressInputStream extends FilterInputStream {
+        private final LongConsumer bytesRead;
+        private final BooleanSupplier cancelled;
+        private long count;
+        private long reported;
+
+        ProgressInputStream(InputStream in, LongConsumer bytesRead, BooleanSupplier cancelled) {
+            super(in);
+            this.bytesRead = bytesRead;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (count - reported >= PROGRESS_BYTES) {
+                reported = count;
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Reading was cancelled after " + count + " bytes");
+                }
+                bytesRead.accept(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.util;
+
+import org.example.model.ProcurementItem;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Month of a PAAP date cell, which may hold a Romanian or English month name
+ * ("martie 2024", "Trim. I - ianuarie") or a numeric date such as 15/03/2024.
+ */
+public class MonthExtractor {
+    public static final String[] MONTH_NAMES = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
+            "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    private static final String[][] MONTH_WORDS = {
+            {"ian", "feb", "mar", "apr", "mai", "iun", "iul", "aug", "sep", "oct", "noi", "dec"},
+            {"january", "february", "march", "april", "may", "june", "july", "august", "september",
+                    "october", "november", "december"}
+    };
+
+    private static final Pattern NUMERIC_DATE = Pattern.compile("\\b(\\d{1,2})[-/](\\d{1,2})[-/](\\d{2,4})\\b");
+
+    /** Month 1-12 of the item's initiation date, or of its completion date when that is missing; 0 if unknown. */
+    public static int monthOf(ProcurementItem item) {
+        String date = item.getInitiationDate();
+        if (date == null || date.isEmpty()) {
+            date = item.getCompletionDate();
+        }
+        return monthOf(date);
+    }
+
+    /** Month 1-12, or 0 if the text holds no recognizable month. */
+    public static int monthOf(String date) {
+        if (date == null || date.isEmpty()) return 0;
+
+        String lowerDate = date.toLowerCase();
+        for (String[] words : MONTH_WORDS) {
+            for (int month = 0; month < 12; month++) {
+                if (lowerDate.contains(words[month])) {
+                    return month + 1;
+                }
+            }
+        }
+
+        Matcher matcher = NUMERIC_DATE.matcher(date);
+        if (matcher.find()) {
+            int month1 = Integer.parseInt(matcher.group(1));
+            int month2 = Integer.parseInt(matcher.group(2));
+
+            int month = month2 > 12 && month1 <= 12 ? month1 : month2;
+            if (month >= 1 && month <= 12) {
+                return month;
+            }
+        }
+
+        return 0;
+    }
+
+    /** Short English name ("Jan"), or null for month 0. */
+    public static String nameOf(int month) {
+        return month >= 1 && month <= 12 ? MONTH_NAMES[month - 1] : null;
+    }
+}
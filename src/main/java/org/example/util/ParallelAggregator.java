@@ -0,0 +1,245 @@
+package org.example.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join aggregations over primitive columns (one double or int per item). Work is split
+ * into fixed chunks of {@link #CHUNK_SIZE} elements that each fill their own accumulators;
+ * partial results are merged left to right along a split tree that only depends on the
+ * length, so the result is the same on every run and for any number of threads.
+ * Below {@link #getThreshold()} elements everything runs on the calling thread. The choice
+ * depends on the length only, never on the pool: a single-core machine runs the same chunked
+ * summation, just on fewer threads, and gets the same sums as a multi-core one.
+ */
+public class ParallelAggregator {
+    /** System property overriding the minimum number of items for parallel aggregation. */
+    public static final String THRESHOLD_PROPERTY = "cpv.parallelThreshold";
+
+    public static final int DEFAULT_THRESHOLD = 50_000;
+
+    /** 4096 doubles = 32 KB, i.e. one L1 cache worth of values per leaf task. */
+    public static final int CHUNK_SIZE = 4096;
+
+    public static int getThreshold() {
+        return Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+    }
+
+    public static boolean shouldParallelize(int size) {
+        return size >= getThreshold();
+    }
+
+    /** Compensated sum of all values. */
+    public static double sum(double[] values) {
+        if (!shouldParallelize(values.length)) {
+            return CompensatedSum.sum(values, 0, values.length);
+        }
+        return sumByGroup(values, null, 1).getSum(0);
+    }
+
+    /**
+     * Count and compensated sum of values per group, where groups[i] is the group of
+     * values[i] in [0, groupCount), or negative to skip the value; null groups means one group.
+     */
+    public static GroupTotals sumByGroup(double[] values, int[] groups, int groupCount) {
+        double[] sums = shouldParallelize(values.length)
+                ? ForkJoinPool.commonPool().invoke(new GroupTask(values, groups, groupCount, 0, values.length))
+                : GroupTask.accumulate(values, groups, groupCount, 0, values.length);
+        return new GroupTotals(sums, groupCount);
+    }
+
+    /**
+     * Indexes of the n largest positive values, largest first; equal values keep their order,
+     * as with a stable sort of the whole column.
+     */
+    public static int[] topIndexes(double[] values, int n) {
+        if (!shouldParallelize(values.length)) {
+            return TopTask.top(values, n, 0, values.length);
+        }
+        return ForkJoinPool.commonPool().invoke(new TopTask(values, n, 0, values.length));
+    }
+
+    /** Per-group counts and sums; accumulator layout is [count, sum, compensation] per group. */
+    public static final class GroupTotals {
+        private final double[] sums;
+        private final int groupCount;
+
+        private GroupTotals(double[] sums, int groupCount) {
+            this.sums = sums;
+            this.groupCount = groupCount;
+        }
+
+        public int getGroupCount() {
+            return groupCount;
+        }
+
+        public int getCount(int group) {
+            return (int) sums[group * 3];
+        }
+
+        public double getSum(int group) {
+            return sums[group * 3 + 1] + sums[group * 3 + 2];
+        }
+    }
+
+    private static final class GroupTask extends RecursiveTask<double[]> {
+        private final double[] values;
+        private final int[] groups;
+        private final int groupCount;
+        private final int from;
+        private final int to;
+
+        GroupTask(double[] values, int[] groups, int groupCount, int from, int to) {
+            this.values = values;
+            this.groups = groups;
+            this.groupCount = groupCount;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return accumulate(values, groups, groupCount, from, to);
+            }
+
+            int middle = split(from, to);
+            GroupTask left = new GroupTask(values, groups, groupCount, from, middle);
+            left.fork();
+            double[] right = new GroupTask(values, groups, groupCount, middle, to).compute();
+            double[] result = left.join();
+
+            for (int group = 0; group < groupCount; group++) {
+                int slot = group * 3;
+                result[slot] += right[slot];
+                CompensatedSum.addAt(result, slot + 1, right[slot + 1]);
+                result[slot + 2] += right[slot + 2];
+            }
+            return result;
+        }
+
+        static double[] accumulate(double[] values, int[] groups, int groupCount, int from, int to) {
+            double[] sums = new double[groupCount * 3];
+            for (int i = from; i < to; i++) {
+                int group = groups != null ? groups[i] : 0;
+                if (group < 0) continue;
+
+                int slot = group * 3;
+                sums[slot]++;
+                CompensatedSum.addAt(sums, slot + 1, values[i]);
+            }
+            return sums;
+        }
+    }
+
+    private static final class TopTask extends RecursiveTask<int[]> {
+        private final double[] values;
+        private final int n;
+        private final int from;
+        private final int to;
+
+        TopTask(double[] values, int n, int from, int to) {
+            this.values = values;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return top(values, n, from, to);
+            }
+
+            int middle = split(from, to);
+            TopTask left = new TopTask(values, n, from, middle);
+            left.fork();
+            int[] right = new TopTask(values, n, middle, to).compute();
+            return merge(values, n, left.join(), right);
+        }
+
+        /**
+         * Ranked indexes of the n largest positive values in [from, to), kept in a bounded min-heap
+         * whose root is the weakest entry: the smallest value, and of equal values the later index.
+         */
+        static int[] top(double[] values, int n, int from, int to) {
+            int[] heap = new int[Math.max(0, Math.min(n, to - from))];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                double value = values[i];
+                if (!(value > 0)) continue;
+
+                if (size < heap.length) {
+                    heap[size] = i;
+                    siftUp(values, heap, size++);
+                } else if (size > 0 && value > values[heap[0]]) {
+                    // Indexes ascend, so an equal value never displaces an earlier one
+                    heap[0] = i;
+                    siftDown(values, heap, size);
+                }
+            }
+
+            int[] result = new int[size];
+            while (size > 0) {
+                result[size - 1] = heap[0];
+                heap[0] = heap[--size];
+                siftDown(values, heap, size);
+            }
+            return result;
+        }
+
+        /** True if index a ranks below index b. */
+        private static boolean weaker(double[] values, int a, int b) {
+            int order = Double.compare(values[a], values[b]);
+            return order < 0 || (order == 0 && a > b);
+        }
+
+        private static void siftUp(double[] values, int[] heap, int position) {
+            int index = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!weaker(values, index, heap[parent])) break;
+                heap[position] = heap[parent];
+                position = parent;
+            }
+            heap[position] = index;
+        }
+
+        private static void siftDown(double[] values, int[] heap, int size) {
+            int position = 0;
+            int index = heap[0];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) break;
+                if (child + 1 < size && weaker(values, heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!weaker(values, heap[child], index)) break;
+                heap[position] = heap[child];
+                position = child;
+            }
+            heap[position] = index;
+        }
+
+        /** Merges two ranked lists where every index of left precedes every index of right. */
+        private static int[] merge(double[] values, int n, int[] left, int[] right) {
+            int[] result = new int[Math.min(n, left.length + right.length)];
+            int l = 0;
+            int r = 0;
+            for (int i = 0; i < result.length; i++) {
+                if (r >= right.length || (l < left.length && values[left[l]] >= values[right[r]])) {
+                    result[i] = left[l++];
+                } else {
+                    result[i] = right[r++];
+                }
+            }
+            return result;
+        }
+    }
+
+    /** Split point on a chunk boundary, so leaves are whole chunks. */
+    private static int split(int from, int to) {
+        int chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return from + (chunks / 2) * CHUNK_SIZE;
+    }
+}
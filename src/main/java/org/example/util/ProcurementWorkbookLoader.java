@@ -0,0 +1,608 @@
+package org.example.util;
+
+import org.apache.poi.ss.usermodel.*;
+import org.example.model.CpvCode;
+import org.example.model.ProcurementItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Opens a PAAP or CPV workbook once and produces both the compatibility verdict
+ * (from the header row and the first data rows) and the parsed records.
+ * <p>
+ * CPV codes are keyed by their 8 digits without the check digit, both in the item code lists
+ * and in the CPV code map, so "03000000" in a PAAP cell finds "03000000-1" from the CPV list.
+ */
+public class ProcurementWorkbookLoader {
+    private static final Logger logger = LoggerFactory.getLogger(ProcurementWorkbookLoader.class);
+
+    private static final int HEADER_SCAN_ROWS = 15;
+    private static final int INSPECTION_ROWS = 25;
+
+    private static final Pattern CPV_CODE_PATTERN = Pattern.compile("\\b(\\d{8})(?:\\s*-\\s*(\\d))?\\b");
+
+    /**
+     * Version of what a row parses to, recorded in snapshots so that older parses are read again.
+     * Bump it with any change to the items or CPV codes produced from the same workbook.
+     */
+    public static final short PARSER_VERSION = 1;
+
+    /** Rows between two {@link LoadListener#rowsRead} calls. */
+    public static final int PROGRESS_ROWS = 256;
+
+    /** Progress of reading a PAAP workbook, reported on the reading thread. */
+    public interface LoadListener {
+        /** Bytes of the workbook read so far while it is opened; total is -1 when unknown. */
+        default void bytesRead(long bytes, long total) {
+        }
+
+        /** Data rows read so far out of the rows below the header; the sink has all their items. */
+        default void rowsRead(int rows, int totalRows) {
+        }
+    }
+
+    public static final LoadListener NO_LISTENER = new LoadListener() {
+    };
+
+    /** Cancellation token of a load that is never cancelled. */
+    public static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+    public static class LoadResult<T> {
+        private final CompatibilityReport report;
+        private final T data;
+
+        public LoadResult(CompatibilityReport report, T data) {
+            this.report = report;
+            this.data = data;
+        }
+
+        public CompatibilityReport getReport() {
+            return report;
+        }
+
+        public CompatibilityReport.Level getCompatibilityLevel() {
+            return report.getLevel();
+        }
+
+        public List<String> getIssues() {
+            return report.getIssues();
+        }
+
+        public List<String> getRecommendations() {
+            return report.getRecommendations();
+        }
+
+        public boolean isCompatible() {
+            return report.isCompatible();
+        }
+
+        public T getData() {
+            return data;
+        }
+    }
+
+    public static LoadResult<List<ProcurementItem>> readProcurementItems(File file) throws IOException {
+        List<ProcurementItem> items = new ArrayList<>();
+        CompatibilityReport report = readProcurementItems(file, items::add);
+        return new LoadResult<>(report, items);
+    }
+
+    public static CompatibilityReport readProcurementItems(File file, Consumer<ProcurementItem> sink) throws IOException {
+        return readProcurementItems(file, sink, NO_LISTENER, NOT_CANCELLED);
+    }
+
+    /**
+     * Streams the items to sink as rows are read, reporting progress to listener. Once cancelled
+     * returns true, opening or reading stops with CancellationException.
+     */
+    public static CompatibilityReport readProcurementItems(File file, Consumer<ProcurementItem> sink,
+                                                           LoadListener listener, BooleanSupplier cancelled)
+            throws IOException {
+        try (Workbook workbook = openWorkbook(file, listener, cancelled)) {
+            CellConversionContext cells = new CellConversionContext(workbook);
+
+            PaapLayout layout = null;
+            for (int s = 0; s < workbook.getNumberOfSheets() && layout == null; s++) {
+                layout = PaapLayout.detect(workbook.getSheetAt(s), cells);
+            }
+
+            CompatibilityReport report = new CompatibilityReport();
+            if (layout == null) {
+                report.reject("No header row with an object name and value column was found",
+                        "Make sure the PAAP sheet has a header row with columns such as 'Obiectul achizitiei' and 'Valoare estimata fara TVA'");
+                return report;
+            }
+
+            layout.inspect(cells, report);
+            if (!report.isCompatible()) {
+                return report;
+            }
+
+            StringDictionary strings = new StringDictionary();
+            int count = readRows(layout, cells, strings, sink, listener, cancelled);
+            report.setRecordCount(count);
+            logger.info("Read {} procurement items from sheet '{}' in a single pass", count, layout.sheet.getSheetName());
+            return report;
+        } catch (IOException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error reading procurement workbook: {}", e.getMessage(), e);
+            return CompatibilityReport.error(e);
+        }
+    }
+
+    /**
+     * Reads every sheet with a PAAP header layout in turn and unions the items of all compatible
+     * sheets in sheet order. Column positions are detected per sheet, so sheets only need the same
+     * kind of headers, not the same order. Per-sheet reports are listed under
+     * {@link CompatibilityReport#getSheets()}.
+     * The sheets are not read in parallel: POI workbooks are not safe to share between threads,
+     * and opening the workbook, which parses every sheet, takes most of the time anyway.
+     */
+    public static LoadResult<List<ProcurementItem>> readAllProcurementSheets(File file) throws IOException {
+        return readAllProcurementSheets(file, NOT_CANCELLED);
+    }
+
+    /** Like {@link #readAllProcurementSheets(File)}, stopping with CancellationException once cancelled returns true. */
+    public static LoadResult<List<ProcurementItem>> readAllProcurementSheets(File file, BooleanSupplier cancelled)
+            throws IOException {
+        List<ProcurementItem> items = new ArrayList<>();
+
+        try (Workbook workbook = openWorkbook(file, NO_LISTENER, cancelled)) {
+            CellConversionContext cells = new CellConversionContext(workbook);
+            CompatibilityReport report = new CompatibilityReport();
+            List<PaapLayout> layouts = new ArrayList<>();
+            List<CompatibilityReport> layoutReports = new ArrayList<>();
+
+            for (int s = 0; s < workbook.getNumberOfSheets(); s++) {
+                Sheet sheet = workbook.getSheetAt(s);
+                PaapLayout layout = PaapLayout.detect(sheet, cells);
+                if (layout == null) {
+                    logger.debug("Skipping sheet '{}': no PAAP header row", sheet.getSheetName());
+                    continue;
+                }
+
+                CompatibilityReport sheetReport = new CompatibilityReport();
+                layout.inspect(cells, sheetReport);
+                report.addSheet(sheetReport);
+                if (sheetReport.isCompatible()) {
+                    layouts.add(layout);
+                    layoutReports.add(sheetReport);
+                }
+            }
+
+            if (layouts.isEmpty()) {
+                report.reject("No sheet with a compatible PAAP header row and procurement rows was found",
+                        "Make sure each PAAP sheet has a header row with columns such as 'Obiectul achizitiei' and 'Valoare estimata fara TVA'");
+                return new LoadResult<>(report, items);
+            }
+
+            StringDictionary strings = new StringDictionary();
+            List<String> sheetNames = new ArrayList<>();
+            for (int i = 0; i < layouts.size(); i++) {
+                PaapLayout layout = layouts.get(i);
+                int before = items.size();
+                readRows(layout, cells, strings, items::add, NO_LISTENER, cancelled);
+
+                String sheetName = layout.sheet.getSheetName();
+                sheetNames.add(sheetName);
+
+                CompatibilityReport sheetReport = layoutReports.get(i);
+                sheetReport.setRecordCount(items.size() - before);
+                report.lowerLevel(sheetReport.getLevel());
+                List<String> issues = sheetReport.getIssues();
+                List<String> recommendations = sheetReport.getRecommendations();
+                for (int k = 0; k < issues.size(); k++) {
+                    report.addIssue("Sheet '" + sheetName + "': " + issues.get(k), recommendations.get(k));
+                }
+            }
+
+            report.setSheetName(String.join(", ", sheetNames));
+            report.setRecordCount(items.size());
+            logger.info("Read {} procurement items from {} sheets", items.size(), sheetNames.size());
+            return new LoadResult<>(report, items);
+        } catch (IOException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error reading procurement workbook: {}", e.getMessage(), e);
+            return new LoadResult<>(CompatibilityReport.error(e), items);
+        }
+    }
+
+    /** Opens the workbook read-only; for a .gz/.zip archive, the first workbook entry is read from the stream. */
+    private static Workbook openWorkbook(File file, LoadListener listener, BooleanSupplier cancelled) throws IOException {
+        if (!InputSource.isCompressed(file)) {
+            Workbook workbook = InputSource.of(file).openWorkbook();
+            listener.bytesRead(file.length(), file.length());
+            return workbook;
+        }
+
+        for (InputSource entry : InputSource.entriesOf(file)) {
+            if (entry.isExcel()) {
+                return entry.openWorkbook(bytes -> listener.bytesRead(bytes, entry.getSize()), cancelled);
+            }
+        }
+        throw new IOException("The archive " + file.getName() + " contains no Excel workbook");
+    }
+
+    /** Reads the data rows; repeated strings of the items share the instances of strings. */
+    private static int readRows(PaapLayout layout, CellConversionContext cells, StringDictionary strings,
+                                Consumer<ProcurementItem> sink, LoadListener listener, BooleanSupplier cancelled) {
+        Sheet sheet = layout.sheet;
+        int totalRows = Math.max(0, sheet.getLastRowNum() - layout.headerRow);
+        int count = 0;
+        for (int i = layout.headerRow + 1; i <= sheet.getLastRowNum(); i++) {
+            int rows = i - layout.headerRow - 1;
+            if (rows % PROGRESS_ROWS == 0 && rows > 0) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Reading sheet '" + sheet.getSheetName() + "' was cancelled");
+                }
+                listener.rowsRead(rows, totalRows);
+            }
+
+            Row row = sheet.getRow(i);
+            if (row == null) continue;
+
+            ProcurementItem item = layout.toItem(row, cells);
+            if (item != null) {
+                strings.internFields(item);
+                sink.accept(item);
+                count++;
+            }
+        }
+        listener.rowsRead(totalRows, totalRows);
+        return count;
+    }
+
+    public static LoadResult<Map<String, CpvCode>> readCpvCodes(File file) throws IOException {
+        Map<String, CpvCode> codes = new LinkedHashMap<>();
+
+        try (Workbook workbook = openWorkbook(file, NO_LISTENER, NOT_CANCELLED)) {
+            CellConversionContext cells = new CellConversionContext(workbook);
+            Sheet sheet = workbook.getSheetAt(0);
+
+            CpvLayout layout = CpvLayout.detect(sheet, cells);
+            CompatibilityReport report = new CompatibilityReport();
+
+            if (layout == null) {
+                report.reject("No column containing CPV codes (e.g. 03000000-1) was found",
+                        "Use the official CPV nomenclature export with code, Romanian and English name columns");
+                return new LoadResult<>(report, codes);
+            }
+
+            layout.inspect(cells, report);
+            if (!report.isCompatible()) {
+                return new LoadResult<>(report, codes);
+            }
+
+            for (int i = layout.firstDataRow; i <= sheet.getLastRowNum(); i++) {
+                Row row = sheet.getRow(i);
+                if (row == null) continue;
+
+                String code = cells.getString(row.getCell(layout.codeColumn)).trim();
+                String key = toCpvKey(code);
+                if (key == null) continue;
+
+                String romanianName = layout.romanianColumn >= 0
+                        ? cells.getString(row.getCell(layout.romanianColumn)).trim() : "";
+                String englishName = layout.englishColumn >= 0
+                        ? cells.getString(row.getCell(layout.englishColumn)).trim() : "";
+
+                codes.put(key, new CpvCode(code, romanianName, englishName));
+            }
+
+            report.setRecordCount(codes.size());
+            logger.info("Read {} CPV codes from sheet '{}' in a single pass", codes.size(), sheet.getSheetName());
+            return new LoadResult<>(report, codes);
+        } catch (IOException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error reading CPV workbook: {}", e.getMessage(), e);
+            return new LoadResult<>(CompatibilityReport.error(e), codes);
+        }
+    }
+
+    private static class PaapLayout {
+        final Sheet sheet;
+        final int headerRow;
+        int objectColumn = -1;
+        int cpvColumn = -1;
+        int valueWithoutTvaColumn = -1;
+        int valueWithTvaColumn = -1;
+        int sourceColumn = -1;
+        int initiationDateColumn = -1;
+        int completionDateColumn = -1;
+
+        PaapLayout(Sheet sheet, int headerRow) {
+            this.sheet = sheet;
+            this.headerRow = headerRow;
+        }
+
+        static PaapLayout detect(Sheet sheet, CellConversionContext cells) {
+            int lastRow = Math.min(sheet.getLastRowNum(), HEADER_SCAN_ROWS);
+
+            for (int i = sheet.getFirstRowNum(); i <= lastRow; i++) {
+                Row row = sheet.getRow(i);
+                if (row == null) continue;
+
+                PaapLayout layout = new PaapLayout(sheet, i);
+                for (int c = 0; c < row.getLastCellNum(); c++) {
+                    String header = normalizeHeader(cells.getString(row.getCell(c)));
+                    if (header.isEmpty()) continue;
+
+                    if (layout.objectColumn < 0 && (header.contains("obiect") || header.contains("denumire")
+                            || header.contains("object"))) {
+                        layout.objectColumn = c;
+                    } else if (layout.cpvColumn < 0 && header.contains("cpv")) {
+                        layout.cpvColumn = c;
+                    } else if (header.contains("valoare") || header.contains("value")) {
+                        if (header.contains("cu tva") || header.contains("inclusiv") || header.contains("with tva")
+                                || header.contains("with vat")) {
+                            if (layout.valueWithTvaColumn < 0) layout.valueWithTvaColumn = c;
+                        } else if (layout.valueWithoutTvaColumn < 0) {
+                            layout.valueWithoutTvaColumn = c;
+                        }
+                    } else if (layout.sourceColumn < 0 && (header.contains("sursa") || header.contains("finantare")
+                            || header.contains("source"))) {
+                        layout.sourceColumn = c;
+                    } else if (layout.initiationDateColumn < 0 && (header.contains("initiere")
+                            || header.contains("initierii") || header.contains("initiation") || header.contains("start"))) {
+                        layout.initiationDateColumn = c;
+                    } else if (layout.completionDateColumn < 0 && (header.contains("finalizare")
+                            || header.contains("finalizarii") || header.contains("atribuire")
+                            || header.contains("completion"))) {
+                        layout.completionDateColumn = c;
+                    }
+                }
+
+                if (layout.objectColumn >= 0 && (layout.valueWithoutTvaColumn >= 0 || layout.valueWithTvaColumn >= 0)) {
+                    return layout;
+                }
+            }
+
+            return null;
+        }
+
+        void inspect(CellConversionContext cells, CompatibilityReport report) {
+            int inspected = 0;
+            int numericValues = 0;
+            int cpvMatches = 0;
+            int valueColumn = valueWithoutTvaColumn >= 0 ? valueWithoutTvaColumn : valueWithTvaColumn;
+
+            for (int i = headerRow + 1; i <= sheet.getLastRowNum() && inspected < INSPECTION_ROWS; i++) {
+                Row row = sheet.getRow(i);
+                if (row == null || cells.getString(row.getCell(objectColumn)).trim().isEmpty()) continue;
+
+                inspected++;
+                if (!Double.isNaN(cells.getNumber(row.getCell(valueColumn)))) {
+                    numericValues++;
+                }
+                if (cpvColumn >= 0 && CPV_CODE_PATTERN.matcher(cells.getString(row.getCell(cpvColumn))).find()) {
+                    cpvMatches++;
+                }
+            }
+
+            report.setSheetName(sheet.getSheetName());
+            report.setHeaderRow(headerRow);
+            report.setInspectedRows(inspected);
+
+            if (inspected == 0) {
+                report.reject("The sheet has a header row but no procurement rows",
+                        "Check that the data rows are directly below the header row");
+                return;
+            }
+
+            if (numericValues * 2 < inspected) {
+                report.reject("The value column contains mostly non-numeric data",
+                        "Make sure estimated values are stored as numbers, not text");
+                return;
+            }
+
+            int missingOptional = 0;
+            if (cpvColumn < 0) {
+                report.addIssue("No CPV code column found",
+                        "Add a 'Cod CPV' column so items can be grouped by category");
+                missingOptional += 2;
+            } else if (cpvMatches * 2 < inspected) {
+                report.addIssue("Most CPV cells do not contain a valid CPV code",
+                        "Use codes in the form 30192000-1");
+                missingOptional++;
+            }
+            if (valueWithoutTvaColumn < 0 || valueWithTvaColumn < 0) {
+                report.addIssue("Only one value column (with or without TVA) was found",
+                        "Provide both values so TVA totals are accurate");
+                missingOptional++;
+            }
+            if (sourceColumn < 0) {
+                report.addIssue("No financing source column found",
+                        "Add a 'Sursa de finantare' column for financing analysis");
+                missingOptional++;
+            }
+            if (initiationDateColumn < 0 && completionDateColumn < 0) {
+                report.addIssue("No initiation or completion date column found",
+                        "Add procedure dates to enable monthly and seasonal analysis");
+                missingOptional++;
+            }
+
+            report.setLevel(missingOptional == 0 ? CompatibilityReport.Level.FULL
+                    : missingOptional <= 2 ? CompatibilityReport.Level.MOSTLY : CompatibilityReport.Level.PARTIAL);
+        }
+
+        ProcurementItem toItem(Row row, CellConversionContext cells) {
+            String objectName = cells.getString(row.getCell(objectColumn)).trim();
+            if (objectName.isEmpty()) {
+                return null;
+            }
+
+            ProcurementItem item = new ProcurementItem();
+            item.setObjectName(objectName);
+
+            String cpvField = cpvColumn >= 0 ? cells.getString(row.getCell(cpvColumn)).trim() : "";
+            item.setCpvField(cpvField);
+            item.setCpvCodes(extractCpvCodes(cpvField));
+
+            double withoutTva = valueWithoutTvaColumn >= 0 ? cells.getNumber(row.getCell(valueWithoutTvaColumn)) : Double.NaN;
+            double withTva = valueWithTvaColumn >= 0 ? cells.getNumber(row.getCell(valueWithTvaColumn)) : Double.NaN;
+            item.setValueWithoutTVA(Double.isNaN(withoutTva) ? 0 : withoutTva);
+            item.setValueWithTVA(Double.isNaN(withTva) ? 0 : withTva);
+
+            if (sourceColumn >= 0) {
+                item.setSource(cells.getString(row.getCell(sourceColumn)).trim());
+            }
+            if (initiationDateColumn >= 0) {
+                item.setInitiationDate(cells.getString(row.getCell(initiationDateColumn)).trim());
+            }
+            if (completionDateColumn >= 0) {
+                item.setCompletionDate(cells.getString(row.getCell(completionDateColumn)).trim());
+            }
+
+            return item;
+        }
+    }
+
+    private static class CpvLayout {
+        final int firstDataRow;
+        final int codeColumn;
+        int romanianColumn = -1;
+        int englishColumn = -1;
+        final Sheet sheet;
+
+        CpvLayout(Sheet sheet, int firstDataRow, int codeColumn) {
+            this.sheet = sheet;
+            this.firstDataRow = firstDataRow;
+            this.codeColumn = codeColumn;
+        }
+
+        static CpvLayout detect(Sheet sheet, CellConversionContext cells) {
+            int lastRow = Math.min(sheet.getLastRowNum(), HEADER_SCAN_ROWS);
+
+            for (int i = sheet.getFirstRowNum(); i <= lastRow; i++) {
+                Row row = sheet.getRow(i);
+                if (row == null) continue;
+
+                for (int c = 0; c < row.getLastCellNum(); c++) {
+                    if (toCpvKey(cells.getString(row.getCell(c))) == null) continue;
+
+                    CpvLayout layout = new CpvLayout(sheet, i, c);
+                    Row headerRow = i > sheet.getFirstRowNum() ? sheet.getRow(i - 1) : null;
+                    layout.assignNameColumns(row, headerRow, cells);
+                    return layout;
+                }
+            }
+
+            return null;
+        }
+
+        void assignNameColumns(Row firstDataRow, Row headerRow, CellConversionContext cells) {
+            List<Integer> textColumns = new ArrayList<>();
+
+            for (int c = 0; c < firstDataRow.getLastCellNum(); c++) {
+                if (c == codeColumn) continue;
+
+                String header = headerRow != null ? normalizeHeader(cells.getString(headerRow.getCell(c))) : "";
+                if (romanianColumn < 0 && (header.contains("rom") || header.equals("ro") || header.contains("denumire"))) {
+                    romanianColumn = c;
+                } else if (englishColumn < 0 && (header.contains("engl") || header.equals("en")
+                        || header.contains("description"))) {
+                    englishColumn = c;
+                } else if (!cells.getString(firstDataRow.getCell(c)).trim().isEmpty()) {
+                    textColumns.add(c);
+                }
+            }
+
+            Iterator<Integer> remaining = textColumns.iterator();
+            if (romanianColumn < 0 && remaining.hasNext()) romanianColumn = remaining.next();
+            if (englishColumn < 0 && remaining.hasNext()) englishColumn = remaining.next();
+        }
+
+        void inspect(CellConversionContext cells, CompatibilityReport report) {
+            int inspected = 0;
+            int validCodes = 0;
+
+            for (int i = firstDataRow; i <= sheet.getLastRowNum() && inspected < INSPECTION_ROWS; i++) {
+                Row row = sheet.getRow(i);
+                if (row == null) continue;
+
+                inspected++;
+                if (toCpvKey(cells.getString(row.getCell(codeColumn))) != null) {
+                    validCodes++;
+                }
+            }
+
+            report.setSheetName(sheet.getSheetName());
+            report.setHeaderRow(firstDataRow - 1);
+            report.setInspectedRows(inspected);
+
+            if (validCodes * 2 < inspected) {
+                report.reject("Most rows in the code column are not CPV codes",
+                        "Make sure the first column with codes holds one CPV code per row");
+                return;
+            }
+
+            int missing = 0;
+            if (romanianColumn < 0) {
+                report.addIssue("No Romanian name column found", "Add the Romanian CPV descriptions");
+                missing++;
+            }
+            if (englishColumn < 0) {
+                report.addIssue("No English name column found", "Add the English CPV descriptions");
+                missing++;
+            }
+
+            report.setLevel(missing == 0 ? CompatibilityReport.Level.FULL
+                    : missing == 1 ? CompatibilityReport.Level.MOSTLY : CompatibilityReport.Level.PARTIAL);
+        }
+    }
+
+    private static List<String> extractCpvCodes(String cpvField) {
+        List<String> codes = new ArrayList<>(1);
+        if (cpvField == null || cpvField.isEmpty()) {
+            return codes;
+        }
+
+        Matcher matcher = CPV_CODE_PATTERN.matcher(cpvField);
+        while (matcher.find()) {
+            codes.add(matcher.group(1));
+        }
+        return codes;
+    }
+
+    /**
+     * Key of the CPV code at the start of value: its 8 digits without the check digit, so
+     * "03000000-1", "03000000 - 1" and "03000000" all give "03000000". Null when value does
+     * not start with a CPV code.
+     */
+    public static String toCpvKey(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        Matcher matcher = CPV_CODE_PATTERN.matcher(value.trim());
+        return matcher.lookingAt() ? matcher.group(1) : null;
+    }
+
+    private static String normalizeHeader(String header) {
+        StringBuilder sb = new StringBuilder(header.length());
+        for (int i = 0; i < header.length(); i++) {
+            char c = Character.toLowerCase(header.charAt(i));
+            switch (c) {
+                case 'ă': case 'â': sb.append('a'); break;
+                case 'î': sb.append('i'); break;
+                case 'ș': case 'ş': sb.append('s'); break;
+                case 'ț': case 'ţ': sb.append('t'); break;
+                case '\n': case '\r': case '\t': sb.append(' '); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/** Forward-only pass over the data rows of an analyzed file. */
+public interface RowCursor extends Closeable {
+
+    /** Next row, or null once the source is exhausted. */
+    List<String> next() throws IOException;
+}
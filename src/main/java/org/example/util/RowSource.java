@@ -0,0 +1,30 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Re-scannable access to the data rows of an analyzed file. Each call to {@link #open()}
+ * starts a new pass over the source, so the full table never has to be held in memory.
+ */
+public interface RowSource {
+
+    RowCursor open() throws IOException;
+
+    static RowSource of(List<List<String>> rows) {
+        return () -> {
+            Iterator<List<String>> iterator = rows.iterator();
+            return new RowCursor() {
+                @Override
+                public List<String> next() {
+                    return iterator.hasNext() ? iterator.next() : null;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        };
+    }
+}
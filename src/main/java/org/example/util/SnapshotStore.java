@@ -0,0 +1,458 @@
+package org.example.util;
+
+import org.example.model.CpvCode;
+import org.example.model.ItemStorage;
+import org.example.model.OffHeapItemList;
+import org.example.model.ProcurementItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Versioned binary snapshots of parsed PAAP and CPV files.
+ *
+ * Layout (big-endian): magic, format version, parser version, kind, source length, source mtime,
+ * hash length and SHA-256 of the source, then a list of tagged sections (tag byte + int length).
+ * Readers skip sections they do not know, so new sections can be added without
+ * bumping the format version. A snapshot of another {@link ProcurementWorkbookLoader#PARSER_VERSION}
+ * is stale, so a change to what a row parses to never serves items parsed the old way.
+ * Snapshots are read through a memory-mapped buffer and written section by section straight
+ * to the file channel.
+ * <p>
+ * A snapshot is current while the source keeps its length and modification time. Hashing
+ * the source costs a second read of the whole file, so the hash is only written and checked
+ * with {@link #VERIFY_HASH_PROPERTY}; without it a touched but unchanged source is parsed again.
+ * <p>
+ * Items are stored as the records of an {@link OffHeapItemList}, which a load maps instead of
+ * decoding: items are built as they are read, and a model keeping its items in
+ * {@link ItemStorage#MAPPED} storage keeps the mapped list as it is, so reopening a large plan
+ * costs no per-item work before the model is built. Heap storage still copies the items.
+ * Aggregates and indexes are not stored. They depend on the CPV codes and value ranges, which
+ * are loaded and changed separately from the items, so a model rebuilds its aggregates in one
+ * pass over the items and its indexes on first use.
+ */
+public class SnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x43505653; // "CPVS"
+    private static final short FORMAT_VERSION = 2;
+
+    private static final byte KIND_PROCUREMENT_ITEMS = 1;
+    private static final byte KIND_CPV_CODES = 2;
+    private static final byte KIND_PROCUREMENT_ITEMS_ALL_SHEETS = 3;
+
+    private static final byte SECTION_STRINGS = 1;
+    // 2 was the per-item section of format 1
+    private static final byte SECTION_CPV_CODES = 3;
+    private static final byte SECTION_ITEM_RECORDS = 4;
+    private static final byte SECTION_END = 0;
+
+    private static final int NULL_REF = -1;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_LENGTH = 4 + 2 + 2 + 1 + 8 + 8 + 1;
+    private static final int SECTION_HEADER_LENGTH = 1 + 4;
+
+    public static final String SNAPSHOT_DIR_PROPERTY = "cpv.snapshot.dir";
+    public static final String VERIFY_HASH_PROPERTY = "cpv.snapshot.verifyHash";
+    public static final String DISABLED_PROPERTY = "cpv.snapshot.disabled";
+
+    public static List<ProcurementItem> loadProcurementItems(File source) {
+        return loadProcurementItems(source, false);
+    }
+
+    /** With allSheets, the snapshot of the union of all workbook sheets rather than the first PAAP sheet. */
+    public static List<ProcurementItem> loadProcurementItems(File source, boolean allSheets) {
+        ByteBuffer buffer = openValidSnapshot(source, allSheets ? KIND_PROCUREMENT_ITEMS_ALL_SHEETS : KIND_PROCUREMENT_ITEMS);
+        if (buffer == null) {
+            return null;
+        }
+
+        try {
+            List<ProcurementItem> items = null;
+
+            byte tag;
+            while ((tag = buffer.get()) != SECTION_END) {
+                int length = buffer.getInt();
+                int sectionEnd = buffer.position() + length;
+
+                if (tag == SECTION_ITEM_RECORDS) {
+                    items = OffHeapItemList.map(buffer.slice(buffer.position(), length));
+                }
+
+                buffer.position(sectionEnd);
+            }
+
+            if (items == null) {
+                logger.warn("Snapshot for {} has no item section, ignoring it", source.getName());
+                return null;
+            }
+
+            logger.info("Loaded {} procurement items from snapshot of {}", items.size(), source.getName());
+            return items;
+        } catch (RuntimeException e) {
+            logger.warn("Corrupt snapshot for {}: {}", source.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /** Whether a current snapshot of the items of source exists, checked from its header only. */
+    public static boolean hasProcurementItems(File source, boolean allSheets) {
+        return openValidSnapshot(source, allSheets ? KIND_PROCUREMENT_ITEMS_ALL_SHEETS : KIND_PROCUREMENT_ITEMS) != null;
+    }
+
+    public static Map<String, CpvCode> loadCpvCodes(File source) {
+        ByteBuffer buffer = openValidSnapshot(source, KIND_CPV_CODES);
+        if (buffer == null) {
+            return null;
+        }
+
+        try {
+            String[] strings = null;
+            Map<String, CpvCode> codes = null;
+
+            byte tag;
+            while ((tag = buffer.get()) != SECTION_END) {
+                int length = buffer.getInt();
+                int sectionEnd = buffer.position() + length;
+
+                if (tag == SECTION_STRINGS) {
+                    strings = readStringTable(buffer);
+                } else if (tag == SECTION_CPV_CODES && strings != null) {
+                    codes = readCpvCodes(buffer, strings);
+                }
+
+                buffer.position(sectionEnd);
+            }
+
+            if (codes == null) {
+                logger.warn("Snapshot for {} has no CPV code section, ignoring it", source.getName());
+                return null;
+            }
+
+            logger.info("Loaded {} CPV codes from snapshot of {}", codes.size(), source.getName());
+            return codes;
+        } catch (RuntimeException e) {
+            logger.warn("Corrupt snapshot for {}: {}", source.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    public static void saveProcurementItems(File source, List<ProcurementItem> items) {
+        saveProcurementItems(source, items, false);
+    }
+
+    public static void saveProcurementItems(File source, List<ProcurementItem> items, boolean allSheets) {
+        if (isDisabled()) {
+            return;
+        }
+
+        OffHeapItemList records;
+        try {
+            records = items instanceof OffHeapItemList
+                    ? (OffHeapItemList) items : OffHeapItemList.copyOf(items, ItemStorage.DIRECT);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not encode snapshot for {}: {}", source.getName(), e.getMessage());
+            return;
+        }
+
+        if (writeSnapshot(source, allSheets ? KIND_PROCUREMENT_ITEMS_ALL_SHEETS : KIND_PROCUREMENT_ITEMS,
+                new StringTable(), SECTION_ITEM_RECORDS, records::writeTo)) {
+            logger.info("Saved snapshot of {} procurement items for {}", items.size(), source.getName());
+        }
+    }
+
+    public static void saveCpvCodes(File source, Map<String, CpvCode> cpvCodes) {
+        if (isDisabled()) {
+            return;
+        }
+
+        // The string table comes first in the file, so it is filled before the codes are written
+        StringTable strings = new StringTable();
+        for (Map.Entry<String, CpvCode> entry : cpvCodes.entrySet()) {
+            CpvCode code = entry.getValue();
+            strings.ref(entry.getKey());
+            strings.ref(code.getCode());
+            strings.ref(code.getRomanianName());
+            strings.ref(code.getEnglishName());
+        }
+
+        boolean saved = writeSnapshot(source, KIND_CPV_CODES, strings, SECTION_CPV_CODES, channel -> {
+            DataOutputStream out = newDataOutput(channel);
+            out.writeInt(cpvCodes.size());
+            for (Map.Entry<String, CpvCode> entry : cpvCodes.entrySet()) {
+                CpvCode code = entry.getValue();
+                out.writeInt(strings.ref(entry.getKey()));
+                out.writeInt(strings.ref(code.getCode()));
+                out.writeInt(strings.ref(code.getRomanianName()));
+                out.writeInt(strings.ref(code.getEnglishName()));
+            }
+            out.flush();
+        });
+        if (saved) {
+            logger.info("Saved snapshot of {} CPV codes for {}", cpvCodes.size(), source.getName());
+        }
+    }
+
+    private static File getSnapshotFile(File source, byte kind) {
+        String dir = System.getProperty(SNAPSHOT_DIR_PROPERTY,
+                System.getProperty("user.home") + File.separator + ".cpv-analysis-tool" + File.separator + "snapshots");
+        String key = toHex(sha256(source.getAbsolutePath().getBytes(StandardCharsets.UTF_8)));
+        String suffix = kind == KIND_CPV_CODES ? "-cpv.snap"
+                : kind == KIND_PROCUREMENT_ITEMS_ALL_SHEETS ? "-paap-all.snap" : "-paap.snap";
+        return new File(dir, key.substring(0, 32) + suffix);
+    }
+
+    private static ByteBuffer openValidSnapshot(File source, byte expectedKind) {
+        if (isDisabled() || source == null || !source.isFile()) {
+            return null;
+        }
+
+        File snapshot = getSnapshotFile(source, expectedKind);
+        if (!snapshot.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+                logger.debug("Ignoring snapshot {} with unknown header", snapshot.getName());
+                return null;
+            }
+
+            short version = buffer.getShort();
+            short parserVersion = buffer.getShort();
+            byte kind = buffer.get();
+            if (version != FORMAT_VERSION || parserVersion != ProcurementWorkbookLoader.PARSER_VERSION
+                    || kind != expectedKind) {
+                logger.debug("Ignoring snapshot {} (version {}, parser version {}, kind {})",
+                        snapshot.getName(), version, parserVersion, kind);
+                return null;
+            }
+
+            long sourceLength = buffer.getLong();
+            long sourceModified = buffer.getLong();
+            int hashLength = buffer.get();
+            if ((hashLength != 0 && hashLength != HASH_LENGTH) || buffer.remaining() < hashLength) {
+                logger.debug("Ignoring snapshot {} with unknown header", snapshot.getName());
+                return null;
+            }
+            byte[] sourceHash = new byte[hashLength];
+            buffer.get(sourceHash);
+
+            if (sourceLength != source.length()) {
+                logger.info("Snapshot for {} is stale (size changed)", source.getName());
+                return null;
+            }
+
+            boolean sameMtime = sourceModified == source.lastModified();
+            if (!sameMtime || Boolean.getBoolean(VERIFY_HASH_PROPERTY)) {
+                if (hashLength == 0) {
+                    logger.info("Snapshot for {} is stale ({})", source.getName(),
+                            sameMtime ? "no content hash to verify" : "modification time changed");
+                    return null;
+                }
+                if (!Arrays.equals(sourceHash, hashFile(source))) {
+                    logger.info("Snapshot for {} is stale (content changed)", source.getName());
+                    return null;
+                }
+            }
+
+            return buffer;
+        } catch (IOException e) {
+            logger.warn("Could not read snapshot for {}: {}", source.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /** Body of one section, written at the channel's position. */
+    private interface SectionWriter {
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    private static boolean writeSnapshot(File source, byte kind, StringTable strings, byte sectionTag,
+                                         SectionWriter section) {
+        File snapshot = getSnapshotFile(source, kind);
+        File parent = snapshot.getParentFile();
+
+        try {
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+
+            byte[] sourceHash = Boolean.getBoolean(VERIFY_HASH_PROPERTY) ? hashFile(source) : new byte[0];
+            File temp = new File(parent, snapshot.getName() + ".tmp");
+
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH + sourceHash.length);
+                header.putInt(MAGIC);
+                header.putShort(FORMAT_VERSION);
+                header.putShort(ProcurementWorkbookLoader.PARSER_VERSION);
+                header.put(kind);
+                header.putLong(source.length());
+                header.putLong(source.lastModified());
+                header.put((byte) sourceHash.length);
+                header.put(sourceHash);
+                writeFully(channel, header.flip());
+
+                writeSection(channel, SECTION_STRINGS, strings::writeTo);
+                writeSection(channel, sectionTag, section);
+                writeFully(channel, ByteBuffer.wrap(new byte[]{SECTION_END}));
+            }
+
+            try {
+                Files.move(temp.toPath(), snapshot.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not write snapshot for {}: {}", source.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /** Writes the tag and a length placeholder, then the body, then fills in the body's length. */
+    private static void writeSection(FileChannel channel, byte tag, SectionWriter section) throws IOException {
+        long start = channel.position();
+        writeFully(channel, ByteBuffer.allocate(SECTION_HEADER_LENGTH).put(tag).putInt(0).flip());
+        section.writeTo(channel);
+
+        long length = channel.position() - start - SECTION_HEADER_LENGTH;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot section of " + length + " bytes is too large");
+        }
+        ByteBuffer lengthBytes = ByteBuffer.allocate(Integer.BYTES).putInt((int) length).flip();
+        while (lengthBytes.hasRemaining()) {
+            channel.write(lengthBytes, start + 1 + lengthBytes.position());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Buffered output at the channel's position; flush it, but do not close it, when done. */
+    private static DataOutputStream newDataOutput(FileChannel channel) {
+        return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    }
+
+    private static String[] readStringTable(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        String[] strings = new String[count];
+        byte[] scratch = new byte[256];
+
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        return strings;
+    }
+
+    private static Map<String, CpvCode> readCpvCodes(ByteBuffer buffer, String[] strings) {
+        int count = buffer.getInt();
+        Map<String, CpvCode> codes = new HashMap<>(count * 2);
+
+        for (int i = 0; i < count; i++) {
+            String key = lookup(strings, buffer.getInt());
+            String code = lookup(strings, buffer.getInt());
+            String romanianName = lookup(strings, buffer.getInt());
+            String englishName = lookup(strings, buffer.getInt());
+            codes.put(key, new CpvCode(code, romanianName, englishName));
+        }
+
+        return codes;
+    }
+
+    private static String lookup(String[] strings, int ref) {
+        return ref == NULL_REF ? null : strings[ref];
+    }
+
+    private static boolean isDisabled() {
+        return Boolean.getBoolean(DISABLED_PROPERTY);
+    }
+
+    private static byte[] hashFile(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[64 * 1024];
+
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return digest.digest();
+    }
+
+    private static byte[] sha256(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return NULL_REF;
+            }
+
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            DataOutputStream out = newDataOutput(channel);
+            out.writeInt(values.size());
+            for (String value : values) {
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.util;
+
+import org.example.model.CpvCode;
+import org.example.model.ProcurementItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary of the repetitive strings of a procurement plan (CPV codes and fields, financing
+ * sources, dates). Each distinct string is kept once and gets a dense int id, so interned fields
+ * share one instance and can be compared by id. Safe to share between loader threads.
+ */
+public final class StringDictionary {
+    public static final int NO_ID = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private long lookups;
+
+    /** The shared instance equal to value, added if new; null stays null. */
+    public synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        lookups++;
+        Integer id = ids.get(value);
+        if (id != null) {
+            return strings.get(id);
+        }
+        ids.put(value, strings.size());
+        strings.add(value);
+        return value;
+    }
+
+    /** Id of value, added if new; {@link #NO_ID} for null. */
+    public synchronized int encode(String value) {
+        if (value == null) {
+            return NO_ID;
+        }
+        lookups++;
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            ids.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    /** Id of value, {@link #NO_ID} if it was never added. */
+    public synchronized int idOf(String value) {
+        Integer id = value != null ? ids.get(value) : null;
+        return id != null ? id : NO_ID;
+    }
+
+    public synchronized String get(int id) {
+        return id == NO_ID ? null : strings.get(id);
+    }
+
+    public synchronized int size() {
+        return strings.size();
+    }
+
+    /** Number of strings looked up, including repeats; compared to size() it shows the duplication. */
+    public synchronized long getLookupCount() {
+        return lookups;
+    }
+
+    /**
+     * Replaces the CPV codes, CPV field, source and dates of the item with shared instances, in
+     * place. Only for items no other thread can see yet, e.g. while they are parsed; items of a
+     * published list go through {@link #intern(ProcurementItem)}.
+     */
+    public void internFields(ProcurementItem item) {
+        item.setCpvField(intern(item.getCpvField()));
+        item.setSource(intern(item.getSource()));
+        item.setInitiationDate(intern(item.getInitiationDate()));
+        item.setCompletionDate(intern(item.getCompletionDate()));
+        item.setCpvCodes(internCodes(item.getCpvCodes()));
+    }
+
+    /**
+     * The item with its CPV codes, CPV field, source and dates interned: the same object when they
+     * already were, otherwise a copy, so an item that other threads may be reading is never written.
+     */
+    public ProcurementItem intern(ProcurementItem item) {
+        String cpvField = intern(item.getCpvField());
+        String source = intern(item.getSource());
+        String initiationDate = intern(item.getInitiationDate());
+        String completionDate = intern(item.getCompletionDate());
+        List<String> codes = internCodes(item.getCpvCodes());
+        if (cpvField == item.getCpvField() && source == item.getSource() && initiationDate == item.getInitiationDate()
+                && completionDate == item.getCompletionDate() && codes == item.getCpvCodes()) {
+            return item;
+        }
+
+        ProcurementItem copy = new ProcurementItem();
+        copy.setObjectName(item.getObjectName());
+        copy.setCpvField(cpvField);
+        copy.setSource(source);
+        copy.setInitiationDate(initiationDate);
+        copy.setCompletionDate(completionDate);
+        copy.setCpvCodes(codes == item.getCpvCodes() ? new ArrayList<>(codes) : codes);
+        copy.setValueWithoutTVA(item.getValueWithoutTVA());
+        copy.setValueWithTVA(item.getValueWithTVA());
+        return copy;
+    }
+
+    /** The codes interned: the same list when they already were, otherwise a new one. */
+    private List<String> internCodes(List<String> codes) {
+        for (int i = 0; i < codes.size(); i++) {
+            String code = codes.get(i);
+            if (intern(code) != code) {
+                List<String> internedCodes = new ArrayList<>(codes.size());
+                for (String c : codes) {
+                    internedCodes.add(intern(c));
+                }
+                return internedCodes;
+            }
+        }
+        return codes;
+    }
+
+    /** The code with its code and names interned; the same object when they already were. */
+    public CpvCode intern(CpvCode code) {
+        String value = intern(code.getCode());
+        String romanianName = intern(code.getRomanianName());
+        String englishName = intern(code.getEnglishName());
+        if (value == code.getCode() && romanianName == code.getRomanianName() && englishName == code.getEnglishName()) {
+            return code;
+        }
+        return new CpvCode(value, romanianName, englishName);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StringDictionary{" + strings.size() + " strings, " + lookups + " lookups}";
+    }
+}
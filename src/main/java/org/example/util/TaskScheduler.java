@@ -0,0 +1,352 @@
+package org.example.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs the background work of the application (loading, analyses, charts) on a small pool of
+ * worker threads. Waiting tasks run by priority, then in submission order. Every task has a key:
+ * submitting a task with the key of one that has not finished cancels the earlier one, so
+ * repeated requests for the same result coalesce into the last. Tasks can also be cancelled by
+ * group, e.g. all analysis work when new data is loaded.
+ * <p>
+ * Cancellation is cooperative: a task checks its {@link TaskContext} in its loops, and code that
+ * does not get one, such as index builds, calls {@link #checkCancelled()}; both throw
+ * CancellationException. A cancelled task reports at once, its thread stops at the next check.
+ * Progress, results and failures are delivered on the event dispatch thread.
+ */
+public final class TaskScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TaskScheduler.class);
+
+    /** System property with the number of worker threads. */
+    public static final String THREADS_PROPERTY = "cpv.scheduler.threads";
+
+    /** Loop positions between two checks of {@link #checkCancelled(int)}. */
+    public static final int CHECK_INTERVAL = 4096;
+
+    private static final ThreadLocal<TaskContext> CURRENT = new ThreadLocal<>();
+
+    public enum Priority {
+        /** Work the user is waiting for, e.g. loading a file. */
+        HIGH,
+        /** Results shown after loading, e.g. analyses and charts. */
+        NORMAL,
+        /** Work nobody waits for yet, e.g. warming up indexes. */
+        LOW
+    }
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T run(TaskContext context) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        /** Called on the event dispatch thread; percent is 0-100, or -1 when unknown. */
+        void progressChanged(String key, int percent, String message);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Executor callbacks;
+    private final Map<String, Handle<?>> running = new HashMap<>();
+    private final List<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public TaskScheduler() {
+        this(configuredThreads(), SwingUtilities::invokeLater);
+    }
+
+    /** Scheduler with the given number of threads, delivering progress and results through callbacks. */
+    public TaskScheduler(int threads, Executor callbacks) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "task-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.callbacks = callbacks;
+        logger.info("Task scheduler started with {} threads", threads);
+    }
+
+    /** Threads from {@link #THREADS_PROPERTY}, by default between 2 and 4 depending on the processors. */
+    public static int configuredThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int threads = Math.max(2, Math.min(4, processors));
+        String property = System.getProperty(THREADS_PROPERTY);
+        if (property == null || property.trim().isEmpty()) {
+            return threads;
+        }
+
+        try {
+            int configured = Integer.parseInt(property.trim());
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the warning
+        }
+        logger.warn("Ignoring invalid {} '{}': expected a positive number", THREADS_PROPERTY, property);
+        return threads;
+    }
+
+    /** Starts describing a task; nothing runs until {@link Submission#submit()}. */
+    public <T> Submission<T> task(String key, Task<T> task) {
+        return new Submission<>(key, task);
+    }
+
+    /** Cancels the task with the key, if it has not finished. */
+    public synchronized boolean cancel(String key) {
+        Handle<?> handle = running.get(key);
+        return handle != null && handle.cancel(false);
+    }
+
+    /** Cancels every task of the group that has not finished; returns how many were cancelled. */
+    public int cancelGroup(String group) {
+        List<Handle<?>> handles;
+        synchronized (this) {
+            handles = List.copyOf(running.values());
+        }
+
+        int cancelled = 0;
+        for (Handle<?> handle : handles) {
+            if (group.equals(handle.group) && handle.cancel(false)) {
+                cancelled++;
+            }
+        }
+        if (cancelled > 0) {
+            logger.info("Cancelled {} {} task(s)", cancelled, group);
+        }
+        return cancelled;
+    }
+
+    public synchronized boolean isRunning(String key) {
+        return running.containsKey(key);
+    }
+
+    public void addProgressListener(ProgressListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeProgressListener(ProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Stops the worker threads; running tasks are interrupted. */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Throws CancellationException when the task running on this thread has been cancelled;
+     * does nothing outside a task. Cheap enough to call every few thousand items.
+     */
+    public static void checkCancelled() {
+        TaskContext context = CURRENT.get();
+        if (context != null) {
+            context.checkCancelled();
+        }
+    }
+
+    /** {@link #checkCancelled()} at every {@link #CHECK_INTERVAL}-th position of a loop. */
+    public static void checkCancelled(int position) {
+        if ((position & (CHECK_INTERVAL - 1)) == 0) {
+            checkCancelled();
+        }
+    }
+
+    private <T> Handle<T> submit(Submission<T> submission) {
+        Handle<T> handle = new Handle<>(submission, sequence.incrementAndGet());
+        Handle<?> previous;
+        synchronized (this) {
+            previous = running.put(submission.key, handle);
+        }
+        if (previous != null && previous.cancel(false)) {
+            logger.debug("Task {} replaced by a newer request", submission.key);
+        }
+        executor.execute(handle);
+        return handle;
+    }
+
+    private synchronized void finished(Handle<?> handle) {
+        running.remove(handle.key, handle);
+        executor.remove(handle);
+    }
+
+    /** Describes a task before it is submitted. */
+    public final class Submission<T> {
+        private final String key;
+        private final Task<T> task;
+        private String group;
+        private Priority priority = Priority.NORMAL;
+        private Consumer<? super T> onSuccess = result -> { };
+        private Consumer<? super Exception> onFailure =
+                e -> logger.error("Task failed: {}", e.getMessage(), e);
+        private Runnable onCancel = () -> { };
+
+        private Submission(String key, Task<T> task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        /** Group for {@link #cancelGroup(String)}. */
+        public Submission<T> group(String group) {
+            this.group = group;
+            return this;
+        }
+
+        public Submission<T> priority(Priority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /** Called on the event dispatch thread with the result. */
+        public Submission<T> onSuccess(Consumer<? super T> onSuccess) {
+            this.onSuccess = onSuccess;
+            return this;
+        }
+
+        /** Called on the event dispatch thread when the task throws; by default the error is logged. */
+        public Submission<T> onFailure(Consumer<? super Exception> onFailure) {
+            this.onFailure = onFailure;
+            return this;
+        }
+
+        /** Called on the event dispatch thread when the task is cancelled or replaced. */
+        public Submission<T> onCancel(Runnable onCancel) {
+            this.onCancel = onCancel;
+            return this;
+        }
+
+        /** Queues the task, cancelling an unfinished task with the same key. */
+        public Handle<T> submit() {
+            return TaskScheduler.this.submit(this);
+        }
+    }
+
+    /** What a running task sees of the scheduler: its cancellation flag and its progress. */
+    public final class TaskContext {
+        private final String key;
+        private volatile boolean cancelled;
+        private int lastPercent = -2;
+
+        private TaskContext(String key) {
+            this.key = key;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** Throws CancellationException once the task has been cancelled. */
+        public void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException("Task " + key + " was cancelled");
+            }
+        }
+
+        /** Reports done out of total steps; also checks for cancellation. */
+        public void progress(long done, long total, String message) {
+            progress(total > 0 ? (int) Math.min(100, done * 100 / total) : -1, message);
+        }
+
+        /** Reports progress in percent, -1 when unknown; also checks for cancellation. */
+        public void progress(int percent, String message) {
+            checkCancelled();
+            // The status bar only needs to hear about whole percent steps
+            if (percent == lastPercent && percent >= 0) {
+                return;
+            }
+            lastPercent = percent;
+            if (!listeners.isEmpty()) {
+                callbacks.execute(() -> {
+                    if (!cancelled) {
+                        listeners.forEach(listener -> listener.progressChanged(key, percent, message));
+                    }
+                });
+            }
+        }
+    }
+
+    /** A submitted task; waiting handles are ordered by priority, then submission. */
+    public final class Handle<T> extends FutureTask<T> implements Comparable<Handle<?>> {
+        private final String key;
+        private final String group;
+        private final Priority priority;
+        private final long sequence;
+        private final TaskContext context;
+        private final Submission<T> submission;
+
+        private Handle(Submission<T> submission, long sequence) {
+            this(submission, sequence, new TaskContext(submission.key));
+        }
+
+        private Handle(Submission<T> submission, long sequence, TaskContext context) {
+            super(() -> {
+                CURRENT.set(context);
+                try {
+                    context.checkCancelled();
+                    return submission.task.run(context);
+                } finally {
+                    CURRENT.remove();
+                }
+            });
+            this.key = submission.key;
+            this.group = submission.group;
+            this.priority = submission.priority;
+            this.sequence = sequence;
+            this.context = context;
+            this.submission = submission;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /** Marks the task cancelled; a running task stops at its next cancellation check. */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            context.cancelled = true;
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        protected void done() {
+            finished(this);
+            if (isCancelled()) {
+                callbacks.execute(submission.onCancel);
+                return;
+            }
+
+            try {
+                T result = get();
+                callbacks.execute(() -> submission.onSuccess.accept(result));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CancellationException) {
+                    callbacks.execute(submission.onCancel);
+                } else {
+                    Exception failure = cause instanceof Exception ? (Exception) cause : e;
+                    callbacks.execute(() -> submission.onFailure.accept(failure));
+                }
+            } catch (InterruptedException | CancellationException e) {
+                callbacks.execute(submission.onCancel);
+            }
+        }
+
+        @Override
+        public int compareTo(Handle<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
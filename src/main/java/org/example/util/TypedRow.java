@@ -0,0 +1,128 @@
+package org.example.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * One spreadsheet row with numbers, dates (epoch days) and booleans kept as primitives.
+ * Strings for non-text cells are only built when get(i) is called, so the row can still
+ * be used wherever a List&lt;String&gt; is expected.
+ */
+public class TypedRow extends AbstractList<String> implements RandomAccess {
+    public static final byte BLANK = 0;
+    public static final byte TEXT = 1;
+    public static final byte NUMBER = 2;
+    public static final byte DATE = 3;
+    public static final byte BOOLEAN = 4;
+
+    private final byte[] kinds;
+    private final double[] values;
+    private final String[] text;
+
+    private TypedRow(int columns) {
+        kinds = new byte[columns];
+        values = new double[columns];
+        text = new String[columns];
+    }
+
+    public static TypedRow read(Row row, int columns, CellConversionContext cells) {
+        TypedRow typed = new TypedRow(columns);
+
+        for (int i = 0; i < columns; i++) {
+            Cell cell = row.getCell(i);
+            if (cell == null) continue;
+
+            switch (cells.resolveType(cell)) {
+                case NUMERIC:
+                    if (cells.isDateFormatted(cell)) {
+                        long epochDay = cells.getEpochDay(cell);
+                        if (epochDay != Long.MIN_VALUE) {
+                            typed.kinds[i] = DATE;
+                            typed.values[i] = epochDay;
+                        }
+                    } else {
+                        typed.kinds[i] = NUMBER;
+                        typed.values[i] = cells.getNumber(cell);
+                    }
+                    break;
+                case BOOLEAN:
+                    typed.kinds[i] = BOOLEAN;
+                    typed.values[i] = cells.getBoolean(cell) ? 1 : 0;
+                    break;
+                case STRING:
+                    String value = cells.getString(cell);
+                    if (!value.trim().isEmpty()) {
+                        typed.kinds[i] = TEXT;
+                        typed.text[i] = value;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return typed;
+    }
+
+    public byte getKind(int column) {
+        return kinds[column];
+    }
+
+    public boolean isBlank(int column) {
+        return kinds[column] == BLANK;
+    }
+
+    public double getDouble(int column) {
+        return kinds[column] == NUMBER ? values[column] : Double.NaN;
+    }
+
+    public long getEpochDay(int column) {
+        return kinds[column] == DATE ? (long) values[column] : Long.MIN_VALUE;
+    }
+
+    public boolean getBoolean(int column) {
+        return kinds[column] == BOOLEAN && values[column] != 0;
+    }
+
+    public boolean hasData() {
+        for (byte kind : kinds) {
+            if (kind != BLANK) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String get(int column) {
+        String value = text[column];
+        if (value != null) {
+            return value;
+        }
+
+        switch (kinds[column]) {
+            case NUMBER:
+                value = CellConversionContext.formatDouble(values[column]);
+                break;
+            case DATE:
+                value = CellConversionContext.formatEpochDay((long) values[column]);
+                break;
+            case BOOLEAN:
+                value = values[column] != 0 ? "true" : "false";
+                break;
+            default:
+                return "";
+        }
+
+        text[column] = value;
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return kinds.length;
+    }
+}
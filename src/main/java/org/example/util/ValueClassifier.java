@@ -0,0 +1,244 @@
+package org.example.util;
+
+/**
+ * Single-pass, allocation-free classification of cell text as a number, a Romanian-formatted
+ * number ("1.234.567,89"), a date or plain text, without exceptions or regular expressions.
+ */
+public final class ValueClassifier {
+    public static final int EMPTY = 0;
+    public static final int NUMERIC = 1;
+    public static final int DECIMAL_COMMA = 2;
+    public static final int DATE = 3;
+    public static final int TEXT = 4;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private ValueClassifier() {
+    }
+
+    public static int classify(CharSequence value) {
+        if (value == null) {
+            return EMPTY;
+        }
+
+        int start = trimStart(value);
+        int end = trimEnd(value, start);
+        if (start == end) {
+            return EMPTY;
+        }
+
+        int numberKind = scanNumber(value, start, end);
+        if (numberKind != TEXT) {
+            return numberKind;
+        }
+        return looksLikeDate(value, start, end) ? DATE : TEXT;
+    }
+
+    public static boolean isNumber(int kind) {
+        return kind == NUMERIC || kind == DECIMAL_COMMA;
+    }
+
+    /** Numeric value of the text, or NaN when {@link #classify} would not report a number. */
+    public static double parseNumber(CharSequence value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+
+        int start = trimStart(value);
+        int end = trimEnd(value, start);
+        int kind = start == end ? EMPTY : scanNumber(value, start, end);
+        return isNumber(kind) ? parseNumber(value, start, end, kind) : Double.NaN;
+    }
+
+    public static boolean looksLikeDate(CharSequence value) {
+        return value != null && looksLikeDate(value, 0, value.length());
+    }
+
+    /**
+     * Accepts "[sign] digits [('.'|',') digits] [exponent]" as NUMERIC, and
+     * "d{1,3}('.'ddd)+[','digits]" as DECIMAL_COMMA when the dots can only be thousands separators.
+     */
+    private static int scanNumber(CharSequence s, int start, int end) {
+        int i = start;
+        char c = s.charAt(i);
+        if (c == '+' || c == '-') {
+            i++;
+        }
+
+        int intStart = i;
+        while (i < end && isDigit(s.charAt(i))) i++;
+        int intDigits = i - intStart;
+        if (i == end) {
+            return intDigits > 0 ? NUMERIC : TEXT;
+        }
+
+        if (s.charAt(i) == '.' && intDigits >= 1 && intDigits <= 3) {
+            int j = i;
+            int groups = 0;
+            while (j + 3 < end && s.charAt(j) == '.' && isDigit(s.charAt(j + 1))
+                    && isDigit(s.charAt(j + 2)) && isDigit(s.charAt(j + 3))
+                    && (j + 4 == end || !isDigit(s.charAt(j + 4)))) {
+                groups++;
+                j += 4;
+            }
+
+            if (groups >= 2 && j == end) {
+                return DECIMAL_COMMA;
+            }
+            if (groups >= 1 && j < end && s.charAt(j) == ',') {
+                int k = j + 1;
+                while (k < end && isDigit(s.charAt(k))) k++;
+                if (k > j + 1 && k == end) {
+                    return DECIMAL_COMMA;
+                }
+            }
+        }
+
+        int fractionDigits = 0;
+        c = s.charAt(i);
+        if (c == '.' || c == ',') {
+            i++;
+            int fractionStart = i;
+            while (i < end && isDigit(s.charAt(i))) i++;
+            fractionDigits = i - fractionStart;
+        }
+        if (intDigits + fractionDigits == 0) {
+            return TEXT;
+        }
+
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+            int exponentStart = i;
+            while (i < end && isDigit(s.charAt(i))) i++;
+            if (i == exponentStart) {
+                return TEXT;
+            }
+        }
+
+        return i == end ? NUMERIC : TEXT;
+    }
+
+    private static double parseNumber(CharSequence s, int start, int end, int kind) {
+        boolean negative = false;
+        boolean afterPoint = false;
+        boolean exact = true;
+        long mantissa = 0;
+        int scale = 0;
+        int exponent = 0;
+
+        int i = start;
+        char c = s.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            i++;
+        }
+
+        for (; i < end; i++) {
+            c = s.charAt(i);
+            if (isDigit(c)) {
+                if (mantissa < MAX_EXACT_MANTISSA) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (afterPoint) scale++;
+                } else {
+                    exact = false;
+                    break;
+                }
+            } else if (c == ',' || (c == '.' && kind == NUMERIC)) {
+                afterPoint = true;
+            } else if (c == 'e' || c == 'E') {
+                boolean negativeExponent = false;
+                i++;
+                if (s.charAt(i) == '+' || s.charAt(i) == '-') {
+                    negativeExponent = s.charAt(i) == '-';
+                    i++;
+                }
+                for (; i < end && exponent < 100000; i++) {
+                    exponent = exponent * 10 + (s.charAt(i) - '0');
+                }
+                if (negativeExponent) exponent = -exponent;
+                break;
+            }
+        }
+
+        int power = exponent - scale;
+        if (exact && mantissa < MAX_EXACT_MANTISSA && power >= -22 && power <= 22) {
+            double value = power >= 0 ? mantissa * POWERS_OF_TEN[power] : mantissa / POWERS_OF_TEN[-power];
+            return negative ? -value : value;
+        }
+
+        // Too many significant digits for the exact fast path; the text is already known to be valid.
+        StringBuilder normalized = new StringBuilder(end - start);
+        for (i = start; i < end; i++) {
+            c = s.charAt(i);
+            if (c == ',') {
+                normalized.append('.');
+            } else if (c != '.' || kind == NUMERIC) {
+                normalized.append(c);
+            }
+        }
+        return Double.parseDouble(normalized.toString());
+    }
+
+    /**
+     * True when the text contains d{1,2}[/.-]d{1,2}[/.-]d{2,4} or d{4}[/.-]d{1,2}[/.-]d{1,2},
+     * the same patterns the column profiler used to match with regular expressions.
+     */
+    private static boolean looksLikeDate(CharSequence s, int start, int end) {
+        int firstRun = 0;
+        int middleRun = 0;
+        int i = start;
+
+        while (i < end) {
+            if (!isDigit(s.charAt(i))) {
+                firstRun = 0;
+                middleRun = 0;
+                i++;
+                continue;
+            }
+
+            int runStart = i;
+            while (i < end && isDigit(s.charAt(i))) i++;
+            int run = i - runStart;
+
+            if (firstRun > 0 && middleRun > 0 && middleRun <= 2 && (run >= 2 || firstRun >= 4)) {
+                return true;
+            }
+
+            if (i + 1 < end && isDateSeparator(s.charAt(i)) && isDigit(s.charAt(i + 1))) {
+                firstRun = middleRun;
+                middleRun = run;
+                i++;
+            } else {
+                firstRun = 0;
+                middleRun = 0;
+            }
+        }
+
+        return false;
+    }
+
+    private static int trimStart(CharSequence s) {
+        int i = 0;
+        while (i < s.length() && s.charAt(i) <= ' ') i++;
+        return i;
+    }
+
+    private static int trimEnd(CharSequence s, int start) {
+        int end = s.length();
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        return end;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDateSeparator(char c) {
+        return c == '/' || c == '.' || c == '-';
+    }
+}
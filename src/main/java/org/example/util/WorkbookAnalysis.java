@@ -0,0 +1,34 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Analysis of every sheet of a workbook, plus statistics merged over the largest group of
+ * sheets that share the same headers (e.g. one sheet per department or per year).
+ */
+public final class WorkbookAnalysis {
+    private final List<FileAnalysis> sheets;
+    private final FileAnalysis merged;
+    private final List<String> mergedSheetNames;
+
+    WorkbookAnalysis(List<FileAnalysis> sheets, FileAnalysis merged, List<String> mergedSheetNames) {
+        this.sheets = Collections.unmodifiableList(new ArrayList<>(sheets));
+        this.merged = merged;
+        this.mergedSheetNames = Collections.unmodifiableList(new ArrayList<>(mergedSheetNames));
+    }
+
+    public List<FileAnalysis> getSheets() {
+        return sheets;
+    }
+
+    /** Statistics over all sheets in {@link #getMergedSheetNames()}; null for a workbook without sheets. */
+    public FileAnalysis getMerged() {
+        return merged;
+    }
+
+    public List<String> getMergedSheetNames() {
+        return mergedSheetNames;
+    }
+}
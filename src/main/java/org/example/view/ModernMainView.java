@@ -3,11 +3,13 @@ package org.example.view;
 import org.example.ai.AIAssistantPanel;
 import org.example.controller.DataController;
 import org.example.controller.MainController;
+import org.example.model.DataModel;
 import org.example.model.ProcurementItem;
 import org.example.scripting.PythonScriptingService;
 import org.example.theme.ThemeManager;
 import org.example.util.EnhancedChartGenerator;
 import org.example.util.SoundManager;
+import org.example.util.TaskScheduler;
 import org.example.util.DeepAnalysisChartGenerator;
 import org.jfree.chart.JFreeChart;
 import org.slf4j.Logger;
@@ -18,8 +20,28 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class ModernMainView {
+    private static final Logger logger = LoggerFactory.getLogger(ModernMainView.class);
+
+    /** System property that turns off {@link #prewarm()}. */
+    public static final String PREWARM_DISABLED_PROPERTY = "cpv.prewarm.disabled";
+
+    private static final List<String> PREWARM_CLASSES = List.of(
+            "org.example.view.DashboardPanel",
+            "org.example.ai.AIAssistantPanel",
+            "org.example.view.EnhancedFileImportPanel",
+            "org.example.view.ScriptingPanel",
+            "org.example.scripting.PythonScriptingService",
+            "org.python.util.PythonInterpreter",
+            "org.example.view.MachineLearningPanel",
+            "weka.core.Instances",
+            "smile.data.DataFrame",
+            "org.jfree.chart.ChartFactory",
+            "org.jfree.chart.ChartPanel");
+
     private JFrame frame;
     private JMenuBar menuBar;
     private JToolBar toolBar;
@@ -33,17 +55,23 @@ public class ModernMainView {
     private JTextArea analysisTextArea;
     private JScrollPane analysisScrollPane;
     private JLabel statusLabel;
+    private JButton cancelTaskButton;
+    private Runnable cancelAction;
     private JButton exportAnalysisButton;
     private JButton printAnalysisButton;
     private JComboBox<String> themeSelector;
-    private AIAssistantPanel aiAssistantPanel;
-    private DashboardPanel dashboardPanel;
-    private EnhancedFileImportPanel enhancedImportPanel;
-    private ScriptingPanel scriptingPanel;
-    private MachineLearningPanel machineLearningPanel;
+    private LazyTab<DashboardPanel> dashboardTab;
+    private LazyTab<AIAssistantPanel> aiAssistantTab;
+    private LazyTab<EnhancedFileImportPanel> importTab;
+    private LazyTab<ScriptingPanel> scriptingTab;
+    private LazyTab<MachineLearningPanel> machineLearningTab;
+    private ActionListener cpvCodeImportListener;
+    private ActionListener procurementDataImportListener;
 
     private JMenuItem loadPaapMenuItem;
     private JMenuItem loadCpvCodesMenuItem;
+    private JMenuItem watchPaapFolderMenuItem;
+    private JMenuItem comparePaapFilesMenuItem;
     private JMenuItem exportAnalysisMenuItem;
     private JMenuItem printAnalysisMenuItem;
     private JMenuItem exitMenuItem;
@@ -56,6 +84,7 @@ public class ModernMainView {
 
     private MainController mainController;
     private DataController dataController;
+    private TaskScheduler scheduler;
 
     public ModernMainView() {
         initialize();
@@ -89,9 +118,15 @@ public class ModernMainView {
         frame.add(mainPanel, BorderLayout.CENTER);
     }
 
+    /** The heavy tabs get a placeholder and are built when first shown, see {@link LazyTab}. */
     private void createTabs() {
-        dashboardPanel = new DashboardPanel();
-        tabbedPane.addTab("📊 Dashboard", null, dashboardPanel, "Executive dashboard with KPIs and insights");
+        dashboardTab = new LazyTab<>("📊 Dashboard", "Executive dashboard with KPIs and insights", () -> {
+            DashboardPanel panel = new DashboardPanel();
+            if (hasLoadedData()) {
+                panel.updateDashboard(dataController.getModel());
+            }
+            return panel;
+        });
 
         JPanel searchPanel = createSearchPanel();
         tabbedPane.addTab("🔍 Search", null, searchPanel, "Search and filter procurement items");
@@ -106,18 +141,70 @@ public class ModernMainView {
         JPanel analysisPanel = createAnalysisPanel();
         tabbedPane.addTab("📋 Analysis", null, analysisPanel, "Comprehensive procurement analysis reports");
 
-        aiAssistantPanel = new AIAssistantPanel();
-        tabbedPane.addTab("🤖 AI Assistant", null, aiAssistantPanel, "AI-powered data analysis and insights");
+        aiAssistantTab = new LazyTab<>("🤖 AI Assistant", "AI-powered data analysis and insights", () -> {
+            AIAssistantPanel panel = new AIAssistantPanel();
+            if (hasLoadedData()) {
+                panel.setDataModel(dataController.getModel());
+            }
+            return panel;
+        });
+
+        importTab = new LazyTab<>("📂 Import", "Import PAAP and CPV files", () -> {
+            EnhancedFileImportPanel panel = new EnhancedFileImportPanel();
+            if (cpvCodeImportListener != null) {
+                panel.setCpvCodeImportListener(cpvCodeImportListener);
+                panel.setProcurementDataImportListener(procurementDataImportListener);
+            }
+            return panel;
+        });
+
+        scriptingTab = new LazyTab<>("🐍 Scripting", "Python scripting for custom analysis", () -> {
+            ScriptingPanel panel = new ScriptingPanel();
+            if (hasLoadedData()) {
+                startScriptingService(panel);
+            }
+            return panel;
+        });
+
+        machineLearningTab = new LazyTab<>("🤖 Machine Learning",
+                "AI-powered analysis: prediction, classification, clustering, and anomaly detection", () -> {
+            MachineLearningPanel panel = new MachineLearningPanel();
+            if (hasLoadedData()) {
+                panel.setDataModel(dataController.getModel());
+            }
+            return panel;
+        });
+
+        tabbedPane.addChangeListener(e -> createSelectedTab());
+    }
+
+    // Panels built before any file was loaded start empty, as they did when built at startup
+    private boolean hasLoadedData() {
+        return dataController != null && !dataController.getModel().getProcurementItems().isEmpty();
+    }
+
+    private List<LazyTab<?>> lazyTabs() {
+        return List.of(dashboardTab, aiAssistantTab, importTab, scriptingTab, machineLearningTab);
+    }
 
-        enhancedImportPanel = new EnhancedFileImportPanel();
-        tabbedPane.addTab("📂 Import", null, enhancedImportPanel, "Import PAAP and CPV files");
+    private void createSelectedTab() {
+        Component selected = tabbedPane.getSelectedComponent();
+        for (LazyTab<?> tab : lazyTabs()) {
+            if (tab.isPlaceholder(selected)) {
+                tab.get();
+            }
+        }
+    }
 
-        scriptingPanel = new ScriptingPanel();
-        tabbedPane.addTab("🐍 Scripting", null, scriptingPanel, "Python scripting for custom analysis");
+    /** Builds every tab now instead of on first use, e.g. for the training run of the startup archive. */
+    public void createAllTabs() {
+        lazyTabs().forEach(LazyTab::get);
+    }
 
-        machineLearningPanel = new MachineLearningPanel();
-        tabbedPane.addTab("🤖 Machine Learning", null, machineLearningPanel,
-                "AI-powered analysis: prediction, classification, clustering, and anomaly detection");
+    private void showMachineLearningTab(int mlTabIndex) {
+        MachineLearningPanel panel = machineLearningTab.get();
+        tabbedPane.setSelectedComponent(panel);
+        panel.mlTabbedPane.setSelectedIndex(mlTabIndex);
     }
 
     private void createMenuBar() {
@@ -135,6 +222,12 @@ public class ModernMainView {
         loadCpvCodesMenuItem.setAccelerator(KeyStroke.getKeyStroke("ctrl C"));
         loadCpvCodesMenuItem.setForeground(ThemeManager.getCurrentTheme().getTextColor());
 
+        watchPaapFolderMenuItem = new JMenuItem("Watch PAAP Folder...");
+        watchPaapFolderMenuItem.setForeground(ThemeManager.getCurrentTheme().getTextColor());
+
+        comparePaapFilesMenuItem = new JMenuItem("Compare PAAP Files...");
+        comparePaapFilesMenuItem.setForeground(ThemeManager.getCurrentTheme().getTextColor());
+
         exportAnalysisMenuItem = new JMenuItem("Export Analysis...");
         exportAnalysisMenuItem.setAccelerator(KeyStroke.getKeyStroke("ctrl E"));
         exportAnalysisMenuItem.setForeground(ThemeManager.getCurrentTheme().getTextColor());
@@ -150,6 +243,8 @@ public class ModernMainView {
 
         fileMenu.add(loadPaapMenuItem);
         fileMenu.add(loadCpvCodesMenuItem);
+        fileMenu.add(watchPaapFolderMenuItem);
+        fileMenu.add(comparePaapFilesMenuItem);
         fileMenu.addSeparator();
         fileMenu.add(exportAnalysisMenuItem);
         fileMenu.add(printAnalysisMenuItem);
@@ -209,30 +304,15 @@ public class ModernMainView {
 
         JMenuItem mlPredictionItem = new JMenuItem("ML Prediction");
         mlPredictionItem.setForeground(ThemeManager.getCurrentTheme().getTextColor());
-        mlPredictionItem.addActionListener(e -> {
-            tabbedPane.setSelectedIndex(8);
-            if (machineLearningPanel != null) {
-                machineLearningPanel.mlTabbedPane.setSelectedIndex(0);
-            }
-        });
+        mlPredictionItem.addActionListener(e -> showMachineLearningTab(0));
 
         JMenuItem mlClusteringItem = new JMenuItem("ML Clustering");
         mlClusteringItem.setForeground(ThemeManager.getCurrentTheme().getTextColor());
-        mlClusteringItem.addActionListener(e -> {
-            tabbedPane.setSelectedIndex(8);
-            if (machineLearningPanel != null) {
-                machineLearningPanel.mlTabbedPane.setSelectedIndex(2);
-            }
-        });
+        mlClusteringItem.addActionListener(e -> showMachineLearningTab(2));
 
         JMenuItem mlAnomalyItem = new JMenuItem("ML Anomaly Detection");
         mlAnomalyItem.setForeground(ThemeManager.getCurrentTheme().getTextColor());
-        mlAnomalyItem.addActionListener(e -> {
-            tabbedPane.setSelectedIndex(8);
-            if (machineLearningPanel != null) {
-                machineLearningPanel.mlTabbedPane.setSelectedIndex(3);
-            }
-        });
+        mlAnomalyItem.addActionListener(e -> showMachineLearningTab(3));
 
         analyticsMenu.add(deepAnalysisItem);
         analyticsMenu.add(riskAssessmentItem);
@@ -319,7 +399,7 @@ public class ModernMainView {
         searchLabel.setForeground(ThemeManager.getCurrentTheme().getTextColor());
 
         searchField = new JTextField();
-        searchField.setToolTipText("Enter CPV code, item name, or description");
+        searchField.setToolTipText("Enter CPV code, item name, or description; filters: cpv:45 value>100000 month:3-6 source:buget");
         searchField.setBackground(ThemeManager.getCurrentTheme().getPanelColor());
         searchField.setForeground(ThemeManager.getCurrentTheme().getTextColor());
         searchField.setCaretColor(ThemeManager.getCurrentTheme().getTextColor());
@@ -454,9 +534,19 @@ public class ModernMainView {
         JPanel infoPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         infoPanel.setBackground(ThemeManager.getCurrentTheme().getPanelColor());
 
+        cancelTaskButton = ThemeManager.createThemedButton("✖ Cancel");
+        cancelTaskButton.setToolTipText("Cancel loading");
+        cancelTaskButton.setVisible(false);
+        cancelTaskButton.addActionListener(e -> {
+            if (cancelAction != null) {
+                cancelAction.run();
+            }
+        });
+
         JLabel themeLabel = new JLabel("Theme:");
         themeLabel.setForeground(ThemeManager.getCurrentTheme().getTextColor());
 
+        infoPanel.add(cancelTaskButton);
         infoPanel.add(themeLabel);
         infoPanel.add(themeSelector);
 
@@ -474,27 +564,20 @@ public class ModernMainView {
 
         setStatusMessage("🔄 Generating basic analysis...");
 
-        SwingWorker<String, Void> worker = new SwingWorker<>() {
-            @Override
-            protected String doInBackground() {
-                return org.example.controller.AnalysisService.generateAnalysisReport(
-                        dataController.getModel(), dataController.getModel().getCpvCodeMap());
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    String analysis = get();
+        DataModel data = dataController.getModel().snapshot();
+        scheduler.task("analysis", context ->
+                        org.example.controller.AnalysisService.generateAnalysisReport(data, data.getCpvCodeMap()))
+                .group(MainController.ANALYSIS_TASKS)
+                .onSuccess(analysis -> {
                     displayAnalysis(analysis);
-                    setStatusMessage("✅ Basic analysis complete");
+                    setResultStatus("✅ Basic analysis complete", data);
                     SoundManager.playSound(SoundManager.SOUND_SUCCESS);
-                } catch (Exception e) {
+                })
+                .onFailure(e -> {
                     showErrorMessage("Error generating analysis: " + e.getMessage());
                     setStatusMessage("❌ Analysis failed");
-                }
-            }
-        };
-        worker.execute();
+                })
+                .submit();
     }
 
     private void generateDeepAnalysis() {
@@ -505,29 +588,22 @@ public class ModernMainView {
 
         setStatusMessage("🔄 Generating deep analysis with advanced charts...");
 
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() {
-                String analysis = org.example.util.ProcurementAnalysisService.generateComprehensiveAnalysis(
-                        dataController.getModel());
-
-                SwingUtilities.invokeLater(() -> {
+        DataModel data = dataController.getModel().snapshot();
+        scheduler.task("deep-analysis", context ->
+                        org.example.util.ProcurementAnalysisService.generateComprehensiveAnalysis(data))
+                .group(MainController.ANALYSIS_TASKS)
+                .onSuccess(analysis -> {
                     displayAnalysis(analysis);
                     generateAllAdvancedCharts();
-                });
-
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                setStatusMessage("✅ Deep analysis complete with advanced visualizations");
-                SoundManager.playSound(SoundManager.SOUND_SUCCESS);
-            }
-        };
-        worker.execute();
+                    setResultStatus("✅ Deep analysis complete with advanced visualizations", data);
+                    SoundManager.playSound(SoundManager.SOUND_SUCCESS);
+                })
+                .onFailure(e -> {
+                    logger.error("Error generating deep analysis: {}", e.getMessage(), e);
+                    showErrorMessage("Error generating deep analysis: " + e.getMessage());
+                })
+                .submit();
     }
-    private static final Logger logger = LoggerFactory.getLogger(ModernMainView.class);
     private void generateAllAdvancedCharts() {
         if (dataController == null || dataController.getModel().getProcurementItems().isEmpty()) {
             showErrorMessage("Please load procurement data first.");
@@ -541,103 +617,95 @@ public class ModernMainView {
 
         setStatusMessage("🔄 Generating comprehensive charts with monthly analysis...");
 
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() {
-                try {
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.clearCharts();
-                    });
-
-                    JFreeChart categoryChart = EnhancedChartGenerator.generateEnhancedCategoryPieChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(categoryChart, "Procurement by Category (Fixed Labels)");
-                    });
-
-                    JFreeChart topItemsChart = EnhancedChartGenerator.generateEnhancedTopItemsBarChart(dataController.getModel(), 10);
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(topItemsChart, "Top 10 Items (Fixed Labels)");
-                    });
-
-                    JFreeChart valueRangeChart = EnhancedChartGenerator.generateEnhancedValueRangeChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(valueRangeChart, "Value Range Analysis (Fixed Labels)");
-                    });
-
-                    JFreeChart monthlyChart = EnhancedChartGenerator.generateMonthlyAnalysisChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(monthlyChart, "Monthly Procurement Analysis");
-                    });
-
-                    JFreeChart monthlyTrendChart = EnhancedChartGenerator.generateMonthlyTrendChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(monthlyTrendChart, "Monthly Procurement Trend");
-                    });
-
-                    JFreeChart seasonalChart = EnhancedChartGenerator.generateSeasonalAnalysisChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(seasonalChart, "Seasonal Analysis");
-                    });
-
-                    JFreeChart valueAnalysis = DeepAnalysisChartGenerator.generateValueAnalysisChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(valueAnalysis, "Value Analysis (Enhanced)");
-                    });
-
-                    JFreeChart concentration = DeepAnalysisChartGenerator.generateCategoryConcentrationChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(concentration, "Category Concentration (Fixed Labels)");
-                    });
-
-                    JFreeChart efficiency = DeepAnalysisChartGenerator.generateEfficiencyAnalysisChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(efficiency, "Efficiency Analysis (Fixed Labels)");
-                    });
-
-                    JFreeChart timeline = DeepAnalysisChartGenerator.generateTimelineAnalysisChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(timeline, "Timeline Analysis");
-                    });
-
-                    JFreeChart maturity = DeepAnalysisChartGenerator.generateMaturityAssessmentChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(maturity, "Maturity Assessment");
-                    });
-
-                    JFreeChart risk = DeepAnalysisChartGenerator.generateRiskAssessmentChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(risk, "Risk Assessment");
-                    });
-
-                    JFreeChart monthlyTrendAnalysis = DeepAnalysisChartGenerator.generateMonthlyTrendAnalysisChart(dataController.getModel());
-                    SwingUtilities.invokeLater(() -> {
-                        chartsPanel.addChart(monthlyTrendAnalysis, "Monthly Trend Analysis (Advanced)");
-                    });
-
-                } catch (Exception e) {
+        DataModel data = dataController.getModel().snapshot();
+        scheduler.task("advanced-charts", context -> {
+                    int steps = 13;
+                    SwingUtilities.invokeLater(chartsPanel::clearCharts);
+
+                    JFreeChart categoryChart = EnhancedChartGenerator.generateEnhancedCategoryPieChart(data);
+                    addTaskChart(context, categoryChart, "Procurement by Category (Fixed Labels)");
+                    context.progress(1, steps, "Generating charts");
+
+                    JFreeChart topItemsChart = EnhancedChartGenerator.generateEnhancedTopItemsBarChart(data, 10);
+                    addTaskChart(context, topItemsChart, "Top 10 Items (Fixed Labels)");
+                    context.progress(2, steps, "Generating charts");
+
+                    JFreeChart valueRangeChart = EnhancedChartGenerator.generateEnhancedValueRangeChart(data);
+                    addTaskChart(context, valueRangeChart, "Value Range Analysis (Fixed Labels)");
+                    context.progress(3, steps, "Generating charts");
+
+                    JFreeChart monthlyChart = EnhancedChartGenerator.generateMonthlyAnalysisChart(data);
+                    addTaskChart(context, monthlyChart, "Monthly Procurement Analysis");
+                    context.progress(4, steps, "Generating charts");
+
+                    JFreeChart monthlyTrendChart = EnhancedChartGenerator.generateMonthlyTrendChart(data);
+                    addTaskChart(context, monthlyTrendChart, "Monthly Procurement Trend");
+                    context.progress(5, steps, "Generating charts");
+
+                    JFreeChart seasonalChart = EnhancedChartGenerator.generateSeasonalAnalysisChart(data);
+                    addTaskChart(context, seasonalChart, "Seasonal Analysis");
+                    context.progress(6, steps, "Generating charts");
+
+                    JFreeChart valueAnalysis = DeepAnalysisChartGenerator.generateValueAnalysisChart(data);
+                    addTaskChart(context, valueAnalysis, "Value Analysis (Enhanced)");
+                    context.progress(7, steps, "Generating charts");
+
+                    JFreeChart concentration = DeepAnalysisChartGenerator.generateCategoryConcentrationChart(data);
+                    addTaskChart(context, concentration, "Category Concentration (Fixed Labels)");
+                    context.progress(8, steps, "Generating charts");
+
+                    JFreeChart efficiency = DeepAnalysisChartGenerator.generateEfficiencyAnalysisChart(data);
+                    addTaskChart(context, efficiency, "Efficiency Analysis (Fixed Labels)");
+                    context.progress(9, steps, "Generating charts");
+
+                    JFreeChart timeline = DeepAnalysisChartGenerator.generateTimelineAnalysisChart(data);
+                    addTaskChart(context, timeline, "Timeline Analysis");
+                    context.progress(10, steps, "Generating charts");
+
+                    JFreeChart maturity = DeepAnalysisChartGenerator.generateMaturityAssessmentChart(data);
+                    addTaskChart(context, maturity, "Maturity Assessment");
+                    context.progress(11, steps, "Generating charts");
+
+                    JFreeChart risk = DeepAnalysisChartGenerator.generateRiskAssessmentChart(data);
+                    addTaskChart(context, risk, "Risk Assessment");
+                    context.progress(12, steps, "Generating charts");
+
+                    JFreeChart monthlyTrendAnalysis = DeepAnalysisChartGenerator.generateMonthlyTrendAnalysisChart(data);
+                    addTaskChart(context, monthlyTrendAnalysis, "Monthly Trend Analysis (Advanced)");
+                    return null;
+                })
+                .group(MainController.ANALYSIS_TASKS)
+                .onSuccess(done -> {
+                    setResultStatus("✅ All charts generated successfully with fixed labels and monthly analysis", data);
+                    SoundManager.playSound(SoundManager.SOUND_SUCCESS);
+                })
+                .onFailure(e -> {
                     logger.error("Error generating charts: {}", e.getMessage(), e);
-                    SwingUtilities.invokeLater(() -> {
-                        showErrorMessage("Error generating charts: " + e.getMessage());
-                    });
-                }
-
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                setStatusMessage("✅ All charts generated successfully with fixed labels and monthly analysis");
-                SoundManager.playSound(SoundManager.SOUND_SUCCESS);
-            }
-        };
-
-        worker.execute();
+                    showErrorMessage("Error generating charts: " + e.getMessage());
+                })
+                .submit();
     }
     public void setupScriptingService() {
-        if (dataController != null && scriptingPanel != null) {
-            PythonScriptingService scriptingService = new PythonScriptingService(dataController.getModel());
-            scriptingPanel.setScriptingService(scriptingService);
+        scriptingTab.ifCreated(this::startScriptingService);
+    }
+
+    /** Starts the Python interpreter for the panel in the background; it is slow to start. */
+    private void startScriptingService(ScriptingPanel panel) {
+        if (dataController == null) {
+            return;
+        }
+        DataModel data = dataController.getModel();
+        if (scheduler == null) {
+            panel.setScriptingService(new PythonScriptingService(data));
+            return;
         }
+        scheduler.task("scripting-service", context -> new PythonScriptingService(data))
+                .onSuccess(scriptingService -> {
+                    panel.setScriptingService(scriptingService);
+                    setStatusMessage("🐍 Python scripting service initialized");
+                })
+                .onFailure(e -> logger.error("Error starting the scripting service: {}", e.getMessage(), e))
+                .submit();
     }
     private void generateRiskAssessment() {
         if (dataController == null || dataController.getModel().getProcurementItems().isEmpty()) {
@@ -647,27 +715,21 @@ public class ModernMainView {
 
         setStatusMessage("🔄 Generating risk assessment...");
 
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() {
-                JFreeChart riskChart = DeepAnalysisChartGenerator.generateRiskAssessmentChart(dataController.getModel());
-
-                SwingUtilities.invokeLater(() -> {
+        DataModel data = dataController.getModel().snapshot();
+        scheduler.task("risk-assessment", context -> DeepAnalysisChartGenerator.generateRiskAssessmentChart(data))
+                .group(MainController.ANALYSIS_TASKS)
+                .onSuccess(chart -> {
                     chartsPanel.clearCharts();
-                    chartsPanel.addChart(riskChart, "Risk Assessment");
+                    chartsPanel.addChart(chart, "Risk Assessment");
                     tabbedPane.setSelectedIndex(2);
-                });
-
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                setStatusMessage("✅ Risk assessment complete");
-                SoundManager.playSound(SoundManager.SOUND_SUCCESS);
-            }
-        };
-        worker.execute();
+                    setResultStatus("✅ Risk assessment complete", data);
+                    SoundManager.playSound(SoundManager.SOUND_SUCCESS);
+                })
+                .onFailure(e -> {
+                    logger.error("Error generating risk assessment: {}", e.getMessage(), e);
+                    showErrorMessage("Error generating risk assessment: " + e.getMessage());
+                })
+                .submit();
     }
 
     private void generateMaturityAssessment() {
@@ -678,45 +740,39 @@ public class ModernMainView {
 
         setStatusMessage("🔄 Generating maturity assessment...");
 
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() {
-                JFreeChart maturityChart = DeepAnalysisChartGenerator.generateMaturityAssessmentChart(dataController.getModel());
-
-                SwingUtilities.invokeLater(() -> {
+        DataModel data = dataController.getModel().snapshot();
+        scheduler.task("maturity-assessment", context -> DeepAnalysisChartGenerator.generateMaturityAssessmentChart(data))
+                .group(MainController.ANALYSIS_TASKS)
+                .onSuccess(chart -> {
                     chartsPanel.clearCharts();
-                    chartsPanel.addChart(maturityChart, "Procurement Maturity Assessment");
+                    chartsPanel.addChart(chart, "Procurement Maturity Assessment");
                     tabbedPane.setSelectedIndex(2);
-                });
-
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                setStatusMessage("✅ Maturity assessment complete");
-                SoundManager.playSound(SoundManager.SOUND_SUCCESS);
-            }
-        };
-        worker.execute();
+                    setResultStatus("✅ Maturity assessment complete", data);
+                    SoundManager.playSound(SoundManager.SOUND_SUCCESS);
+                })
+                .onFailure(e -> {
+                    logger.error("Error generating maturity assessment: {}", e.getMessage(), e);
+                    showErrorMessage("Error generating maturity assessment: " + e.getMessage());
+                })
+                .submit();
     }
 
     public void updateAIAssistant() {
-        if (aiAssistantPanel != null && dataController != null) {
-            aiAssistantPanel.setDataModel(dataController.getModel());
+        if (dataController != null) {
+            aiAssistantTab.ifCreated(panel -> panel.setDataModel(dataController.getModel()));
         }
         updateMLPanel();
     }
 
     public void updateDashboard() {
-        if (dashboardPanel != null && dataController != null) {
-            dashboardPanel.updateDashboard(dataController.getModel());
+        if (dataController != null) {
+            dashboardTab.ifCreated(panel -> panel.updateDashboard(dataController.getModel()));
         }
     }
 
     public void updateMLPanel() {
-        if (machineLearningPanel != null && dataController != null) {
-            machineLearningPanel.setDataModel(dataController.getModel());
+        if (dataController != null) {
+            machineLearningTab.ifCreated(panel -> panel.setDataModel(dataController.getModel()));
         }
     }
 
@@ -738,6 +794,22 @@ public class ModernMainView {
         loadCpvCodesButton.addActionListener(soundWrapper);
     }
 
+    public void setWatchPaapFolderAction(ActionListener listener) {
+        ActionListener soundWrapper = e -> {
+            SoundManager.playSound(SoundManager.SOUND_BUTTON_CLICK);
+            listener.actionPerformed(e);
+        };
+        watchPaapFolderMenuItem.addActionListener(soundWrapper);
+    }
+
+    public void setComparePaapFilesAction(ActionListener listener) {
+        ActionListener soundWrapper = e -> {
+            SoundManager.playSound(SoundManager.SOUND_BUTTON_CLICK);
+            listener.actionPerformed(e);
+        };
+        comparePaapFilesMenuItem.addActionListener(soundWrapper);
+    }
+
     public void setSearchAction(ActionListener listener) {
         ActionListener soundWrapper = e -> {
             SoundManager.playSound(SoundManager.SOUND_BUTTON_CLICK);
@@ -782,13 +854,33 @@ public class ModernMainView {
     }
 
     public void setEnhancedImportListeners(ActionListener cpvCodeListener, ActionListener procurementDataListener) {
-        if (enhancedImportPanel != null) {
-            enhancedImportPanel.setCpvCodeImportListener(cpvCodeListener);
-            enhancedImportPanel.setProcurementDataImportListener(procurementDataListener);
-        }
+        this.cpvCodeImportListener = cpvCodeListener;
+        this.procurementDataImportListener = procurementDataListener;
+        importTab.ifCreated(panel -> {
+            panel.setCpvCodeImportListener(cpvCodeListener);
+            panel.setProcurementDataImportListener(procurementDataListener);
+        });
+    }
+
+    /** Shows a cancel button in the status bar that runs cancelAction; null hides it. */
+    public void setCancelAction(Runnable cancelAction) {
+        this.cancelAction = cancelAction;
+        cancelTaskButton.setVisible(cancelAction != null);
+    }
+
+    /** Shows the items read so far while a file is still loading, in the list and the dashboard. */
+    public void showLoadPreview(DataModel partial) {
+        List<ProcurementItem> items = partial.getProcurementItems();
+        showItems(items);
+        dashboardTab.ifCreated(panel -> panel.updateDashboard(partial));
     }
 
     public void updateProcurementItemsList(List<ProcurementItem> items) {
+        showItems(items);
+        updateDashboard();
+    }
+
+    private void showItems(List<ProcurementItem> items) {
         DefaultListModel<ProcurementItem> model = new DefaultListModel<>();
         for (ProcurementItem item : items) {
             model.addElement(item);
@@ -800,15 +892,9 @@ public class ModernMainView {
         }
 
         updateSearchStats(items.size());
-
-        updateDashboard();
     }
     public void updateScriptingService() {
-        if (dataController != null && scriptingPanel != null) {
-            PythonScriptingService scriptingService = new PythonScriptingService(dataController.getModel());
-            scriptingPanel.setScriptingService(scriptingService);
-            setStatusMessage("🐍 Python scripting service initialized");
-        }
+        scriptingTab.ifCreated(this::startScriptingService);
     }
     private void updateSearchStats(int resultCount) {
         JLabel statsLabel = findLabelByName(this.getFrame(), "searchStats");
@@ -868,6 +954,23 @@ public class ModernMainView {
         JOptionPane.showMessageDialog(frame, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
+    /** Adds a chart produced by a task, unless the task has been cancelled meanwhile. */
+    private void addTaskChart(TaskScheduler.TaskContext context, JFreeChart chart, String title) {
+        SwingUtilities.invokeLater(() -> {
+            if (!context.isCancelled()) {
+                chartsPanel.addChart(chart, title);
+            }
+        });
+    }
+
+    /** Shows the status of a result computed from data, noting when the model has changed since. */
+    private void setResultStatus(String message, DataModel data) {
+        if (dataController != null && dataController.getModel().getVersion() != data.getVersion()) {
+            message += " (data changed meanwhile, run again to update)";
+        }
+        setStatusMessage(message);
+    }
+
     public void setStatusMessage(String message) {
         statusLabel.setText(" " + message);
     }
@@ -876,8 +979,10 @@ public class ModernMainView {
         return frame;
     }
 
+    /** Shows the window; the selected tab is built right after, so the window appears first. */
     public void show() {
         frame.setVisible(true);
+        SwingUtilities.invokeLater(this::createSelectedTab);
     }
 
     private void showAboutDialog() {
@@ -967,11 +1072,11 @@ public class ModernMainView {
         tabbedPane.setBackground(ThemeManager.getCurrentTheme().getPanelColor());
         tabbedPane.setForeground(ThemeManager.getCurrentTheme().getTextColor());
 
-        if (dashboardPanel != null) dashboardPanel.updateTheme();
+        dashboardTab.ifCreated(DashboardPanel::updateTheme);
         if (chartsPanel != null) chartsPanel.updateTheme();
-        if (aiAssistantPanel != null) aiAssistantPanel.updateTheme();
-        if (enhancedImportPanel != null) enhancedImportPanel.updateTheme();
-        if (machineLearningPanel != null) machineLearningPanel.updateTheme();
+        aiAssistantTab.ifCreated(AIAssistantPanel::updateTheme);
+        importTab.ifCreated(EnhancedFileImportPanel::updateTheme);
+        machineLearningTab.ifCreated(MachineLearningPanel::updateTheme);
 
         updateComponentTheme(this.mainPanel);
 
@@ -1032,4 +1137,77 @@ public class ModernMainView {
     public void setDataController(DataController controller) {
         this.dataController = controller;
     }
-}
\ No newline at end of file
+
+    /** Scheduler for the background work started from the view; its progress is shown in the status bar. */
+    public void setTaskScheduler(TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+        scheduler.addProgressListener((key, percent, message) ->
+                setStatusMessage(percent >= 0 ? "🔄 " + message + "... " + percent + "%" : "🔄 " + message + "..."));
+    }
+    /**
+     * Loads the classes behind the tabs that are not built yet, so that opening them later does
+     * not wait for the class loading and static setup of the scripting, machine learning and chart
+     * libraries. Blocks the calling thread; call it from a background thread of its own rather
+     * than from the task scheduler, whose workers are kept for the user's loads. The tabs
+     * themselves are still built on first use.
+     */
+    public void prewarm() {
+        if (Boolean.getBoolean(PREWARM_DISABLED_PROPERTY)) {
+            return;
+        }
+        ClassLoader loader = ModernMainView.class.getClassLoader();
+        long start = System.nanoTime();
+        int loaded = 0;
+        for (String name : PREWARM_CLASSES) {
+            try {
+                Class.forName(name, true, loader);
+                loaded++;
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.debug("Could not prewarm {}: {}", name, e.toString());
+            }
+        }
+        logger.info("Prewarmed {} classes in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * A tab that shows a placeholder until it is selected or {@link #get()} is called, and only
+     * then builds its panel. Keeps the libraries of rarely used tabs out of the startup path.
+     */
+    private final class LazyTab<T extends JComponent> {
+        private final String title;
+        private final Supplier<T> factory;
+        private final JPanel placeholder = new JPanel(new BorderLayout());
+        private T panel;
+
+        LazyTab(String title, String tooltip, Supplier<T> factory) {
+            this.title = title;
+            this.factory = factory;
+            JLabel loadingLabel = new JLabel("Loading...", SwingConstants.CENTER);
+            loadingLabel.setForeground(ThemeManager.getCurrentTheme().getTextColor());
+            placeholder.add(loadingLabel, BorderLayout.CENTER);
+            tabbedPane.addTab(title, null, placeholder, tooltip);
+        }
+
+        /** The panel, built and put in place of the placeholder on the first call. */
+        T get() {
+            if (panel == null) {
+                long start = System.nanoTime();
+                panel = factory.get();
+                tabbedPane.setComponentAt(tabbedPane.indexOfComponent(placeholder), panel);
+                logger.info("Built the {} tab in {} ms", title, (System.nanoTime() - start) / 1_000_000);
+            }
+            return panel;
+        }
+
+        boolean isPlaceholder(Component component) {
+            return panel == null && component == placeholder;
+        }
+
+        /** Runs action with the panel if it has been built; panels built later read the current state. */
+        void ifCreated(Consumer<T> action) {
+            if (panel != null) {
+                action.accept(panel);
+            }
+        }
+    }
+}
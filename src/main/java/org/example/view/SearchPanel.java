@@ -18,7 +18,7 @@ public class SearchPanel extends JPanel {
 
         JPanel searchControlsPanel = new JPanel(new BorderLayout());
         searchField = new JTextField();
-        searchField.setToolTipText("Enter search terms (CPV code, name, or description)");
+        searchField.setToolTipText("Enter search terms (CPV code, name, or description); filters: cpv:45 value>100000 month:3-6 source:buget");
         searchButton = new JButton("Search");
 
         searchControlsPanel.add(new JLabel("Search: "), BorderLayout.WEST);
@@ -1,23 +1,22 @@
 package org.example.view;
 
 import org.example.theme.ThemeManager;
-import org.example.util.SoundManager;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
 
+/**
+ * Window shown while the application starts. Startup reports its steps through
+ * {@link #setProgress(int, String)} and closes it with {@link #finish()} once the main window is up.
+ */
 public class SplashScreen extends JWindow {
     private static final int WIDTH = 500;
     private static final int HEIGHT = 300;
-    private static final int DISPLAY_DURATION = 3000;
 
     private JProgressBar progressBar;
-    private Timer timer;
-    private int progress = 0;
+    private JLabel loadingLabel;
 
     public SplashScreen() {
         setSize(WIDTH, HEIGHT);
@@ -61,7 +60,7 @@ public class SplashScreen extends JWindow {
         JLabel logoLabel = new JLabel(createAppIcon(100, 100));
         logoLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        JLabel loadingLabel = new JLabel("Loading...");
+        loadingLabel = new JLabel("Loading...");
         loadingLabel.setFont(new Font("Arial", Font.ITALIC, 14));
         loadingLabel.setForeground(ThemeManager.getCurrentTheme().getTextColor());
         loadingLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -122,27 +121,24 @@ public class SplashScreen extends JWindow {
 
     public void showSplash() {
         setVisible(true);
+        paintNow();
+    }
 
-        SoundManager.playSound(SoundManager.SOUND_STARTUP);
+    /** Shows a startup step; called on the event dispatch thread, so it paints right away. */
+    public void setProgress(int percent, String message) {
+        progressBar.setValue(percent);
+        loadingLabel.setText(message);
+        paintNow();
+    }
 
-        timer = new Timer(30, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                progress += 1;
-                progressBar.setValue(progress);
-
-                if (progress >= 100) {
-                    timer.stop();
-
-                    Timer closeTimer = new Timer(500, event -> {
-                        dispose();
-                    });
-                    closeTimer.setRepeats(false);
-                    closeTimer.start();
-                }
-            }
-        });
+    public void finish() {
+        progressBar.setValue(100);
+        dispose();
+    }
 
-        timer.start();
+    // Startup keeps the event dispatch thread busy, so waiting for a repaint would show nothing
+    private void paintNow() {
+        JComponent content = (JComponent) getContentPane();
+        content.paintImmediately(0, 0, content.getWidth(), content.getHeight());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+@echo off
+rem Starts the CPV Analysis Tool from the jar next to this script, with the class data sharing
+rem archive built by "mvn -Pcds package" when it is there; see cpv-analysis-tool.sh.
+setlocal
+set "JAR=%~dp0cpv-analysis-tool.jar"
+set "ARCHIVE=%~dp0cpv-analysis-tool.jsa"
+
+if exist "%ARCHIVE%" (
+    start "" javaw -XX:SharedArchiveFile="%ARCHIVE%" -Xlog:cds=off -Xlog:cds+dynamic=off %JAVA_OPTS% -jar "%JAR%" %*
+) else (
+    start "" javaw %JAVA_OPTS% -jar "%JAR%" %*
+)
@@ -0,0 +1,13 @@
+#!/bin/sh
+# Starts the CPV Analysis Tool from the jar next to this script. When the class data sharing
+# archive built by "mvn -Pcds package" is there too, the JVM maps the application classes from it
+# instead of loading them from the jar. An archive from another JDK or for a rebuilt jar is
+# ignored, so a stale one only costs the speed-up; build it again to get that back.
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/cpv-analysis-tool.jar"
+ARCHIVE="$DIR/cpv-analysis-tool.jsa"
+
+if [ -f "$ARCHIVE" ]; then
+    exec java -XX:SharedArchiveFile="$ARCHIVE" -Xlog:cds=off -Xlog:cds+dynamic=off $JAVA_OPTS -jar "$JAR" "$@"
+fi
+exec java $JAVA_OPTS -jar "$JAR" "$@"
@@ -0,0 +1,81 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemDiffTest {
+
+    @Test
+    void duplicateRowsAreMatchedOneToOne() {
+        ProcurementItem a1 = item("Hartie copiator", 1500);
+        ProcurementItem a1Copy = item("Hartie copiator", 1500);
+        ProcurementItem b2 = item("Toner imprimanta", 2000);
+        ProcurementItem c3 = item("Servicii curatenie", 3000);
+
+        ItemDiff diff = ItemDiff.between(List.of(a1, a1Copy, b2), List.of(item("Hartie copiator", 1500),
+                item("Toner imprimanta", 2000), c3));
+
+        assertEquals(2, diff.getUnchangedCount());
+        assertEquals(List.of(c3), diff.getAdded());
+        assertEquals(1, diff.getRemoved().size());
+        assertEquals("Hartie copiator", diff.getRemoved().get(0).getObjectName());
+        assertEquals(2, diff.size());
+    }
+
+    @Test
+    void addedDuplicateOfAnExistingRow() {
+        ProcurementItem extra = item("Hartie copiator", 1500);
+        ItemDiff diff = ItemDiff.between(List.of(item("Hartie copiator", 1500)),
+                List.of(item("Hartie copiator", 1500), extra));
+
+        assertEquals(1, diff.getUnchangedCount());
+        assertEquals(1, diff.getAdded().size());
+        assertSame(extra, diff.getAdded().get(0));
+        assertTrue(diff.getRemoved().isEmpty());
+    }
+
+    @Test
+    void identicalListsWithDuplicatesAreEmpty() {
+        List<ProcurementItem> previous = List.of(item("A", 1), item("A", 1), item("A", 1), item("B", 2));
+        List<ProcurementItem> current = List.of(item("B", 2), item("A", 1), item("A", 1), item("A", 1));
+
+        ItemDiff diff = ItemDiff.between(previous, current);
+        assertTrue(diff.isEmpty());
+        assertEquals(4, diff.getUnchangedCount());
+    }
+
+    @Test
+    void anyChangedFieldMakesADifferentRow() {
+        ProcurementItem original = item("Lucrari reparatii", 10_000);
+        ProcurementItem otherValue = item("Lucrari reparatii", 10_000);
+        otherValue.setValueWithTVA(12_000);
+        ProcurementItem otherCode = item("Lucrari reparatii", 10_000);
+        otherCode.setCpvCodes(new ArrayList<>(List.of("45000000-7", "45400000-1")));
+        ProcurementItem otherDate = item("Lucrari reparatii", 10_000);
+        otherDate.setCompletionDate("30/06/2025");
+
+        for (ProcurementItem changed : List.of(otherValue, otherCode, otherDate)) {
+            ItemDiff diff = ItemDiff.between(List.of(original), List.of(changed));
+            assertEquals(0, diff.getUnchangedCount());
+            assertSame(changed, diff.getAdded().get(0));
+            assertSame(original, diff.getRemoved().get(0));
+        }
+    }
+
+    private static ProcurementItem item(String name, double value) {
+        ProcurementItem item = new ProcurementItem();
+        item.setObjectName(name);
+        item.setCpvField("45000000-7 - Lucrari de constructii");
+        item.setSource("Buget local");
+        item.setInitiationDate("01/03/2025");
+        item.setCompletionDate("31/05/2025");
+        item.setCpvCodes(new ArrayList<>(List.of("45000000-7")));
+        item.setValueWithoutTVA(value);
+        item.setValueWithTVA(value * 1.19);
+        return item;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapItemListTest {
+
+    @Test
+    void searchResultCanBeSelectedAfterAnOffHeapLoad() {
+        for (ItemStorage storage : new ItemStorage[]{ItemStorage.DIRECT, ItemStorage.MAPPED}) {
+            DataModel model = new DataModel();
+            model.setItemStorage(storage);
+            model.setProcurementItems(List.of(item("Hartie copiator", 1500, "30192000"),
+                    item("Lucrari reparatii", 50_000, "45000000"), item("Toner imprimanta", 2000, "30125100")));
+
+            List<ProcurementItem> items = model.getProcurementItems();
+            assertTrue(items instanceof OffHeapItemList, storage.name());
+
+            DefaultListModel<ProcurementItem> listModel = new DefaultListModel<>();
+            items.forEach(listModel::addElement);
+            JList<ProcurementItem> list = new JList<>(listModel);
+
+            ProcurementItem found = model.searchProcurementItems("reparatii").get(0);
+            list.setSelectedValue(found, false);
+            assertEquals(1, list.getSelectedIndex(), storage.name());
+            assertSame(found, list.getSelectedValue());
+            assertEquals(1, items.indexOf(found));
+            assertTrue(items.contains(found));
+        }
+    }
+
+    @Test
+    void rowsKeepTheirIdentityWhileHeld() throws Exception {
+        List<ProcurementItem> source = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            source.add(item("Obiect " + i, i, "45000000"));
+        }
+        OffHeapItemList items = OffHeapItemList.copyOf(source, ItemStorage.DIRECT);
+
+        Map<ProcurementItem, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < items.size(); i += 7) {
+            positions.put(items.get(i), i);
+        }
+        System.gc();
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i);
+        }
+
+        Map<Integer, ProcurementItem> byIndex = new HashMap<>();
+        positions.forEach((item, index) -> byIndex.put(index, item));
+        for (Map.Entry<Integer, ProcurementItem> entry : byIndex.entrySet()) {
+            assertSame(entry.getValue(), items.get(entry.getKey()));
+            assertEquals("Obiect " + entry.getKey(), entry.getValue().getObjectName());
+        }
+    }
+
+    private static ProcurementItem item(String name, double value, String... codes) {
+        ProcurementItem item = new ProcurementItem();
+        item.setObjectName(name);
+        item.setSource("Buget local");
+        item.setCpvCodes(new ArrayList<>(List.of(codes)));
+        item.setValueWithoutTVA(value);
+        item.setValueWithTVA(value * 1.19);
+        return item;
+    }
+}
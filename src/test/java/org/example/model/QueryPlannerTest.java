@@ -0,0 +1,57 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlannerTest {
+
+    @Test
+    void divisionGroupsUseTheSameMembershipAsTheDivisionFilter() {
+        DataModel model = new DataModel();
+        model.setProcurementItems(List.of(
+                item("Mobilier si lucrari", 100, "30000000-9", "45000000-7"),
+                item("Lucrari reparatii", 200, "45000000-7"),
+                item("Hartie copiator", 50, "30000000-9"),
+                item("Fara cod", 10)));
+
+        QueryResult filtered = model.query(ItemQuery.all().cpvPrefix("45").groupBy(ItemQuery.GroupBy.CPV_DIVISION));
+        assertEquals(2, filtered.getCount());
+        Map<String, QueryResult.Group> groups = byKey(filtered);
+        assertEquals(2, groups.get("45").getCount());
+        assertEquals(300, groups.get("45").getTotalValue(), 1e-9);
+        assertEquals(1, groups.get("30").getCount());
+        assertFalse(groups.containsKey(AttributeBitmaps.UNKNOWN));
+
+        Map<String, QueryResult.Group> all = byKey(model.query(ItemQuery.all().groupBy(ItemQuery.GroupBy.CPV_DIVISION)));
+        assertEquals(2, all.get("30").getCount());
+        assertEquals(2, all.get("45").getCount());
+        assertEquals(1, all.get(AttributeBitmaps.UNKNOWN).getCount());
+        assertEquals(10, all.get(AttributeBitmaps.UNKNOWN).getTotalValue(), 1e-9);
+    }
+
+    private static Map<String, QueryResult.Group> byKey(QueryResult result) {
+        Map<String, QueryResult.Group> groups = new LinkedHashMap<>();
+        for (QueryResult.Group group : result.getGroups()) {
+            groups.put(group.getKey(), group);
+        }
+        return groups;
+    }
+
+    private static ProcurementItem item(String name, double value, String... codes) {
+        ProcurementItem item = new ProcurementItem();
+        item.setObjectName(name);
+        item.setSource("Buget local");
+        item.setInitiationDate("01/03/2025");
+        item.setCompletionDate("31/05/2025");
+        item.setCpvCodes(new ArrayList<>(List.of(codes)));
+        item.setValueWithoutTVA(value);
+        item.setValueWithTVA(value * 1.19);
+        return item;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompensatedSumTest {
+
+    @Test
+    void keepsSmallTermsNextToLargeOnes() {
+        assertEquals(1.0, CompensatedSum.sum(new double[]{1e16, 1.0, -1e16}, 0, 3));
+        // The larger term comes second, which plain Kahan summation loses
+        assertEquals(2.0, CompensatedSum.sum(new double[]{1.0, 1e100, 1.0, -1e100}, 0, 4));
+    }
+
+    @Test
+    void tenthsAddUpToOne() {
+        double[] values = new double[10];
+        Arrays.fill(values, 0.1);
+
+        double naive = 0;
+        for (double value : values) {
+            naive += value;
+        }
+        assertNotEquals(1.0, naive);
+        assertEquals(1.0, CompensatedSum.sum(values, 0, values.length));
+    }
+
+    @Test
+    void matchesExactSumOfManyRonValues() {
+        double[] values = randomAmounts(300_000, 42);
+        assertEquals(exactSum(values, 0, values.length), CompensatedSum.sum(values, 0, values.length));
+        assertEquals(exactSum(values, 1000, 2000), CompensatedSum.sum(values, 1000, 2000));
+        assertEquals(0.0, CompensatedSum.sum(values, 5, 5));
+    }
+
+    @Test
+    void removingEveryValueReturnsToZero() {
+        double[] values = randomAmounts(50_000, 7);
+        double[] sums = CompensatedSum.create(1);
+        for (double value : values) {
+            CompensatedSum.add(sums, 0, value);
+        }
+        for (int i = values.length - 1; i >= 0; i -= 2) {
+            CompensatedSum.add(sums, 0, -values[i]);
+        }
+        for (int i = values.length - 2; i >= 0; i -= 2) {
+            CompensatedSum.add(sums, 0, -values[i]);
+        }
+        assertEquals(0.0, CompensatedSum.get(sums, 0));
+    }
+
+    @Test
+    void accumulatorsAreIndependent() {
+        double[] sums = CompensatedSum.create(3);
+        CompensatedSum.add(sums, 0, 1e16);
+        CompensatedSum.add(sums, 0, 1.0);
+        CompensatedSum.add(sums, 2, 0.5);
+        CompensatedSum.add(sums, 0, -1e16);
+
+        assertEquals(1.0, CompensatedSum.get(sums, 0));
+        assertEquals(0.0, CompensatedSum.get(sums, 1));
+        assertEquals(0.5, CompensatedSum.get(sums, 2));
+    }
+
+    @Test
+    void mergeCarriesTheCompensation() {
+        double[] values = randomAmounts(100_000, 3);
+        int half = values.length / 2;
+
+        double[] left = CompensatedSum.create(1);
+        double[] right = CompensatedSum.create(2);
+        for (int i = 0; i < half; i++) {
+            CompensatedSum.add(left, 0, values[i]);
+        }
+        for (int i = half; i < values.length; i++) {
+            CompensatedSum.add(right, 1, values[i]);
+        }
+        CompensatedSum.merge(left, 0, right, 1);
+
+        assertEquals(exactSum(values, 0, values.length), CompensatedSum.get(left, 0));
+
+        double[] lost = CompensatedSum.create(1);
+        CompensatedSum.add(lost, 0, 1e16);
+        CompensatedSum.add(lost, 0, 1.0);
+        double[] target = CompensatedSum.create(1);
+        CompensatedSum.add(target, 0, -1e16);
+        CompensatedSum.merge(target, 0, lost, 0);
+        assertEquals(1.0, CompensatedSum.get(target, 0));
+    }
+
+    @Test
+    void addAtUsesTheGivenSlotPair() {
+        double[] sums = {7.0, 0.0, 0.0};
+        CompensatedSum.addAt(sums, 1, 1e16);
+        CompensatedSum.addAt(sums, 1, 1.0);
+        CompensatedSum.addAt(sums, 1, -1e16);
+
+        assertEquals(7.0, sums[0]);
+        assertEquals(1.0, sums[1] + sums[2]);
+    }
+
+    private static double[] randomAmounts(int count, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            // Cents, from small purchases to large works contracts
+            values[i] = random.nextInt(100_000_000) / 100.0 * (random.nextInt(10) == 0 ? 1000 : 1);
+        }
+        return values;
+    }
+
+    private static double exactSum(double[] values, int from, int to) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = from; i < to; i++) {
+            total = total.add(new BigDecimal(values[i]));
+        }
+        return total.doubleValue();
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvDialectSnifferTest {
+
+    @Test
+    void windows1250WithoutBom() throws IOException {
+        String text = "Obiectul achiziţiei;Valoare;Sursa\n"
+                + "Lucrări de reparaţii;1.234,50;Buget local\n"
+                + "Achiziţie mobilier şcoală;200;Fonduri externe\n";
+        BufferedInputStream in = stream(text.getBytes(Charset.forName("windows-1250")));
+
+        CsvDialect dialect = CsvDialectSniffer.sniff(in);
+        assertEquals(Charset.forName("windows-1250"), dialect.getCharset());
+        assertEquals(0, dialect.getBomLength());
+        assertEquals(';', dialect.getDelimiter());
+        assertTrue(dialect.hasHeader());
+
+        List<List<String>> records = readAll(dialect, in);
+        assertEquals(3, records.size());
+        assertEquals(List.of("Obiectul achiziţiei", "Valoare", "Sursa"), records.get(0));
+        assertEquals(List.of("Lucrări de reparaţii", "1.234,50", "Buget local"), records.get(1));
+        assertEquals("Achiziţie mobilier şcoală", records.get(2).get(0));
+    }
+
+    @Test
+    void utf8WithoutBom() throws IOException {
+        String text = "Obiect,Valoare\nLucrări de reparaţii,100\n";
+        BufferedInputStream in = stream(text.getBytes(StandardCharsets.UTF_8));
+
+        CsvDialect dialect = CsvDialectSniffer.sniff(in);
+        assertEquals(StandardCharsets.UTF_8, dialect.getCharset());
+        assertEquals("Lucrări de reparaţii", readAll(dialect, in).get(1).get(0));
+    }
+
+    @Test
+    void utf8BomIsSkipped() throws IOException {
+        byte[] body = "Obiect;Valoare\nA;1\n".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[body.length + 3];
+        bytes[0] = (byte) 0xEF;
+        bytes[1] = (byte) 0xBB;
+        bytes[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, bytes, 3, body.length);
+        BufferedInputStream in = stream(bytes);
+
+        CsvDialect dialect = CsvDialectSniffer.sniff(in);
+        assertEquals(3, dialect.getBomLength());
+        assertEquals(List.of("Obiect", "Valoare"), readAll(dialect, in).get(0));
+    }
+
+    @Test
+    void quotedNewlinesDoNotSplitRecords() throws IOException {
+        String text = "Obiect,Valoare,Sursa\r\n"
+                + "\"Servicii de curatenie\r\nsi intretinere\",1500,Buget local\r\n"
+                + "\"Lot 2, \"\"urgent\"\"\",200,Fonduri externe\r\n"
+                + "Simplu,300,Buget de stat\r\n";
+        BufferedInputStream in = stream(text.getBytes(StandardCharsets.UTF_8));
+
+        CsvDialect dialect = CsvDialectSniffer.sniff(in);
+        assertEquals(',', dialect.getDelimiter());
+        assertEquals('"', dialect.getQuoteChar());
+        assertEquals("\r\n", dialect.getLineTerminator());
+
+        List<List<String>> records = readAll(dialect, in);
+        assertEquals(4, records.size());
+        assertEquals(List.of("Servicii de curatenie\r\nsi intretinere", "1500", "Buget local"), records.get(1));
+        assertEquals(List.of("Lot 2, \"urgent\"", "200", "Fonduri externe"), records.get(2));
+        assertEquals(List.of("Simplu", "300", "Buget de stat"), records.get(3));
+    }
+
+    private static BufferedInputStream stream(byte[] bytes) {
+        return new BufferedInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static List<List<String>> readAll(CsvDialect dialect, BufferedInputStream in) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvRecordReader reader = dialect.openReader(in)) {
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void quotedFieldsKeepLineBreaks() throws IOException {
+        List<List<String>> records = read("a,\"line 1\nline 2\",c\n\"x\r\ny\",2,3\n", ',');
+        assertEquals(List.of(List.of("a", "line 1\nline 2", "c"), List.of("x\r\ny", "2", "3")), records);
+    }
+
+    @Test
+    void doubledQuotesAndDelimitersInsideQuotes() throws IOException {
+        List<List<String>> records = read("\"say \"\"da\"\"\";\"1;2\";\"\"\n", ';');
+        assertEquals(List.of(List.of("say \"da\"", "1;2", "")), records);
+    }
+
+    @Test
+    void crLfAndCrEndRecords() throws IOException {
+        List<List<String>> records = read("a,b\r\nc,d\re,f", ',');
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e", "f")), records);
+    }
+
+    @Test
+    void blankRecordsAreSkippedButEmptyFieldsKept() throws IOException {
+        // Lines with only whitespace or delimiters carry no content, a quoted empty field does
+        List<List<String>> records = read("a,,c\n\n   \n,,\n\"\"\n", ',');
+        assertEquals(List.of(List.of("a", "", "c"), List.of("")), records);
+    }
+
+    @Test
+    void quotedFieldSpanningTheReadBuffer() throws IOException {
+        String longValue = "x".repeat(10_000) + "\n" + "y".repeat(10_000);
+        List<List<String>> records = read("\"" + longValue + "\",1\nnext,2\n", ',');
+        assertEquals(2, records.size());
+        assertEquals(longValue, records.get(0).get(0));
+        assertEquals(List.of("next", "2"), records.get(1));
+    }
+
+    private static List<List<String>> read(String text, char delimiter) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(text), delimiter, '"')) {
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexSortTest {
+
+    @Test
+    void matchesAStableSortInBothDirections() {
+        Random random = new Random(17);
+        for (int length : new int[]{0, 1, 2, 31, 32, 33, 1000, 50_000}) {
+            double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                // Many ties, negative values and zeros of both signs
+                values[i] = random.nextInt(8) == 0 ? -0.0 : random.nextInt(200) - 50;
+            }
+
+            for (boolean descending : new boolean[]{false, true}) {
+                int[] indexes = IntStream.range(0, length).toArray();
+                IndexSort.sortByValue(indexes, values, descending);
+                assertArrayEquals(stableSort(values, descending), indexes, "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void sortsOnlyTheGivenRangeOfASelection() {
+        double[] values = {5, 1, 4, 1, 3, 9, 2};
+        int[] selection = {6, 0, 3, 1, 5, 2};
+        IndexSort.sortByValue(selection, 1, 5, values, true);
+        assertArrayEquals(new int[]{6, 5, 0, 3, 1, 2}, selection);
+    }
+
+    @Test
+    void nanSortsLastAscending() {
+        double[] values = {Double.NaN, 2, Double.NEGATIVE_INFINITY, 1};
+        int[] indexes = {0, 1, 2, 3};
+        IndexSort.sortByValue(indexes, values, false);
+        assertArrayEquals(new int[]{2, 3, 1, 0}, indexes);
+    }
+
+    private static int[] stableSort(double[] values, boolean descending) {
+        Comparator<Integer> byValue = (a, b) -> Double.compare(values[a], values[b]);
+        return IntStream.range(0, values.length)
+                .boxed()
+                .sorted(descending ? byValue.reversed() : byValue)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelAggregatorTest {
+
+    @Test
+    void topIndexesMatchAStableSort() {
+        Random random = new Random(5);
+        double[] values = new double[3 * ParallelAggregator.CHUNK_SIZE + 17];
+        for (int i = 0; i < values.length; i++) {
+            // Few distinct values, so ties cross chunk boundaries; some zero and negative values
+            values[i] = random.nextInt(40) - 5;
+        }
+
+        for (int n : new int[]{0, 1, 10, 500, values.length, values.length + 5}) {
+            int[] expected = stableTop(values, n);
+            assertArrayEquals(expected, ParallelAggregator.topIndexes(values, n), "n=" + n);
+            assertArrayEquals(expected, withThreshold(1, () -> ParallelAggregator.topIndexes(values, n)), "n=" + n);
+        }
+    }
+
+    @Test
+    void topIndexesSkipNonPositiveValues() {
+        double[] values = {0, -3, Double.NaN, 2, 2, 7, -0.0};
+        assertArrayEquals(new int[]{5, 3, 4}, ParallelAggregator.topIndexes(values, 10));
+        assertArrayEquals(new int[]{5, 3}, ParallelAggregator.topIndexes(values, 2));
+        assertArrayEquals(new int[0], ParallelAggregator.topIndexes(new double[]{0, -1}, 3));
+    }
+
+    @Test
+    void sumsDependOnTheLengthOnly() {
+        Random random = new Random(9);
+        double[] values = new double[100_000];
+        int[] groups = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(100_000_000) / 100.0;
+            groups[i] = random.nextInt(5) - 1;
+        }
+
+        double sum = ParallelAggregator.sum(values);
+        ParallelAggregator.GroupTotals totals = ParallelAggregator.sumByGroup(values, groups, 4);
+        for (int run = 0; run < 5; run++) {
+            assertEquals(sum, ParallelAggregator.sum(values));
+            ParallelAggregator.GroupTotals again = ParallelAggregator.sumByGroup(values, groups, 4);
+            for (int group = 0; group < 4; group++) {
+                assertEquals(totals.getCount(group), again.getCount(group));
+                assertEquals(totals.getSum(group), again.getSum(group));
+            }
+        }
+
+        int skipped = 0;
+        int counted = 0;
+        for (int group : groups) {
+            if (group < 0) skipped++;
+        }
+        for (int group = 0; group < 4; group++) {
+            counted += totals.getCount(group);
+        }
+        assertEquals(values.length - skipped, counted);
+        assertEquals(CompensatedSum.sum(values, 0, values.length), sum, 1e-6);
+    }
+
+    private static int[] stableTop(double[] values, int n) {
+        return IntStream.range(0, values.length)
+                .filter(i -> values[i] > 0)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> values[i]).reversed())
+                .limit(n)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private interface Call {
+        int[] run();
+    }
+
+    private static int[] withThreshold(int threshold, Call call) {
+        String previous = System.getProperty(ParallelAggregator.THRESHOLD_PROPERTY);
+        System.setProperty(ParallelAggregator.THRESHOLD_PROPERTY, String.valueOf(threshold));
+        try {
+            return call.run();
+        } finally {
+            if (previous == null) {
+                System.clearProperty(ParallelAggregator.THRESHOLD_PROPERTY);
+            } else {
+                System.setProperty(ParallelAggregator.THRESHOLD_PROPERTY, previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.example.util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.model.CpvCode;
+import org.example.model.ProcurementAggregates;
+import org.example.model.ProcurementItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcurementWorkbookLoaderTest {
+
+    private static final String[] FULL_HEADERS = {"Nr. crt.", "Obiectul achiziției", "Cod CPV",
+            "Valoare estimată fără TVA", "Valoare estimată cu TVA", "Sursa de finanțare",
+            "Data estimată pentru inițiere", "Data estimată pentru finalizare"};
+
+    @Test
+    void headerIsFoundBelowTitleRows() throws IOException {
+        File file = workbook(sheet -> {
+            row(sheet, 0, "PROGRAMUL ANUAL AL ACHIZIȚIILOR PUBLICE 2025");
+            row(sheet, 1, "Primăria Exemplu");
+            row(sheet, 3, (Object[]) FULL_HEADERS);
+            row(sheet, 4, 1, "Hârtie copiator", "30192000-1 - Articole de birou", 1000, 1190,
+                    "Buget local", "01/03/2025", "31/03/2025");
+            row(sheet, 5, 2, "Lucrări reparații", "45000000-7", 50000, 59500,
+                    "Fonduri externe", "01/06/2025", "30/09/2025");
+        });
+
+        ProcurementWorkbookLoader.LoadResult<List<ProcurementItem>> result =
+                ProcurementWorkbookLoader.readProcurementItems(file);
+        CompatibilityReport report = result.getReport();
+        assertEquals(CompatibilityReport.Level.FULL, report.getLevel());
+        assertEquals(3, report.getHeaderRow());
+        assertEquals("PAAP", report.getSheetName());
+        assertEquals(2, report.getRecordCount());
+        assertTrue(report.getIssues().isEmpty());
+
+        List<ProcurementItem> items = result.getData();
+        assertEquals(2, items.size());
+        ProcurementItem first = items.get(0);
+        assertEquals("Hârtie copiator", first.getObjectName());
+        assertEquals("30192000-1 - Articole de birou", first.getCpvField());
+        assertEquals(1000.0, first.getValueWithoutTVA());
+        assertEquals(1190.0, first.getValueWithTVA());
+        assertEquals("Buget local", first.getSource());
+        assertEquals("01/03/2025", first.getInitiationDate());
+        assertEquals("31/03/2025", first.getCompletionDate());
+    }
+
+    @Test
+    void noHeaderRowIsIncompatible() throws IOException {
+        File file = workbook(sheet -> {
+            row(sheet, 0, "Lista", "Suma");
+            row(sheet, 1, "Hârtie", 100);
+        });
+
+        ProcurementWorkbookLoader.LoadResult<List<ProcurementItem>> result =
+                ProcurementWorkbookLoader.readProcurementItems(file);
+        assertEquals(CompatibilityReport.Level.INCOMPATIBLE, result.getCompatibilityLevel());
+        assertFalse(result.isCompatible());
+        assertEquals(1, result.getIssues().size());
+        assertEquals(1, result.getRecommendations().size());
+        assertTrue(result.getData().isEmpty());
+    }
+
+    @Test
+    void textInTheValueColumnIsIncompatible() throws IOException {
+        File file = workbook(sheet -> {
+            row(sheet, 0, (Object[]) FULL_HEADERS);
+            for (int i = 1; i <= 5; i++) {
+                row(sheet, i, i, "Item " + i, "30192000-1", "de stabilit", "de stabilit", "Buget local",
+                        "01/03/2025", "31/03/2025");
+            }
+        });
+
+        CompatibilityReport report = ProcurementWorkbookLoader.readProcurementItems(file).getReport();
+        assertEquals(CompatibilityReport.Level.INCOMPATIBLE, report.getLevel());
+        assertEquals(List.of("The value column contains mostly non-numeric data"), report.getIssues());
+    }
+
+    @Test
+    void missingOptionalColumnsLowerTheLevel() throws IOException {
+        // Only the financing source is missing
+        File mostly = workbook(sheet -> {
+            row(sheet, 0, "Obiectul achizitiei", "Cod CPV", "Valoare fara TVA", "Valoare cu TVA",
+                    "Data initiere");
+            row(sheet, 1, "Hârtie", "30192000-1", 100, 119, "01/03/2025");
+        });
+        ProcurementWorkbookLoader.LoadResult<List<ProcurementItem>> result =
+                ProcurementWorkbookLoader.readProcurementItems(mostly);
+        assertEquals(CompatibilityReport.Level.MOSTLY, result.getCompatibilityLevel());
+        assertTrue(result.getCompatibilityLevel().hasWarnings());
+        assertEquals(List.of("No financing source column found"), result.getIssues());
+        assertEquals(1, result.getData().size());
+
+        // No CPV column counts twice, plus the missing dates
+        File partial = workbook(sheet -> {
+            row(sheet, 0, "Obiectul achizitiei", "Valoare fara TVA", "Valoare cu TVA", "Sursa");
+            row(sheet, 1, "Hârtie", 100, 119, "Buget local");
+        });
+        result = ProcurementWorkbookLoader.readProcurementItems(partial);
+        assertEquals(CompatibilityReport.Level.PARTIAL, result.getCompatibilityLevel());
+        assertEquals(2, result.getIssues().size());
+        assertEquals(1, result.getData().size());
+        assertTrue(result.getData().get(0).getCpvCodes().isEmpty());
+    }
+
+    @Test
+    void unreadableFileThrows() throws IOException {
+        // A zip archive that is not an Office document
+        File file = File.createTempFile("not-a-workbook", ".xlsx");
+        file.deleteOnExit();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write("not a workbook".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        assertThrows(IOException.class, () -> ProcurementWorkbookLoader.readProcurementItems(file));
+    }
+
+    @Test
+    void failureWhileReadingRowsIsAnError() throws IOException {
+        File file = workbook(sheet -> {
+            row(sheet, 0, (Object[]) FULL_HEADERS);
+            row(sheet, 1, 1, "Hârtie", "30192000-1", 100, 119, "Buget local", "01/03/2025", "31/03/2025");
+        });
+
+        CompatibilityReport report = ProcurementWorkbookLoader.readProcurementItems(file, item -> {
+            throw new IllegalStateException("sink failed");
+        });
+        assertEquals(CompatibilityReport.Level.ERROR, report.getLevel());
+        assertFalse(report.isCompatible());
+        assertEquals(List.of("Could not read workbook: sink failed"), report.getIssues());
+    }
+
+    @Test
+    void cpvCodesAreKeyedWithoutCheckDigit() throws IOException {
+        File paap = workbook(sheet -> {
+            row(sheet, 0, (Object[]) FULL_HEADERS);
+            row(sheet, 1, 1, "Produse agricole", "03000000", 100, 119, "Buget local", "01/03/2025", "");
+            row(sheet, 2, 2, "Lucrări", "45000000 - 7 Lucrari; 45400000-1 Finisaje", 100, 119,
+                    "Buget local", "01/03/2025", "");
+            row(sheet, 3, 3, "Fără cod", "de stabilit", 100, 119, "Buget local", "01/03/2025", "");
+        });
+        File cpv = workbook(sheet -> {
+            row(sheet, 0, "Cod CPV", "Denumire romana", "English description");
+            row(sheet, 1, "03000000-1", "Produse agricole", "Agricultural products");
+            row(sheet, 2, "45000000-7", "Lucrari de constructii", "Construction work");
+        });
+
+        List<ProcurementItem> items = ProcurementWorkbookLoader.readProcurementItems(paap).getData();
+        assertEquals(List.of("03000000"), items.get(0).getCpvCodes());
+        assertEquals(List.of("45000000", "45400000"), items.get(1).getCpvCodes());
+        assertTrue(items.get(2).getCpvCodes().isEmpty());
+
+        ProcurementWorkbookLoader.LoadResult<Map<String, CpvCode>> codes = ProcurementWorkbookLoader.readCpvCodes(cpv);
+        assertEquals(CompatibilityReport.Level.FULL, codes.getCompatibilityLevel());
+        assertEquals(0, codes.getReport().getHeaderRow());
+        Map<String, CpvCode> map = codes.getData();
+        assertEquals(2, map.size());
+        assertEquals("03000000-1", map.get("03000000").getCode());
+        assertEquals("Agricultural products", map.get("03000000").getEnglishName());
+
+        // A code written without its check digit still finds its category
+        assertEquals("03", ProcurementAggregates.categoryOf(items.get(0), map));
+        assertEquals("45", ProcurementAggregates.categoryOf(items.get(1), map));
+        assertEquals(ProcurementAggregates.UNCATEGORIZED, ProcurementAggregates.categoryOf(items.get(2), map));
+    }
+
+    @Test
+    void cpvKeys() {
+        assertEquals("03000000", ProcurementWorkbookLoader.toCpvKey("03000000-1"));
+        assertEquals("03000000", ProcurementWorkbookLoader.toCpvKey(" 03000000 - 1 Produse"));
+        assertEquals("03000000", ProcurementWorkbookLoader.toCpvKey("03000000"));
+        assertNull(ProcurementWorkbookLoader.toCpvKey("Cod CPV"));
+        assertNull(ProcurementWorkbookLoader.toCpvKey("0300000"));
+        assertNull(ProcurementWorkbookLoader.toCpvKey(null));
+    }
+
+    @Test
+    void cpvListLevels() throws IOException {
+        File romanianOnly = workbook(sheet -> {
+            row(sheet, 0, "Cod", "Denumire");
+            row(sheet, 1, "03000000-1", "Produse agricole");
+        });
+        ProcurementWorkbookLoader.LoadResult<Map<String, CpvCode>> result =
+                ProcurementWorkbookLoader.readCpvCodes(romanianOnly);
+        assertEquals(CompatibilityReport.Level.MOSTLY, result.getCompatibilityLevel());
+        assertEquals("Produse agricole", result.getData().get("03000000").getRomanianName());
+
+        File codesOnly = workbook(sheet -> {
+            row(sheet, 0, "03000000-1");
+            row(sheet, 1, "09100000-0");
+        });
+        result = ProcurementWorkbookLoader.readCpvCodes(codesOnly);
+        assertEquals(CompatibilityReport.Level.PARTIAL, result.getCompatibilityLevel());
+        assertEquals(2, result.getData().size());
+
+        File noCodes = workbook(sheet -> {
+            row(sheet, 0, "Denumire", "Description");
+            row(sheet, 1, "Produse agricole", "Agricultural products");
+        });
+        result = ProcurementWorkbookLoader.readCpvCodes(noCodes);
+        assertEquals(CompatibilityReport.Level.INCOMPATIBLE, result.getCompatibilityLevel());
+        assertTrue(result.getData().isEmpty());
+    }
+
+    @Test
+    void allSheetsTakeTheLeastCompatibleLevel() throws IOException {
+        File file = File.createTempFile("paap-sheets", ".xlsx");
+        file.deleteOnExit();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet full = workbook.createSheet("Bunuri");
+            row(full, 0, (Object[]) FULL_HEADERS);
+            row(full, 1, 1, "Hârtie", "30192000-1", 100, 119, "Buget local", "01/03/2025", "31/03/2025");
+
+            Sheet notes = workbook.createSheet("Note");
+            row(notes, 0, "Observatii");
+
+            // Columns in another order and no source column
+            Sheet mostly = workbook.createSheet("Lucrari");
+            row(mostly, 0, "Cod CPV", "Valoare cu TVA", "Obiectul achizitiei", "Valoare fara TVA", "Data initiere");
+            row(mostly, 1, "45000000-7", 1190, "Reparații", 1000, "01/06/2025");
+            row(mostly, 2, "45000000-7", 2380, "Renovare", 2000, "01/07/2025");
+
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+
+        ProcurementWorkbookLoader.LoadResult<List<ProcurementItem>> result =
+                ProcurementWorkbookLoader.readAllProcurementSheets(file);
+        CompatibilityReport report = result.getReport();
+        assertEquals(CompatibilityReport.Level.MOSTLY, report.getLevel());
+        assertEquals("Bunuri, Lucrari", report.getSheetName());
+        assertEquals(3, report.getRecordCount());
+        assertEquals(List.of("Sheet 'Lucrari': No financing source column found"), report.getIssues());
+        assertEquals(2, report.getSheets().size());
+        assertEquals(1, report.getSheets().get(0).getRecordCount());
+        assertEquals(2, report.getSheets().get(1).getRecordCount());
+
+        ProcurementItem renovation = result.getData().get(2);
+        assertEquals("Renovare", renovation.getObjectName());
+        assertEquals(2000.0, renovation.getValueWithoutTVA());
+        assertEquals(2380.0, renovation.getValueWithTVA());
+    }
+
+    private interface SheetWriter {
+        void write(Sheet sheet);
+    }
+
+    private static File workbook(SheetWriter writer) throws IOException {
+        File file = Files.createTempFile("paap", ".xlsx").toFile();
+        file.deleteOnExit();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            writer.write(workbook.createSheet("PAAP"));
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+        return file;
+    }
+
+    private static void row(Sheet sheet, int index, Object... values) {
+        Row row = sheet.createRow(index);
+        for (int c = 0; c < values.length; c++) {
+            if (values[c] instanceof Number) {
+                row.createCell(c).setCellValue(((Number) values[c]).doubleValue());
+            } else {
+                row.createCell(c).setCellValue((String) values[c]);
+            }
+        }
+    }
+}
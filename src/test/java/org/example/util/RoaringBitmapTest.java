@@ -0,0 +1,173 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+
+    @Test
+    void arrayContainerLimits() {
+        for (int count : new int[]{4095, 4096, 4097}) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            TreeSet<Integer> expected = new TreeSet<>();
+            // Every third value of one chunk, added in descending order
+            for (int i = count - 1; i >= 0; i--) {
+                bitmap.add(i * 3);
+                expected.add(i * 3);
+            }
+            assertMatches(expected, bitmap);
+            assertFalse(bitmap.contains(1));
+            assertFalse(bitmap.contains(count * 3));
+        }
+    }
+
+    @Test
+    void duplicatesAroundTheConversion() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 4096; i++) {
+            bitmap.add(i);
+        }
+        bitmap.add(0);
+        bitmap.add(4095);
+        assertEquals(4096, bitmap.getCardinality());
+
+        bitmap.add(4096);
+        for (int i = 0; i <= 4096; i++) {
+            bitmap.add(i);
+        }
+        assertEquals(4097, bitmap.getCardinality());
+        assertTrue(bitmap.contains(4096));
+        assertFalse(bitmap.contains(4097));
+    }
+
+    @Test
+    void chunkBoundaries() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int[] values = {65536, 65535, 0, Integer.MAX_VALUE, 131072, 65537};
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        assertArrayEquals(new int[]{0, 65535, 65536, 65537, 131072, Integer.MAX_VALUE}, bitmap.toArray());
+        assertFalse(bitmap.contains(65534));
+        assertFalse(bitmap.contains(-1));
+
+        RoaringBitmap low = RoaringBitmap.of(new int[]{65535}, 0, 1);
+        RoaringBitmap high = RoaringBitmap.of(new int[]{65536}, 0, 1);
+        assertTrue(low.and(high).isEmpty());
+        assertArrayEquals(new int[]{65535, 65536}, low.or(high).toArray());
+    }
+
+    @Test
+    void andAcrossContainerKinds() {
+        RoaringBitmap evens = new RoaringBitmap();
+        for (int i = 0; i < 20_000; i++) {
+            evens.add(i * 2);
+        }
+        RoaringBitmap sparse = new RoaringBitmap();
+        for (int i = 0; i < 3000; i++) {
+            sparse.add(i * 7);
+        }
+
+        // Two bitmap chunks whose intersection lands exactly on the array limit and one past it
+        RoaringBitmap exactly = evens.and(RoaringBitmap.of(range(0, 8192), 0, 8192));
+        assertEquals(4096, exactly.getCardinality());
+        assertMatches(reference(evens, RoaringBitmap.of(range(0, 8192), 0, 8192), true), exactly);
+        RoaringBitmap onePast = evens.and(RoaringBitmap.of(range(0, 8194), 0, 8194));
+        assertEquals(4097, onePast.getCardinality());
+        assertTrue(onePast.contains(8192));
+
+        // Array and bitmap, both orders
+        assertMatches(reference(sparse, evens, true), sparse.and(evens));
+        assertMatches(reference(sparse, evens, true), evens.and(sparse));
+    }
+
+    @Test
+    void orAcrossContainerKinds() {
+        RoaringBitmap left = new RoaringBitmap();
+        RoaringBitmap right = new RoaringBitmap();
+        // Two arrays of 2500 that together pass 4096, plus a bitmap chunk on one side only
+        for (int i = 0; i < 2500; i++) {
+            left.add(i * 2);
+            right.add(i * 2 + 1);
+        }
+        for (int i = 0; i < 5000; i++) {
+            right.add(70_000 + i);
+        }
+        left.add(200_000);
+
+        RoaringBitmap union = left.or(right);
+        assertEquals(5000 + 5000 + 1, union.getCardinality());
+        assertMatches(reference(left, right, false), union);
+        assertMatches(reference(left, right, false), right.or(left));
+
+        RoaringBitmap all = RoaringBitmap.or(List.of(left, right, new RoaringBitmap()));
+        assertArrayEquals(union.toArray(), all.toArray());
+        assertTrue(RoaringBitmap.or(List.of()).isEmpty());
+
+        // The union is a new set
+        left.add(300_000);
+        assertFalse(union.contains(300_000));
+    }
+
+    @Test
+    void randomValuesMatchASortedSet() {
+        Random random = new Random(11);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Mostly in a few chunks so some of them turn into bitmaps
+            int value = random.nextInt(4) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(200_000);
+            bitmap.add(value);
+            expected.add(value);
+        }
+        assertMatches(expected, bitmap);
+
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        assertEquals(new ArrayList<>(expected), visited);
+    }
+
+    @Test
+    void negativeValuesAreRejected() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(Integer.MIN_VALUE));
+        assertTrue(bitmap.isEmpty());
+        assertFalse(bitmap.contains(-5));
+    }
+
+    private static void assertMatches(TreeSet<Integer> expected, RoaringBitmap bitmap) {
+        assertEquals(expected.size(), bitmap.getCardinality());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), bitmap.toArray());
+        for (int value : expected) {
+            assertTrue(bitmap.contains(value), "missing " + value);
+        }
+    }
+
+    private static TreeSet<Integer> reference(RoaringBitmap a, RoaringBitmap b, boolean intersect) {
+        TreeSet<Integer> left = new TreeSet<>();
+        a.forEach(left::add);
+        TreeSet<Integer> right = new TreeSet<>();
+        b.forEach(right::add);
+        if (intersect) {
+            left.retainAll(right);
+        } else {
+            left.addAll(right);
+        }
+        return left;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] values = new int[to - from];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.util;
+
+import org.example.model.CpvCode;
+import org.example.model.ProcurementItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @Test
+    void itemsRoundTripUntilTheSourceIsTouched() throws IOException {
+        File source = source("PAAP 2025");
+        withProperties(false, source, () -> {
+            List<ProcurementItem> items = List.of(item("Hartie copiator", 1500, "30192000"),
+                    item("Lucrari reparatii", 50_000, "45000000", "45400000"), item(null, 0));
+            SnapshotStore.saveProcurementItems(source, items);
+
+            List<ProcurementItem> loaded = SnapshotStore.loadProcurementItems(source);
+            assertNotNull(loaded);
+            assertEquals(items.size(), loaded.size());
+            for (int i = 0; i < items.size(); i++) {
+                assertEquals(items.get(i).getObjectName(), loaded.get(i).getObjectName());
+                assertEquals(items.get(i).getSource(), loaded.get(i).getSource());
+                assertEquals(items.get(i).getCpvCodes(), loaded.get(i).getCpvCodes());
+                assertEquals(items.get(i).getValueWithoutTVA(), loaded.get(i).getValueWithoutTVA());
+            }
+            assertNull(SnapshotStore.loadProcurementItems(source, true), "other kind");
+
+            // Without a stored hash a new modification time makes the snapshot stale
+            assertTrue(source.setLastModified(source.lastModified() + 10_000));
+            assertNull(SnapshotStore.loadProcurementItems(source));
+        });
+    }
+
+    @Test
+    void verifiedSnapshotsSurviveATouchButNotAnEdit() throws IOException {
+        File source = source("PAAP 2025");
+        withProperties(true, source, () -> {
+            SnapshotStore.saveProcurementItems(source, List.of(item("Toner", 200, "30125100")));
+
+            assertTrue(source.setLastModified(source.lastModified() + 10_000));
+            assertNotNull(SnapshotStore.loadProcurementItems(source));
+
+            long modified = source.lastModified();
+            Files.write(source.toPath(), "PAAP 2026".getBytes(StandardCharsets.UTF_8));
+            assertTrue(source.setLastModified(modified));
+            assertNull(SnapshotStore.loadProcurementItems(source));
+        });
+    }
+
+    @Test
+    void cpvCodesRoundTrip() throws IOException {
+        File source = source("Lista CPV");
+        withProperties(false, source, () -> {
+            Map<String, CpvCode> codes = new LinkedHashMap<>();
+            codes.put("03000000", new CpvCode("03000000-1", "Produse agricole", "Agricultural products"));
+            codes.put("45000000", new CpvCode("45000000-7", "Lucrari de constructii", "Construction work"));
+            SnapshotStore.saveCpvCodes(source, codes);
+
+            Map<String, CpvCode> loaded = SnapshotStore.loadCpvCodes(source);
+            assertNotNull(loaded);
+            assertEquals(codes.keySet(), loaded.keySet());
+            assertEquals("45000000-7", loaded.get("45000000").getCode());
+            assertEquals("Construction work", loaded.get("45000000").getEnglishName());
+        });
+    }
+
+    private interface Body {
+        void run() throws IOException;
+    }
+
+    private static void withProperties(boolean verifyHash, File source, Body body) throws IOException {
+        File dir = Files.createTempDirectory("snapshots").toFile();
+        String previousDir = System.getProperty(SnapshotStore.SNAPSHOT_DIR_PROPERTY);
+        String previousVerify = System.getProperty(SnapshotStore.VERIFY_HASH_PROPERTY);
+        System.setProperty(SnapshotStore.SNAPSHOT_DIR_PROPERTY, dir.getPath());
+        System.setProperty(SnapshotStore.VERIFY_HASH_PROPERTY, String.valueOf(verifyHash));
+        try {
+            body.run();
+        } finally {
+            restore(SnapshotStore.SNAPSHOT_DIR_PROPERTY, previousDir);
+            restore(SnapshotStore.VERIFY_HASH_PROPERTY, previousVerify);
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+            source.delete();
+        }
+    }
+
+    private static void restore(String property, String previous) {
+        if (previous == null) {
+            System.clearProperty(property);
+        } else {
+            System.setProperty(property, previous);
+        }
+    }
+
+    private static File source(String content) throws IOException {
+        File file = File.createTempFile("source", ".xlsx");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static ProcurementItem item(String name, double value, String... codes) {
+        ProcurementItem item = new ProcurementItem();
+        item.setObjectName(name);
+        item.setSource("Buget local");
+        item.setCpvCodes(new ArrayList<>(List.of(codes)));
+        item.setValueWithoutTVA(value);
+        item.setValueWithTVA(value * 1.19);
+        return item;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.util;
+
+import org.example.model.DataModel;
+import org.example.model.ProcurementItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void internedItemIsACopyUnlessAlreadyShared() {
+        StringDictionary strings = new StringDictionary();
+        ProcurementItem first = item("Hartie copiator", "Buget local", "30192000");
+        assertSame(first, strings.intern(first), "the first strings seen become the shared ones");
+
+        ProcurementItem second = item("Toner", "Buget local", "30192000");
+        String source = second.getSource();
+        List<String> codes = second.getCpvCodes();
+        ProcurementItem interned = strings.intern(second);
+
+        assertNotSame(second, interned);
+        assertSame(source, second.getSource(), "the original is not written");
+        assertSame(codes, second.getCpvCodes());
+        assertSame(first.getSource(), interned.getSource());
+        assertSame(first.getCpvCodes().get(0), interned.getCpvCodes().get(0));
+        assertEquals("Toner", interned.getObjectName());
+        assertEquals(second.getValueWithoutTVA(), interned.getValueWithoutTVA());
+        assertEquals(second.getValueWithTVA(), interned.getValueWithTVA());
+        assertEquals(second.getInitiationDate(), interned.getInitiationDate());
+        assertSame(interned, strings.intern(interned));
+    }
+
+    @Test
+    void publishedItemsAreNotWrittenByAnotherModel() {
+        DataModel model = new DataModel();
+        model.setProcurementItems(List.of(item("Hartie copiator", "Buget local", "30192000")));
+        ProcurementItem published = model.getProcurementItems().get(0);
+        String source = published.getSource();
+        List<String> codes = published.getCpvCodes();
+
+        // A second model whose dictionary already holds other instances of the same strings
+        DataModel other = new DataModel();
+        other.setProcurementItems(List.of(item("Toner", "Buget local", "30192000")));
+        other.setProcurementItems(model.getProcurementItems());
+
+        assertSame(source, published.getSource());
+        assertSame(codes, published.getCpvCodes());
+        ProcurementItem copy = other.getProcurementItems().get(0);
+        assertNotSame(published, copy);
+        assertSame(other.getStringDictionary().intern("Buget local"), copy.getSource());
+        assertEquals("Hartie copiator", copy.getObjectName());
+    }
+
+    private static ProcurementItem item(String name, String source, String code) {
+        ProcurementItem item = new ProcurementItem();
+        item.setObjectName(name);
+        item.setCpvField(new String(code + " - Articole"));
+        item.setSource(new String(source));
+        item.setInitiationDate(new String("01/03/2025"));
+        item.setCompletionDate(new String("31/03/2025"));
+        item.setCpvCodes(new ArrayList<>(List.of(new String(code))));
+        item.setValueWithoutTVA(100);
+        item.setValueWithTVA(119);
+        return item;
+    }
+}
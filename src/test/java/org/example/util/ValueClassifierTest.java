@@ -0,0 +1,68 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueClassifierTest {
+
+    @Test
+    void romanianThousandsAndDecimalComma() {
+        assertEquals(ValueClassifier.DECIMAL_COMMA, ValueClassifier.classify("1.234.567,89"));
+        assertEquals(1234567.89, ValueClassifier.parseNumber("1.234.567,89"));
+        assertEquals(-1234567.89, ValueClassifier.parseNumber(" -1.234.567,89 "));
+    }
+
+    @Test
+    void thousandsGroupsWithoutDecimals() {
+        assertEquals(ValueClassifier.DECIMAL_COMMA, ValueClassifier.classify("1.234.567"));
+        assertEquals(1234567.0, ValueClassifier.parseNumber("1.234.567"));
+    }
+
+    @Test
+    void singleDotIsADecimalPoint() {
+        assertEquals(ValueClassifier.NUMERIC, ValueClassifier.classify("1.234"));
+        assertEquals(1.234, ValueClassifier.parseNumber("1.234"));
+        assertEquals(1234.5, ValueClassifier.parseNumber("1234,5"));
+    }
+
+    @Test
+    void mantissaBeyondTwoToThe53IsRoundedLikeParseDouble() {
+        String[] values = {
+                "9007199254740993",
+                "9007199254740993.5",
+                "123456789012345678901234567890",
+                "0.12345678901234567890123",
+                "-98765432109876543210.123"
+        };
+        for (String value : values) {
+            assertEquals(ValueClassifier.NUMERIC, ValueClassifier.classify(value), value);
+            assertEquals(Double.parseDouble(value), ValueClassifier.parseNumber(value), value);
+        }
+    }
+
+    @Test
+    void longMantissaWithDecimalComma() {
+        assertEquals(ValueClassifier.DECIMAL_COMMA, ValueClassifier.classify("9.007.199.254.740.993,25"));
+        assertEquals(Double.parseDouble("9007199254740993.25"), ValueClassifier.parseNumber("9.007.199.254.740.993,25"));
+        assertEquals(Double.parseDouble("12345678901234567890.5"), ValueClassifier.parseNumber("12345678901234567890,5"));
+    }
+
+    @Test
+    void exponents() {
+        assertEquals(1.5e10, ValueClassifier.parseNumber("1.5e10"));
+        assertEquals(Double.parseDouble("2E-30"), ValueClassifier.parseNumber("2E-30"));
+        assertEquals(ValueClassifier.TEXT, ValueClassifier.classify("1e"));
+    }
+
+    @Test
+    void datesTextAndEmpty() {
+        assertEquals(ValueClassifier.DATE, ValueClassifier.classify("15/03/2024"));
+        assertEquals(ValueClassifier.DATE, ValueClassifier.classify("2024-03-15"));
+        assertEquals(ValueClassifier.TEXT, ValueClassifier.classify("Servicii IT"));
+        assertEquals(ValueClassifier.TEXT, ValueClassifier.classify("Lot 12"));
+        assertEquals(ValueClassifier.EMPTY, ValueClassifier.classify("   "));
+        assertEquals(ValueClassifier.EMPTY, ValueClassifier.classify(null));
+        assertTrue(Double.isNaN(ValueClassifier.parseNumber("Servicii IT")));
+    }
+}